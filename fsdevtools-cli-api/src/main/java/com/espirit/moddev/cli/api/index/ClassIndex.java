@@ -0,0 +1,52 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.index;
+
+/**
+ * Constants describing the compile time class index written by {@link ClassIndexProcessor}.
+ * An index file is a plain UTF-8 text file with one binary class name per line. Empty lines
+ * and lines starting with {@link #COMMENT_PREFIX} are ignored.
+ *
+ * @author e-Spirit AG
+ */
+public final class ClassIndex {
+
+    /**
+     * Resource path of the index that lists all non-abstract {@link com.espirit.moddev.cli.api.command.Command} implementations.
+     */
+    public static final String COMMANDS_RESOURCE = "META-INF/fsdevtools/commands";
+
+    /**
+     * Resource path of the index that lists all classes annotated with airline's group annotation.
+     */
+    public static final String GROUPS_RESOURCE = "META-INF/fsdevtools/groups";
+
+    /**
+     * Prefix of comment lines in an index file.
+     */
+    public static final String COMMENT_PREFIX = "#";
+
+    private ClassIndex() {
+        // Not used
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.index;
+
+import com.espirit.moddev.cli.api.command.Command;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Annotation processor that writes an index of all command and group classes of a compilation unit set to
+ * {@link ClassIndex#COMMANDS_RESOURCE} and {@link ClassIndex#GROUPS_RESOURCE}. The cli application reads
+ * these indexes at startup instead of scanning the whole classpath.
+ * <p>
+ * The processor is registered as a service of this library, so every module that compiles against
+ * the cli api gets its index without further configuration. It never claims any annotation.
+ *
+ * @author e-Spirit AG
+ */
+@SupportedAnnotationTypes("*")
+public class ClassIndexProcessor extends AbstractProcessor {
+
+    static final String GROUP_ANNOTATION = "com.github.rvesse.airline.annotations.Group";
+
+    private final Set<String> commandClasses = new TreeSet<>();
+    private final Set<String> groupClasses = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            mergeExistingIndex(ClassIndex.COMMANDS_RESOURCE, commandClasses, this::isCommand);
+            mergeExistingIndex(ClassIndex.GROUPS_RESOURCE, groupClasses, this::isGroup);
+            writeIndex(ClassIndex.COMMANDS_RESOURCE, commandClasses);
+            writeIndex(ClassIndex.GROUPS_RESOURCE, groupClasses);
+        } else {
+            for (Element element : roundEnv.getRootElements()) {
+                collect(element);
+            }
+        }
+        return false;
+    }
+
+    private void collect(Element element) {
+        if (element instanceof TypeElement) {
+            final TypeElement typeElement = (TypeElement) element;
+            final String binaryName = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+            if (isCommand(typeElement)) {
+                commandClasses.add(binaryName);
+            }
+            if (isGroup(typeElement)) {
+                groupClasses.add(binaryName);
+            }
+            for (Element enclosed : typeElement.getEnclosedElements()) {
+                collect(enclosed);
+            }
+        }
+    }
+
+    private boolean isCommand(TypeElement typeElement) {
+        if (typeElement.getKind() != ElementKind.CLASS || typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        final TypeElement commandElement = processingEnv.getElementUtils().getTypeElement(Command.class.getCanonicalName());
+        if (commandElement == null) {
+            return false;
+        }
+        final TypeMirror commandType = processingEnv.getTypeUtils().erasure(commandElement.asType());
+        final TypeMirror candidateType = processingEnv.getTypeUtils().erasure(typeElement.asType());
+        return processingEnv.getTypeUtils().isAssignable(candidateType, commandType);
+    }
+
+    private boolean isGroup(TypeElement typeElement) {
+        for (AnnotationMirror annotationMirror : typeElement.getAnnotationMirrors()) {
+            final Element annotationType = annotationMirror.getAnnotationType().asElement();
+            if (annotationType instanceof TypeElement
+                && GROUP_ANNOTATION.contentEquals(((TypeElement) annotationType).getQualifiedName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Keeps entries of an index from a previous compilation, so incremental builds that only recompile some
+     * classes don't lose the other entries. Entries whose class vanished or no longer qualifies are dropped.
+     */
+    private void mergeExistingIndex(String resourceName, Set<String> target, Predicate<TypeElement> stillQualifies) {
+        try {
+            final FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    final String className = line.trim();
+                    if (className.isEmpty() || className.startsWith(ClassIndex.COMMENT_PREFIX)) {
+                        continue;
+                    }
+                    final TypeElement typeElement = processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'));
+                    if (typeElement != null && stillQualifies.test(typeElement)) {
+                        target.add(className);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // No index from a previous compilation available - nothing to merge
+        }
+    }
+
+    private void writeIndex(String resourceName, Set<String> classNames) {
+        try {
+            final FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write(ClassIndex.COMMENT_PREFIX + " Generated by " + getClass().getName() + "\n");
+                for (String className : classNames) {
+                    writer.write(className);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not write class index " + resourceName + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli;
+
+import com.espirit.moddev.cli.api.CliContext;
+import com.espirit.moddev.cli.api.FsConnectionMode;
+import com.espirit.moddev.cli.api.configuration.Config;
+
+import de.espirit.firstspirit.access.Connection;
+import de.espirit.firstspirit.common.MaximumNumberOfSessionsExceededException;
+import de.espirit.firstspirit.server.authentication.AuthenticationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * {@link CliContextProvider} that keeps contexts and their FirstSpirit connections open after a command execution,
+ * so that later commands with the same connection and project configuration skip connecting and the project lookup.
+ * Connections of commands without context are shared by all commands with the same server and credentials.
+ * Contexts and connections that have been disconnected are replaced. If more than {@link #MAX_CONTEXTS} configurations
+ * are in use, the least recently used context or connection is closed.
+ * <p>
+ * The provider itself is thread-safe, but it hands out the same context to every command with the same configuration.
+ * It is therefore meant for commands that are executed one after another, like in batch or daemon mode.
+ *
+ * @author e-Spirit AG
+ */
+public class CachingCliContextProvider implements CliContextProvider, AutoCloseable {
+
+    /**
+     * Maximum number of contexts that are kept open. The same limit applies to connections of commands without context.
+     */
+    public static final int MAX_CONTEXTS = 8;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingCliContextProvider.class);
+
+    private final Map<ContextKey, CliContext> contexts = new LinkedHashMap<>(MAX_CONTEXTS, 0.75f, true);
+    private final Map<ContextKey, Connection> connections = new LinkedHashMap<>(MAX_CONTEXTS, 0.75f, true);
+
+    @Override
+    public synchronized CliContext acquire(Config config) {
+        final ContextKey key = new ContextKey(config, true);
+        CliContext context = contexts.get(key);
+        if (context != null && !isConnected(context)) {
+            LOGGER.info("Cached connection to {} has been lost, reconnecting...", config.getHost());
+            contexts.remove(key);
+            closeQuietly(context);
+            context = null;
+        }
+        if (context == null) {
+            context = createContext(config);
+            contexts.put(key, context);
+            evictExceeding(contexts).forEach(CachingCliContextProvider::closeQuietly);
+        } else {
+            LOGGER.debug("Reusing cached context for {}", key);
+        }
+        return context;
+    }
+
+    @Override
+    public void release(CliContext context) {
+        // contexts are kept open for subsequent commands
+    }
+
+    @Override
+    public synchronized Connection acquireConnection(Config config, Supplier<Connection> connectionFactory)
+        throws IOException, AuthenticationException, MaximumNumberOfSessionsExceededException {
+        final ContextKey key = new ContextKey(config, false);
+        Connection connection = connections.get(key);
+        if (connection != null && !connection.isConnected()) {
+            LOGGER.info("Cached connection to {} has been lost, reconnecting...", config.getHost());
+            connections.remove(key);
+            closeQuietly(connection);
+            connection = null;
+        }
+        if (connection == null) {
+            connection = CliContextProvider.super.acquireConnection(config, connectionFactory);
+            connections.put(key, connection);
+            evictExceeding(connections).forEach(CachingCliContextProvider::closeQuietly);
+        } else {
+            LOGGER.debug("Reusing cached connection for {}", key);
+        }
+        return connection;
+    }
+
+    @Override
+    public void releaseConnection(Connection connection) {
+        // connections are kept open for subsequent commands
+    }
+
+    /**
+     * Get the number of contexts that are currently kept open.
+     *
+     * @return the number of cached contexts
+     */
+    public synchronized int size() {
+        return contexts.size();
+    }
+
+    /**
+     * Get the number of connections of commands without context that are currently kept open.
+     *
+     * @return the number of cached connections
+     */
+    public synchronized int connectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Closes all cached contexts and connections.
+     */
+    @Override
+    public synchronized void close() {
+        contexts.values().forEach(CachingCliContextProvider::closeQuietly);
+        contexts.clear();
+        connections.values().forEach(CachingCliContextProvider::closeQuietly);
+        connections.clear();
+    }
+
+    protected CliContext createContext(Config config) {
+        return new CliContextImpl(config);
+    }
+
+    private static <T> List<T> evictExceeding(Map<ContextKey, T> cache) {
+        final List<T> evicted = new ArrayList<>();
+        final Iterator<T> iterator = cache.values().iterator();
+        while (cache.size() > MAX_CONTEXTS && iterator.hasNext()) {
+            evicted.add(iterator.next());
+            iterator.remove();
+        }
+        return evicted;
+    }
+
+    private static boolean isConnected(CliContext context) {
+        if (context instanceof CliContextImpl && !((CliContextImpl) context).isConnectionOpened()) {
+            // lazy context that never needed its connection, so it can't have lost it
+            return true;
+        }
+        final Connection connection = context.getConnection();
+        return connection != null && connection.isConnected();
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            LOGGER.error("Closing context or connection caused an exception!", e);
+        }
+    }
+
+    /**
+     * Identifies contexts that can be shared between commands: same server, credentials and project settings.
+     * Keys of connections for commands without context ignore the project settings.
+     */
+    static final class ContextKey {
+
+        private final String host;
+        private final Integer port;
+        private final FsConnectionMode connectionMode;
+        private final String user;
+        private final String password;
+        private final String project;
+        private final boolean creatingProjectIfMissing;
+        private final boolean activateProjectIfDeactivated;
+
+        ContextKey(Config config, boolean withProject) {
+            host = config.getHost();
+            port = config.getPort();
+            connectionMode = config.getConnectionMode();
+            user = config.getUser();
+            password = config.getPassword();
+            project = withProject ? config.getProject() : null;
+            creatingProjectIfMissing = withProject && config.isCreatingProjectIfMissing();
+            activateProjectIfDeactivated = withProject && config.isActivateProjectIfDeactivated();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final ContextKey that = (ContextKey) o;
+            return creatingProjectIfMissing == that.creatingProjectIfMissing
+                   && activateProjectIfDeactivated == that.activateProjectIfDeactivated
+                   && Objects.equals(host, that.host)
+                   && Objects.equals(port, that.port)
+                   && connectionMode == that.connectionMode
+                   && Objects.equals(user, that.user)
+                   && Objects.equals(password, that.password)
+                   && Objects.equals(project, that.project);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(host, port, connectionMode, user, password, project, creatingProjectIfMissing, activateProjectIfDeactivated);
+        }
+
+        @Override
+        public String toString() {
+            // never include the password
+            return user + "@" + host + ":" + port + " (" + connectionMode + "), project '" + project + "'";
+        }
+    }
+}
@@ -22,14 +22,19 @@
 
 package com.espirit.moddev.cli;
 
+import com.espirit.moddev.cli.PhaseTimings.Measurement;
+import com.espirit.moddev.cli.PhaseTimings.Phase;
 import com.espirit.moddev.cli.api.CliContext;
 import com.espirit.moddev.cli.api.command.Command;
 import com.espirit.moddev.cli.api.configuration.Config;
 import com.espirit.moddev.cli.api.result.Result;
 import com.espirit.moddev.cli.commands.help.DefaultCommand;
 import com.espirit.moddev.cli.commands.help.HelpCommand;
+import com.espirit.moddev.cli.configuration.GlobalConfig;
 import com.espirit.moddev.cli.exception.FsLoggingBridge;
 import com.espirit.moddev.cli.exception.SystemExitHandler;
+import com.espirit.moddev.cli.fanout.HostFanOut;
+import com.espirit.moddev.cli.fanout.ProjectFanOut;
 import com.espirit.moddev.cli.reflection.CommandUtils;
 import com.espirit.moddev.cli.reflection.GroupUtils;
 import com.github.rvesse.airline.builder.CliBuilder;
@@ -41,10 +46,13 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 
@@ -57,23 +65,51 @@ import java.util.jar.JarFile;
  * method of this class (which is normally used from command line) uses a handler to
  * call System.exit() with an appropriate error code in case of regular termination or
  * in case of an exception.
+ * <p>
+ * Embedding: a cli instance is immutable after construction and may be reused by several threads.
+ * {@link #executeCommand(Command)} can be called concurrently, as long as every call gets its own command
+ * instance, for example from {@link #parseCommandLine(String[])}. The command and group classes are loaded
+ * once per jvm and never change afterwards. FirstSpirit connections are created by {@link ConnectionBuilder},
+ * which guards the global connection settings of FirstSpirit, so concurrent commands may target different
+ * servers and connection modes. The {@link CliContextProvider} given to the constructor must be thread-safe
+ * as well, which is true for {@link CliContextProvider#DEFAULT}.
  *
  * @author e-Spirit AG
  */
 public final class Cli {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Cli.class);
-    private static final Set<Class<? extends Command>> commandClasses = CommandUtils.scanForCommandClasses();
-    private static final Set<Class<?>> groupClasses = GroupUtils.scanForGroupClasses();
+    private static final long classpathScanStart = System.nanoTime();
+    private static final Set<Class<? extends Command>> commandClasses = CommandUtils.loadCommandClasses();
+    private static final Set<Class<?>> groupClasses = GroupUtils.loadGroupClasses();
+    private static final long classpathScanNanos = System.nanoTime() - classpathScanStart;
+
+    private static final AtomicBoolean fsLoggingInitialized = new AtomicBoolean();
+    private static final AtomicBoolean classpathScanRecorded = new AtomicBoolean();
 
     private final Properties buildProperties;
     private final Properties gitProperties;
+    private final CliContextProvider contextProvider;
 
 
     /**
      * Instantiates a new Cli.
      */
     public Cli() {
+        this(CliContextProvider.DEFAULT);
+    }
+
+    /**
+     * Instantiates a new Cli that obtains the contexts for command executions from the given provider.
+     *
+     * @param contextProvider the provider for command contexts
+     * @throws IllegalArgumentException if contextProvider is null
+     */
+    public Cli(final CliContextProvider contextProvider) {
+        if (contextProvider == null) {
+            throw new IllegalArgumentException("Context provider is null!");
+        }
+        this.contextProvider = contextProvider;
         buildProperties = new Properties();
         gitProperties = new Properties();
         try (InputStream resourceAsStream = ClassLoader.getSystemClassLoader().getResourceAsStream("CliBuild.properties")) {
@@ -116,25 +152,35 @@ public final class Cli {
      */
     @SuppressWarnings("squid:S1162")
     public void execute(final String[] args) throws Exception {
-        setLoggingSystemProperties();
-
+        final PhaseTimings timings = new PhaseTimings();
+        PhaseTimings.setCurrent(timings);
         try {
-            logVersionsAndGitHash();
-        } catch (IOException e) {
-            LOGGER.error("Error with version and/or git information, aborting operation...", e);
-            return;
-        }
+            try (Measurement ignored = PhaseTimings.measure(Phase.LOGGING_INIT)) {
+                setLoggingSystemProperties();
+            }
+            if (classpathScanRecorded.compareAndSet(false, true)) {
+                timings.record(Phase.CLASSPATH_SCAN, classpathScanNanos);
+            }
 
-        final CliBuilder<Command> builder = getDefaultCliBuilder();
-        final Command command = parseCommandLine(args, builder);
-        StopWatch stopwatch = StopWatch.createStarted();
-        try {
-            executeCommand(command);
-        } catch (Exception e) {
-            throw e;
+            try {
+                logVersionsAndGitHash();
+            } catch (IOException e) {
+                LOGGER.error("Error with version and/or git information, aborting operation...", e);
+                return;
+            }
+
+            final Command command = parseCommandLine(args);
+            StopWatch stopwatch = StopWatch.createStarted();
+            try {
+                executeCommand(command);
+            } catch (Exception e) {
+                throw e;
+            } finally {
+                stopwatch.stop();
+                logExecutionTime(stopwatch);
+            }
         } finally {
-            stopwatch.stop();
-            logExecutionTime(stopwatch);
+            PhaseTimings.setCurrent(null);
         }
     }
 
@@ -182,6 +228,24 @@ public final class Cli {
         return builder;
     }
 
+    /**
+     * Get a {@link com.github.rvesse.airline.builder.CliBuilder} for this cli application that is able to parse the given
+     * arguments. Only the groups and commands named by the arguments are initialized, which is much cheaper than initializing
+     * all of them. If the arguments don't name any known group or command, all commands and groups are initialized, as for
+     * {@link #getDefaultCliBuilder()}.
+     *
+     * @param args the arguments that are going to be parsed with the builder
+     * @return a {@link com.github.rvesse.airline.builder.CliBuilder} for the given arguments
+     */
+    public static CliBuilder<Command> getCliBuilder(String[] args) {
+        final CliBuilder<Command> builder = com.github.rvesse.airline.Cli.<Command>builder(CliConstants.FS_CLI.value());
+        addHelpCommand(builder);
+        if (!CliBuilderHelper.buildTargetedCommandGroups(builder, args)) {
+            CliBuilderHelper.buildCommandGroups(builder);
+        }
+        return builder;
+    }
+
     private static void initializeAllCommandsAndGroups(CliBuilder<Command> builder) {
         addHelpCommand(builder);
         CliBuilderHelper.buildCommandGroups(builder);
@@ -197,36 +261,126 @@ public final class Cli {
             System.setProperty(CliConstants.LOG4J_DEBUG.value(), System.getenv(CliConstants.LOG4J_DEBUG.value()));
         }
 
-        // Enable full FS logging
-        Logging.init(new FsLoggingBridge());
-        Logging.logDebug("FS-Logging initialized!", Cli.class);
+        // Enable full FS logging - only once per jvm, since long running processes execute many commands
+        if (fsLoggingInitialized.compareAndSet(false, true)) {
+            Logging.init(new FsLoggingBridge());
+            Logging.logDebug("FS-Logging initialized!", Cli.class);
+        }
     }
 
     /**
      * Executes an already instantiated command. First, the command
      * is used as a configuration object for obtaining a FirstSpirit connection.
-     * Second, the command is executed. Afterwards, the context is closed.
+     * Second, the command is executed. Afterwards, the context is released
+     * to the {@link CliContextProvider}, which closes it by default.
      *
      * Exceptions occurring during context creation or command execution
      * are propagated to registered handlers.
      *
+     * The time spent in the execution phases is recorded to the {@link PhaseTimings} of the current thread.
+     * If there are none, they are installed for this execution. The outermost execution reports the timings
+     * if the command requests it, see {@link GlobalConfig#isTimings()} and {@link GlobalConfig#getTimingsFile()}.
+     * If the command requests {@link GlobalConfig#isProfileRemote()}, its remote api calls are recorded by a
+     * {@link RemoteProfiler} and reported afterwards.
+     * Commands that select several hosts are executed once per host, see {@link HostFanOut}, commands that select
+     * several projects are executed once per project, see {@link ProjectFanOut}.
+     *
      * @param command the command instance to execute
      */
     @SuppressWarnings("squid:S1162")
     public void executeCommand(Command<Result> command) throws Exception {
+        final boolean ownsTimings = PhaseTimings.getCurrent() == null;
+        if (ownsTimings) {
+            PhaseTimings.setCurrent(new PhaseTimings());
+        }
+        final PhaseTimings timings = PhaseTimings.getCurrent();
+        timings.enterCommand();
+        final boolean ownsProfiler = RemoteProfiler.getCurrent() == null
+                                     && command instanceof GlobalConfig && ((GlobalConfig) command).isProfileRemote();
+        if (ownsProfiler) {
+            RemoteProfiler.setCurrent(new RemoteProfiler());
+        }
+        final RemoteProfiler profiler = RemoteProfiler.getCurrent();
+        try {
+            if (HostFanOut.isRequested(command)) {
+                executeFanOut(command, "several hosts", () -> new HostFanOut(contextProvider).execute(command));
+            } else if (ProjectFanOut.isRequested(command)) {
+                executeFanOut(command, "several projects", () -> new ProjectFanOut(contextProvider).execute(command));
+            } else {
+                executeCommandAndReleaseContext(command);
+            }
+        } finally {
+            if (timings.exitCommand()) {
+                reportTimings(command, timings);
+            }
+            if (ownsProfiler) {
+                LOGGER.info(profiler.format());
+                RemoteProfiler.setCurrent(null);
+            }
+            if (ownsTimings) {
+                PhaseTimings.setCurrent(null);
+            }
+        }
+    }
+
+    @SuppressWarnings("squid:S1162")
+    private void executeCommandAndReleaseContext(Command<Result> command) throws Exception {
         LOGGER.info("Executing " + command.getClass().getSimpleName());
         CliContext context = null;
+        if (command instanceof GlobalConfig) {
+            ((GlobalConfig) command).setContextProvider(contextProvider);
+        }
         try {
             context = getCliContextOrNull(command);
-            Result result = command.call();
-            logResult(result);
+            Result result;
+            try (Measurement ignored = PhaseTimings.measure(Phase.COMMAND)) {
+                result = command.call();
+            }
+            try (Measurement ignored = PhaseTimings.measure(Phase.RESULT_LOG)) {
+                logResult(result);
+            }
         } catch (ClassCastException e) {
             LOGGER.trace("Cannot perform a cast - most likely because the command's call method returns Object as a result, instead of Result.", e);
         } catch (Exception e) {
             LOGGER.error("Exception occurred during context initialization or command execution", e);
             throw e;
         } finally {
-            closeContext(context);
+            if (context != null) {
+                try (Measurement ignored = PhaseTimings.measure(Phase.CONTEXT_CLOSE)) {
+                    contextProvider.release(context);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("squid:S1162")
+    private static void executeFanOut(Command<Result> command, String targets, Supplier<Result> fanOut) throws Exception {
+        LOGGER.info("Executing " + command.getClass().getSimpleName() + " for " + targets);
+        final Result result;
+        try (Measurement ignored = PhaseTimings.measure(Phase.COMMAND)) {
+            result = fanOut.get();
+        }
+        try (Measurement ignored = PhaseTimings.measure(Phase.RESULT_LOG)) {
+            logResult(result);
+        }
+    }
+
+    private static void reportTimings(Command<Result> command, PhaseTimings timings) {
+        if (!(command instanceof GlobalConfig)) {
+            return;
+        }
+        final GlobalConfig config = (GlobalConfig) command;
+        if (config.isTimings()) {
+            LOGGER.info(timings.format());
+        }
+        final String timingsFile = config.getTimingsFile();
+        if (timingsFile != null && !timingsFile.isEmpty()) {
+            try {
+                timings.writeJson(Paths.get(timingsFile));
+                LOGGER.info("Timings written to {}", timingsFile);
+            } catch (IOException e) {
+                LOGGER.error("Writing timings to " + timingsFile + " failed", e);
+            }
         }
     }
 
@@ -252,12 +406,12 @@ public final class Cli {
         }
     }
 
-    private static CliContext getCliContextOrNull(Command<Result> command) {
+    private CliContext getCliContextOrNull(Command<Result> command) {
         CliContext context = null;
         if (command instanceof Config) {
             Config commandAsConfig = (Config) command;
             if (commandAsConfig.needsContext()) {
-                context = new CliContextImpl(commandAsConfig);
+                context = contextProvider.acquire(commandAsConfig);
                 commandAsConfig.setContext(context);
             }
         }
@@ -270,13 +424,20 @@ public final class Cli {
     }
 
     /**
-     * Parses an array of arguments with the default cli builder.
+     * Parses an array of arguments with a cli builder that knows the groups and commands named by the arguments.
      *
      * @param args the arguments that should be parsed as a command line input
      * @return a generic command
+     * @see #getCliBuilder(String[])
      */
     public static Command<Result> parseCommandLine(String[] args) {
-        return parseCommandLine(args, getDefaultCliBuilder());
+        final CliBuilder<Command> builder;
+        try (Measurement ignored = PhaseTimings.measure(Phase.PARSER_BUILD)) {
+            builder = getCliBuilder(args);
+        }
+        try (Measurement ignored = PhaseTimings.measure(Phase.ARGUMENT_PARSE)) {
+            return parseCommandLine(args, builder);
+        }
     }
 
     /**
@@ -288,7 +449,11 @@ public final class Cli {
      */
     public static Command parseCommandLine(String[] args, CliBuilder<Command> builder) {
         final com.github.rvesse.airline.Cli<Command> cliParser = builder.build();
-        return cliParser.parse(args);
+        final Command command = cliParser.parse(args);
+        if (command instanceof GlobalConfig) {
+            ((GlobalConfig) command).setCommandLine(args);
+        }
+        return command;
     }
 
 
@@ -32,16 +32,24 @@ import com.github.rvesse.airline.builder.GroupBuilder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Helper class for configuration retrieval in context of a cli application.
  */
 public final class CliBuilderHelper {
 
+    /**
+     * Command classes whose airline description was already replaced. Replacing mutates the shared annotation instance,
+     * so it is done only once per class and never while other threads build a cli.
+     */
+    private static final Set<Class<?>> describedCommands = ConcurrentHashMap.newKeySet();
+
     private CliBuilderHelper() {}
 
     //TODO: Test these methods
@@ -107,10 +115,80 @@ public final class CliBuilderHelper {
                                            Cli.getGroupClasses());
 
         for (Map.Entry<GroupWrapper, List<Class<Command>>> entry : allGroups.entrySet()) {
+            for (Class<Command> command : entry.getValue()) {
+                replaceDescriptionFromAnnotation(command);
+            }
+        }
+        addCommandGroupsToBuilder(builder, allGroups);
+    }
+
+    /**
+     * Initialize only the groups and commands in the given {@link com.github.rvesse.airline.builder.CliBuilder} that are
+     * named by the given command line arguments. Options are skipped, every other argument that equals the name of a group
+     * or of a command without group selects it. For a selected group, only the commands named by an argument and the group's
+     * default command are added. Descriptions are not computed, since they are only needed for help output.
+     * <p>
+     * If there are arguments, but none of them names a group, a command without group or the help command, nothing is added
+     * and false is returned. The caller should use {@link #buildCommandGroups(CliBuilder)} then, so that unknown commands are
+     * reported the same way as before.
+     *
+     * @param builder {@link com.github.rvesse.airline.builder.CliBuilder} to add the groups to
+     * @param args    the command line arguments that are going to be parsed with the builder
+     * @return false if the arguments don't select any group or command, true otherwise
+     */
+    public static boolean buildTargetedCommandGroups(CliBuilder<Command> builder, String[] args) {
+        final Set<String> tokens = new HashSet<>();
+        for (String arg : args) {
+            if (arg != null && !arg.isEmpty() && !arg.startsWith("-")) {
+                tokens.add(arg);
+            }
+        }
+        if (tokens.isEmpty()) {
+            return true;
+        }
+
+        Map<GroupWrapper, List<Class<Command>>> allGroups =
+            gatherGroupsFromCommandClasses(Cli.getCommandClasses(),
+                                           Cli.getGroupClasses());
+        Map<GroupWrapper, List<Class<Command>>> targetGroups = new HashMap<>();
+
+        for (Map.Entry<GroupWrapper, List<Class<Command>>> entry : allGroups.entrySet()) {
+            GroupWrapper groupWrapper = entry.getKey();
+            if (groupWrapper.equals(GroupWrapper.NO_GROUP) || tokens.contains(groupWrapper.name)) {
+                List<Class<Command>> targetCommands = new ArrayList<>();
+                List<Class<Command>> commandsInGroup = entry.getValue();
+                for (int i = 0; i < commandsInGroup.size(); i++) {
+                    Class<Command> command = commandsInGroup.get(i);
+                    boolean implicitDefaultCommand = i == 0 && !groupWrapper.hasDefaultCommand();
+                    boolean keepAsDefaultCommand = !groupWrapper.equals(GroupWrapper.NO_GROUP)
+                                                   && (implicitDefaultCommand || command.equals(groupWrapper.defaultCommand));
+                    if (keepAsDefaultCommand || tokens.contains(getCommandName(command))) {
+                        targetCommands.add(command);
+                    }
+                }
+                if (!targetCommands.isEmpty() || !groupWrapper.equals(GroupWrapper.NO_GROUP)) {
+                    targetGroups.put(groupWrapper, targetCommands);
+                }
+            }
+        }
+
+        if (targetGroups.isEmpty() && !tokens.contains(HelpCommand.COMMAND_NAME)) {
+            return false;
+        }
+        addCommandGroupsToBuilder(builder, targetGroups);
+        return true;
+    }
+
+    private static String getCommandName(Class<Command> command) {
+        com.github.rvesse.airline.annotations.Command annotation = command.getAnnotation(com.github.rvesse.airline.annotations.Command.class);
+        return annotation != null ? annotation.name() : "";
+    }
+
+    private static void addCommandGroupsToBuilder(CliBuilder<Command> builder, Map<GroupWrapper, List<Class<Command>>> groups) {
+        for (Map.Entry<GroupWrapper, List<Class<Command>>> entry : groups.entrySet()) {
             if (entry.getKey().equals(GroupWrapper.NO_GROUP)) {
                 List<Class<Command>> commandsInGroup = entry.getValue();
                 for (Class<Command> command : commandsInGroup) {
-                    replaceDescriptionFromAnnotation(command);
                     builder.withCommand(command);
                 }
 
@@ -124,7 +202,6 @@ public final class CliBuilderHelper {
                 }
                 List<Class<Command>> commandsInGroup = entry.getValue();
                 for (Class<Command> command : commandsInGroup) {
-                    replaceDescriptionFromAnnotation(command);
                     group.withCommand(command);
                 }
                 if (!commandsInGroup.isEmpty() && !entry.getKey().hasDefaultCommand()) {
@@ -135,6 +212,19 @@ public final class CliBuilderHelper {
     }
 
     private static void replaceDescriptionFromAnnotation(Class<Command> command) {
+        if (describedCommands.contains(command)) {
+            return;
+        }
+        synchronized (describedCommands) {
+            if (describedCommands.contains(command)) {
+                return;
+            }
+            changeDescription(command);
+            describedCommands.add(command);
+        }
+    }
+
+    private static void changeDescription(Class<Command> command) {
         com.github.rvesse.airline.annotations.Command annotation = command.getAnnotation(com.github.rvesse.airline.annotations.Command.class);
         String description = ReflectionUtils.getDescriptionFromClass(command);
         if (!description.isEmpty()) {
@@ -144,7 +234,7 @@ public final class CliBuilderHelper {
 
     /**
      * Adds all available commands (annotated with {@link Command}) as callables. The {@link HelpCommand} is not included, since it clashes with the
-     * builtin help command from airline.
+     * builtin help command from airline. Dynamic command descriptions are computed here, since the builder is used for help output.
      *
      * @param builder the cli builder to add all commands to
      */
@@ -173,6 +263,7 @@ public final class CliBuilderHelper {
             if (entry.getKey().equals(GroupWrapper.NO_GROUP)) {
                 List<Class<Command>> commandsInGroup = entry.getValue();
                 for (Class<Command> command : commandsInGroup) {
+                    replaceDescriptionFromAnnotation(command);
                     builder.withCommand(command);
                 }
             } else {
@@ -185,6 +276,7 @@ public final class CliBuilderHelper {
                 }
                 List<Class<Command>> commandsInGroup = entry.getValue();
                 for (Class<Command> command : commandsInGroup) {
+                    replaceDescriptionFromAnnotation(command);
                     group.withCommand(command);
                 }
                 if (!commandsInGroup.isEmpty() && !entry.getKey().hasDefaultCommand()) {
@@ -137,7 +137,12 @@ public enum CliConstants {
     /**
      * Stderr appender cli constant.
      */
-    STDERR_APPENDER("stderr");
+    STDERR_APPENDER("stderr"),
+
+    /**
+     * Default number of projects a command is executed for concurrently.
+     */
+    DEFAULT_FAN_OUT_WORKERS("4");
 
     private final String configValue;
 
@@ -22,6 +22,8 @@
 
 package com.espirit.moddev.cli;
 
+import com.espirit.moddev.cli.PhaseTimings.Measurement;
+import com.espirit.moddev.cli.PhaseTimings.Phase;
 import com.espirit.moddev.cli.api.CliContext;
 import com.espirit.moddev.cli.api.configuration.Config;
 import com.espirit.moddev.cli.exception.CliError;
@@ -47,9 +49,16 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Default implementation of {@link com.espirit.moddev.cli.api.CliContext}.
+ * <p>
+ * The context is initialized lazily: the FirstSpirit connection is established on the first call of
+ * {@link #getConnection()}, the project and its specialist broker are looked up on the first call of
+ * {@link #getProject()}, {@link #getSpecialistsBroker()} or one of the specialist methods. Commands that fail
+ * before they need the server therefore never connect. The server version is requested in the background,
+ * concurrently with the project lookup.
  *
  * @author e-Spirit AG
  */
@@ -62,10 +71,14 @@ public class CliContextImpl implements CliContext {
     private Connection connection;
     private SpecialistsBroker projectBroker;
     private Project project;
+    private boolean projectInitialized;
+    private boolean ownsConnection = true;
+    private CompletableFuture<Void> serverVersionLookup;
+    private boolean closed;
 
     /**
-     * Create a new instance that uses the given {@link com.espirit.moddev.cli.api.configuration.Config}
-     * and established a FirstSpirit connection. Afterwards, a ProjectSpecificBroker is required if a project is given.
+     * Create a new instance that uses the given {@link com.espirit.moddev.cli.api.configuration.Config}.
+     * The FirstSpirit connection and the ProjectSpecificBroker are not created before they are needed.
      *
      * @param clientConfig the configuration to be used
      * @throws IllegalArgumentException if clientConfig is null
@@ -76,26 +89,70 @@ public class CliContextImpl implements CliContext {
         }
         this.clientConfig = clientConfig;
         properties = new HashMap<>();
-        openConnection();
-        requireProjectSpecificBroker();
+    }
+
+    /**
+     * Create a new instance that uses an already established FirstSpirit connection. The connection is shared
+     * with other contexts, so it isn't closed when this context is closed.
+     *
+     * @param clientConfig     the configuration to be used
+     * @param sharedConnection the established connection
+     * @throws IllegalArgumentException if clientConfig or sharedConnection is null
+     */
+    CliContextImpl(final Config clientConfig, final Connection sharedConnection) {
+        this(clientConfig);
+        if (sharedConnection == null) {
+            throw new IllegalArgumentException("Connection is null!");
+        }
+        connection = sharedConnection;
+        ownsConnection = false;
+    }
+
+    /**
+     * Establishes the FirstSpirit connection, if that didn't happen yet.
+     *
+     * @return the connection, or null if {@link #openConnection()} didn't provide one
+     */
+    private synchronized Connection connection() {
+        if (connection == null) {
+            try (Measurement ignored = PhaseTimings.measure(Phase.CONNECT)) {
+                openConnection();
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Looks up the project and its specialist broker, if that didn't happen yet.
+     */
+    private synchronized void initializeProject() {
+        if (!projectInitialized) {
+            connection();
+            requireProjectSpecificBroker();
+            projectInitialized = true;
+        }
+    }
+
+    /**
+     * Tells whether the FirstSpirit connection of this context has already been established.
+     *
+     * @return true if the connection has been established, false if no method needed it so far
+     */
+    synchronized boolean isConnectionOpened() {
+        return connection != null;
     }
 
     protected void openConnection() {
+        final Connection obtainedConnection;
         try {
-            connection = obtainConnection();
+            obtainedConnection = obtainConnection();
         } catch (NullPointerException | IllegalArgumentException e) {
             throw new CliException(CliError.CONFIGURATION, clientConfig, e);
         } catch (RuntimeException e) {
             throw new CliException(CliError.UNEXPECTED, clientConfig, e);
         }
         try {
-            connection.connect();
-            final ServerInformationAgent serverInformationAgent = connection.getBroker().requestSpecialist(ServerInformationAgent.TYPE);
-            if (serverInformationAgent != null) {
-                final ServerInformationAgent.VersionInfo serverVersion = serverInformationAgent.getServerVersion();
-                LOGGER.info("Connected to FirstSpirit server at {} of version {}",
-                            new Object[]{clientConfig.getHost(), serverVersion.getFullVersionString()});
-            }
+            obtainedConnection.connect();
         } catch (MaximumNumberOfSessionsExceededException e) {
             throw new CliException(CliError.SESSIONS, clientConfig, e);
         } catch (AuthenticationException e) {
@@ -107,6 +164,28 @@ public class CliContextImpl implements CliContext {
         } catch (RuntimeException e) {
             throw new CliException(CliError.UNEXPECTED, clientConfig, e);
         }
+        connection = obtainedConnection;
+        serverVersionLookup = CompletableFuture.runAsync(() -> logServerVersion(obtainedConnection));
+    }
+
+    private void logServerVersion(Connection connection) {
+        try {
+            final ServerInformationAgent serverInformationAgent = connection.getBroker().requestSpecialist(ServerInformationAgent.TYPE);
+            if (serverInformationAgent != null) {
+                final ServerInformationAgent.VersionInfo serverVersion = serverInformationAgent.getServerVersion();
+                LOGGER.info("Connected to FirstSpirit server at {} of version {}",
+                            new Object[]{clientConfig.getHost(), serverVersion.getFullVersionString()});
+            }
+        } catch (IOError e) {
+            logServerVersionUnavailable(e);
+        } catch (RuntimeException e) { //NOSONAR
+            logServerVersionUnavailable(e);
+        }
+    }
+
+    private void logServerVersionUnavailable(Throwable e) {
+        LOGGER.info("Connected to FirstSpirit server at {}, its version is not available", clientConfig.getHost());
+        LOGGER.debug("Exception while requesting the server version", e);
     }
 
     protected Connection obtainConnection() {
@@ -120,7 +199,7 @@ public class CliContextImpl implements CliContext {
         } else {
             LOGGER.debug("Require project specific specialist broker for project '{}'...", projectName);
 
-            try {
+            try (Measurement ignored = PhaseTimings.measure(Phase.PROJECT_LOAD)) {
                 loadProject(projectName);
             } catch (Exception e) { //NOSONAR
                 LOGGER.info("Can't load project {}. Not going to require a broker.", projectName);
@@ -128,9 +207,11 @@ public class CliContextImpl implements CliContext {
             }
 
             if(project != null) {
-                final SpecialistsBroker broker = connection.getBroker();
-                final BrokerAgent brokerAgent = broker.requireSpecialist(BrokerAgent.TYPE);
-                projectBroker = brokerAgent.getBrokerByProjectName(project.getName());
+                try (Measurement ignored = PhaseTimings.measure(Phase.BROKER_ACQUISITION)) {
+                    final SpecialistsBroker broker = connection().getBroker();
+                    final BrokerAgent brokerAgent = broker.requireSpecialist(BrokerAgent.TYPE);
+                    projectBroker = brokerAgent.getBrokerByProjectName(project.getName());
+                }
             } else {
                 LOGGER.info("Project not available, so no project specific broker is required");
             }
@@ -144,12 +225,13 @@ public class CliContextImpl implements CliContext {
 
     @Override
     public Project getProject() {
+        initializeProject();
         return project;
     }
 
     private void loadProject(String projectName) {
         if (!StringUtils.isNullOrEmpty(projectName)) {
-            Project project = connection.getProjectByName(projectName);
+            Project project = connection().getProjectByName(projectName);
             if (project == null && clientConfig.isCreatingProjectIfMissing()) {
                 project = createProject(projectName);
             }
@@ -179,7 +261,7 @@ public class CliContextImpl implements CliContext {
     private Project createProject(String projectName) {
         Project project;
         LOGGER.info("Creating missing project '{}' on server...", projectName);
-        AdminService ac = connection.getService(AdminService.class);
+        AdminService ac = connection().getService(AdminService.class);
         final ProjectStorage projectStorage = ac.getProjectStorage();
         project = projectStorage.createProject(projectName, projectName + " created by fs-cli");
         return project;
@@ -187,7 +269,8 @@ public class CliContextImpl implements CliContext {
 
     @Override
     public Connection getConnection() {
-        return connection;
+        // cached contexts may have been created before profiling was requested
+        return RemoteProfiler.wrap(connection(), Connection.class);
     }
 
     @Override
@@ -260,13 +343,37 @@ public class CliContextImpl implements CliContext {
 
     @Override
     public void close() throws Exception {
+        final Connection openedConnection;
+        final CompletableFuture<Void> pendingLookup;
+        synchronized (this) {
+            if (closed) {
+                // e.g. released by a watching import on shutdown before the cli releases it
+                return;
+            }
+            closed = true;
+            openedConnection = connection;
+            pendingLookup = serverVersionLookup;
+        }
+        if (openedConnection == null) {
+            LOGGER.debug("FirstSpirit connection was never needed, nothing to close");
+            return;
+        }
+        if (!ownsConnection) {
+            LOGGER.debug("FirstSpirit connection is shared with other contexts, so it is kept open");
+            return;
+        }
+        if (pendingLookup != null) {
+            // don't pull the connection from under the version request
+            pendingLookup.join();
+        }
         LOGGER.debug("Closing connection to FirstSpirit ...");
-        connection.close();
+        openedConnection.close();
         LOGGER.info("Connection to FirstSpirit closed!");
     }
 
     @Override
     public SpecialistsBroker getSpecialistsBroker() {
-        return projectBroker;
+        initializeProject();
+        return RemoteProfiler.wrap(projectBroker, SpecialistsBroker.class);
     }
 }
@@ -0,0 +1,113 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli;
+
+import com.espirit.moddev.cli.api.CliContext;
+import com.espirit.moddev.cli.api.configuration.Config;
+
+import de.espirit.firstspirit.access.Connection;
+import de.espirit.firstspirit.common.MaximumNumberOfSessionsExceededException;
+import de.espirit.firstspirit.server.authentication.AuthenticationException;
+
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Provides the {@link CliContext} a command is executed with, and the connection for commands that don't need
+ * a context. The default implementation creates a new {@link CliContextImpl} or connection for every command and
+ * closes it afterwards. Cli processes that execute several commands, like the daemon or the batch mode, use
+ * implementations that keep contexts and connections open between commands.
+ *
+ * @author e-Spirit AG
+ */
+public interface CliContextProvider {
+
+    /**
+     * Default provider that creates a new context per command and closes it after the command execution.
+     */
+    CliContextProvider DEFAULT = new CliContextProvider() {
+        @Override
+        public CliContext acquire(Config config) {
+            return new CliContextImpl(config);
+        }
+
+        @Override
+        public void release(CliContext context) {
+            Cli.closeContext(context);
+        }
+    };
+
+    /**
+     * Get a context for the given configuration.
+     *
+     * @param config the configuration of the command that is going to be executed
+     * @return the context, never null
+     * @throws com.espirit.moddev.cli.exception.CliException if the context can't be initialized
+     */
+    CliContext acquire(Config config);
+
+    /**
+     * Called after the command that used the given context has been executed.
+     *
+     * @param context the context that has been acquired before
+     */
+    void release(CliContext context);
+
+    /**
+     * Get a connected FirstSpirit connection for a command that doesn't need a context.
+     * The connection must be handed back with {@link #releaseConnection(Connection)} instead of closing it.
+     * The default implementation creates and connects a new connection with the given factory.
+     *
+     * @param config            the configuration of the command that is going to be executed
+     * @param connectionFactory creates an unconnected connection for the configuration, if a new one is needed
+     * @return the connected connection
+     * @throws IOException                               if connecting fails
+     * @throws AuthenticationException                   if the credentials are rejected
+     * @throws MaximumNumberOfSessionsExceededException if the server doesn't accept further sessions
+     */
+    default Connection acquireConnection(Config config, Supplier<Connection> connectionFactory)
+        throws IOException, AuthenticationException, MaximumNumberOfSessionsExceededException {
+        try (PhaseTimings.Measurement ignored = PhaseTimings.measure(PhaseTimings.Phase.CONNECT)) {
+            final Connection connection = connectionFactory.get();
+            connection.connect();
+            return connection;
+        }
+    }
+
+    /**
+     * Called after the command that used the given connection has been executed. The default implementation closes it.
+     *
+     * @param connection the connection that has been acquired before, null is ignored
+     */
+    default void releaseConnection(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (Exception e) {
+                LoggerFactory.getLogger(CliContextProvider.class).error("Closing connection caused an exception!", e);
+            }
+        }
+    }
+}
@@ -38,6 +38,11 @@ import java.util.Set;
 
 /**
  * Default builder for FirstSpirit {@link Connection}s.
+ * <p>
+ * Builders may be used concurrently from several threads, also with different connection modes. FirstSpirit only
+ * offers the process wide switch {@link ConnectionManager#setUseHttps(boolean)} to choose between http and https,
+ * which is evaluated when a connection is created. Switching it and creating the connection is therefore done
+ * atomically for all builders of the jvm. Code that calls {@link ConnectionManager} directly bypasses this guard.
  *
  * @author e -Spirit AG
  */
@@ -45,10 +50,32 @@ public class ConnectionBuilder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionBuilder.class);
 
+    /**
+     * Guards the global https switch of the {@link ConnectionManager} together with the connection creation.
+     */
+    private static final Object CONNECTION_MANAGER_LOCK = new Object();
+
+    /**
+     * Access to the static methods of the {@link ConnectionManager}.
+     */
+    private static final ConnectionManagerAccess DEFAULT_CONNECTION_MANAGER = new ConnectionManagerAccess() {
+        @Override
+        public void setUseHttps(final boolean useHttps) {
+            ConnectionManager.setUseHttps(useHttps);
+        }
+
+        @Override
+        public Connection getConnection(final String host, final int port, final int mode, final String user, final String password) {
+            return ConnectionManager.getConnection(host, port, mode, user, password);
+        }
+    };
+
     private final Config config;
+    private final ConnectionManagerAccess connectionManager;
 
-    private ConnectionBuilder(final Config config){
+    private ConnectionBuilder(final Config config, final ConnectionManagerAccess connectionManager){
         this.config = Objects.requireNonNull(config, "Config is null!");
+        this.connectionManager = connectionManager;
     }
 
     /**
@@ -58,11 +85,25 @@ public class ConnectionBuilder {
      * @return the connection builder
      */
     public static ConnectionBuilder with(Config config){
-        return new ConnectionBuilder(config);
+        return new ConnectionBuilder(config, DEFAULT_CONNECTION_MANAGER);
+    }
+
+    /**
+     * Creates a builder with a config that creates its connections through the given access, like tests that
+     * observe the https switch.
+     *
+     * @param config            the config
+     * @param connectionManager the access to the connection manager
+     * @return the connection builder
+     */
+    static ConnectionBuilder with(Config config, ConnectionManagerAccess connectionManager){
+        return new ConnectionBuilder(config, Objects.requireNonNull(connectionManager, "ConnectionManagerAccess is null!"));
     }
 
     /**
      * Build a FirstSpirit connection based on the initial config which is checked first.
+     * This method is thread-safe. If a {@link RemoteProfiler} is installed for the current thread,
+     * the connection records its calls.
      *
      * @return the FirstSpirit connection
      */
@@ -71,12 +112,6 @@ public class ConnectionBuilder {
         checkConfig();
 
         final FsConnectionMode connectionMode = config.getConnectionMode();
-        if(FsConnectionMode.HTTPS == connectionMode) {
-            ConnectionManager.setUseHttps(true);
-        } else {
-            ConnectionManager.setUseHttps(false);
-        }
-
         final String user = config.getUser();
         final Integer port = config.getPort();
         final String host = config.getHost();
@@ -84,7 +119,11 @@ public class ConnectionBuilder {
         Object[] args = {host, port, user};
         LOGGER.debug("Create connection for FirstSpirit server at '{}:{}' with user '{}'...", args);
 
-        return ConnectionManager.getConnection(host, port, connectionMode.getCode(), user, config.getPassword());
+        synchronized (CONNECTION_MANAGER_LOCK) {
+            connectionManager.setUseHttps(FsConnectionMode.HTTPS == connectionMode);
+            final Connection connection = connectionManager.getConnection(host, port, connectionMode.getCode(), user, config.getPassword());
+            return RemoteProfiler.wrap(connection, Connection.class);
+        }
     }
 
     private void checkConfig() {
@@ -104,4 +143,14 @@ public class ConnectionBuilder {
         }
     }
 
+    /**
+     * The static {@link ConnectionManager} methods used to create a connection.
+     */
+    interface ConnectionManagerAccess {
+
+        void setUseHttps(boolean useHttps);
+
+        Connection getConnection(String host, int port, int mode, String user, String password);
+    }
+
 }
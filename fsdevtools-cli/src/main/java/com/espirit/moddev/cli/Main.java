@@ -1,12 +1,20 @@
 package com.espirit.moddev.cli;
 
+import com.espirit.moddev.cli.daemon.DaemonClient;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.OptionalInt;
+
 public class Main {
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
 
     public static void main(final String[] args) {
+        final OptionalInt daemonExitCode = DaemonClient.tryExecute(args);
+        if (daemonExitCode.isPresent()) {
+            System.exit(daemonExitCode.getAsInt());
+        }
         try {
             Cli.main(args);
         } catch (NoClassDefFoundError e) {
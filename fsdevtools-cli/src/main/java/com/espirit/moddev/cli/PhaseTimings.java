@@ -0,0 +1,245 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the time spent in the {@link Phase}s of a cli invocation. The cli installs an instance for the executing
+ * thread, so that code deep down the call hierarchy, like the lazy {@link CliContextImpl}, can contribute its timings
+ * via {@link #measure(Phase)} without passing the instance around. Phases that are entered several times, for example
+ * by a batch, are accumulated.
+ * <p>
+ * The connection, project and broker phases happen lazily during the command phase, so their times are included
+ * in the command's time as well.
+ *
+ * @author e-Spirit AG
+ */
+public final class PhaseTimings {
+
+    /**
+     * The phases of a cli invocation in execution order.
+     */
+    public enum Phase {
+        LOGGING_INIT("logging init"),
+        CLASSPATH_SCAN("classpath scan"),
+        PARSER_BUILD("parser build"),
+        ARGUMENT_PARSE("argument parse"),
+        CONNECT("connect"),
+        PROJECT_LOAD("project load"),
+        BROKER_ACQUISITION("broker acquisition"),
+        COMMAND("command"),
+        RESULT_LOG("result log"),
+        CONTEXT_CLOSE("context close");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Get the human readable name of this phase.
+         *
+         * @return the name of this phase
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final ThreadLocal<PhaseTimings> CURRENT = new ThreadLocal<>();
+
+    private static final Measurement NOT_MEASURED = () -> {
+        // no timings installed for the current thread
+    };
+
+    private final Map<Phase, long[]> phases = new EnumMap<>(Phase.class);
+    private int commandDepth;
+
+    /**
+     * Installs the given timings for the current thread, so that {@link #measure(Phase)} records into it.
+     *
+     * @param timings the timings, or null to stop recording on the current thread
+     */
+    public static void setCurrent(PhaseTimings timings) {
+        if (timings == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(timings);
+        }
+    }
+
+    /**
+     * Get the timings installed for the current thread.
+     *
+     * @return the timings of the current thread, or null if there are none
+     */
+    public static PhaseTimings getCurrent() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts measuring a phase for the timings of the current thread. The phase ends when the returned measurement
+     * is closed. If no timings are installed, nothing is recorded.
+     *
+     * @param phase the phase to measure
+     * @return the running measurement
+     */
+    public static Measurement measure(Phase phase) {
+        final PhaseTimings timings = CURRENT.get();
+        if (timings == null) {
+            return NOT_MEASURED;
+        }
+        final long start = System.nanoTime();
+        return () -> timings.record(phase, System.nanoTime() - start);
+    }
+
+    /**
+     * Marks the start of a command execution. Executions may be nested, like the commands of a batch.
+     */
+    synchronized void enterCommand() {
+        commandDepth++;
+    }
+
+    /**
+     * Marks the end of a command execution.
+     *
+     * @return true if the outermost command execution ended
+     */
+    synchronized boolean exitCommand() {
+        commandDepth--;
+        return commandDepth == 0;
+    }
+
+    /**
+     * Adds a duration to a phase.
+     *
+     * @param phase the phase
+     * @param nanos the duration in nanoseconds
+     */
+    public synchronized void record(Phase phase, long nanos) {
+        final long[] entry = phases.computeIfAbsent(phase, key -> new long[2]);
+        entry[0] += nanos;
+        entry[1]++;
+    }
+
+    /**
+     * Get the accumulated time of a phase.
+     *
+     * @param phase the phase
+     * @return the accumulated time in milliseconds, 0 if the phase wasn't recorded
+     */
+    public synchronized double getMillis(Phase phase) {
+        final long[] entry = phases.get(phase);
+        return entry == null ? 0 : toMillis(entry[0]);
+    }
+
+    /**
+     * Get how often a phase was recorded.
+     *
+     * @param phase the phase
+     * @return the number of recordings
+     */
+    public synchronized int getCount(Phase phase) {
+        final long[] entry = phases.get(phase);
+        return entry == null ? 0 : (int) entry[1];
+    }
+
+    /**
+     * Formats the recorded phases as table with one line per phase.
+     *
+     * @return the formatted timings
+     */
+    public synchronized String format() {
+        final StringBuilder result = new StringBuilder("Timings:");
+        for (Map.Entry<Phase, long[]> entry : phases.entrySet()) {
+            result.append(System.lineSeparator())
+                .append(String.format(Locale.UK, "  %-20s %10.1f ms", entry.getKey().getLabel(), toMillis(entry.getValue()[0])));
+            if (entry.getValue()[1] > 1) {
+                result.append(" (").append(entry.getValue()[1]).append("x)");
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Formats the recorded phases as json object, for example
+     * <code>{"phases":[{"phase":"connect","millis":12.5,"count":1}]}</code>.
+     *
+     * @return the timings as json
+     */
+    public synchronized String toJson() {
+        final StringBuilder result = new StringBuilder("{\"phases\":[");
+        boolean first = true;
+        for (Map.Entry<Phase, long[]> entry : phases.entrySet()) {
+            if (!first) {
+                result.append(',');
+            }
+            first = false;
+            result.append("{\"phase\":\"").append(entry.getKey().getLabel())
+                .append("\",\"millis\":").append(String.format(Locale.UK, "%.3f", toMillis(entry.getValue()[0])))
+                .append(",\"count\":").append(entry.getValue()[1])
+                .append('}');
+        }
+        return result.append("]}").toString();
+    }
+
+    /**
+     * Writes the timings as json to a file, replacing an existing file.
+     *
+     * @param file the target file
+     * @throws IOException if the file can't be written
+     */
+    public void writeJson(Path file) throws IOException {
+        final Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+            writer.write(System.lineSeparator());
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * A running measurement of a phase, that ends when it is closed.
+     */
+    @FunctionalInterface
+    public interface Measurement extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the remote FirstSpirit Access API calls of a cli invocation. {@link #wrap(Object, Class)} wraps an api object,
+ * like a {@link de.espirit.firstspirit.access.Connection} or a {@link de.espirit.firstspirit.agency.SpecialistsBroker},
+ * in a recording proxy. Api objects returned by recorded calls are wrapped as well, so that calls on specialists, stores
+ * and store elements are recorded too. Wrapped objects passed to recorded calls are unwrapped again, so FirstSpirit
+ * always gets its original objects.
+ * <p>
+ * Like {@link PhaseTimings}, the profiler of an invocation is installed for the executing thread. Objects are only
+ * wrapped if a profiler is installed, but record into the profiler they were wrapped for from every thread.
+ *
+ * @author e-Spirit AG
+ */
+public final class RemoteProfiler {
+
+    /**
+     * Number of call sites that are reported.
+     */
+    public static final int REPORTED_CALL_SITES = 10;
+
+    private static final String API_PACKAGE = "de.espirit.firstspirit.";
+    private static final ThreadLocal<RemoteProfiler> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, List<Long>> durations = new HashMap<>();
+    private final Map<String, Integer> callSites = new HashMap<>();
+
+    /**
+     * Installs the given profiler for the current thread, so that {@link #wrap(Object, Class)} wraps objects for it.
+     *
+     * @param profiler the profiler, or null to stop profiling on the current thread
+     */
+    public static void setCurrent(RemoteProfiler profiler) {
+        if (profiler == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(profiler);
+        }
+    }
+
+    /**
+     * Get the profiler installed for the current thread.
+     *
+     * @return the profiler of the current thread, or null if there is none
+     */
+    public static RemoteProfiler getCurrent() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Wraps an api object in a recording proxy for the profiler of the current thread. The object is returned
+     * as it is if no profiler is installed, or if it is null or already wrapped.
+     *
+     * @param target the object to wrap
+     * @param type   the api interface the proxy has to implement
+     * @param <T>    the api interface
+     * @return the recording proxy, or the given object
+     */
+    public static <T> T wrap(T target, Class<T> type) {
+        final RemoteProfiler profiler = CURRENT.get();
+        if (profiler == null || target == null) {
+            return target;
+        }
+        return type.cast(profiler.wrapObject(target, type));
+    }
+
+    /**
+     * Get the original object of a recording proxy.
+     *
+     * @param object an object that may be a recording proxy
+     * @return the wrapped object, or the given object if it is no recording proxy
+     */
+    public static Object unwrap(Object object) {
+        if (object != null && Proxy.isProxyClass(object.getClass())) {
+            final InvocationHandler handler = Proxy.getInvocationHandler(object);
+            if (handler instanceof RecordingHandler) {
+                return ((RecordingHandler) handler).target;
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Wraps an object in a recording proxy.
+     *
+     * @param target the object to wrap
+     * @param type   the api interface the proxy has to implement, or null to wrap the object only if it implements
+     *               any api interface
+     * @return the recording proxy, or the given object if it can't be wrapped
+     */
+    private Object wrapObject(Object target, Class<?> type) {
+        if (unwrap(target) != target) {
+            return target;
+        }
+        final Set<Class<?>> interfaces = new LinkedHashSet<>();
+        if (type != null) {
+            interfaces.add(type);
+        }
+        collectApiInterfaces(target.getClass(), interfaces);
+        if (interfaces.isEmpty()) {
+            return target;
+        }
+        final Class<?> primaryType = interfaces.iterator().next();
+        final RecordingHandler handler = new RecordingHandler(this, target);
+        try {
+            return Proxy.newProxyInstance(primaryType.getClassLoader(), interfaces.toArray(new Class<?>[0]), handler);
+        } catch (IllegalArgumentException e) {
+            // some interface of the implementation isn't visible to the api's class loader
+            try {
+                return Proxy.newProxyInstance(primaryType.getClassLoader(), new Class<?>[]{primaryType}, handler);
+            } catch (IllegalArgumentException e2) {
+                return target;
+            }
+        }
+    }
+
+    private static void collectApiInterfaces(Class<?> type, Set<Class<?>> target) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> candidate : current.getInterfaces()) {
+                if (Modifier.isPublic(candidate.getModifiers()) && candidate.getName().startsWith(API_PACKAGE)) {
+                    target.add(candidate);
+                }
+                collectApiInterfaces(candidate, target);
+            }
+        }
+    }
+
+    /**
+     * Adds a call of an api method.
+     *
+     * @param method   the name of the api method, like <code>StoreAgent.getStore</code>
+     * @param nanos    the duration of the call in nanoseconds
+     * @param callSite the call site, or null if unknown
+     */
+    public synchronized void record(String method, long nanos, String callSite) {
+        durations.computeIfAbsent(method, key -> new ArrayList<>()).add(nanos);
+        if (callSite != null) {
+            callSites.merge(callSite, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Get how often an api method has been called.
+     *
+     * @param method the name of the api method, like <code>StoreAgent.getStore</code>
+     * @return the number of calls
+     */
+    public synchronized int getCallCount(String method) {
+        final List<Long> methodDurations = durations.get(method);
+        return methodDurations == null ? 0 : methodDurations.size();
+    }
+
+    /**
+     * Get the number of all recorded calls.
+     *
+     * @return the number of calls
+     */
+    public synchronized int getCallCount() {
+        return durations.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Formats the recorded calls with count, total and percentile latencies per api method, ordered by total time,
+     * followed by the {@link #REPORTED_CALL_SITES} call sites with the most calls.
+     *
+     * @return the formatted report
+     */
+    public synchronized String format() {
+        final List<Map.Entry<String, List<Long>>> methods = new ArrayList<>(durations.entrySet());
+        methods.sort((first, second) -> Long.compare(sum(second.getValue()), sum(first.getValue())));
+        final long total = methods.stream().mapToLong(entry -> sum(entry.getValue())).sum();
+
+        final StringBuilder result = new StringBuilder();
+        result.append(String.format(Locale.UK, "Remote calls: %d calls in %.1f ms", getCallCount(), toMillis(total)));
+        result.append(System.lineSeparator())
+            .append(String.format(Locale.UK, "  %-50s %7s %10s %8s %8s %8s %8s", "method", "calls", "total ms", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (Map.Entry<String, List<Long>> entry : methods) {
+            final List<Long> sorted = new ArrayList<>(entry.getValue());
+            Collections.sort(sorted);
+            result.append(System.lineSeparator())
+                .append(String.format(Locale.UK, "  %-50s %7d %10.1f %8.1f %8.1f %8.1f %8.1f", entry.getKey(), sorted.size(),
+                                      toMillis(sum(sorted)), toMillis(percentile(sorted, 50)), toMillis(percentile(sorted, 90)),
+                                      toMillis(percentile(sorted, 99)), toMillis(sorted.get(sorted.size() - 1))));
+        }
+        final List<Map.Entry<String, Integer>> sites = new ArrayList<>(callSites.entrySet());
+        sites.sort((first, second) -> Integer.compare(second.getValue(), first.getValue()));
+        if (!sites.isEmpty()) {
+            result.append(System.lineSeparator()).append("Call sites with the most remote calls:");
+            for (Map.Entry<String, Integer> entry : sites.subList(0, Math.min(REPORTED_CALL_SITES, sites.size()))) {
+                result.append(System.lineSeparator())
+                    .append(String.format(Locale.UK, "  %7d  %s", entry.getValue(), entry.getKey()));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Nearest rank percentile of sorted values.
+     */
+    static long percentile(List<Long> sortedValues, int percentile) {
+        final int rank = (int) Math.ceil(percentile / 100.0 * sortedValues.size());
+        return sortedValues.get(Math.max(0, rank - 1));
+    }
+
+    private static long sum(List<Long> values) {
+        long sum = 0;
+        for (Long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Determines the first stack frame outside of the profiler, the proxy and the jdk, which is the code that
+     * called the api method.
+     */
+    private static String findCallSite() {
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            final String className = element.getClassName();
+            if (!className.equals(RemoteProfiler.class.getName()) && !className.startsWith(RecordingHandler.class.getName())
+                && !className.startsWith("com.sun.proxy.") && !className.startsWith("jdk.") && !className.startsWith("java.")
+                && !className.startsWith("sun.") && !className.contains("$Proxy")) {
+                return element.toString();
+            }
+        }
+        return null;
+    }
+
+    private static final class RecordingHandler implements InvocationHandler {
+
+        private final RemoteProfiler profiler;
+        private final Object target;
+
+        private RecordingHandler(RemoteProfiler profiler, Object target) {
+            this.profiler = profiler;
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final Object[] unwrappedArgs = unwrapArguments(args);
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeTarget(method, unwrappedArgs);
+            }
+            final long start = System.nanoTime();
+            final Object result;
+            try {
+                result = invokeTarget(method, unwrappedArgs);
+            } finally {
+                profiler.record(method.getDeclaringClass().getSimpleName() + "." + method.getName(), System.nanoTime() - start, findCallSite());
+            }
+            final Class<?> returnType = method.getReturnType();
+            if (result != null && returnType.isInterface() && returnType.getName().startsWith(API_PACKAGE)) {
+                return profiler.wrapObject(result, returnType);
+            }
+            if (result != null && returnType == Object.class) {
+                // generic methods like SpecialistsBroker.requireSpecialist
+                return profiler.wrapObject(result, null);
+            }
+            return result;
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private static Object[] unwrapArguments(Object[] args) {
+            if (args == null) {
+                return null;
+            }
+            final Object[] result = Arrays.copyOf(args, args.length);
+            for (int i = 0; i < result.length; i++) {
+                if (result[i] instanceof Object[] && result[i].getClass().getComponentType().isInterface()) {
+                    final Object[] array = ((Object[]) result[i]).clone();
+                    for (int j = 0; j < array.length; j++) {
+                        array[j] = unwrap(array[j]);
+                    }
+                    result[i] = array;
+                } else {
+                    result[i] = unwrap(result[i]);
+                }
+            }
+            return result;
+        }
+    }
+}
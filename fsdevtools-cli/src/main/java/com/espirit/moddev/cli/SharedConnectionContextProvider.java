@@ -0,0 +1,75 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli;
+
+import com.espirit.moddev.cli.api.CliContext;
+import com.espirit.moddev.cli.api.configuration.Config;
+
+import de.espirit.firstspirit.access.Connection;
+
+import java.util.function.Supplier;
+
+/**
+ * {@link CliContextProvider} that hands out one established FirstSpirit connection to all commands. Contexts are
+ * created per command, so each one looks up its own project and project specific broker, but they all use the
+ * shared connection. The connection is owned by the creator of the provider and is never closed by it.
+ *
+ * @author e-Spirit AG
+ */
+public class SharedConnectionContextProvider implements CliContextProvider {
+
+    private final Connection connection;
+
+    /**
+     * Creates a provider for the given connection.
+     *
+     * @param connection the established connection
+     * @throws IllegalArgumentException if connection is null
+     */
+    public SharedConnectionContextProvider(Connection connection) {
+        if (connection == null) {
+            throw new IllegalArgumentException("Connection is null!");
+        }
+        this.connection = connection;
+    }
+
+    @Override
+    public CliContext acquire(Config config) {
+        return new CliContextImpl(config, connection);
+    }
+
+    @Override
+    public void release(CliContext context) {
+        Cli.closeContext(context);
+    }
+
+    @Override
+    public Connection acquireConnection(Config config, Supplier<Connection> connectionFactory) {
+        return connection;
+    }
+
+    @Override
+    public void releaseConnection(Connection connection) {
+        // the shared connection is closed by its owner
+    }
+}
@@ -0,0 +1,548 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Synchronization directory that is stored in an archive, given as synchronization directory like
+ * "zip:export.zip" or "tar.gz:export.tar.gz". FirstSpirit im- and exports only work with directories,
+ * so the archive is extracted into a local temporary directory before and packed again after an export.
+ * The temporary directory lives on local disk, so the many small files of an export don't hit a network
+ * file system; only the archive itself is written there, in a single stream.
+ *
+ * @author e-Spirit AG
+ */
+public final class SyncArchive {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyncArchive.class);
+
+    private static final int TAR_BLOCK_SIZE = 512;
+    private static final int TAR_NAME_LENGTH = 100;
+    private static final String TAR_LONG_NAME = "././@LongLink";
+    private static final char TAR_TYPE_FILE = '0';
+    private static final char TAR_TYPE_DIRECTORY = '5';
+    private static final char TAR_TYPE_LONG_NAME = 'L';
+    private static final char TAR_TYPE_PAX_HEADER = 'x';
+    private static final String PAX_PATH = "path=";
+
+    /**
+     * The supported archive formats.
+     */
+    public enum Format {
+        /** Zip archive, given like "zip:export.zip". */
+        ZIP("zip:"),
+        /** Gzip compressed tar archive, given like "tar.gz:export.tar.gz". */
+        TAR_GZ("tar.gz:");
+
+        private final String prefix;
+
+        Format(String prefix) {
+            this.prefix = prefix;
+        }
+
+        /**
+         * Get the prefix of a synchronization directory that denotes an archive of this format.
+         *
+         * @return the prefix, including the delimiter
+         */
+        public String getPrefix() {
+            return prefix;
+        }
+    }
+
+    private final Format format;
+    private final Path file;
+
+    private SyncArchive(Format format, Path file) {
+        this.format = format;
+        this.file = file;
+    }
+
+    /**
+     * Checks whether the given synchronization directory denotes an archive.
+     *
+     * @param syncDirStr the synchronization directory
+     * @return true if it starts with the prefix of a {@link Format}
+     */
+    public static boolean isArchive(String syncDirStr) {
+        return findFormat(syncDirStr) != null;
+    }
+
+    /**
+     * Creates the archive denoted by the given synchronization directory.
+     *
+     * @param syncDirStr the synchronization directory, like "zip:export.zip"
+     * @return the archive
+     * @throws IllegalArgumentException if the synchronization directory doesn't denote an archive
+     */
+    public static SyncArchive parse(String syncDirStr) {
+        final Format format = findFormat(syncDirStr);
+        if (format == null) {
+            throw new IllegalArgumentException("'" + syncDirStr + "' is no archive, expected a prefix like '" + Format.ZIP.getPrefix() + "'");
+        }
+        final String fileName = syncDirStr.trim().substring(format.getPrefix().length()).trim();
+        if (fileName.isEmpty()) {
+            throw new IllegalArgumentException("'" + syncDirStr + "' contains no archive file name");
+        }
+        return new SyncArchive(format, Paths.get(fileName));
+    }
+
+    private static Format findFormat(String syncDirStr) {
+        if (syncDirStr == null) {
+            return null;
+        }
+        final String normalized = syncDirStr.trim().toLowerCase(Locale.UK);
+        for (Format format : Format.values()) {
+            if (normalized.startsWith(format.getPrefix())) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the format of the archive.
+     *
+     * @return the format
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Get the archive file.
+     *
+     * @return the path of the archive file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Extracts the archive into a new temporary directory. If the archive doesn't exist yet, the directory stays empty.
+     *
+     * @param mustExist indicates whether a missing archive is an error, like for an import
+     * @return the temporary directory, that should be removed with {@link #deleteDirectory(Path)} afterwards
+     * @throws IOException              if the archive can't be read
+     * @throws IllegalArgumentException if the archive must exist but doesn't
+     */
+    public Path extractToTemporaryDirectory(boolean mustExist) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            if (mustExist) {
+                throw new IllegalArgumentException("The archive '" + file.toAbsolutePath() + "' doesn't exist!");
+            }
+            LOGGER.info("Archive '{}' doesn't exist yet and will be created", file.toAbsolutePath());
+            return Files.createTempDirectory("fs-cli-sync-");
+        }
+        final Path directory = Files.createTempDirectory("fs-cli-sync-");
+        try {
+            extract(directory);
+        } catch (IOException | RuntimeException e) {
+            deleteDirectory(directory);
+            throw e;
+        }
+        return directory;
+    }
+
+    /**
+     * Extracts the archive into the given directory.
+     *
+     * @param directory the target directory
+     * @throws IOException if the archive can't be read, or contains entries outside of the target directory
+     */
+    public void extract(Path directory) throws IOException {
+        LOGGER.debug("Extracting '{}' to '{}'", file, directory);
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+            if (format == Format.ZIP) {
+                extractZip(inputStream, directory);
+            } else {
+                extractTar(new GZIPInputStream(inputStream), directory);
+            }
+        }
+    }
+
+    /**
+     * Packs the content of the given directory into the archive. The archive is written to a temporary file beside it
+     * first, so an existing archive is only replaced by a complete one.
+     *
+     * @param directory the directory to pack
+     * @throws IOException if the archive can't be written
+     */
+    public void write(Path directory) throws IOException {
+        final Path absoluteFile = file.toAbsolutePath();
+        Files.createDirectories(absoluteFile.getParent());
+        final Path temporaryFile = Files.createTempFile(absoluteFile.getParent(), absoluteFile.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporaryFile))) {
+                if (format == Format.ZIP) {
+                    writeZip(directory, outputStream);
+                } else {
+                    final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+                    writeTar(directory, gzipOutputStream);
+                    gzipOutputStream.finish();
+                }
+            }
+            Files.move(temporaryFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.info("Wrote archive '{}'", absoluteFile);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * Deletes a directory with all its content. Failures are only logged.
+     *
+     * @param directory the directory
+     */
+    public static void deleteDirectory(Path directory) {
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.warn("Temporary directory {} can't be deleted", directory, e);
+        }
+    }
+
+    private static void writeZip(Path directory, OutputStream outputStream) throws IOException {
+        final ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        for (Path path : list(directory)) {
+            final String name = entryName(directory, path);
+            final ZipEntry entry = new ZipEntry(Files.isDirectory(path) ? name + "/" : name);
+            entry.setTime(Files.getLastModifiedTime(path).toMillis());
+            zipOutputStream.putNextEntry(entry);
+            if (!entry.isDirectory()) {
+                Files.copy(path, zipOutputStream);
+            }
+            zipOutputStream.closeEntry();
+        }
+        zipOutputStream.finish();
+    }
+
+    private static void extractZip(InputStream inputStream, Path directory) throws IOException {
+        final ZipInputStream zipInputStream = new ZipInputStream(inputStream);
+        final Map<Path, FileTime> modificationTimes = new LinkedHashMap<>();
+        ZipEntry entry;
+        while ((entry = zipInputStream.getNextEntry()) != null) {
+            final Path target = resolveEntry(directory, entry.getName());
+            if (entry.isDirectory()) {
+                Files.createDirectories(target);
+            } else {
+                Files.createDirectories(target.getParent());
+                Files.copy(zipInputStream, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (entry.getTime() >= 0) {
+                modificationTimes.put(target, FileTime.fromMillis(entry.getTime()));
+            }
+        }
+        restoreModificationTimes(modificationTimes);
+    }
+
+    /**
+     * Sets the modification times of extracted files and directories to the ones of their entries, so unchanged
+     * files are packed with the same time again. Directories are set last, since extracting their content changes
+     * their time.
+     */
+    private static void restoreModificationTimes(Map<Path, FileTime> modificationTimes) throws IOException {
+        for (Map.Entry<Path, FileTime> modificationTime : modificationTimes.entrySet()) {
+            if (!Files.isDirectory(modificationTime.getKey())) {
+                Files.setLastModifiedTime(modificationTime.getKey(), modificationTime.getValue());
+            }
+        }
+        for (Map.Entry<Path, FileTime> modificationTime : modificationTimes.entrySet()) {
+            if (Files.isDirectory(modificationTime.getKey())) {
+                Files.setLastModifiedTime(modificationTime.getKey(), modificationTime.getValue());
+            }
+        }
+    }
+
+    private static void writeTar(Path directory, OutputStream outputStream) throws IOException {
+        for (Path path : list(directory)) {
+            final boolean isDirectory = Files.isDirectory(path);
+            final String name = entryName(directory, path) + (isDirectory ? "/" : "");
+            final long modified = Files.getLastModifiedTime(path).toMillis() / 1000;
+            final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            if (nameBytes.length > TAR_NAME_LENGTH) {
+                writeTarHeader(outputStream, TAR_LONG_NAME.getBytes(StandardCharsets.UTF_8), nameBytes.length + 1L, 0, TAR_TYPE_LONG_NAME);
+                outputStream.write(nameBytes);
+                outputStream.write(0);
+                writeTarPadding(outputStream, nameBytes.length + 1L);
+            }
+            final long size = isDirectory ? 0 : Files.size(path);
+            writeTarHeader(outputStream, nameBytes, size, modified, isDirectory ? TAR_TYPE_DIRECTORY : TAR_TYPE_FILE);
+            if (!isDirectory) {
+                Files.copy(path, outputStream);
+                writeTarPadding(outputStream, size);
+            }
+        }
+        // end of archive: two empty blocks
+        outputStream.write(new byte[2 * TAR_BLOCK_SIZE]);
+    }
+
+    private static void writeTarHeader(OutputStream outputStream, byte[] name, long size, long modified, char type) throws IOException {
+        final byte[] header = new byte[TAR_BLOCK_SIZE];
+        System.arraycopy(name, 0, header, 0, Math.min(name.length, TAR_NAME_LENGTH));
+        writeOctal(header, 100, 8, type == TAR_TYPE_DIRECTORY ? 0755 : 0644);
+        writeOctal(header, 108, 8, 0);
+        writeOctal(header, 116, 8, 0);
+        writeOctal(header, 124, 12, size);
+        writeOctal(header, 136, 12, modified);
+        header[156] = (byte) type;
+        System.arraycopy("ustar ".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+        header[263] = ' ';
+        // the checksum is computed with blanks in its own field
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        writeOctal(header, 148, 7, checksum);
+        outputStream.write(header);
+    }
+
+    private static void writeOctal(byte[] header, int offset, int length, long value) {
+        final String octal = Long.toOctalString(value);
+        final int digits = length - 1;
+        final StringBuilder builder = new StringBuilder(digits);
+        for (int i = octal.length(); i < digits; i++) {
+            builder.append('0');
+        }
+        builder.append(octal);
+        System.arraycopy(builder.toString().getBytes(StandardCharsets.US_ASCII), 0, header, offset, digits);
+        header[offset + digits] = 0;
+    }
+
+    private static void writeTarPadding(OutputStream outputStream, long size) throws IOException {
+        final int remainder = (int) (size % TAR_BLOCK_SIZE);
+        if (remainder != 0) {
+            outputStream.write(new byte[TAR_BLOCK_SIZE - remainder]);
+        }
+    }
+
+    private static void extractTar(InputStream inputStream, Path directory) throws IOException {
+        final byte[] header = new byte[TAR_BLOCK_SIZE];
+        final Map<Path, FileTime> modificationTimes = new LinkedHashMap<>();
+        String longName = null;
+        while (readBlock(inputStream, header)) {
+            if (isEmpty(header)) {
+                break;
+            }
+            final long size = readOctal(header, 124, 12);
+            final char type = (char) header[156];
+            if (type == TAR_TYPE_LONG_NAME) {
+                final ByteArrayOutputStream name = new ByteArrayOutputStream();
+                copy(inputStream, name, size);
+                skipPadding(inputStream, size);
+                longName = trimNul(name.toByteArray(), 0, name.size());
+                continue;
+            }
+            if (type == TAR_TYPE_PAX_HEADER) {
+                final ByteArrayOutputStream records = new ByteArrayOutputStream();
+                copy(inputStream, records, size);
+                skipPadding(inputStream, size);
+                final String path = readPaxPath(new String(records.toByteArray(), StandardCharsets.UTF_8));
+                if (path != null) {
+                    longName = path;
+                }
+                continue;
+            }
+            String name = longName != null ? longName : readName(header);
+            longName = null;
+            final Path target = resolveEntry(directory, name);
+            if (type == TAR_TYPE_DIRECTORY || name.endsWith("/")) {
+                Files.createDirectories(target);
+                modificationTimes.put(target, FileTime.from(readOctal(header, 136, 12), TimeUnit.SECONDS));
+            } else if (type == TAR_TYPE_FILE || type == 0) {
+                Files.createDirectories(target.getParent());
+                try (OutputStream outputStream = Files.newOutputStream(target)) {
+                    copy(inputStream, outputStream, size);
+                }
+                modificationTimes.put(target, FileTime.from(readOctal(header, 136, 12), TimeUnit.SECONDS));
+            } else {
+                LOGGER.debug("Skipping tar entry {} of type {}", name, type);
+                copy(inputStream, null, size);
+            }
+            skipPadding(inputStream, size);
+        }
+        restoreModificationTimes(modificationTimes);
+    }
+
+    /**
+     * Reads the path of a pax extended header, whose records look like "&lt;length&gt; &lt;key&gt;=&lt;value&gt;\n".
+     */
+    private static String readPaxPath(String records) {
+        for (String record : records.split("\n")) {
+            final int separator = record.indexOf(' ');
+            if (separator > 0 && record.startsWith(PAX_PATH, separator + 1)) {
+                return record.substring(separator + 1 + PAX_PATH.length());
+            }
+        }
+        return null;
+    }
+
+    private static String readName(byte[] header) {
+        final String name = trimNul(header, 0, TAR_NAME_LENGTH);
+        final String prefix = trimNul(header, 345, 155);
+        // the ustar prefix field is only valid for the posix magic
+        if (!prefix.isEmpty() && header[262] == 0) {
+            return prefix + "/" + name;
+        }
+        return name;
+    }
+
+    private static String trimNul(byte[] bytes, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static long readOctal(byte[] header, int offset, int length) {
+        final String value = trimNul(header, offset, length).trim();
+        return value.isEmpty() ? 0 : Long.parseLong(value, 8);
+    }
+
+    private static boolean isEmpty(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean readBlock(InputStream inputStream, byte[] block) throws IOException {
+        int read = 0;
+        while (read < block.length) {
+            final int count = inputStream.read(block, read, block.length - read);
+            if (count < 0) {
+                if (read == 0) {
+                    return false;
+                }
+                throw new EOFException("Truncated tar archive");
+            }
+            read += count;
+        }
+        return true;
+    }
+
+    private static void copy(InputStream inputStream, OutputStream outputStream, long size) throws IOException {
+        final byte[] buffer = new byte[8192];
+        long remaining = size;
+        while (remaining > 0) {
+            final int count = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (count < 0) {
+                throw new EOFException("Truncated tar archive");
+            }
+            if (outputStream != null) {
+                outputStream.write(buffer, 0, count);
+            }
+            remaining -= count;
+        }
+    }
+
+    private static void skipPadding(InputStream inputStream, long size) throws IOException {
+        final int remainder = (int) (size % TAR_BLOCK_SIZE);
+        if (remainder != 0) {
+            copy(inputStream, null, TAR_BLOCK_SIZE - remainder);
+        }
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        final List<Path> paths = new ArrayList<>();
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(directory)) {
+                    paths.add(dir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                paths.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        // a stable order makes archives of the same content comparable
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private static String entryName(Path directory, Path path) {
+        return directory.relativize(path).toString().replace('\\', '/');
+    }
+
+    private static Path resolveEntry(Path directory, String name) throws IOException {
+        final Path target = directory.resolve(name).normalize();
+        if (!target.startsWith(directory.normalize())) {
+            throw new IOException("Archive entry '" + name + "' lies outside of the target directory");
+        }
+        return target;
+    }
+}
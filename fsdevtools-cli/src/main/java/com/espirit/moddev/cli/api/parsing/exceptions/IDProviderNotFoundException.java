@@ -22,6 +22,10 @@
 
 package com.espirit.moddev.cli.api.parsing.exceptions;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This exception indicates, that a requested IDProvider could not be found. For example
@@ -39,4 +43,29 @@ public class IDProviderNotFoundException extends RuntimeException {
     public IDProviderNotFoundException(String message) {
         super(message);
     }
+
+    /**
+     * Combines the failures of several identifiers that have been resolved at once into one exception.
+     *
+     * @param identifiers the identifiers in the order they have been requested
+     * @param failures    the failure per identifier that couldn't be resolved, must not be empty
+     * @param <I>         the type of the identifiers
+     * @return the failure of the only missing identifier, or an exception that lists all missing identifiers in order
+     * and has their failures attached as suppressed exceptions
+     */
+    public static <I> IDProviderNotFoundException combine(Collection<I> identifiers, Map<I, IDProviderNotFoundException> failures) {
+        final Set<I> missingInOrder = new LinkedHashSet<>();
+        for (I identifier : identifiers) {
+            if (failures.containsKey(identifier)) {
+                missingInOrder.add(identifier);
+            }
+        }
+        if (missingInOrder.size() == 1) {
+            return failures.get(missingInOrder.iterator().next());
+        }
+        final IDProviderNotFoundException exception = new IDProviderNotFoundException(
+            missingInOrder.size() + " identifiers cannot be resolved: " + missingInOrder);
+        missingInOrder.forEach(identifier -> exception.addSuppressed(failures.get(identifier)));
+        return exception;
+    }
 }
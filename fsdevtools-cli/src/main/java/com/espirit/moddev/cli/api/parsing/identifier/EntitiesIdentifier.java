@@ -27,31 +27,83 @@ import com.espirit.moddev.shared.StringUtils;
 import de.espirit.firstspirit.access.store.Store;
 import de.espirit.firstspirit.access.store.contentstore.Content2;
 import de.espirit.firstspirit.access.store.contentstore.ContentStoreRoot;
-import de.espirit.firstspirit.access.store.contentstore.Dataset;
 import de.espirit.firstspirit.access.store.templatestore.Schema;
 import de.espirit.firstspirit.agency.StoreAgent;
 import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import de.espirit.or.schema.Attribute;
+import de.espirit.or.schema.Entity;
+import de.espirit.or.schema.EntityType;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Identifier for FirstSpirit datasources. The uid parameter of the Content2 object is
- * used to reference datasources.
+ * used to reference datasources. The entities are queried in batches of {@link #DEFAULT_BATCH_SIZE},
+ * so a datasource with many entities doesn't have to be loaded at once. Like the datasets of the
+ * Content2 object, the entities are restricted by its filter. Optional conditions restrict
+ * the export further to the entities whose attributes have the given values.
  */
 public class EntitiesIdentifier implements Identifier {
     protected static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(EntitiesIdentifier.class);
 
+    /**
+     * Number of entities that are queried at once.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
     private final String uid;
+    private final Map<String, String> conditions;
 
     /**
-     * Instantiates a new identifier for entities.
+     * Instantiates a new identifier for all entities of a datasource.
      * @throws IllegalArgumentException if a null or empty string is passed as uid
      * @param uid the uid of the Content2 object
      */
     public EntitiesIdentifier(String uid) {
+        this(uid, Collections.emptyMap());
+    }
+
+    /**
+     * Instantiates a new identifier for the entities of a datasource that match all given conditions.
+     * @throws IllegalArgumentException if a null or empty string is passed as uid, or if a condition has an empty attribute name
+     * @param uid the uid of the Content2 object
+     * @param conditions the value per attribute name an entity must have to be exported
+     */
+    public EntitiesIdentifier(String uid, Map<String, String> conditions) {
         if(StringUtils.isNullOrEmpty(uid)) {
             throw new IllegalArgumentException("Don't pass an empty or null uid to content2 identifier!");
         }
+        if(conditions == null) {
+            throw new IllegalArgumentException("Don't pass null conditions to content2 identifier!");
+        }
+        for (String attribute : conditions.keySet()) {
+            if(StringUtils.isNullOrEmpty(attribute)) {
+                throw new IllegalArgumentException("Don't pass a condition without attribute name to content2 identifier!");
+            }
+        }
         this.uid = uid;
+        this.conditions = Collections.unmodifiableMap(new LinkedHashMap<>(conditions));
+    }
+
+    /**
+     * Get the uid of the Content2 object.
+     * @return the uid
+     */
+    public String getUid() {
+        return uid;
+    }
+
+    /**
+     * Get the conditions the exported entities must match.
+     * @return the value per attribute name, empty if all entities are exported
+     */
+    public Map<String, String> getConditions() {
+        return conditions;
     }
 
     @Override
@@ -68,9 +120,55 @@ public class EntitiesIdentifier implements Identifier {
         }
         final ExportOperation.SchemaOptions schemaOptions = exportOperation.addSchema(schema);
 
-        for (Dataset dataset : content2.getDatasets()) {
-            schemaOptions.addEntity(dataset.getEntity());
+        final EntityType entityType = content2.getEntityType();
+        final EntityQuery query = new EntityQuery(schema.getSession(useReleaseState), entityType.getName(), content2.getFilter(),
+                                                  convertConditions(entityType), getKeyAttributeNames(entityType));
+        final int added = addEntities(query, DEFAULT_BATCH_SIZE, schemaOptions);
+        LOGGER.debug("Added {} entities of content2 object {}", added, uid);
+    }
+
+    /**
+     * Converts the values of the conditions to the types of their attributes.
+     *
+     * @throws IllegalArgumentException if the entity type has no attribute of a condition or a value can't be converted
+     */
+    Map<String, Object> convertConditions(EntityType entityType) {
+        final Map<String, Object> converted = new LinkedHashMap<>();
+        for (Map.Entry<String, String> condition : conditions.entrySet()) {
+            final Attribute attribute = entityType.getAttribute(condition.getKey());
+            if (attribute == null) {
+                throw new IllegalArgumentException("Entity type '" + entityType.getName() + "' of content2 object " + uid
+                                                   + " has no attribute '" + condition.getKey() + "'");
+            }
+            converted.put(condition.getKey(), EntityQuery.convert(condition.getValue(), attribute.getType()));
+        }
+        return converted;
+    }
+
+    private static List<String> getKeyAttributeNames(EntityType entityType) {
+        final List<String> names = new ArrayList<>();
+        for (Attribute attribute : entityType.getKeyAttributes()) {
+            names.add(attribute.getName());
         }
+        return names;
+    }
+
+    /**
+     * Adds the entities of the given source page by page, until a page is not full.
+     *
+     * @return the number of added entities
+     */
+    static int addEntities(EntityPageSource source, int batchSize, ExportOperation.SchemaOptions schemaOptions) {
+        int added = 0;
+        List<Entity> page;
+        do {
+            page = source.fetch(added, batchSize);
+            for (Entity entity : page) {
+                schemaOptions.addEntity(entity);
+            }
+            added += page.size();
+        } while (page.size() == batchSize);
+        return added;
     }
 
     @Override
@@ -80,12 +178,33 @@ public class EntitiesIdentifier implements Identifier {
 
         EntitiesIdentifier that = (EntitiesIdentifier) o;
 
-        return uid.equals(that.uid);
+        return uid.equals(that.uid) && conditions.equals(that.conditions);
 
     }
 
     @Override
     public int hashCode() {
-        return uid.hashCode();
+        return 31 * uid.hashCode() + conditions.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return conditions.isEmpty() ? uid : uid + conditions;
+    }
+
+    /**
+     * Source of the entities of a datasource, page by page.
+     */
+    @FunctionalInterface
+    interface EntityPageSource {
+
+        /**
+         * Fetches a page of entities.
+         *
+         * @param firstIndex the index of the first entity of the page
+         * @param maxCount   the maximum number of entities of the page
+         * @return the entities, fewer than maxCount only if there are no more
+         */
+        List<Entity> fetch(int firstIndex, int maxCount);
     }
 }
@@ -0,0 +1,166 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import de.espirit.or.Session;
+import de.espirit.or.query.And;
+import de.espirit.or.query.Constraint;
+import de.espirit.or.query.Equal;
+import de.espirit.or.query.Select;
+import de.espirit.or.schema.Entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Queries the entities of an entity type page by page, so only one page is held at a time. The pages are ordered by
+ * the primary key, so consecutive pages neither skip nor repeat entities. The filter of the Content2 object and the
+ * conditions of the identifier are combined, so only the entities the Content2 object shows are exported.
+ */
+class EntityQuery implements EntitiesIdentifier.EntityPageSource {
+
+    private final Session session;
+    private final String entityTypeName;
+    private final Constraint filter;
+    private final Map<String, Object> conditions;
+    private final List<String> keyAttributeNames;
+
+    /**
+     * @param filter            the filter of the Content2 object, or null if it has none
+     * @param conditions        the typed value per attribute name, see {@link #convert(String, Class)}
+     * @param keyAttributeNames the attributes of the primary key, the pages are ordered by
+     */
+    EntityQuery(Session session, String entityTypeName, Constraint filter, Map<String, Object> conditions, List<String> keyAttributeNames) {
+        this.session = session;
+        this.entityTypeName = entityTypeName;
+        this.filter = filter;
+        this.conditions = conditions;
+        this.keyAttributeNames = keyAttributeNames;
+    }
+
+    @Override
+    public List<Entity> fetch(int firstIndex, int maxCount) {
+        final Select select = session.createSelect(entityTypeName);
+        final Constraint constraint = createConstraint();
+        if (constraint != null) {
+            select.setConstraint(constraint);
+        }
+        for (String keyAttributeName : keyAttributeNames) {
+            select.addOrderCriteria(keyAttributeName, true);
+        }
+        select.setFirstResultIndex(firstIndex);
+        select.setMaxResultCount(maxCount);
+        return new ArrayList<>(session.executeQuery(select));
+    }
+
+    private Constraint createConstraint() {
+        final List<Constraint> constraints = new ArrayList<>(conditions.size() + 1);
+        if (filter != null) {
+            constraints.add(filter);
+        }
+        for (Map.Entry<String, Object> condition : conditions.entrySet()) {
+            constraints.add(new Equal(condition.getKey(), condition.getValue()));
+        }
+        if (constraints.isEmpty()) {
+            return null;
+        }
+        if (constraints.size() == 1) {
+            return constraints.get(0);
+        }
+        final And and = new And();
+        for (Constraint constraint : constraints) {
+            and.add(constraint);
+        }
+        return and;
+    }
+
+    /**
+     * Converts the value of a condition, as given on the command line, to the java type of its attribute, so it is
+     * compared like a value of the attribute. Dates are given like "2017-03-31" or "2017-03-31T12:00:00" in the
+     * default time zone, booleans like "true" or "1".
+     *
+     * @param value the value as given on the command line
+     * @param type  the java type of the attribute
+     * @return the converted value
+     * @throws IllegalArgumentException if the value can't be converted or the type isn't supported
+     */
+    static Object convert(String value, Class<?> type) {
+        try {
+            if (type == String.class || type == Object.class) {
+                return value;
+            }
+            if (type == Integer.class || type == int.class) {
+                return Integer.valueOf(value.trim());
+            }
+            if (type == Long.class || type == long.class) {
+                return Long.valueOf(value.trim());
+            }
+            if (type == Short.class || type == short.class) {
+                return Short.valueOf(value.trim());
+            }
+            if (type == Double.class || type == double.class) {
+                return Double.valueOf(value.trim());
+            }
+            if (type == Float.class || type == float.class) {
+                return Float.valueOf(value.trim());
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(value.trim());
+            }
+            if (type == Boolean.class || type == boolean.class) {
+                return convertBoolean(value);
+            }
+            if (Date.class.isAssignableFrom(type)) {
+                return convertDate(value);
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Value '" + value + "' can't be converted to " + type.getSimpleName(), e);
+        }
+        throw new IllegalArgumentException("Conditions on attributes of type " + type.getName() + " are not supported");
+    }
+
+    private static Boolean convertBoolean(String value) {
+        final String normalized = value.trim().toLowerCase(Locale.UK);
+        if ("true".equals(normalized) || "1".equals(normalized)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equals(normalized) || "0".equals(normalized)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Value '" + value + "' is no boolean, expected true, false, 1 or 0");
+    }
+
+    private static Date convertDate(String value) {
+        final String trimmed = value.trim();
+        final LocalDateTime dateTime = trimmed.contains("T") ? LocalDateTime.parse(trimmed) : LocalDate.parse(trimmed).atStartOfDay();
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import com.espirit.moddev.cli.api.parsing.parser.IdentifierToken;
+import com.espirit.moddev.shared.StringUtils;
+import de.espirit.firstspirit.access.store.Store;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Identifier for store elements that must not be exported, given with the <code>--exclude</code> option of an export.
+ * Three kinds are supported:
+ * <ul>
+ *     <li><code>path:/MediaStore/archive/**</code> excludes the elements whose path matches a pattern, see {@link PathPatternIdentifier}</li>
+ *     <li><code>uid:old_*</code> excludes the elements whose uid matches a glob pattern</li>
+ *     <li><code>type:media</code> excludes the elements of a {@link UidMapping}</li>
+ * </ul>
+ * Everything beneath an excluded element is excluded as well.
+ *
+ * @author e-Spirit AG
+ */
+public final class ExclusionIdentifier {
+
+    /**
+     * Prefix of exclusions by path pattern.
+     */
+    public static final String PREFIX_PATH = "path";
+
+    /**
+     * Prefix of exclusions by uid pattern.
+     */
+    public static final String PREFIX_UID = "uid";
+
+    /**
+     * Prefix of exclusions by element type.
+     */
+    public static final String PREFIX_TYPE = "type";
+
+    private final String input;
+    private final PathPatternIdentifier pathPattern;
+    private final Pattern uidPattern;
+    private final UidMapping uidMapping;
+
+    private ExclusionIdentifier(String input, PathPatternIdentifier pathPattern, Pattern uidPattern, UidMapping uidMapping) {
+        this.input = input;
+        this.pathPattern = pathPattern;
+        this.uidPattern = uidPattern;
+        this.uidMapping = uidMapping;
+    }
+
+    /**
+     * Parses an exclusion like <code>path:/MediaStore/archive/**</code>, <code>uid:old_*</code> or <code>type:media</code>.
+     *
+     * @param input the exclusion
+     * @return the parsed exclusion
+     * @throws IllegalArgumentException if the input is null, has no known prefix or an invalid value
+     */
+    public static ExclusionIdentifier parse(String input) {
+        if (input == null) {
+            throw new IllegalArgumentException("exclusion is null");
+        }
+        final IdentifierToken token = IdentifierToken.of(input);
+        if (StringUtils.isNullOrEmpty(token.getValue())) {
+            throw new IllegalArgumentException("Exclusion '" + input + "' has no value, use " + PREFIX_PATH + ":, " + PREFIX_UID + ": or " + PREFIX_TYPE + ":");
+        }
+        switch (token.getPrefix()) {
+            case PREFIX_PATH:
+                return new ExclusionIdentifier(input, new PathPatternIdentifier(token.getValue()), null, null);
+            case PREFIX_UID:
+                return new ExclusionIdentifier(input, null, StringUtils.globToPattern(token.getValue()), null);
+            case PREFIX_TYPE:
+                final UidMapping mapping = UidMapping.forPrefix(token.getValue().trim().toLowerCase(Locale.UK));
+                if (mapping == null) {
+                    throw new IllegalArgumentException("Unknown type '" + token.getValue() + "' of exclusion '" + input + "', use one of " + UidMapping.getPrefixes());
+                }
+                return new ExclusionIdentifier(input, null, null, mapping);
+            default:
+                throw new IllegalArgumentException("Unknown exclusion '" + input + "', use " + PREFIX_PATH + ":, " + PREFIX_UID + ": or " + PREFIX_TYPE + ":");
+        }
+    }
+
+    /**
+     * Indicates whether the given entry of a store index is excluded by this exclusion itself. Whether an ancestor
+     * of the entry is excluded is not considered.
+     *
+     * @param storeType the type of the store the entry belongs to
+     * @param entry     the entry
+     * @return true if the entry is excluded
+     */
+    public boolean excludes(Store.Type storeType, StoreIndex.Entry entry) {
+        if (pathPattern != null) {
+            return pathPattern.matches(storeType, entry);
+        }
+        if (uidPattern != null) {
+            return entry.getUid() != null && uidPattern.matcher(entry.getUid()).matches();
+        }
+        return uidMapping.getStoreType() == storeType && uidMapping.getCorrespondingType().isInstance(entry.getElement());
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if(o == null || o.getClass() != this.getClass()) {
+            return false;
+        } else if (this == o) {
+            return true;
+        } else {
+            return input.equals(((ExclusionIdentifier) o).input);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return input.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return input;
+    }
+}
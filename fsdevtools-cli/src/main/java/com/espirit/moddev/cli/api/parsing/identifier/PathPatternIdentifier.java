@@ -0,0 +1,200 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import com.espirit.moddev.shared.StringUtils;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Identifier for all elements whose path matches a pattern like <code>/PageStore/folder/**</code>. The first segment
+ * names the store, every further segment is matched against the uid or the name of an element. In a segment,
+ * <code>*</code> matches any characters and <code>?</code> matches a single character. The segment {@link #ANY_DEPTH}
+ * matches any number of segments, at the end of the path at least one, so <code>/PageStore/folder/**</code> selects
+ * everything beneath the folder.
+ *
+ * @author e-Spirit AG
+ */
+public class PathPatternIdentifier implements PatternIdentifier {
+    protected static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(PathPatternIdentifier.class);
+
+    /**
+     * Path segment that matches any number of segments.
+     */
+    public static final String ANY_DEPTH = "**";
+
+    private final String path;
+    private final List<Store.Type> storeTypes = new ArrayList<>();
+    private final List<Pattern> segmentPatterns = new ArrayList<>();
+
+    /**
+     * Instantiates a new path pattern identifier.
+     *
+     * @param path the path pattern, starting with <code>/</code> and the store
+     * @throws IllegalArgumentException if the path is null, doesn't start with <code>/</code> or names no known store
+     */
+    public PathPatternIdentifier(String path) {
+        if (path == null) {
+            throw new IllegalArgumentException("path is null");
+        }
+        if (!path.startsWith("/")) {
+            throw new IllegalArgumentException("path should start with '/'");
+        }
+        this.path = path;
+        final List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("path '" + path + "' doesn't name a store");
+        }
+        final Pattern storePattern = Pattern.compile(StringUtils.globToPattern(segments.get(0)).pattern(), Pattern.CASE_INSENSITIVE);
+        for (Store.Type storeType : Store.Type.values()) {
+            if (storePattern.matcher(storeType.name()).matches()) {
+                storeTypes.add(storeType);
+            }
+        }
+        if (storeTypes.isEmpty()) {
+            throw new IllegalArgumentException("No store matches '" + segments.get(0) + "' of path '" + path + "'");
+        }
+        for (String segment : segments.subList(1, segments.size())) {
+            segmentPatterns.add(ANY_DEPTH.equals(segment) ? null : StringUtils.globToPattern(segment));
+        }
+    }
+
+    /**
+     * Get the path pattern.
+     *
+     * @return the path pattern
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Get the stores matching the first segment of the path.
+     *
+     * @return the store types
+     */
+    public List<Store.Type> getStoreTypes() {
+        return Collections.unmodifiableList(storeTypes);
+    }
+
+    /**
+     * Adds all elements of the matching stores whose path matches the pattern. If the pattern consists of the store
+     * segment only, the store roots are added.
+     *
+     * @param storeIndexes the indexes of the stores
+     * @param exportOperation export operation to pass elements to
+     */
+    @Override
+    public void addToExportOperation(StoreIndexes storeIndexes, ExportOperation exportOperation) {
+        int matches = 0;
+        for (Store.Type storeType : storeTypes) {
+            final StoreIndex storeIndex = storeIndexes.get(storeType);
+            if (segmentPatterns.isEmpty()) {
+                LOGGER.debug("Adding store element: {}", storeIndex.getStore());
+                exportOperation.addElement(storeIndex.getStore());
+                matches++;
+                continue;
+            }
+            for (StoreIndex.Entry entry : storeIndex.getEntries()) {
+                if (matches(entry.getPath(), 0, 0)) {
+                    LOGGER.debug("Adding store element: {}", entry.getElement());
+                    exportOperation.addElement(entry.getElement());
+                    matches++;
+                }
+            }
+        }
+        if (matches == 0) {
+            LOGGER.warn("No element matches '{}'", path);
+        } else {
+            LOGGER.info("'{}' matches {} elements", path, matches);
+        }
+    }
+
+    /**
+     * Indicates whether the given entry of a store index matches the pattern.
+     *
+     * @param storeType the type of the store the entry belongs to
+     * @param entry     the entry
+     * @return true if the store matches the first segment and the path of the entry matches the further segments
+     */
+    public boolean matches(Store.Type storeType, StoreIndex.Entry entry) {
+        return storeTypes.contains(storeType) && matches(entry.getPath(), 0, 0);
+    }
+
+    /**
+     * Indicates whether the given path of entries, starting at entryIndex, matches the segment patterns starting at patternIndex.
+     */
+    private boolean matches(List<StoreIndex.Entry> entries, int entryIndex, int patternIndex) {
+        if (patternIndex == segmentPatterns.size()) {
+            return entryIndex == entries.size();
+        }
+        final Pattern pattern = segmentPatterns.get(patternIndex);
+        if (pattern == null) {
+            if (patternIndex == segmentPatterns.size() - 1) {
+                // a trailing ANY_DEPTH matches the descendants, but not the element itself
+                return entryIndex < entries.size();
+            }
+            return matches(entries, entryIndex, patternIndex + 1)
+                   || (entryIndex < entries.size() && matches(entries, entryIndex + 1, patternIndex));
+        }
+        if (entryIndex == entries.size()) {
+            return false;
+        }
+        final StoreIndex.Entry entry = entries.get(entryIndex);
+        final boolean segmentMatches = (entry.getUid() != null && pattern.matcher(entry.getUid()).matches())
+                                       || (entry.getName() != null && pattern.matcher(entry.getName()).matches());
+        return segmentMatches && matches(entries, entryIndex + 1, patternIndex + 1);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if(o == null || o.getClass() != this.getClass()) {
+            return false;
+        } else if (this == o) {
+            return true;
+        } else {
+            return path.equals(((PathPatternIdentifier) o).path);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
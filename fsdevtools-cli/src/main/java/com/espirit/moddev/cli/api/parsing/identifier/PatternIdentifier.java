@@ -0,0 +1,56 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+/**
+ * Identifier that selects elements by matching a pattern against the {@link StoreIndex} of a store instead of
+ * requesting a single element from the server.
+ *
+ * @author e-Spirit AG
+ */
+public interface PatternIdentifier extends Identifier {
+
+    /**
+     * Add all elements matching this identifier to the given export operation.
+     *
+     * @param storeIndexes the indexes of the stores, shared by all pattern identifiers of an export
+     * @param exportOperation export operation to pass elements to
+     */
+    void addToExportOperation(StoreIndexes storeIndexes, ExportOperation exportOperation);
+
+    /**
+     * Indexes the stores this identifier needs and adds all matching elements to the given export operation.
+     * Use {@link #addToExportOperation(StoreIndexes, ExportOperation)} to match several identifiers against the same indexes.
+     *
+     * @param storeAgent store agent to request the stores from
+     * @param useReleaseState indicates whether to index the release or the current stores
+     * @param exportOperation export operation to pass elements to
+     */
+    @Override
+    default void addToExportOperation(StoreAgent storeAgent, boolean useReleaseState, ExportOperation exportOperation) {
+        addToExportOperation(new StoreIndexes(storeAgent, useReleaseState), exportOperation);
+    }
+}
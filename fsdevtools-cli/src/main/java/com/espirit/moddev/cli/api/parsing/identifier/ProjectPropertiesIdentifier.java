@@ -39,6 +39,15 @@ public class ProjectPropertiesIdentifier implements Identifier {
         this.projectPropertyTypes = EnumSet.copyOf(projectPropertyTypes);
     }
 
+    /**
+     * Get the types of the project properties to export.
+     *
+     * @return a copy of the project property types
+     */
+    public EnumSet<PropertiesTransportOptions.ProjectPropertyType> getProjectPropertyTypes() {
+        return EnumSet.copyOf(projectPropertyTypes);
+    }
+
     @Override
     public void addToExportOperation(StoreAgent storeAgent, boolean useReleaseState, ExportOperation exportOperation) {
         final PropertiesTransportOptions options = exportOperation.configurePropertiesExport();
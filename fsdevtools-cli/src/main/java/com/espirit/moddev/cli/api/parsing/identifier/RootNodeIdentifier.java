@@ -55,6 +55,15 @@ public class RootNodeIdentifier implements Identifier {
         this.uidType = uidType;
     }
 
+    /**
+     * Get the uid type of the store root.
+     *
+     * @return the uid type
+     */
+    public IDProvider.UidType getUidType() {
+        return uidType;
+    }
+
     @Override
     public void addToExportOperation(StoreAgent storeAgent, boolean useReleaseState, ExportOperation exportOperation) {
         final IDProvider storeRoot = storeAgent.getStore(uidType.getStoreType(), useReleaseState);
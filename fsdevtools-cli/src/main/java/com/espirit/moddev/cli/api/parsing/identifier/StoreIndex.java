@@ -0,0 +1,175 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.StoreElement;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of the uids, names and paths of all elements of a store. The index is built by a single traversal
+ * of the store, so that any number of patterns can be matched against it without further server requests.
+ *
+ * @author e-Spirit AG
+ */
+public final class StoreIndex {
+    private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(StoreIndex.class);
+
+    private final Store.Type storeType;
+    private final Store store;
+    private final List<Entry> entries;
+
+    private StoreIndex(Store.Type storeType, Store store, List<Entry> entries) {
+        this.storeType = storeType;
+        this.store = store;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Builds the index of a store. All elements below the store root are requested with one recursive listing,
+     * which is streamed into the index.
+     *
+     * @param storeType the type of the store
+     * @param store the store root
+     * @return the index
+     */
+    public static StoreIndex build(Store.Type storeType, Store store) {
+        final long start = System.currentTimeMillis();
+        final List<Entry> entries = new ArrayList<>();
+        final Map<Long, Entry> entriesById = new HashMap<>();
+        for (IDProvider element : store.getChildren(IDProvider.class, true)) {
+            final StoreElement parent = element.getParent();
+            final Entry entry = new Entry(element, parent instanceof IDProvider ? entriesById.get(((IDProvider) parent).getId()) : null);
+            entries.add(entry);
+            entriesById.put(element.getId(), entry);
+        }
+        LOGGER.debug("Indexed {} elements of {} in {}ms", entries.size(), storeType, System.currentTimeMillis() - start);
+        return new StoreIndex(storeType, store, entries);
+    }
+
+    /**
+     * Get the type of the indexed store.
+     *
+     * @return the store type
+     */
+    public Store.Type getStoreType() {
+        return storeType;
+    }
+
+    /**
+     * Get the root of the indexed store.
+     *
+     * @return the store root
+     */
+    public Store getStore() {
+        return store;
+    }
+
+    /**
+     * Get all elements of the store, parents before their children.
+     *
+     * @return the entries
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * A single element of an indexed store.
+     */
+    public static final class Entry {
+        private final IDProvider element;
+        private final String uid;
+        private final String name;
+        private final Entry parent;
+
+        Entry(IDProvider element, Entry parent) {
+            this.element = element;
+            this.uid = element.getUid();
+            this.name = element.getName();
+            this.parent = parent;
+        }
+
+        /**
+         * Get the element.
+         *
+         * @return the element
+         */
+        public IDProvider getElement() {
+            return element;
+        }
+
+        /**
+         * Get the uid of the element.
+         *
+         * @return the uid, or null if the element has none
+         */
+        public String getUid() {
+            return uid;
+        }
+
+        /**
+         * Get the name of the element.
+         *
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the entry of the parent element.
+         *
+         * @return the parent entry, or null if the parent is the store root
+         */
+        public Entry getParent() {
+            return parent;
+        }
+
+        /**
+         * Get the entries from the topmost element below the store root down to this element.
+         *
+         * @return the path of entries, ending with this entry
+         */
+        public List<Entry> getPath() {
+            final LinkedList<Entry> path = new LinkedList<>();
+            for (Entry current = this; current != null; current = current.parent) {
+                path.addFirst(current);
+            }
+            return path;
+        }
+
+        @Override
+        public String toString() {
+            return uid != null ? uid : name;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.agency.StoreAgent;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Builds the {@link StoreIndex} of each store on first use and keeps it, so that all {@link PatternIdentifier}s of an
+ * export are matched against one traversal per store.
+ *
+ * @author e-Spirit AG
+ */
+public class StoreIndexes {
+
+    private final StoreAgent storeAgent;
+    private final boolean useReleaseState;
+    private final Map<Store.Type, StoreIndex> indexes = new EnumMap<>(Store.Type.class);
+
+    /**
+     * Creates an empty cache of store indexes.
+     *
+     * @param storeAgent the StoreAgent to retrieve the stores with
+     * @param useReleaseState indicates whether to index the {@link Store#isRelease() release} or current stores
+     */
+    public StoreIndexes(StoreAgent storeAgent, boolean useReleaseState) {
+        this.storeAgent = storeAgent;
+        this.useReleaseState = useReleaseState;
+    }
+
+    /**
+     * Get the index of a store, building it if this is the first request for the store.
+     *
+     * @param storeType the type of the store
+     * @return the index
+     */
+    public synchronized StoreIndex get(Store.Type storeType) {
+        return indexes.computeIfAbsent(storeType, type -> StoreIndex.build(type, storeAgent.getStore(type, useReleaseState)));
+    }
+
+    /**
+     * Indicates whether the indexed stores are the release stores.
+     *
+     * @return true for the release stores, false for the current stores
+     */
+    public boolean isReleaseState() {
+        return useReleaseState;
+    }
+}
@@ -106,35 +106,46 @@ public class UidIdentifier implements Identifier {
     }
 
     /**
-     * Selects a StoreElement from the store corresponding to this element's uidMapping. If any
-     * object matching the uid could be retrieved, a check is performed, if its class
-     * matches the class specified by this identifiers class (@code {@link UidMapping#getCorrespondingType()}).
+     * Selects a StoreElement from the store corresponding to this element's uidMapping and adds it to the given
+     * export operation, see {@link #resolve(Store, boolean)}.
      *
-     * That is, because multiple implementing classes (for example FILE and MEDIA) can share the same UidType.
-     * If you query the store with uid and UidType only, you could retrieve a MEDIA item, even if you only wanted
-     * a FILE item. Since uids are unique across stores, there shouldn't be further problems.
      * @param storeAgent the StoreAgent to retrieve store instances from
      * @param useReleaseState indicates whether to request elements from {@link Store#isRelease() release} or current store via given {@link StoreAgent}
      * @param exportOperation the ExportOperation matching elements should be added to
      */
     @Override
     public void addToExportOperation(StoreAgent storeAgent, boolean useReleaseState, ExportOperation exportOperation) {
+        final IDProvider storeElement = resolve(storeAgent.getStore(getUidMapping().getStoreType(), useReleaseState), useReleaseState);
+        LOGGER.debug("Adding store element: {}", storeElement);
+        exportOperation.addElement(storeElement);
+    }
+
+    /**
+     * Selects a StoreElement from the given store. If any object matching the uid could be retrieved, a check is performed,
+     * if its class matches the class specified by this identifiers class (@code {@link UidMapping#getCorrespondingType()}).
+     *
+     * That is, because multiple implementing classes (for example FILE and MEDIA) can share the same UidType.
+     * If you query the store with uid and UidType only, you could retrieve a MEDIA item, even if you only wanted
+     * a FILE item. Since uids are unique across stores, there shouldn't be further problems.
+     * @param store the store of this element's uidMapping, so callers resolving many identifiers can fetch it once
+     * @param useReleaseState indicates whether the store is the {@link Store#isRelease() release} store, used for error messages
+     * @return the matching store element
+     * @throws IDProviderNotFoundException if no element of the expected class exists for the uid
+     */
+    public IDProvider resolve(Store store, boolean useReleaseState) {
         final IDProvider.UidType uidType = getUidMapping().getUidType();
         final Store.Type storeType = getUidMapping().getStoreType();
-        final IDProvider storeElement = storeAgent.getStore(storeType, useReleaseState).getStoreElement(getUid(), uidType);
-        if(storeElement != null) {
-            if(isAssignableFrom(storeElement)) {
-                LOGGER.debug("Adding store element: {}", storeElement);
-                exportOperation.addElement(storeElement);
-            } else {
-                final String errorMessage = "IDProvider of class " + storeElement.getClass().getSimpleName() +
-                        " found, but expected to find one of class " + getUidMapping().getCorrespondingType().getSimpleName() +
-                        " for uid=" + getUid() + ", uidType=" + uidType + ", store=" + storeType + ", release=" + useReleaseState;
-                throw new IDProviderNotFoundException(errorMessage);
-            }
-        } else {
+        final IDProvider storeElement = store.getStoreElement(getUid(), uidType);
+        if(storeElement == null) {
             throw new IDProviderNotFoundException("IDProvider cannot be retrieved for uid=" + getUid() + ", uidType=" + uidType + ", store=" + storeType + ", release=" + useReleaseState);
         }
+        if(!isAssignableFrom(storeElement)) {
+            final String errorMessage = "IDProvider of class " + storeElement.getClass().getSimpleName() +
+                    " found, but expected to find one of class " + getUidMapping().getCorrespondingType().getSimpleName() +
+                    " for uid=" + getUid() + ", uidType=" + uidType + ", store=" + storeType + ", release=" + useReleaseState;
+            throw new IDProviderNotFoundException(errorMessage);
+        }
+        return storeElement;
     }
 
     private boolean isAssignableFrom(IDProvider storeElement) {
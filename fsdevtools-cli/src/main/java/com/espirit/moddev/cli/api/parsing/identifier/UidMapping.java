@@ -34,7 +34,11 @@ import de.espirit.firstspirit.access.store.sitestore.PageRef;
 import de.espirit.firstspirit.access.store.sitestore.PageRefFolder;
 import de.espirit.firstspirit.access.store.templatestore.*;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import de.espirit.firstspirit.access.store.globalstore.GCAPage;
 
@@ -66,6 +70,12 @@ public enum UidMapping {
     STYLETEMPLATE(Store.Type.TEMPLATESTORE, IDProvider.UidType.TEMPLATESTORE_STYLETEMPLATE, StyleTemplate.class),
     TABLEFORMATTEMPLATE(Store.Type.TEMPLATESTORE, IDProvider.UidType.TEMPLATESTORE_TABLEFORMATTEMPLATE, TableFormatTemplate.class);
 
+    private static final Map<String, UidMapping> BY_PREFIX = new HashMap<>();
+    static {
+        for (UidMapping uidMapping : values()) {
+            BY_PREFIX.put(uidMapping.getPrefix(), uidMapping);
+        }
+    }
 
     private IDProvider.UidType uidType;
     private Class<?> correspondingType;
@@ -85,6 +95,25 @@ public enum UidMapping {
         return this.name().toLowerCase(Locale.UK);
     }
 
+    /**
+     * Looks up the mapping of the given lower cased prefix without throwing an exception for unknown prefixes.
+     *
+     * @param prefix the lower cased prefix, like <code>pagetemplate</code>
+     * @return the mapping, or null if there is no mapping for the prefix
+     */
+    public static UidMapping forPrefix(String prefix) {
+        return BY_PREFIX.get(prefix);
+    }
+
+    /**
+     * Get the lower cased prefixes of all mappings.
+     *
+     * @return the prefixes
+     */
+    public static Set<String> getPrefixes() {
+        return Collections.unmodifiableSet(BY_PREFIX.keySet());
+    }
+
     /**
      * Getter for the {@link de.espirit.firstspirit.access.store.IDProvider.UidType} the
      * uid mapping corresponds to.
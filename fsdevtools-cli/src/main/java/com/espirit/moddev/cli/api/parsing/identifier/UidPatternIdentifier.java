@@ -0,0 +1,129 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import com.espirit.moddev.shared.StringUtils;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import org.slf4j.LoggerFactory;
+
+import java.util.regex.Pattern;
+
+/**
+ * Identifier for all elements of a {@link UidMapping} whose uid matches a glob pattern like <code>page:news_*</code>,
+ * where <code>*</code> matches any characters and <code>?</code> matches a single character.
+ *
+ * @author e-Spirit AG
+ */
+public class UidPatternIdentifier implements PatternIdentifier {
+    protected static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(UidPatternIdentifier.class);
+
+    private final UidMapping uidMapping;
+    private final String uidPattern;
+    private final Pattern pattern;
+
+    /**
+     * Instantiates a new uid pattern identifier.
+     *
+     * @param uidMapping {@link UidMapping} of the matching elements
+     * @param uidPattern the glob pattern the uids are matched against
+     * @throws IllegalArgumentException if uidMapping or uidPattern is null or blank
+     */
+    public UidPatternIdentifier(final UidMapping uidMapping, final String uidPattern) {
+        if (uidMapping == null) {
+            throw new IllegalArgumentException("uidMapping is null.");
+        }
+        if (StringUtils.isNullOrEmpty(uidPattern)) {
+            throw new IllegalArgumentException("Uid pattern is null or empty.");
+        }
+        this.uidMapping = uidMapping;
+        this.uidPattern = uidPattern;
+        pattern = StringUtils.globToPattern(uidPattern);
+    }
+
+    /**
+     * Get the {@link UidMapping} of the matching elements.
+     *
+     * @return the uid mapping
+     */
+    public UidMapping getUidMapping() {
+        return uidMapping;
+    }
+
+    /**
+     * Get the glob pattern the uids are matched against.
+     *
+     * @return the pattern
+     */
+    public String getUidPattern() {
+        return uidPattern;
+    }
+
+    /**
+     * Adds all elements of the store of this identifier's {@link UidMapping} whose class corresponds to the mapping
+     * and whose uid matches the pattern.
+     *
+     * @param storeIndexes the indexes of the stores
+     * @param exportOperation export operation to pass elements to
+     */
+    @Override
+    public void addToExportOperation(StoreIndexes storeIndexes, ExportOperation exportOperation) {
+        int matches = 0;
+        for (StoreIndex.Entry entry : storeIndexes.get(uidMapping.getStoreType()).getEntries()) {
+            if (entry.getUid() != null && uidMapping.getCorrespondingType().isInstance(entry.getElement())
+                && pattern.matcher(entry.getUid()).matches()) {
+                LOGGER.debug("Adding store element: {}", entry.getElement());
+                exportOperation.addElement(entry.getElement());
+                matches++;
+            }
+        }
+        if (matches == 0) {
+            LOGGER.warn("No element matches '{}'", this);
+        } else {
+            LOGGER.info("'{}' matches {} elements", this, matches);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if(o == null || o.getClass() != this.getClass()) {
+            return false;
+        } else if (this == o) {
+            return true;
+        } else {
+            final UidPatternIdentifier that = (UidPatternIdentifier) o;
+            return uidMapping.equals(that.uidMapping) && uidPattern.equals(that.uidPattern);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int result = uidMapping.hashCode();
+        result = 31 * result + uidPattern.hashCode(); //NOSONAR
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return uidMapping.getPrefix() + ":" + uidPattern;
+    }
+}
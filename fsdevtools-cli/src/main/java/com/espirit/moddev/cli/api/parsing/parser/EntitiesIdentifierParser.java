@@ -27,55 +27,62 @@ import com.espirit.moddev.cli.api.parsing.identifier.UidIdentifier;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.regex.Pattern;
 
 /**
  * Parser implementation that is able to parse FirstSpirit Content2 identifiers from a list of strings
  * and return a list of entity identifier instances.
  * Is applicable to strings of the form "entities:news" with "entities" as a prefix, ":" as a delimiter
- * and a Content2 uid as a postfix.
+ * and a Content2 uid as a postfix. The uid can be followed by conditions the exported entities must match,
+ * like "entities:news?where=category=sports,online=1".
  */
-public class EntitiesIdentifierParser  implements Parser<EntitiesIdentifier> {
-    private static final Pattern DELIMITER = Pattern.compile("\\s*:\\s*");
+public class EntitiesIdentifierParser  implements PrefixedParser<EntitiesIdentifier> {
 
     protected static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(EntitiesIdentifierParser.class);
     public static final String ENTITIES_IDENTIFIER = "entities";
+    public static final String PARAMETER_DELIMITER = "?";
+    public static final String WHERE_PARAMETER = "where=";
+    public static final String CONDITION_DELIMITER = ",";
 
     @Override
-    public List<EntitiesIdentifier> parse(List<String> input) {
-        if (input == null) {
-            throw new IllegalArgumentException("input is null!");
-        }
-        if (input.isEmpty()) {
-            return Collections.emptyList();
+    public List<EntitiesIdentifier> parseTokens(List<IdentifierToken> tokens) {
+        final List<EntitiesIdentifier> list = new ArrayList<>(tokens.size());
+        for (final IdentifierToken token : tokens) {
+            if (token.getValue() != null) {
+                list.add(createIdentifier(token.getInput(), token.getValue()));
+            } else if (!token.getPrefix().isEmpty()) {
+                throw new IllegalArgumentException("Wrong input format for input string " + token.getInput());
+            }
         }
+        return list;
+    }
 
-        final List<EntitiesIdentifier> list = new ArrayList<>(input.size());
-        for (final String identifier : input) {
-            try(Scanner uidScanner = new Scanner(identifier)) {
-                uidScanner.useDelimiter(DELIMITER);
-                if (uidScanner.hasNext()) {
-                    final String firstPart = uidScanner.next();
-                    if (uidScanner.hasNext()) {
-                        final String secondPart = uidScanner.next();
-                        final EntitiesIdentifier entitiesIdentifier = new EntitiesIdentifier(secondPart);
-                        list.add(entitiesIdentifier);
-                    } else {
-                        throw new IllegalArgumentException("Wrong input format for input string " + identifier);
-                    }
-                }
+    private static EntitiesIdentifier createIdentifier(String identifier, String secondPart) {
+        final int parameterIndex = secondPart.indexOf(PARAMETER_DELIMITER);
+        if (parameterIndex < 0) {
+            return new EntitiesIdentifier(secondPart);
+        }
+        final String parameter = secondPart.substring(parameterIndex + PARAMETER_DELIMITER.length());
+        if (!parameter.startsWith(WHERE_PARAMETER)) {
+            throw new IllegalArgumentException("Unknown parameter in input string " + identifier + ", expected '" + WHERE_PARAMETER + "'");
+        }
+        final Map<String, String> conditions = new LinkedHashMap<>();
+        for (String condition : parameter.substring(WHERE_PARAMETER.length()).split(CONDITION_DELIMITER)) {
+            final int equalsIndex = condition.indexOf('=');
+            if (equalsIndex <= 0) {
+                throw new IllegalArgumentException("Wrong condition '" + condition + "' in input string " + identifier + ", expected 'attribute=value'");
             }
+            conditions.put(condition.substring(0, equalsIndex).trim(), condition.substring(equalsIndex + 1).trim());
         }
-        return list;
+        return new EntitiesIdentifier(secondPart.substring(0, parameterIndex), conditions);
     }
 
     @Override
-    public boolean appliesTo(String input) {
-        String[] splitted = input.split(DELIMITER.pattern());
-        if(splitted.length != 2) {
-            return false;
-        }
+    public Set<String> getPrefixes() {
+        return Collections.singleton(ENTITIES_IDENTIFIER);
+    }
 
-        return splitted[0].toLowerCase(Locale.UK).trim().equals(ENTITIES_IDENTIFIER);
+    @Override
+    public boolean appliesTo(IdentifierToken token) {
+        return token.getValue() != null && token.getPrefix().equals(ENTITIES_IDENTIFIER);
     }
 }
@@ -0,0 +1,114 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expands identifier arguments that refer to a list of identifiers, so that very long lists don't have to be passed
+ * on the command line. An argument <code>@file</code> is replaced by the lines of the file, and <code>@-</code> by
+ * the lines of the standard input. Leading and trailing whitespace is removed, and empty lines as well as lines
+ * starting with <code>#</code> are ignored.
+ *
+ * @author e-Spirit AG
+ */
+public final class IdentifierArguments {
+
+    /**
+     * Prefix of an argument that refers to a file of identifiers.
+     */
+    public static final String FILE_PREFIX = "@";
+
+    /**
+     * Argument that refers to the standard input.
+     */
+    public static final String STDIN = FILE_PREFIX + "-";
+
+    private static final String COMMENT_PREFIX = "#";
+
+    private IdentifierArguments() {
+        // Not used
+    }
+
+    /**
+     * Expands the given arguments, reading the standard input for <code>@-</code>.
+     *
+     * @param arguments the identifier arguments
+     * @return the identifiers, or the given list if no argument refers to a file
+     * @throws IllegalArgumentException if a file can't be read
+     */
+    public static List<String> expand(List<String> arguments) {
+        return expand(arguments, System.in);
+    }
+
+    /**
+     * Expands the given arguments.
+     *
+     * @param arguments the identifier arguments
+     * @param stdin     the stream to read for <code>@-</code>
+     * @return the identifiers, or the given list if no argument refers to a file
+     * @throws IllegalArgumentException if a file can't be read
+     */
+    static List<String> expand(List<String> arguments, InputStream stdin) {
+        if (arguments.stream().noneMatch(argument -> argument.startsWith(FILE_PREFIX))) {
+            return arguments;
+        }
+        final List<String> result = new ArrayList<>(arguments.size());
+        for (String argument : arguments) {
+            if (!argument.startsWith(FILE_PREFIX)) {
+                result.add(argument);
+                continue;
+            }
+            try {
+                if (STDIN.equals(argument)) {
+                    readLines(new BufferedReader(new InputStreamReader(stdin, StandardCharsets.UTF_8)), result);
+                } else {
+                    try (BufferedReader reader = Files.newBufferedReader(Paths.get(argument.substring(FILE_PREFIX.length())), StandardCharsets.UTF_8)) {
+                        readLines(reader, result);
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Identifiers of '" + argument + "' can't be read", e);
+            }
+        }
+        return result;
+    }
+
+    private static void readLines(BufferedReader reader, List<String> target) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final String identifier = line.trim();
+            if (!identifier.isEmpty() && !identifier.startsWith(COMMENT_PREFIX)) {
+                target.add(identifier);
+            }
+        }
+    }
+}
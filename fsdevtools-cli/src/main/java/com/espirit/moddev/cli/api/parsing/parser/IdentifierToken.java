@@ -0,0 +1,110 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.parser;
+
+import java.util.Locale;
+
+/**
+ * An identifier string that is split once into its prefix and its value, like <code>pagetemplate</code> and
+ * <code>homepage</code> for <code>pagetemplate:homepage</code>. Whitespace around the first delimiter is ignored
+ * and the prefix is lower cased, so parsers can compare it directly instead of splitting the string again.
+ *
+ * @author e-Spirit AG
+ */
+public final class IdentifierToken {
+
+    /**
+     * Delimiter between the prefix and the value of an identifier.
+     */
+    public static final char DELIMITER = ':';
+
+    private final String input;
+    private final String prefix;
+    private final String value;
+
+    private IdentifierToken(String input, String prefix, String value) {
+        this.input = input;
+        this.prefix = prefix;
+        this.value = value;
+    }
+
+    /**
+     * Splits the given identifier string at its first delimiter. Trailing delimiters are ignored.
+     *
+     * @param input the identifier string
+     * @return the token
+     */
+    public static IdentifierToken of(String input) {
+        final int delimiterIndex = input.indexOf(DELIMITER);
+        if (delimiterIndex < 0) {
+            return new IdentifierToken(input, input.trim().toLowerCase(Locale.UK), null);
+        }
+        int end = input.length();
+        while (end > delimiterIndex + 1 && (input.charAt(end - 1) == DELIMITER || Character.isWhitespace(input.charAt(end - 1)))) {
+            end--;
+        }
+        final String prefix = input.substring(0, delimiterIndex).trim().toLowerCase(Locale.UK);
+        return new IdentifierToken(input, prefix, input.substring(delimiterIndex + 1, end).trim());
+    }
+
+    /**
+     * Get the identifier string this token was created from.
+     *
+     * @return the identifier string
+     */
+    public String getInput() {
+        return input;
+    }
+
+    /**
+     * Get the lower cased prefix, or the whole lower cased identifier if it has no delimiter.
+     *
+     * @return the prefix
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Get the value after the first delimiter. It may contain further delimiters.
+     *
+     * @return the value, or null if the identifier has no delimiter
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Indicates if the identifier consists of exactly a prefix and a non-empty value without further delimiters.
+     *
+     * @return true for identifiers like <code>prefix:value</code>
+     */
+    public boolean isPair() {
+        return value != null && !value.isEmpty() && value.indexOf(DELIMITER) < 0;
+    }
+
+    @Override
+    public String toString() {
+        return input;
+    }
+}
@@ -1,33 +1,29 @@
 package com.espirit.moddev.cli.api.parsing.parser;
 
 import com.espirit.moddev.cli.api.parsing.identifier.PathIdentifier;
+import com.espirit.moddev.shared.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
-import java.util.Scanner;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * @author e-Spirit AG
  */
-public class PathIdentifierParser implements Parser<PathIdentifier> {
+public class PathIdentifierParser implements PrefixedParser<PathIdentifier> {
 
-    private static final Pattern DELIMITER = Pattern.compile("\\s*:\\s*");
     public static final String PATH_PREFIX = "path";
 
 
     @Override
-    public List<PathIdentifier> parse(List<String> input) {
+    public List<PathIdentifier> parseTokens(List<IdentifierToken> tokens) {
 
-        final List<PathIdentifier> list = new ArrayList<>(input.size());
+        final List<PathIdentifier> list = new ArrayList<>(tokens.size());
 
-        for (final String identifier : input) {
-            try(Scanner uidScanner = new Scanner(identifier)) {
-                uidScanner.useDelimiter(DELIMITER);
-                if (uidScanner.hasNext()) {
-                    checkAndAddPath(list, identifier, uidScanner);
-                }
+        for (final IdentifierToken token : tokens) {
+            if (!token.getPrefix().isEmpty()) {
+                checkAndAddPath(list, token);
             }
         }
 
@@ -35,27 +31,32 @@ public class PathIdentifierParser implements Parser<PathIdentifier> {
     }
 
 
-    private static void checkAndAddPath(List<PathIdentifier> list, String identifier, Scanner uidScanner) {
-        final String prefix = uidScanner.next();
-        if (! PATH_PREFIX.equalsIgnoreCase(prefix)) {
+    private static void checkAndAddPath(List<PathIdentifier> list, IdentifierToken token) {
+        if (! PATH_PREFIX.equals(token.getPrefix())) {
             // normally checked by #appliesTo
             throw new IllegalArgumentException("invalid prefix - should be 'path'");
         }
-        if (uidScanner.hasNext()) {
-            final String path = uidScanner.next();
+        if (token.isPair()) {
+            final String path = token.getValue();
             if (! path.startsWith("/")) {
                 throw new IllegalArgumentException("path should start with '/'");
             }
             list.add(new PathIdentifier(path));
         } else {
-            throw new IllegalArgumentException("Wrong input format for input string " + identifier);
+            throw new IllegalArgumentException("Wrong input format for input string " + token.getInput());
         }
     }
 
 
     @Override
-    public boolean appliesTo(String input) {
-        final String[] splitted = input.split(DELIMITER.pattern());
-        return splitted.length == 2 && splitted[0].toLowerCase(Locale.UK).trim().equals(PATH_PREFIX);
+    public Set<String> getPrefixes() {
+        return Collections.singleton(PATH_PREFIX);
+    }
+
+
+    @Override
+    public boolean appliesTo(IdentifierToken token) {
+        // patterns are handled by the PathPatternIdentifierParser
+        return token.isPair() && PATH_PREFIX.equals(token.getPrefix()) && !StringUtils.isGlob(token.getValue());
     }
 }
@@ -0,0 +1,64 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.parser;
+
+import com.espirit.moddev.cli.api.parsing.identifier.PathPatternIdentifier;
+import com.espirit.moddev.shared.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static com.espirit.moddev.cli.api.parsing.parser.PathIdentifierParser.PATH_PREFIX;
+
+/**
+ * Parser for path identifiers with glob patterns, like <code>path:/PageStore/folder/**</code>. Paths without
+ * <code>*</code> or <code>?</code> are left to the {@link PathIdentifierParser}.
+ *
+ * @author e-Spirit AG
+ */
+public class PathPatternIdentifierParser implements PrefixedParser<PathPatternIdentifier> {
+
+    @Override
+    public List<PathPatternIdentifier> parseTokens(List<IdentifierToken> tokens) {
+        final List<PathPatternIdentifier> list = new ArrayList<>(tokens.size());
+        for (final IdentifierToken token : tokens) {
+            if (!token.isPair() || !PATH_PREFIX.equals(token.getPrefix())) {
+                throw new IllegalArgumentException("Wrong input format for input string " + token.getInput());
+            }
+            list.add(new PathPatternIdentifier(token.getValue()));
+        }
+        return list;
+    }
+
+    @Override
+    public Set<String> getPrefixes() {
+        return Collections.singleton(PATH_PREFIX);
+    }
+
+    @Override
+    public boolean appliesTo(IdentifierToken token) {
+        return token.isPair() && PATH_PREFIX.equals(token.getPrefix()) && StringUtils.isGlob(token.getValue());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.parser;
+
+import com.espirit.moddev.cli.api.parsing.identifier.Identifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A parser that is only applicable to identifiers with one of a fixed set of prefixes. A {@link RegistryBasedParser}
+ * uses the prefixes to dispatch every identifier directly to the few parsers that can handle it, and hands over
+ * the identifiers as {@link IdentifierToken}s, so they are split only once.
+ *
+ * @param <T> the identifier subclass that the parser implementation can return
+ * @author e-Spirit AG
+ */
+public interface PrefixedParser<T extends Identifier> extends Parser<T> {
+
+    /**
+     * Get the lower cased prefixes of the identifiers this parser may apply to. An identifier without delimiter
+     * is its own prefix.
+     *
+     * @return the prefixes
+     */
+    Set<String> getPrefixes();
+
+    /**
+     * Indicates if the parser implementation can handle the given identifier.
+     *
+     * @param token the identifier
+     * @return true if the identifier can be handled somehow
+     */
+    boolean appliesTo(IdentifierToken token);
+
+    /**
+     * Parses a list of identifiers to a list of identifier instances.
+     *
+     * @param tokens the identifiers to parse
+     * @return a list of parsed identifiers
+     */
+    List<T> parseTokens(List<IdentifierToken> tokens);
+
+    @Override
+    default boolean appliesTo(String input) {
+        return appliesTo(IdentifierToken.of(input));
+    }
+
+    @Override
+    default List<T> parse(List<String> input) {
+        if (input == null) {
+            throw new IllegalArgumentException("input is null!");
+        }
+        final List<IdentifierToken> tokens = new ArrayList<>(input.size());
+        for (String identifier : input) {
+            tokens.add(IdentifierToken.of(identifier));
+        }
+        return parseTokens(tokens);
+    }
+}
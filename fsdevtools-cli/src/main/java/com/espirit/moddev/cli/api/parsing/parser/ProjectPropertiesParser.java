@@ -23,7 +23,6 @@
 package com.espirit.moddev.cli.api.parsing.parser;
 
 import java.util.*;
-import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,11 +34,9 @@ import de.espirit.firstspirit.transport.PropertiesTransportOptions;
  *
  * @author kohlbrecher
  */
-public class ProjectPropertiesParser implements Parser<ProjectPropertiesIdentifier> {
+public class ProjectPropertiesParser implements PrefixedParser<ProjectPropertiesIdentifier> {
     protected static final Logger LOGGER = LoggerFactory.getLogger(ProjectPropertiesParser.class);
     
-    private static final Pattern DELIMITER = Pattern.compile("\\s*:\\s*");
-    
     public static final String CUSTOM_PREFIX_PROJECT_PROPERTIES = "projectproperty";
 
     /**
@@ -48,35 +45,28 @@ public class ProjectPropertiesParser implements Parser<ProjectPropertiesIdentifi
     public static final String ALL = "ALL";
 
     @Override
-    public List<ProjectPropertiesIdentifier> parse(List<String> input) {
-        if (input == null) {
-            throw new IllegalArgumentException("input is null!");
-        }
-        if (input.isEmpty()) {
+    public List<ProjectPropertiesIdentifier> parseTokens(List<IdentifierToken> tokens) {
+        if (tokens.isEmpty()) {
             return Collections.emptyList();
         }
 
         EnumSet<PropertiesTransportOptions.ProjectPropertyType> tempEnum = EnumSet.noneOf(PropertiesTransportOptions.ProjectPropertyType.class);
         
-        final List<ProjectPropertiesIdentifier> list = new ArrayList<>(input.size());
-        for (final String identifier : input) {
-            try(Scanner uidScanner = new Scanner(identifier)) {
-                uidScanner.useDelimiter(DELIMITER);
-                if (uidScanner.hasNext()) {
-                    uidScanner.next();
-                    if (uidScanner.hasNext()) {
-                        final String secondPart = uidScanner.next();
-                        if (ALL.equalsIgnoreCase(secondPart)) {
-                            // user wants to export all project properties --> ignore already collected properties and skip further collecting
-                            tempEnum = EnumSet.allOf(PropertiesTransportOptions.ProjectPropertyType.class);
-                            break;
-                        } else {
-                            tempEnum.add(PropertiesTransportOptions.ProjectPropertyType.valueOf(secondPart.toUpperCase(Locale.UK)));
-                        }
-                    } else {
-                        throw new IllegalArgumentException("Wrong input format for input string " + identifier);
-                    }
-                }
+        final List<ProjectPropertiesIdentifier> list = new ArrayList<>(tokens.size());
+        for (final IdentifierToken token : tokens) {
+            if (token.getPrefix().isEmpty()) {
+                continue;
+            }
+            if (!token.isPair()) {
+                throw new IllegalArgumentException("Wrong input format for input string " + token.getInput());
+            }
+            final String secondPart = token.getValue();
+            if (ALL.equalsIgnoreCase(secondPart)) {
+                // user wants to export all project properties --> ignore already collected properties and skip further collecting
+                tempEnum = EnumSet.allOf(PropertiesTransportOptions.ProjectPropertyType.class);
+                break;
+            } else {
+                tempEnum.add(PropertiesTransportOptions.ProjectPropertyType.valueOf(secondPart.toUpperCase(Locale.UK)));
             }
         }
         final ProjectPropertiesIdentifier fqUid = new ProjectPropertiesIdentifier(tempEnum);
@@ -99,9 +89,13 @@ public class ProjectPropertiesParser implements Parser<ProjectPropertiesIdentifi
 
 
     @Override
-    public boolean appliesTo(String input) {
-        final String[] splitted = input.split(DELIMITER.pattern());
-        return splitted.length == 2 && splitted[0].toLowerCase(Locale.UK).trim().equals(CUSTOM_PREFIX_PROJECT_PROPERTIES);
+    public Set<String> getPrefixes() {
+        return Collections.singleton(CUSTOM_PREFIX_PROJECT_PROPERTIES);
+    }
+
+    @Override
+    public boolean appliesTo(IdentifierToken token) {
+        return token.isPair() && token.getPrefix().equals(CUSTOM_PREFIX_PROJECT_PROPERTIES);
     }
     
 }
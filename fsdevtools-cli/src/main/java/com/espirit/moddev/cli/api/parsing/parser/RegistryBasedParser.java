@@ -29,15 +29,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import org.apache.commons.collections4.map.HashedMap;
 
+/**
+ * Parser that delegates every input string to the first applicable of its registered parsers. Every input string is
+ * split into an {@link IdentifierToken} once. Its prefix selects the candidate parsers: {@link PrefixedParser}s that
+ * declare the prefix, and all other parsers, which are asked with the plain input string.
+ */
 public class RegistryBasedParser implements Parser<Identifier> {
     protected static final Logger LOGGER = LoggerFactory.getLogger(RegistryBasedParser.class);
 
     private final List<Parser> registeredParsers = new ArrayList<>();
 
+    /**
+     * The candidate parsers of every prefix seen so far, in the order of their registration.
+     */
+    private final Map<String, List<Parser>> candidatesByPrefix = new HashMap<>();
+
     public RegistryBasedParser() {
     }
 
@@ -53,31 +64,21 @@ public class RegistryBasedParser implements Parser<Identifier> {
     public List<Identifier> parse(List<String> input) {
         List result = new ArrayList(input.size());
         
-        Map<Parser, List<String>> inputForParser = new HashedMap<Parser, List<String>>();
+        // keeps the parsers in order of their first input, so the result order is deterministic
+        Map<Parser, List<IdentifierToken>> inputForParser = new LinkedHashMap<Parser, List<IdentifierToken>>();
         
         for(String currentInput : input) {
-            boolean suitableParserRegistered = false;
-            for(Parser currentParser : registeredParsers) {
-                if(currentParser.appliesTo(currentInput)) {
-                    suitableParserRegistered = true;
-                    List tempList;
-                    if(!inputForParser.containsKey(currentParser)) {
-                        tempList = new ArrayList();
-                    } else {
-                        tempList = inputForParser.get(currentParser);
-                    }
-                    tempList.add(currentInput);
-                    inputForParser.put(currentParser, tempList);
-                }
-            }
-            if(!suitableParserRegistered) {
+            final IdentifierToken token = IdentifierToken.of(currentInput);
+            final Parser suitableParser = findParser(token);
+            if(suitableParser == null) {
                 throw new NoSuitableParserRegisteredException("No applicable parser found for input string " + currentInput);
             }
+            inputForParser.computeIfAbsent(suitableParser, parser -> new ArrayList<>()).add(token);
         }
         
-        for (Map.Entry<Parser, List<String>> entry : inputForParser.entrySet()) {
+        for (Map.Entry<Parser, List<IdentifierToken>> entry : inputForParser.entrySet()) {
             Parser currentParser = entry.getKey();
-            List parsed = currentParser.parse(entry.getValue());
+            List parsed = parse(currentParser, entry.getValue());
             if(parsed == null) {
                 throw new IllegalStateException("A parser of class " + currentParser.getClass() + " was invoked and returned null for input " + entry.getValue());
             } else if(parsed.isEmpty()) {
@@ -88,6 +89,17 @@ public class RegistryBasedParser implements Parser<Identifier> {
         return result;
     }
 
+    private static List parse(Parser parser, List<IdentifierToken> tokens) {
+        if (parser instanceof PrefixedParser) {
+            return ((PrefixedParser) parser).parseTokens(tokens);
+        }
+        final List<String> input = new ArrayList<>(tokens.size());
+        for (IdentifierToken token : tokens) {
+            input.add(token.getInput());
+        }
+        return parser.parse(input);
+    }
+
     /**
      * Indicates if the given input string can be parsed by one of the registered parsers.
      * @param input the string to test applicability for
@@ -95,12 +107,29 @@ public class RegistryBasedParser implements Parser<Identifier> {
      */
     @Override
     public boolean appliesTo(String input) {
-        for(Parser current : registeredParsers) {
-            if(current.appliesTo(input)) {
-                return true;
+        return findParser(IdentifierToken.of(input)) != null;
+    }
+
+    private Parser findParser(IdentifierToken token) {
+        for(Parser current : getCandidates(token.getPrefix())) {
+            final boolean applies = current instanceof PrefixedParser ? ((PrefixedParser) current).appliesTo(token) : current.appliesTo(token.getInput());
+            if(applies) {
+                return current;
             }
         }
-        return false;
+        return null;
+    }
+
+    private List<Parser> getCandidates(String prefix) {
+        return candidatesByPrefix.computeIfAbsent(prefix, key -> {
+            final List<Parser> candidates = new ArrayList<>();
+            for(Parser current : registeredParsers) {
+                if(!(current instanceof PrefixedParser) || ((PrefixedParser) current).getPrefixes().contains(key)) {
+                    candidates.add(current);
+                }
+            }
+            return candidates;
+        });
     }
 
     /**
@@ -115,6 +144,7 @@ public class RegistryBasedParser implements Parser<Identifier> {
         if(parser == null) {
             throw new IllegalArgumentException("Don't register null parsers!");
         }
+        candidatesByPrefix.clear();
         return registeredParsers.add(parser);
     }
 
@@ -124,6 +154,7 @@ public class RegistryBasedParser implements Parser<Identifier> {
      * @return true if the supplied parser was unregistered successfully
      */
     public boolean unregisterParser(Parser parser) {
+        candidatesByPrefix.clear();
         return registeredParsers.remove(parser);
     }
 }
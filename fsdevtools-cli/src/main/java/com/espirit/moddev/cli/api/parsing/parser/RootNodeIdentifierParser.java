@@ -30,7 +30,6 @@ import com.google.common.collect.Maps;
 import de.espirit.firstspirit.access.store.IDProvider;
 
 import java.util.*;
-import java.util.regex.Pattern;
 
 import static com.espirit.moddev.cli.api.parsing.identifier.RootNodeIdentifier.ROOT_NODE_IDENTIFIER;
 
@@ -40,11 +39,10 @@ import static com.espirit.moddev.cli.api.parsing.identifier.RootNodeIdentifier.R
  * Is applicable to strings of the form "root:templatestore" with "root" as a prefix, ":" as a delimiter
  * and a known store root identifier as a postfix.
  */
-public class RootNodeIdentifierParser implements Parser<RootNodeIdentifier> {
-
-    private static final Pattern DELIMITER = Pattern.compile("\\s*:\\s*");
+public class RootNodeIdentifierParser implements PrefixedParser<RootNodeIdentifier> {
 
     private static final BiMap<String, IDProvider.UidType> STORE_POSTFIXES;
+    private static final Set<String> PREFIXES;
     static {
         STORE_POSTFIXES = HashBiMap.create();
         STORE_POSTFIXES.put("templatestore", IDProvider.UidType.TEMPLATESTORE);
@@ -53,6 +51,10 @@ public class RootNodeIdentifierParser implements Parser<RootNodeIdentifier> {
         STORE_POSTFIXES.put("sitestore", IDProvider.UidType.SITESTORE_FOLDER);
         STORE_POSTFIXES.put("mediastore", IDProvider.UidType.MEDIASTORE_FOLDER);
         STORE_POSTFIXES.put("globalstore", IDProvider.UidType.GLOBALSTORE);
+        // store roots can be given with the root prefix, or as naked store identifiers
+        final Set<String> prefixes = new HashSet<>(STORE_POSTFIXES.keySet());
+        prefixes.add(ROOT_NODE_IDENTIFIER);
+        PREFIXES = Collections.unmodifiableSet(prefixes);
     }
 
     /**
@@ -70,74 +72,35 @@ public class RootNodeIdentifierParser implements Parser<RootNodeIdentifier> {
      * Parses a given list of strings and returns a list of RootNodeIdentifier instances that
      * represent FirstSpirit StoreRoot nodes.
      * @throws UnknownRootNodeException when an unknown postfix is supplied
-     * @param input a list of strings to parse
+     * @param tokens a list of identifiers to parse
      * @return a list of RootNodeIdentifiers
      */
     @Override
-    public List<RootNodeIdentifier> parse(List<String> input) {
-        if (input == null) {
-            throw new IllegalArgumentException("input is null!");
-        }
-        if (input.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        final List<RootNodeIdentifier> list = new ArrayList<>(input.size());
-        for (final String identifier : input) {
-            try(Scanner uidScanner = new Scanner(identifier)) {
-                uidScanner.useDelimiter(DELIMITER);
-                if (uidScanner.hasNext()) {
-                    final String firstPart = uidScanner.next();
-                    IDProvider.UidType uidType;
-                    if (uidScanner.hasNext()) {
-                        final String secondPart = uidScanner.next();
-                        if(!STORE_POSTFIXES.containsKey(secondPart)) {
-                            throw new UnknownRootNodeException("No root node found for '" + secondPart + "'");
-                        }
-                        uidType = getAllStorePostfixes().get(secondPart);
-                    } else {
-                        if(STORE_POSTFIXES.keySet().contains(firstPart)) {
-                            uidType = STORE_POSTFIXES.get(firstPart);
-                        } else {
-                            throw new UnknownRootNodeException("No root node found for '" + firstPart + "'");
-                        }
-                    }
-                    final RootNodeIdentifier rootNodeIdentifier = new RootNodeIdentifier(uidType);
-                    list.add(rootNodeIdentifier);
-                }
+    public List<RootNodeIdentifier> parseTokens(List<IdentifierToken> tokens) {
+        final List<RootNodeIdentifier> list = new ArrayList<>(tokens.size());
+        for (final IdentifierToken token : tokens) {
+            if (token.getPrefix().isEmpty()) {
+                continue;
             }
+            final String postfix = token.getValue() != null ? token.getValue() : token.getInput();
+            if (!STORE_POSTFIXES.containsKey(postfix)) {
+                throw new UnknownRootNodeException("No root node found for '" + postfix + "'");
+            }
+            list.add(new RootNodeIdentifier(STORE_POSTFIXES.get(postfix)));
         }
         return list;
     }
 
     @Override
-    public boolean appliesTo(String input) {
-        String[] splitted = input.split(DELIMITER.pattern());
-
-        if(couldBeNakedStoreIdentifier(splitted)) {
-            return isKnownNakedStoreIdentifier(input);
-        } else if(hasTwoTokens(splitted)) {
-            return splitted[0].toLowerCase(Locale.UK).trim().equals(ROOT_NODE_IDENTIFIER);
-        }
-
-        return false;
-    }
-
-    private boolean hasTwoTokens(String[] splitted) {
-        return splitted.length == 2;
+    public Set<String> getPrefixes() {
+        return PREFIXES;
     }
 
-    private boolean couldBeNakedStoreIdentifier(String[] splitted) {
-        return splitted.length == 1;
-    }
-
-    private boolean isKnownNakedStoreIdentifier(String input) {
-        for(String storeIdentifier : STORE_POSTFIXES.keySet()) {
-            boolean isKnownStoreIdentifier = storeIdentifier.equals(input);
-            if(isKnownStoreIdentifier) {
-                return true;
-            }
+    @Override
+    public boolean appliesTo(IdentifierToken token) {
+        if (token.getValue() == null) {
+            return STORE_POSTFIXES.containsKey(token.getInput());
         }
-        return false;
+        return token.isPair() && token.getPrefix().equals(ROOT_NODE_IDENTIFIER);
     }
 }
@@ -22,23 +22,16 @@
 
 package com.espirit.moddev.cli.api.parsing.parser;
 
-import com.espirit.moddev.cli.api.parsing.exceptions.UnknownRootNodeException;
 import com.espirit.moddev.cli.api.parsing.exceptions.UnregisteredPrefixException;
 import com.espirit.moddev.cli.api.parsing.identifier.UidIdentifier;
 import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
-import de.espirit.firstspirit.access.store.IDProvider;
-import de.espirit.firstspirit.access.store.ReferenceType;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.espirit.moddev.shared.StringUtils;
 
-import java.util.*;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
-public class UidIdentifierParser implements Parser<UidIdentifier> {
-
-    private static final Logger LOGGER = LoggerFactory.getLogger(UidIdentifierParser.class);
-
-    private static final Pattern DELIMITER = Pattern.compile("\\s*:\\s*");
+public class UidIdentifierParser implements PrefixedParser<UidIdentifier> {
 
     /**
      * Parse a list of full qualified uid strings.
@@ -46,56 +39,38 @@ public class UidIdentifierParser implements Parser<UidIdentifier> {
      * <code>&lt;TYPE_PREFIX&gt;:&lt;UID&gt;</code><br>
      * The allowed values for <code>TYPE_PREFIX</code> are defined by {@link UidMapping}.
      *
-     * @param input the {@link java.util.List} of full qualified uids following the above pattern
-     * @throws IllegalArgumentException if input is null or if a string does not follow the above pattern
-     * @throws UnknownRootNodeException if a requested store root does not exist
+     * @param tokens the {@link java.util.List} of full qualified uids following the above pattern
+     * @throws IllegalArgumentException if a string does not follow the above pattern
+     * @throws UnregisteredPrefixException if the prefix of a string is no {@link UidMapping}
      * @return the {@link java.util.List} of identifiers representing the input strings
      */
     @Override
-    public List<UidIdentifier> parse(final List<String> input) {
-        if (input == null) {
-            throw new IllegalArgumentException("input is null!");
-        }
-        if (input.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        final List<UidIdentifier> list = new ArrayList<>(input.size());
-        for (final String identifier : input) {
-            try(Scanner uidScanner = new Scanner(identifier)) {
-                uidScanner.useDelimiter(DELIMITER);
-                if (uidScanner.hasNext()) {
-                    final String firstPart = uidScanner.next();
-                    if (uidScanner.hasNext()) {
-                        final String secondPart = uidScanner.next();
-                        try {
-                            final UidIdentifier fqUid = new UidIdentifier(UidMapping.valueOf(firstPart.toUpperCase(Locale.UK)), secondPart);
-                            list.add(fqUid);
-                        } catch (IllegalArgumentException e) {
-                            LOGGER.trace("Identifier string caused an exception, leading to an UnregisteredPrefixException", e);
-                            throw new UnregisteredPrefixException("No uid mapping found for identifier " + firstPart);
-                        }
-                    } else {
-                        throw new IllegalArgumentException("Wrong input format for input string " + identifier);
-                    }
-                }
+    public List<UidIdentifier> parseTokens(final List<IdentifierToken> tokens) {
+        final List<UidIdentifier> list = new ArrayList<>(tokens.size());
+        for (final IdentifierToken token : tokens) {
+            if (token.getPrefix().isEmpty()) {
+                continue;
+            }
+            if (!token.isPair()) {
+                throw new IllegalArgumentException("Wrong input format for input string " + token.getInput());
             }
+            final UidMapping uidMapping = UidMapping.forPrefix(token.getPrefix());
+            if (uidMapping == null) {
+                throw new UnregisteredPrefixException("No uid mapping found for identifier " + token.getPrefix());
+            }
+            list.add(new UidIdentifier(uidMapping, token.getValue()));
         }
         return list;
     }
 
     @Override
-    public boolean appliesTo(String input) {
-        String[] splitted = input.split(DELIMITER.pattern());
-        if(splitted.length != 2) {
-            return false;
-        }
-        try {
-            UidMapping.valueOf(splitted[0].trim().toUpperCase(Locale.UK));
-            return true;
-        } catch (IllegalArgumentException e) {
-            LOGGER.trace("Identifier string caused an exception, leading to an UnregisteredPrefixException", e);
-            return false;
-        }
+    public Set<String> getPrefixes() {
+        return UidMapping.getPrefixes();
+    }
+
+    @Override
+    public boolean appliesTo(IdentifierToken token) {
+        // patterns are handled by the UidPatternIdentifierParser
+        return token.isPair() && !StringUtils.isGlob(token.getValue()) && UidMapping.forPrefix(token.getPrefix()) != null;
     }
 }
@@ -0,0 +1,78 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.parser;
+
+import com.espirit.moddev.cli.api.parsing.exceptions.UnregisteredPrefixException;
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+import com.espirit.moddev.cli.api.parsing.identifier.UidPatternIdentifier;
+import com.espirit.moddev.shared.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parser for uid identifiers with a glob pattern instead of a uid, like <code>page:news_*</code> or
+ * <code>pagetemplate:teaser_?</code>. Identifiers without <code>*</code> or <code>?</code> are left to the
+ * {@link UidIdentifierParser}.
+ *
+ * @author e-Spirit AG
+ */
+public class UidPatternIdentifierParser implements PrefixedParser<UidPatternIdentifier> {
+
+    /**
+     * Parse a list of uid pattern strings.
+     * The strings must match the following pattern:<br>
+     * <code>&lt;TYPE_PREFIX&gt;:&lt;UID_PATTERN&gt;</code><br>
+     * The allowed values for <code>TYPE_PREFIX</code> are defined by {@link UidMapping}.
+     *
+     * @param tokens the {@link java.util.List} of uid patterns following the above pattern
+     * @throws IllegalArgumentException if a string does not follow the above pattern
+     * @return the {@link java.util.List} of identifiers representing the input strings
+     */
+    @Override
+    public List<UidPatternIdentifier> parseTokens(final List<IdentifierToken> tokens) {
+        final List<UidPatternIdentifier> list = new ArrayList<>(tokens.size());
+        for (final IdentifierToken token : tokens) {
+            if (!token.isPair()) {
+                throw new IllegalArgumentException("Wrong input format for input string " + token.getInput());
+            }
+            final UidMapping uidMapping = UidMapping.forPrefix(token.getPrefix());
+            if (uidMapping == null) {
+                throw new UnregisteredPrefixException("No uid mapping found for identifier " + token.getPrefix());
+            }
+            list.add(new UidPatternIdentifier(uidMapping, token.getValue()));
+        }
+        return list;
+    }
+
+    @Override
+    public Set<String> getPrefixes() {
+        return UidMapping.getPrefixes();
+    }
+
+    @Override
+    public boolean appliesTo(IdentifierToken token) {
+        return token.isPair() && StringUtils.isGlob(token.getValue()) && UidMapping.forPrefix(token.getPrefix()) != null;
+    }
+}
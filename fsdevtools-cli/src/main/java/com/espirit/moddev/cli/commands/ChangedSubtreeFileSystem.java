@@ -0,0 +1,166 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import de.espirit.firstspirit.io.FileHandle;
+import de.espirit.firstspirit.io.FileSystem;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * View of a local synchronization directory that only shows the subtrees containing changed files, so that an import
+ * of the view only imports the elements of these subtrees. A subtree is the directory of a changed file, or the
+ * changed directory itself if it still exists. Besides the subtrees, the view shows the metadata directory, the
+ * directories on the way to the subtrees and the files beside them, which describe the parent elements.
+ * <p>
+ * Changes of the metadata directory or directly within the synchronization directory can't be narrowed down,
+ * so they require a full import.
+ *
+ * @author e-Spirit AG
+ */
+public final class ChangedSubtreeFileSystem extends FileSystemDecorator {
+
+    static final String METADATA_DIRECTORY = ".FirstSpirit";
+
+    private final Set<String> subtrees;
+    private final boolean fullImport;
+
+    private ChangedSubtreeFileSystem(Set<String> subtrees, boolean fullImport) {
+        this.subtrees = Collections.unmodifiableSet(subtrees);
+        this.fullImport = fullImport;
+    }
+
+    /**
+     * Determines the changed subtrees of a synchronization directory.
+     *
+     * @param root         the synchronization directory
+     * @param changedPaths the changed, created or deleted files and directories
+     * @return the view of the changed subtrees
+     */
+    public static ChangedSubtreeFileSystem of(Path root, Collection<Path> changedPaths) {
+        final Set<String> candidates = new TreeSet<>();
+        for (Path changedPath : changedPaths) {
+            final Path relativePath = root.relativize(changedPath);
+            final Path subtree = Files.isDirectory(changedPath) ? relativePath : relativePath.getParent();
+            if (subtree == null || subtree.toString().isEmpty() || subtree.getName(0).toString().equals(METADATA_DIRECTORY)) {
+                return new ChangedSubtreeFileSystem(Collections.emptySet(), true);
+            }
+            candidates.add(normalize(subtree.toString()));
+        }
+        // sorted, so every subtree comes right after its ancestors
+        final Set<String> subtrees = new LinkedHashSet<>();
+        String last = null;
+        for (String candidate : candidates) {
+            if (last == null || !isWithin(candidate, last)) {
+                subtrees.add(candidate);
+                last = candidate;
+            }
+        }
+        return new ChangedSubtreeFileSystem(subtrees, false);
+    }
+
+    /**
+     * Checks whether the changes can't be narrowed down, so the whole synchronization directory has to be imported.
+     *
+     * @return true if a full import is required
+     */
+    public boolean isFullImport() {
+        return fullImport;
+    }
+
+    /**
+     * Get the changed subtrees.
+     *
+     * @return the paths of the subtrees relative to the synchronization directory, separated by slashes
+     */
+    public Set<String> getSubtrees() {
+        return subtrees;
+    }
+
+    /**
+     * Restricts the given file system of the synchronization directory to the changed subtrees.
+     * Listings of directories don't contain the files and directories outside of the view.
+     *
+     * @param fileSystem the file system of the synchronization directory
+     * @param <F>        the type of the file handles
+     * @return the restricted file system, or the given one for a full import
+     */
+    @Override
+    public <F extends FileHandle> FileSystem<F> decorate(FileSystem<F> fileSystem) {
+        if (fullImport) {
+            return fileSystem;
+        }
+        return super.decorate(fileSystem);
+    }
+
+    /**
+     * Checks whether a file or directory is part of the view.
+     *
+     * @param path      the path relative to the synchronization directory
+     * @param directory true if the path denotes a directory
+     * @return true if the view shows the path
+     */
+    boolean isVisible(String path, boolean directory) {
+        final String relativePath = normalize(path);
+        if (fullImport || relativePath.isEmpty() || isWithin(relativePath, METADATA_DIRECTORY)) {
+            return true;
+        }
+        final int lastSlash = relativePath.lastIndexOf('/');
+        final String parent = lastSlash < 0 ? "" : relativePath.substring(0, lastSlash);
+        for (String subtree : subtrees) {
+            if (isWithin(relativePath, subtree) || isWithin(subtree, relativePath)) {
+                return true;
+            }
+            if (!directory && (parent.isEmpty() || isWithin(subtree, parent))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWithin(String path, String ancestor) {
+        return path.equals(ancestor) || path.startsWith(ancestor + "/");
+    }
+
+    private static String normalize(String path) {
+        String result = path.replace('\\', '/');
+        while (result.startsWith("/")) {
+            result = result.substring(1);
+        }
+        while (result.endsWith("/")) {
+            result = result.substring(0, result.length() - 1);
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean isVisible(FileHandle handle) {
+        return isVisible(handle.getPath(), handle.isDirectory());
+    }
+}
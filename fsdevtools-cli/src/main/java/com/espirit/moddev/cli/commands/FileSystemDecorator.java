@@ -0,0 +1,212 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import de.espirit.firstspirit.io.FileHandle;
+import de.espirit.firstspirit.io.FileSystem;
+
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Base class of decorators of a FirstSpirit {@link FileSystem}. The decorated file system and every file system or
+ * file handle it returns are proxies, whose calls are passed to {@link #handle(Object, Method, Object[])}. By default
+ * a call is passed through to the decorated object and its result is decorated as well.
+ *
+ * @author e-Spirit AG
+ */
+public abstract class FileSystemDecorator {
+
+    /** The algorithm of the content hashes computed by decorators. */
+    protected static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * Decorates the given file system.
+     *
+     * @param fileSystem the file system to decorate
+     * @param <F>        the type of the file handles
+     * @return the decorated file system
+     */
+    @SuppressWarnings("unchecked")
+    public <F extends FileHandle> FileSystem<F> decorate(FileSystem<F> fileSystem) {
+        return (FileSystem<F>) wrap(fileSystem);
+    }
+
+    /**
+     * Handles a call of a decorated file system or file handle. Decorated arguments have already been replaced by
+     * the objects they decorate.
+     *
+     * @param target the decorated file system or file handle
+     * @param method the called method
+     * @param args   the arguments of the call, or null if there are none
+     * @return the result of the call
+     * @throws Throwable if the call failed
+     */
+    protected Object handle(Object target, Method method, Object[] args) throws Throwable {
+        return wrapResult(invoke(target, method, args), method.getReturnType());
+    }
+
+    /**
+     * Checks whether a file handle returned in a listing of the decorated file system is shown.
+     *
+     * @param handle the file handle
+     * @return false to leave the file handle out of the listing
+     */
+    protected boolean isVisible(FileHandle handle) {
+        return true;
+    }
+
+    /**
+     * Decorates the file systems and file handles of a result. Listings only keep their visible file handles, see
+     * {@link #isVisible(FileHandle)}.
+     *
+     * @param result     the result of a call of a decorated object
+     * @param returnType the return type of the called method
+     * @return the decorated result
+     */
+    protected final Object wrapResult(Object result, Class<?> returnType) {
+        if (result instanceof FileHandle || result instanceof FileSystem) {
+            return wrap(result);
+        }
+        if (result instanceof Iterable && returnType.isAssignableFrom(ArrayList.class)) {
+            final List<Object> visible = new ArrayList<>();
+            for (Object element : (Iterable<?>) result) {
+                if (!(element instanceof FileHandle)) {
+                    visible.add(element);
+                } else if (isVisible((FileHandle) element)) {
+                    visible.add(wrap(element));
+                }
+            }
+            return visible;
+        }
+        if (result instanceof FileHandle[]) {
+            final List<Object> visible = new ArrayList<>();
+            for (FileHandle element : (FileHandle[]) result) {
+                if (isVisible(element)) {
+                    visible.add(element);
+                }
+            }
+            // the elements stay unwrapped, since a proxy can't be stored in an array of an implementation type
+            return visible.toArray((Object[]) Array.newInstance(result.getClass().getComponentType(), 0));
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether a call writes the content of a file, which it receives as single {@link InputStream}.
+     *
+     * @param method the called method
+     * @param args   the arguments of the call
+     * @return true if the call saves content
+     */
+    protected static boolean isSave(Method method, Object[] args) {
+        return args != null && args.length >= 1 && args[0] instanceof InputStream
+               && method.getParameterTypes()[0].isAssignableFrom(InputStream.class);
+    }
+
+    /**
+     * Creates a {@value #DIGEST_ALGORITHM} message digest.
+     *
+     * @return the message digest
+     */
+    protected static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Calls a method of a decorated object.
+     *
+     * @param target the decorated object
+     * @param method the method
+     * @param args   the arguments of the call
+     * @return the undecorated result of the call
+     * @throws Throwable the exception thrown by the method
+     */
+    protected static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object wrap(Object target) {
+        final Set<Class<?>> interfaces = new LinkedHashSet<>();
+        collectInterfaces(target.getClass(), interfaces);
+        return Proxy.newProxyInstance(target.getClass().getClassLoader(), interfaces.toArray(new Class<?>[0]), new Handler(target));
+    }
+
+    private static Object[] unwrap(Object[] args) {
+        if (args == null) {
+            return null;
+        }
+        final Object[] result = args.clone();
+        for (int i = 0; i < result.length; i++) {
+            if (result[i] != null && Proxy.isProxyClass(result[i].getClass())
+                && Proxy.getInvocationHandler(result[i]) instanceof Handler) {
+                result[i] = ((Handler) Proxy.getInvocationHandler(result[i])).target;
+            }
+        }
+        return result;
+    }
+
+    private static void collectInterfaces(Class<?> type, Set<Class<?>> interfaces) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> anInterface : current.getInterfaces()) {
+                // non-public interfaces can't be implemented by a proxy of another package
+                if (Modifier.isPublic(anInterface.getModifiers()) && interfaces.add(anInterface)) {
+                    collectInterfaces(anInterface, interfaces);
+                }
+            }
+        }
+    }
+
+    private final class Handler implements InvocationHandler {
+
+        private final Object target;
+
+        private Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return handle(target, method, unwrap(args));
+        }
+    }
+}
@@ -23,7 +23,11 @@
 package com.espirit.moddev.cli.commands;
 
 import com.espirit.moddev.cli.CliConstants;
+import com.espirit.moddev.cli.SyncArchive;
+import com.espirit.moddev.cli.api.CliContext;
 import com.espirit.moddev.cli.api.configuration.ImportConfig;
+import com.espirit.moddev.cli.commands.export.MediaMetadataOnlyFileSystem;
+import com.espirit.moddev.cli.fanout.ProjectFanOutCapable;
 import com.espirit.moddev.cli.results.ImportResult;
 import com.espirit.moddev.core.SchemaUidToNameBasedLayerMapper;
 import com.espirit.moddev.core.StringPropertiesMap;
@@ -40,6 +44,13 @@ import de.espirit.firstspirit.transport.LayerMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * Command that executes a FirstSpirit ImportOperation. Uses a FirstSpirit context.
@@ -55,11 +66,17 @@ import org.slf4j.LoggerFactory;
                 "Import project and create for source schema 'my_schema' a new layer",
                 "Import project and redirect every unknown source schema into given target layer. The target layer must be attached to the project! (use with caution)",
                 "Import project and use specified mapping for source schemas and existing target layers. The target layers must be attached to the project! (use with caution)"})
-public class ImportCommand extends SimpleCommand<ImportResult> implements ImportConfig {
+public class ImportCommand extends SimpleCommand<ImportResult> implements ImportConfig, ProjectFanOutCapable {
 
     /** The Constant LOGGER. */
     protected static final Logger LOGGER = LoggerFactory.getLogger(ImportCommand.class);
 
+    /** The time without changes that ends a burst of changes in watch mode. */
+    private static final long WATCH_QUIET_PERIOD_MILLIS = 500;
+
+    /** The time the shutdown hook waits for a running import to finish when watching is stopped. */
+    private static final long WATCH_SHUTDOWN_TIMEOUT_SECONDS = 30;
+
     /** The import comment. */
     @Option(name = {"-i", "--import-comment"}, description = "Import comment for FirstSpirit revision")
     private String importComment;
@@ -78,6 +95,10 @@ public class ImportCommand extends SimpleCommand<ImportResult> implements Import
             type = OptionType.COMMAND)
     private String layerMapping;
 
+    /** The watch mode. */
+    @Option(name = {"--watch"}, description = "Keep running and import the changed elements whenever files of the synchronization directory change; stop with Ctrl+C")
+    private boolean watch;
+
     public ImportCommand() {
         super();
     }
@@ -103,20 +124,143 @@ public class ImportCommand extends SimpleCommand<ImportResult> implements Import
     public ImportResult call() {
         LOGGER.info("Importing...");
         try {
-            final OperationAgent operationAgent = getContext().requireSpecialist(OperationAgent.TYPE);
-            final ImportOperation importOperation = operationAgent.getOperation(ImportOperation.TYPE);
-            importOperation.setIgnoreEntities(dontCreateEntities);
-            importOperation.setRevisionComment(getImportComment());
-            importOperation.setLayerMapper(configureLayerMapper());
+            final ImportOperation importOperation = createImportOperation();
             final String syncDirStr = getSynchronizationDirectoryString();
-            LOGGER.info("importing from directory '{}'", syncDirStr);
-            final ImportOperation.Result result = importOperation.perform(getSynchronizationDirectory(syncDirStr));
+            if (watch) {
+                return watch(importOperation, syncDirStr);
+            }
+            if (!SyncArchive.isArchive(syncDirStr)) {
+                return importFrom(importOperation, syncDirStr);
+            }
+            // FirstSpirit imports from directories only, so the archive is extracted to a local directory
+            final SyncArchive syncArchive = SyncArchive.parse(syncDirStr);
+            final Path archiveDirectory = syncArchive.extractToTemporaryDirectory(true);
+            try {
+                return importFrom(importOperation, archiveDirectory.toString());
+            } finally {
+                SyncArchive.deleteDirectory(archiveDirectory);
+            }
+        } catch (@SuppressWarnings("squid:S2221") final Exception e) {
+            return new ImportResult(e);
+        }
+    }
+
+    private ImportOperation createImportOperation() {
+        final OperationAgent operationAgent = getContext().requireSpecialist(OperationAgent.TYPE);
+        final ImportOperation importOperation = operationAgent.getOperation(ImportOperation.TYPE);
+        importOperation.setIgnoreEntities(dontCreateEntities);
+        importOperation.setRevisionComment(getImportComment());
+        importOperation.setLayerMapper(configureLayerMapper());
+        return importOperation;
+    }
+
+    private ImportResult importFrom(final ImportOperation importOperation, final String syncDirStr) {
+        if (MediaMetadataOnlyFileSystem.isMarked(Paths.get(syncDirStr))) {
+            return new ImportResult(createPlaceholderException(syncDirStr));
+        }
+        LOGGER.info("importing from directory '{}'", syncDirStr);
+        final ImportOperation.Result result = importOperation.perform(getSynchronizationDirectory(syncDirStr));
+        return new ImportResult(getContext().requireSpecialist(StoreAgent.TYPE), result);
+    }
+
+    /**
+     * Imports the whole synchronization directory, and then the changed subtrees whenever files change, until the
+     * thread is interrupted or the jvm shuts down, like on Ctrl+C. The directory is watched from before the first
+     * import on, so files changed during that import are imported right after it. The connection of the context stays
+     * open between the imports. Failed imports of changes are logged, and watching continues with the next change.
+     * <p>
+     * On shutdown a hook closes the watcher, which ends the loop, and waits until a running import has finished and
+     * the context has been released, because the jvm halts as soon as the hook returns.
+     */
+    private ImportResult watch(final ImportOperation importOperation, final String syncDirStr) throws IOException {
+        if (SyncArchive.isArchive(syncDirStr)) {
+            return new ImportResult(new IllegalArgumentException("Watching is not supported for archives: " + syncDirStr));
+        }
+        if (MediaMetadataOnlyFileSystem.isMarked(Paths.get(syncDirStr))) {
+            return new ImportResult(createPlaceholderException(syncDirStr));
+        }
+        final Path root = Paths.get(syncDirStr).toAbsolutePath();
+        // watch before the initial import, so files edited while it runs are imported by the first loop iteration
+        final SyncDirectoryWatcher watcher = new SyncDirectoryWatcher(root, WATCH_QUIET_PERIOD_MILLIS);
+        final CountDownLatch stopped = new CountDownLatch(1);
+        final Thread shutdownHook = new Thread(() -> stopWatching(watcher, stopped), "fs-cli-watch-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        ImportResult result = null;
+        try {
+            result = importFrom(importOperation, syncDirStr);
+            while (true) {
+                result.log();
+                LOGGER.info("Watching directory '{}' for changes", root);
+                final Set<Path> changed = watcher.awaitChanges();
+                if (watcher.isClosed()) {
+                    break;
+                }
+                final ChangedSubtreeFileSystem changes = ChangedSubtreeFileSystem.of(root, changed);
+                if (changes.isFullImport()) {
+                    result = importFrom(createImportOperation(), syncDirStr);
+                } else {
+                    LOGGER.info("importing changed subtrees {}", changes.getSubtrees());
+                    result = importChanges(changes, syncDirStr);
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            watcher.close();
+            releaseContextOnShutdown(shutdownHook);
+            stopped.countDown();
+        }
+        LOGGER.info("Watching directory '{}' stopped", root);
+        return result;
+    }
+
+    private static void stopWatching(final SyncDirectoryWatcher watcher, final CountDownLatch stopped) {
+        try {
+            watcher.close();
+            if (!stopped.await(WATCH_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Watching didn't stop within {} seconds", WATCH_SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (final IOException e) {
+            LOGGER.warn("Closing the directory watcher failed", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Removes the shutdown hook of the watch mode. If the jvm is already shutting down, the context is released
+     * right away, because the jvm halts once the hook returns and the cli wouldn't get to it.
+     */
+    private void releaseContextOnShutdown(final Thread shutdownHook) {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (final IllegalStateException e) {
+            if (getContext() instanceof CliContext) {
+                getContextProvider().release((CliContext) getContext());
+            }
+        }
+    }
+
+    private ImportResult importChanges(final ChangedSubtreeFileSystem changes, final String syncDirStr) {
+        if (MediaMetadataOnlyFileSystem.isMarked(Paths.get(syncDirStr))) {
+            return new ImportResult(createPlaceholderException(syncDirStr));
+        }
+        try {
+            final ImportOperation.Result result = createImportOperation().perform(changes.decorate(getSynchronizationDirectory(syncDirStr)));
             return new ImportResult(getContext().requireSpecialist(StoreAgent.TYPE), result);
         } catch (@SuppressWarnings("squid:S2221") final Exception e) {
             return new ImportResult(e);
         }
     }
 
+    /**
+     * Creates the exception for a synchronization directory whose media binaries have been replaced by placeholders,
+     * see {@link MediaMetadataOnlyFileSystem}. Importing it would replace the media of the project by the placeholders.
+     */
+    private static IllegalArgumentException createPlaceholderException(final String syncDirStr) {
+        return new IllegalArgumentException("'" + syncDirStr + "' has been exported with --media-metadata-only and contains placeholders "
+                                            + "instead of media binaries, so it can't be imported. Export it again without that option.");
+    }
 
     private LayerMapper configureLayerMapper() {
         final LayerMapper layerMapper;
@@ -140,6 +284,33 @@ public class ImportCommand extends SimpleCommand<ImportResult> implements Import
         this.layerMapping = layerMapping;
     }
 
+    /**
+     * Sets the comment of the revision the import creates.
+     *
+     * @param importComment the import comment, or null to use the default
+     */
+    public void setImportComment(final String importComment) {
+        this.importComment = importComment;
+    }
+
+    /**
+     * Defines whether the entities of the synchronization directory are imported.
+     *
+     * @param createEntities false to ignore the entities
+     */
+    public void setCreateEntities(final boolean createEntities) {
+        this.dontCreateEntities = !createEntities;
+    }
+
+    /**
+     * Defines whether the command keeps running and imports changes of the synchronization directory.
+     *
+     * @param watch true to watch the synchronization directory
+     */
+    public void setWatch(final boolean watch) {
+        this.watch = watch;
+    }
+
     /**
      * Sets the creates the project if missing.
      *
@@ -148,4 +319,21 @@ public class ImportCommand extends SimpleCommand<ImportResult> implements Import
     public void setCreateProjectIfMissing(final boolean createProjectIfMissing) {
         this.dontCreateProjectIfMissing = !createProjectIfMissing;
     }
+
+    @Override
+    public String getProjectSelection() {
+        return getProject();
+    }
+
+    @Override
+    public void selectProject(String projectName) {
+        setProject(projectName);
+    }
+
+    @Override
+    public void checkFanOut() {
+        if (watch) {
+            throw new IllegalArgumentException("Watching can't be combined with several projects, start one watching import per project instead");
+        }
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a local synchronization directory and all of its subdirectories for changed files. Bursts of changes,
+ * like those of an editor saving several files or of a version control checkout, are collected until the
+ * directory stays quiet for a while, so they can be imported at once.
+ *
+ * @author e-Spirit AG
+ */
+public class SyncDirectoryWatcher implements Closeable {
+
+    private final Path root;
+    private final long quietPeriodMillis;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Starts watching the given directory.
+     *
+     * @param root              the directory to watch
+     * @param quietPeriodMillis the time in milliseconds without changes that ends a burst of changes
+     * @throws IOException if the directory can't be watched
+     */
+    public SyncDirectoryWatcher(Path root, long quietPeriodMillis) throws IOException {
+        this.root = root;
+        this.quietPeriodMillis = quietPeriodMillis;
+        watchService = root.getFileSystem().newWatchService();
+        register(root);
+    }
+
+    /**
+     * Blocks until files change, and then until no further change happens for the quiet period.
+     * If changes got lost because there were too many of them, the watched directory itself is reported as changed.
+     * If the watcher is closed by another thread, see {@link #close()}, the method returns the changes collected so
+     * far, and {@link #isClosed()} is true.
+     *
+     * @return the changed, created or deleted files and directories
+     * @throws IOException          if a created directory can't be watched
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Set<Path> awaitChanges() throws IOException, InterruptedException {
+        final Set<Path> changes = new LinkedHashSet<>();
+        try {
+            WatchKey key = watchService.take();
+            while (key != null) {
+                collect(key, changes);
+                key = watchService.poll(quietPeriodMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (ClosedWatchServiceException e) {
+            closed = true;
+        }
+        return changes;
+    }
+
+    /**
+     * Indicates if the watcher has been closed, for example by a shutdown hook while waiting for changes.
+     *
+     * @return true if the watcher has been closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void collect(WatchKey key, Set<Path> changes) throws IOException {
+        final Path directory = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                changes.add(root);
+                continue;
+            }
+            final Path changed = directory.resolve((Path) event.context());
+            changes.add(changed);
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                // files created in a new directory before it is registered are found by the import of the directory
+                register(changed);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void register(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                final WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                                  StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                directories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import com.espirit.moddev.cli.CliContextProvider;
+import com.espirit.moddev.cli.ConnectionBuilder;
+import com.espirit.moddev.cli.SharedConnectionContextProvider;
+import com.espirit.moddev.cli.SyncArchive;
+import com.espirit.moddev.cli.api.CliContext;
+import com.espirit.moddev.cli.commands.export.AbstractExportCommand;
+import com.espirit.moddev.cli.results.ExportResult;
+import com.espirit.moddev.cli.results.ImportResult;
+import com.espirit.moddev.cli.results.TransferResult;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.help.Examples;
+
+import de.espirit.firstspirit.access.Connection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command that transfers elements from the project given by the global project option into another project on the same server.
+ * The elements are exported into a local temporary directory and imported from there, using a single connection for both projects.
+ * All options and identifiers of the export command can be used to select the elements.
+ *
+ * @author e-Spirit AG
+ */
+@Command(name = "transfer", description = "Transfers elements of a FirstSpirit project into another project of the same server.")
+@Examples(
+        examples = {"fs-cli -p sourceProject transfer -tp targetProject -- root:templatestore",
+                    "fs-cli -p sourceProject transfer -tp targetProject -lm *:CREATE_NEW -- pagetemplate:default entities:products"},
+        descriptions = {"Transfers all templates of project 'sourceProject' into project 'targetProject'",
+                        "Transfers a page template and the products entities, and creates a new target layer for every unknown source schema"})
+public class TransferCommand extends AbstractExportCommand<TransferResult> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransferCommand.class);
+
+    @Option(name = {"-tp", "--targetProject"}, description = "Name of the FirstSpirit project the elements are imported into")
+    private String targetProject;
+
+    @Option(name = {"-i", "--import-comment"}, description = "Import comment for the FirstSpirit revision of the target project")
+    private String importComment;
+
+    @Option(name = {"--dont-create-project"}, description = "Do not create the target project if it is missing")
+    private boolean dontCreateProjectIfMissing;
+
+    @Option(name = {"--dont-create-entities"}, description = "Do not create entities in the target project")
+    private boolean dontCreateEntities;
+
+    @Option(name = {"-lm", "--layerMapping"},
+            description = "Defines how unknown layers should be mapped in the target project; comma-separated key-value pairs by : or =; key is source schema UID; value is target layer name")
+    private String layerMapping;
+
+    @Override
+    public TransferResult call() {
+        if (targetProject == null || targetProject.trim().isEmpty()) {
+            return new TransferResult(new IllegalArgumentException("Missing parameter for target project"));
+        }
+        if (targetProject.equals(getProject())) {
+            return new TransferResult(new IllegalArgumentException("Source and target project must differ, but both are '" + targetProject + "'"));
+        }
+        Connection connection = null;
+        Path transferDirectory = null;
+        try {
+            connection = getContextProvider().acquireConnection(this, () -> ConnectionBuilder.with(this).build());
+            final CliContextProvider projectContexts = new SharedConnectionContextProvider(connection);
+            transferDirectory = Files.createTempDirectory("fs-cli-transfer-");
+            setSynchronizationDirectory(transferDirectory.toString());
+
+            LOGGER.info("Exporting from project '{}'", getProject());
+            final ExportResult exportResult;
+            final CliContext sourceContext = projectContexts.acquire(this);
+            try {
+                setContext(sourceContext);
+                exportResult = exportStoreElements();
+                if (!exportResult.isError()) {
+                    exportResult.log();
+                }
+            } finally {
+                projectContexts.release(sourceContext);
+            }
+            if (exportResult.isError()) {
+                return new TransferResult(exportResult, null);
+            }
+
+            LOGGER.info("Importing into project '{}'", targetProject);
+            final ImportCommand importCommand = createImportCommand(transferDirectory);
+            final CliContext targetContext = projectContexts.acquire(importCommand);
+            try {
+                importCommand.setContext(targetContext);
+                final ImportResult importResult = importCommand.call();
+                if (!importResult.isError()) {
+                    importResult.log();
+                }
+                return new TransferResult(exportResult, importResult);
+            } finally {
+                projectContexts.release(targetContext);
+            }
+        } catch (final Exception e) {
+            return new TransferResult(e);
+        } finally {
+            if (transferDirectory != null) {
+                SyncArchive.deleteDirectory(transferDirectory);
+            }
+            getContextProvider().releaseConnection(connection);
+        }
+    }
+
+    private ImportCommand createImportCommand(final Path transferDirectory) {
+        final ImportCommand importCommand = new ImportCommand();
+        importCommand.getEnvironment().replaceWith(getEnvironment());
+        importCommand.setHost(getHost());
+        importCommand.setPort(getPort());
+        importCommand.setFsMode(getFsMode());
+        importCommand.setUser(getUser());
+        importCommand.setPassword(getPassword());
+        importCommand.setProject(targetProject);
+        importCommand.setActivateProjectIfDeactivated(isActivateProjectIfDeactivated());
+        importCommand.setSynchronizationDirectory(transferDirectory.toString());
+        importCommand.setImportComment(importComment);
+        importCommand.setCreateProjectIfMissing(!dontCreateProjectIfMissing);
+        importCommand.setCreateEntities(!dontCreateEntities);
+        importCommand.setLayerMapping(layerMapping);
+        return importCommand;
+    }
+
+    /**
+     * Get the name of the project the elements are imported into.
+     *
+     * @return the target project name
+     */
+    public String getTargetProject() {
+        return targetProject;
+    }
+
+    /**
+     * Sets the name of the project the elements are imported into.
+     *
+     * @param targetProject the target project name
+     */
+    public void setTargetProject(final String targetProject) {
+        this.targetProject = targetProject;
+    }
+
+    @Override
+    public boolean needsContext() {
+        return false;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.batch;
+
+import com.espirit.moddev.cli.CachingCliContextProvider;
+import com.espirit.moddev.cli.Cli;
+import com.espirit.moddev.cli.api.command.Command;
+import com.espirit.moddev.cli.api.result.Result;
+import com.espirit.moddev.cli.results.SimpleResult;
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.annotations.help.Examples;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Executes the command lines of a batch file one after another in this jvm. All commands share one
+ * {@link CachingCliContextProvider}, so commands that target the same server and project share one context,
+ * and commands without context share one connection per server and user.
+ *
+ * @author e-Spirit AG
+ */
+@com.github.rvesse.airline.annotations.Command(name = BatchCommand.COMMAND_NAME, description = "Executes the fs-cli command lines of a file one after another, sharing FirstSpirit connections "
+                                                                                              + "between them. Every line holds the arguments of one fs-cli call. Empty lines and lines starting with # are ignored. "
+                                                                                              + "Arguments can be quoted with single or double quotes.")
+@Examples(examples =
+        {
+                "batch pipeline.txt",
+                "batch --continue-on-error pipeline.txt",
+                "batch -"
+        },
+        descriptions = {
+                "Executes the commands of pipeline.txt and stops at the first failing command.",
+                "Executes all commands of pipeline.txt, even if some of them fail.",
+                "Executes the commands read from standard input."
+        })
+public class BatchCommand implements Command<SimpleResult<Integer>> {
+
+    public static final String COMMAND_NAME = "batch";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchCommand.class);
+    private static final String STDIN = "-";
+    private static final String COMMENT_PREFIX = "#";
+    private static final List<String> PASSWORD_OPTIONS = Arrays.asList("-pwd", "--password");
+
+    @Arguments(title = "file", description = "The batch file, or - to read the command lines from standard input")
+    private List<String> files = new ArrayList<>();
+
+    @Option(type = OptionType.COMMAND, name = {"-coe", "--continue-on-error"}, description = "Execute the remaining command lines if a command fails. By default, the batch stops at the first failing command.")
+    private boolean continueOnError;
+
+    @Override
+    public SimpleResult<Integer> call() {
+        if (files.size() != 1) {
+            return new SimpleResult<>(new IllegalArgumentException("Exactly one batch file or - is expected, but got " + files));
+        }
+        final String file = files.get(0);
+        try (InputStream inputStream = STDIN.equals(file) ? System.in : new FileInputStream(file);
+             CachingCliContextProvider contextProvider = new CachingCliContextProvider()) {
+            return execute(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)), new Cli(contextProvider));
+        } catch (IOException e) {
+            return new SimpleResult<>(e);
+        }
+    }
+
+    SimpleResult<Integer> execute(BufferedReader reader, Cli cli) throws IOException {
+        int lineNumber = 0;
+        int executed = 0;
+        final List<Integer> failedLines = new ArrayList<>();
+        Exception firstError = null;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            final String trimmedLine = line.trim();
+            if (trimmedLine.isEmpty() || trimmedLine.startsWith(COMMENT_PREFIX)) {
+                continue;
+            }
+            executed++;
+            try {
+                final List<String> args = CommandLineTokenizer.tokenize(trimmedLine);
+                LOGGER.info("Batch line {}: {}", lineNumber, String.join(" ", maskPasswords(args)));
+                final Command<Result> command = Cli.parseCommandLine(args.toArray(new String[0]));
+                cli.executeCommand(command);
+            } catch (Exception e) {
+                LOGGER.error("Batch line {} failed", lineNumber, e);
+                failedLines.add(lineNumber);
+                if (firstError == null) {
+                    firstError = e;
+                }
+                if (!continueOnError) {
+                    break;
+                }
+            }
+        }
+
+        LOGGER.info("Batch finished: {} command(s) executed, {} failed", executed, failedLines.size());
+        if (firstError != null) {
+            return new SimpleResult<>(new IllegalStateException("Batch line(s) " + failedLines + " failed", firstError));
+        }
+        return new SimpleResult<>(executed);
+    }
+
+    private static List<String> maskPasswords(List<String> args) {
+        final List<String> masked = new ArrayList<>(args);
+        for (int i = 0; i < masked.size() - 1; i++) {
+            if (PASSWORD_OPTIONS.contains(masked.get(i))) {
+                masked.set(i + 1, "***");
+            }
+        }
+        return masked;
+    }
+
+    /**
+     * Indicates if the remaining command lines are executed after a command failed.
+     *
+     * @return true if the batch continues on errors
+     */
+    public boolean isContinueOnError() {
+        return continueOnError;
+    }
+
+    /**
+     * Set whether the remaining command lines are executed after a command failed.
+     *
+     * @param continueOnError true if the batch should continue on errors
+     */
+    public void setContinueOnError(boolean continueOnError) {
+        this.continueOnError = continueOnError;
+    }
+
+    /**
+     * Set the batch file, or - for standard input.
+     *
+     * @param file the batch file
+     */
+    public void setFile(String file) {
+        files = new ArrayList<>(Arrays.asList(file));
+    }
+}
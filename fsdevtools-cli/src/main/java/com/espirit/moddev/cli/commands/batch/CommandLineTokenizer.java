@@ -0,0 +1,83 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a line of a batch file into command line arguments. Arguments are separated by whitespace. Single or
+ * double quotes group characters into one argument, the quotes themselves are removed. Backslashes have no special
+ * meaning, so that windows paths can be written as usual.
+ *
+ * @author e-Spirit AG
+ */
+final class CommandLineTokenizer {
+
+    private CommandLineTokenizer() {
+        // Not used
+    }
+
+    /**
+     * Splits the given line into arguments.
+     *
+     * @param line the line to split
+     * @return the arguments, empty for a blank line
+     * @throws IllegalArgumentException if a quote isn't closed
+     */
+    static List<String> tokenize(String line) {
+        final List<String> tokens = new ArrayList<>();
+        final StringBuilder current = new StringBuilder();
+        boolean inToken = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                inToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                current.append(c);
+                inToken = true;
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Missing closing quote " + quote + " in line: " + line);
+        }
+        if (inToken) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+}
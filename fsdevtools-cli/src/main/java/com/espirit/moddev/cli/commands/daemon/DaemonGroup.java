@@ -0,0 +1,32 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.daemon;
+
+import com.github.rvesse.airline.annotations.Group;
+
+/**
+ * Group of commands that start and stop the fs-cli daemon.
+ */
+@Group(name = "daemon", description = "Starts or stops a daemon that keeps a jvm and FirstSpirit connections warm for subsequent fs-cli calls.", defaultCommand = DaemonStartCommand.class)
+public class DaemonGroup {
+}
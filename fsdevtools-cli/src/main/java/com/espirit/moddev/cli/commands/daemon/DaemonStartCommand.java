@@ -0,0 +1,76 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.daemon;
+
+import com.espirit.moddev.cli.daemon.DaemonClient;
+import com.espirit.moddev.cli.daemon.DaemonServer;
+import com.espirit.moddev.cli.results.SimpleResult;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.annotations.help.Examples;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the fs-cli daemon and blocks until it is stopped.
+ *
+ * @author e-Spirit AG
+ */
+@Command(name = "start", groupNames = "daemon", description = "Starts a daemon that executes the commands of subsequent fs-cli calls from the same working directory "
+                                                            + "and keeps their FirstSpirit connections open. Blocks until the daemon is stopped. "
+                                                            + "Set the environment variable " + DaemonClient.DISABLE_DAEMON_VARIABLE + " to execute a call without the daemon.")
+@Examples(examples =
+        {
+                "daemon start",
+                "daemon start --idle-timeout 30"
+        },
+        descriptions = {
+                "Starts the daemon on a free loopback port.",
+                "Starts the daemon, which stops itself if there was no fs-cli call for 30 minutes."
+        })
+public class DaemonStartCommand implements com.espirit.moddev.cli.api.command.Command<SimpleResult<Boolean>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DaemonStartCommand.class);
+
+    @Option(type = OptionType.COMMAND, name = {"--port"}, description = "Loopback port the daemon listens on. A free port is chosen by default.")
+    private int port;
+
+    @Option(type = OptionType.COMMAND, name = {"--idle-timeout"}, description = "Minutes without fs-cli call after which the daemon stops itself. 0 (default) disables the timeout.")
+    private int idleTimeoutMinutes;
+
+    @Override
+    public SimpleResult<Boolean> call() {
+        try (DaemonServer server = new DaemonServer(port, (int) TimeUnit.MINUTES.toMillis(idleTimeoutMinutes))) {
+            server.run();
+            LOGGER.info("fs-cli daemon stopped");
+            return new SimpleResult<>(true);
+        } catch (IOException | IllegalArgumentException e) {
+            return new SimpleResult<>(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.daemon;
+
+import com.espirit.moddev.cli.daemon.DaemonClient;
+import com.espirit.moddev.cli.results.SimpleResult;
+import com.github.rvesse.airline.annotations.Command;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stops the fs-cli daemon of the current user.
+ *
+ * @author e-Spirit AG
+ */
+@Command(name = "stop", groupNames = "daemon", description = "Stops the running fs-cli daemon and closes its FirstSpirit connections.")
+public class DaemonStopCommand implements com.espirit.moddev.cli.api.command.Command<SimpleResult<Boolean>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DaemonStopCommand.class);
+
+    @Override
+    public SimpleResult<Boolean> call() {
+        final boolean stopped = DaemonClient.requestShutdown();
+        LOGGER.info(stopped ? "fs-cli daemon stopped" : "No running fs-cli daemon found");
+        return new SimpleResult<>(stopped);
+    }
+}
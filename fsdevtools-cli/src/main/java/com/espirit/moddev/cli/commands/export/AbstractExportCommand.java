@@ -22,25 +22,40 @@
 
 package com.espirit.moddev.cli.commands.export;
 
+import com.espirit.moddev.cli.CliContextImpl;
+import com.espirit.moddev.cli.SyncArchive;
 import com.espirit.moddev.cli.api.parsing.exceptions.IDProviderNotFoundException;
+import com.espirit.moddev.cli.api.parsing.identifier.ExclusionIdentifier;
 import com.espirit.moddev.cli.api.parsing.identifier.Identifier;
+import com.espirit.moddev.cli.api.parsing.identifier.PathIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.PatternIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.StoreIndexes;
 import com.espirit.moddev.cli.api.parsing.identifier.UidIdentifier;
 import com.espirit.moddev.cli.api.parsing.parser.EntitiesIdentifierParser;
+import com.espirit.moddev.cli.api.parsing.parser.IdentifierArguments;
 import com.espirit.moddev.cli.api.parsing.parser.PathIdentifierParser;
+import com.espirit.moddev.cli.api.parsing.parser.PathPatternIdentifierParser;
 import com.espirit.moddev.cli.api.parsing.parser.ProjectPropertiesParser;
 import com.espirit.moddev.cli.api.parsing.parser.RegistryBasedParser;
 import com.espirit.moddev.cli.api.parsing.parser.RootNodeIdentifierParser;
 import com.espirit.moddev.cli.api.parsing.parser.UidIdentifierParser;
+import com.espirit.moddev.cli.api.parsing.parser.UidPatternIdentifierParser;
+import com.espirit.moddev.cli.api.result.Result;
 import com.espirit.moddev.cli.commands.SimpleCommand;
 import com.espirit.moddev.cli.commands.help.HelpCommand;
+import com.espirit.moddev.cli.fanout.ProjectFanOutCapable;
 import com.espirit.moddev.cli.results.ExportResult;
 import com.github.rvesse.airline.annotations.Arguments;
 import com.github.rvesse.airline.annotations.Option;
 
+import de.espirit.firstspirit.access.project.Project;
 import de.espirit.firstspirit.access.store.IDProvider;
 import de.espirit.firstspirit.access.store.Store;
 import de.espirit.firstspirit.agency.OperationAgent;
 import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.io.FileHandle;
+import de.espirit.firstspirit.io.FileSystem;
+import de.espirit.firstspirit.io.FileSystemsAgent;
 import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
 import de.espirit.firstspirit.transport.PropertiesTransportOptions;
 import de.espirit.firstspirit.transport.PropertiesTransportOptions.ProjectPropertyType;
@@ -48,22 +63,40 @@ import de.espirit.firstspirit.transport.PropertiesTransportOptions.ProjectProper
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class gathers shared logic and options for different export commands. It can be extended for custom implementations of uid filtering, or to
  * override configurations.
  *
+ * @param <RESULT_TYPE> Type of the result produced by the command
  * @author e -Spirit AG
  */
-public abstract class AbstractExportCommand extends SimpleCommand<ExportResult> {
+public abstract class AbstractExportCommand<RESULT_TYPE extends Result> extends SimpleCommand<RESULT_TYPE> implements ProjectFanOutCapable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+    /**
+     * Number of obsolete files that are deleted concurrently, see {@link ObsoleteFileSweeper}.
+     */
+    private static final int SWEEP_WORKERS = 8;
+
     @Option(name = "--keepObsoleteFiles", description = "keep obsolete files in sync dir which are deleted in project")
     private boolean keepObsoleteFiles;
 
@@ -80,6 +113,31 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
     @Option(name = "--includeProjectProperties", description = "DEPRECATED: use '" + ProjectPropertiesParser.CUSTOM_PREFIX_PROJECT_PROPERTIES + ":" + ProjectPropertiesParser.ALL + "' instead. Export with project properties like resolutions or fonts")
     private boolean includeProjectProperties;
 
+    @Option(name = "--since-revision", description = "export only the elements of the identifiers that were created or changed after the revision with the given id;"
+                                                   + " obsolete files are kept")
+    private Long sinceRevision;
+
+    @Option(name = "--since", description = "export only the elements of the identifiers that were created or changed after the given point in time,"
+                                          + " like '2016-11-24T18:00:00Z' or '2016-11-24T18:00'; obsolete files are kept")
+    private String since;
+
+    @Option(name = "--incremental", description = "export only the elements of the identifiers that were created or changed after the last incremental export"
+                                                + " to the synchronization directory, or everything if there is none; obsolete files are kept")
+    private boolean incremental;
+
+    @Option(name = "--parallel", description = "split the export into the given number of shards, which are exported concurrently with a connection each"
+                                            + " and merged into the synchronization directory afterwards; obsolete files are only deleted if the previous export"
+                                            + " had the same selection, otherwise the export isn't split; default is 1")
+    private int parallel = 1;
+
+    @Option(name = "--media-metadata-only", description = "write the metadata of media only and replace each media binary by a placeholder with its"
+                                                        + " SHA-256 hash and size; for reviews, the result must not be imported")
+    private boolean mediaMetadataOnly;
+
+    @Option(name = "--exclude", description = "exclude the store elements matching 'path:<path pattern>', 'uid:<uid pattern>' or 'type:<type>'"
+                                            + " and everything beneath them from the export; can be given more than once")
+    private List<String> excludes = new ArrayList<>();
+
     @Arguments(title = "identifiers", description = "A list of various parsable identifiers. Please have a look at the command description for further information.")
     private List<String> identifiers = new LinkedList<>();
 
@@ -92,8 +150,10 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
         parser = new RegistryBasedParser();
         parser.registerParser(new RootNodeIdentifierParser());
         parser.registerParser(new EntitiesIdentifierParser());
+        parser.registerParser(new UidPatternIdentifierParser());
         parser.registerParser(new UidIdentifierParser());
         parser.registerParser(new ProjectPropertiesParser());
+        parser.registerParser(new PathPatternIdentifierParser());
         parser.registerParser(new PathIdentifierParser());
     }
 
@@ -144,6 +204,87 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
         this.exportReleaseState = exportReleaseState;
     }
 
+    /**
+     * Indicates whether only changed elements should be exported, see {@link IncrementalExport}.
+     *
+     * @return true if one of the options --since-revision, --since or --incremental is given
+     */
+    public boolean isIncrementalExport() {
+        return sinceRevision != null || since != null || incremental;
+    }
+
+    /**
+     * Defines that only the elements created or changed after the given revision should be exported.
+     *
+     * @param sinceRevision the id of the last revision that should not be exported, or null to export everything
+     */
+    public void setSinceRevision(Long sinceRevision) {
+        this.sinceRevision = sinceRevision;
+    }
+
+    /**
+     * Get the number of shards the export is split into, see {@link ParallelExport}.
+     *
+     * @return the number of shards, 1 if the export isn't split
+     */
+    public int getParallel() {
+        return parallel;
+    }
+
+    /**
+     * Defines the number of shards the export is split into.
+     *
+     * @param parallel the number of shards; 1 exports sequentially
+     * @throws IllegalArgumentException if parallel is less than 1
+     */
+    public void setParallel(int parallel) {
+        if (parallel < 1) {
+            throw new IllegalArgumentException("The number of shards must be at least 1, but was " + parallel);
+        }
+        this.parallel = parallel;
+    }
+
+    /**
+     * Indicates whether media binaries are replaced by placeholders, see {@link MediaMetadataOnlyFileSystem}.
+     *
+     * @return true if only the metadata of media is exported
+     */
+    public boolean isMediaMetadataOnly() {
+        return mediaMetadataOnly;
+    }
+
+    /**
+     * Defines whether media binaries are replaced by placeholders.
+     *
+     * @param mediaMetadataOnly true to export only the metadata of media
+     */
+    public void setMediaMetadataOnly(boolean mediaMetadataOnly) {
+        this.mediaMetadataOnly = mediaMetadataOnly;
+    }
+
+    /**
+     * Get the exclusions given with the option --exclude.
+     *
+     * @return the parsed exclusions, empty if nothing is excluded
+     * @throws IllegalArgumentException if an exclusion can't be parsed
+     */
+    public List<ExclusionIdentifier> getExclusions() {
+        final List<ExclusionIdentifier> exclusions = new ArrayList<>();
+        for (String exclude : excludes) {
+            exclusions.add(ExclusionIdentifier.parse(exclude));
+        }
+        return exclusions;
+    }
+
+    /**
+     * Adds an exclusion like <code>path:/MediaStore/archive/**</code>, see {@link ExclusionIdentifier}.
+     *
+     * @param exclude the exclusion, which is parsed when the export starts
+     */
+    public void addExclude(String exclude) {
+        excludes.add(exclude);
+    }
+
     /**
      * Log release state.
      *
@@ -160,9 +301,26 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
      * @param identifiers     the identifiers of elements that should be added to the ExportOperation
      * @param exportOperation the ExportOperation to add the elements to
      * @throws IllegalArgumentException if the ExportOperation is null
-     * @throws IDProviderNotFoundException if {@link Identifier#addToExportOperation(StoreAgent, boolean, ExportOperation)} throws it
+     * @throws IDProviderNotFoundException if any {@link UidIdentifier} or {@link PathIdentifier} can't be resolved, or if
+     *                                     {@link Identifier#addToExportOperation(StoreAgent, boolean, ExportOperation)} throws it
      */
     public void addExportElements(final StoreAgent storeAgent, final List<Identifier> identifiers, final ExportOperation exportOperation) {
+        addExportElements(storeAgent, identifiers, exportOperation, new StoreIndexes(storeAgent, isExportReleaseState()));
+    }
+
+    /**
+     * Adds elements to the given export operation, matching patterns against the given store indexes.
+     *
+     * @param storeAgent      the StoreAgent to retrieve IDProviders with
+     * @param identifiers     the identifiers of elements that should be added to the ExportOperation
+     * @param exportOperation the ExportOperation to add the elements to
+     * @param storeIndexes    the indexes of the stores, shared with other users of this export
+     * @throws IllegalArgumentException if the ExportOperation is null
+     * @throws IDProviderNotFoundException if any {@link UidIdentifier} or {@link PathIdentifier} can't be resolved, or if
+     *                                     {@link Identifier#addToExportOperation(StoreAgent, boolean, ExportOperation)} throws it
+     */
+    protected void addExportElements(final StoreAgent storeAgent, final List<Identifier> identifiers, final ExportOperation exportOperation,
+                                     final StoreIndexes storeIndexes) {
         if (exportOperation == null) {
             throw new IllegalArgumentException("No null ExportOperation allowed");
         }
@@ -172,8 +330,23 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
             LOGGER.error("no identifiers found - pass at least 1 identifier --> call 'fs-cli help export' for details");
         } else {
             LOGGER.debug("addExportedElements - UIDs {}", identifiers);
+            final Map<UidIdentifier, IDProvider> storeElements = resolveUidIdentifiers(storeAgent, identifiers);
+            final Map<PathIdentifier, IDProvider> pathElements = resolvePathIdentifiers(storeAgent, identifiers);
+            // all patterns are matched against the same index of each store
             for (Identifier identifier : identifiers) {
-                identifier.addToExportOperation(storeAgent, isExportReleaseState(), exportOperation);
+                if (identifier instanceof UidIdentifier) {
+                    final IDProvider storeElement = storeElements.get(identifier);
+                    LOGGER.debug("Adding store element: {}", storeElement);
+                    exportOperation.addElement(storeElement);
+                } else if (identifier instanceof PathIdentifier) {
+                    final IDProvider storeElement = pathElements.get(identifier);
+                    LOGGER.debug("Adding store element: {}", storeElement);
+                    exportOperation.addElement(storeElement);
+                } else if (identifier instanceof PatternIdentifier) {
+                    ((PatternIdentifier) identifier).addToExportOperation(storeIndexes, exportOperation);
+                } else {
+                    identifier.addToExportOperation(storeAgent, isExportReleaseState(), exportOperation);
+                }
             }
 
             if (isIncludeProjectProperties()) {
@@ -183,6 +356,48 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
         }
     }
      
+    /**
+     * Resolves all {@link UidIdentifier}s of the given identifiers at once, see {@link UidIdentifierResolver}.
+     *
+     * @param storeAgent  the StoreAgent to retrieve the stores with
+     * @param identifiers the identifiers, of which only the {@link UidIdentifier}s are resolved
+     * @return the store element per {@link UidIdentifier}
+     * @throws IDProviderNotFoundException listing all {@link UidIdentifier}s that can't be resolved
+     */
+    protected Map<UidIdentifier, IDProvider> resolveUidIdentifiers(final StoreAgent storeAgent, final List<Identifier> identifiers) {
+        final List<UidIdentifier> uidIdentifiers = new ArrayList<>();
+        for (Identifier identifier : identifiers) {
+            if (identifier instanceof UidIdentifier) {
+                uidIdentifiers.add((UidIdentifier) identifier);
+            }
+        }
+        if (uidIdentifiers.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return new UidIdentifierResolver(storeAgent, isExportReleaseState()).resolve(uidIdentifiers);
+    }
+
+    /**
+     * Resolves all {@link PathIdentifier}s of the given identifiers at once, see {@link PathIdentifierResolver}.
+     *
+     * @param storeAgent  the StoreAgent to retrieve the stores with
+     * @param identifiers the identifiers, of which only the {@link PathIdentifier}s are resolved
+     * @return the store element per {@link PathIdentifier}
+     * @throws IDProviderNotFoundException listing all {@link PathIdentifier}s that can't be resolved
+     */
+    protected Map<PathIdentifier, IDProvider> resolvePathIdentifiers(final StoreAgent storeAgent, final List<Identifier> identifiers) {
+        final List<PathIdentifier> pathIdentifiers = new ArrayList<>();
+        for (Identifier identifier : identifiers) {
+            if (identifier instanceof PathIdentifier) {
+                pathIdentifiers.add((PathIdentifier) identifier);
+            }
+        }
+        if (pathIdentifiers.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return new PathIdentifierResolver(storeAgent, isExportReleaseState()).resolve(pathIdentifiers);
+    }
+
     /**
      * Get a list of {@link UidIdentifier}s that specify the elements that should be synchronized.
      *
@@ -192,6 +407,40 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
         return identifiers.isEmpty() ? Collections.emptyList() : parser.parse(identifiers);
     }
 
+    /**
+     * Sets the command line this command has been parsed from, and expands the identifier arguments that refer to
+     * a file or the standard input, see {@link IdentifierArguments}. The expanded identifiers replace these arguments
+     * in the command line as well, so copies of this command, like those of a fan-out, neither read the standard
+     * input again nor each read the files on their own.
+     *
+     * @param commandLine the arguments
+     * @throws IllegalArgumentException if a file of identifiers can't be read
+     */
+    @Override
+    public void setCommandLine(String[] commandLine) {
+        final Map<String, List<String>> expansions = new HashMap<>();
+        for (String identifier : identifiers) {
+            if (identifier.startsWith(IdentifierArguments.FILE_PREFIX)) {
+                // each argument is read once, since the standard input can only be read once
+                expansions.computeIfAbsent(identifier, argument -> IdentifierArguments.expand(Collections.singletonList(argument)));
+            }
+        }
+        if (expansions.isEmpty() || commandLine == null) {
+            super.setCommandLine(commandLine);
+            return;
+        }
+        identifiers = expand(identifiers, expansions);
+        super.setCommandLine(expand(Arrays.asList(commandLine), expansions).toArray(new String[0]));
+    }
+
+    private static List<String> expand(List<String> arguments, Map<String, List<String>> expansions) {
+        final List<String> expanded = new ArrayList<>(arguments.size());
+        for (String argument : arguments) {
+            expanded.addAll(expansions.getOrDefault(argument, Collections.singletonList(argument)));
+        }
+        return expanded;
+    }
+
     /**
      * Add project properties.
      *
@@ -244,7 +493,11 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
     protected ExportResult exportStoreElements() {
         try {
             // no arguments --> call help-command
-            final List<Identifier> identifierList = getIdentifiers();
+            final List<Identifier> parsedIdentifiers = getIdentifiers();
+            final List<Identifier> identifierList = IdentifierOptimizer.optimize(parsedIdentifiers, isExportChildElements());
+            if (identifierList.size() < parsedIdentifiers.size()) {
+                LOGGER.info("{} of {} identifiers are redundant and not resolved", parsedIdentifiers.size() - identifierList.size(), parsedIdentifiers.size());
+            }
             if (identifierList.isEmpty()) {
                 LOGGER.error("no identifiers for export command found - pass at least 1 identifier --> see 'fs-cli help export' for details\nfs-cli help export");
                 final HelpCommand helpCommand = new HelpCommand();
@@ -256,25 +509,239 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
                 return new ExportResult(exception);
             }
 
-            // create export operation
-            final ExportOperation exportOperation = this.getContext().requireSpecialist(OperationAgent.TYPE).getOperation(ExportOperation.TYPE);
-            exportOperation.setDeleteObsoleteFiles(isDeleteObsoleteFiles());
+            final String syncDirStr = getSynchronizationDirectoryString();
+            if (!SyncArchive.isArchive(syncDirStr)) {
+                return exportStoreElements(identifierList, syncDirStr);
+            }
+            // FirstSpirit exports into directories only, so the archive is extracted to and packed from a local directory
+            final SyncArchive syncArchive = SyncArchive.parse(syncDirStr);
+            final Path archiveDirectory = syncArchive.extractToTemporaryDirectory(false);
+            try {
+                final ExportResult result = exportStoreElements(identifierList, archiveDirectory.toString());
+                if (!result.isError()) {
+                    syncArchive.write(archiveDirectory);
+                }
+                return result;
+            } finally {
+                SyncArchive.deleteDirectory(archiveDirectory);
+            }
+        } catch (final Exception e) {
+            return new ExportResult(e);
+        }
+    }
+
+    private ExportResult exportStoreElements(final List<Identifier> identifierList, final String syncDirStr) throws Exception {
+        // create export operation
+        final ExportOperation exportOperation = this.getContext().requireSpecialist(OperationAgent.TYPE).getOperation(ExportOperation.TYPE);
+        exportOperation.setDeleteObsoleteFiles(isDeleteObsoleteFiles());
+        exportOperation.setExportChildElements(isExportChildElements());
+        exportOperation.setExportParentElements(isExportParentElements());
+        exportOperation.setExportRelease(isExportReleaseState());
+        final StoreAgent storeAgent = this.getContext().requireSpecialist(StoreAgent.TYPE);
+        final StoreIndexes storeIndexes = new StoreIndexes(storeAgent, isExportReleaseState());
+        final Path syncDir = Paths.get(syncDirStr);
+        final IncrementalExport incrementalExport = createIncrementalExport(storeAgent, syncDir);
+        final String manifestSelection = getManifestSelection();
+        final ExportManifest previousManifest = incrementalExport == null ? ExportManifest.read(syncDir) : null;
+        final boolean sweepObsoleteFiles = isDeleteObsoleteFiles() && previousManifest != null && previousManifest.getSelection().equals(manifestSelection);
+        if (sweepObsoleteFiles) {
+            // the obsolete files are determined from the manifests, so the export operation doesn't need to scan the sync dir
+            exportOperation.setDeleteObsoleteFiles(false);
+        }
+        ParallelExport parallelExport = createParallelExport();
+        if (parallelExport != null && isDeleteObsoleteFiles() && incrementalExport == null && !sweepObsoleteFiles) {
+            LOGGER.info("The export isn't split, since its obsolete files can only be deleted by a parallel export after an export of the same selection");
+            parallelExport = null;
+        }
+        ExportOperation targetOperation;
+        if (parallelExport != null) {
+            // every shard only sees its own elements, so the obsolete files are swept after merging the shards
+            exportOperation.setDeleteObsoleteFiles(false);
+            targetOperation = parallelExport.record(exportOperation);
+        } else {
+            targetOperation = exportOperation;
+        }
+        final List<ExclusionIdentifier> exclusions = getExclusions();
+        if (!exclusions.isEmpty()) {
+            targetOperation = new ExportExclusions(exclusions, storeIndexes, isExportChildElements()).filter(targetOperation);
+        }
+        if (incrementalExport != null) {
+            // unchanged elements are not exported, so their files must not be deleted as obsolete
+            exportOperation.setDeleteObsoleteFiles(false);
+            addExportElements(storeAgent, identifierList, incrementalExport.record(targetOperation), storeIndexes);
+            incrementalExport.addChangedElements(targetOperation, isExportChildElements());
+        } else {
+            addExportElements(storeAgent, identifierList, targetOperation, storeIndexes);
+        }
+
+        // export
+        LOGGER.info("exporting to directory '{}'", syncDirStr);
+        final long exportTime = System.currentTimeMillis();
+        final MediaMetadataOnlyFileSystem mediaMetadataOnlyFileSystem = isMediaMetadataOnly() ? new MediaMetadataOnlyFileSystem() : null;
+        final ExportOperation.Result result;
+        ExportManifest manifest = null;
+        if (parallelExport != null) {
+            result = parallelExport.perform(syncDir, (elements, stagingDir) -> {
+                for (IDProvider element : elements) {
+                    exportOperation.addElement(element);
+                }
+                return exportOperation.perform(decorateMediaMetadataOnly(getSynchronizationDirectory(stagingDir.toString()), mediaMetadataOnlyFileSystem));
+            }, (elements, stagingDir) -> exportShard(elements, stagingDir, mediaMetadataOnlyFileSystem));
+            if (incrementalExport == null) {
+                manifest = ExportManifest.of(manifestSelection, syncDir, parallelExport.getFiles(), result);
+            }
+        } else {
+            final WriteAvoidingFileSystem writeAvoidingFileSystem = new WriteAvoidingFileSystem(Paths.get(syncDirStr));
+            // placeholders are compared with the existing files, so binaries are never spooled
+            result = exportOperation.perform(decorateMediaMetadataOnly(writeAvoidingFileSystem.decorate(getSynchronizationDirectory(syncDirStr)),
+                                                                       mediaMetadataOnlyFileSystem));
+            LOGGER.info("{} files written, {} unchanged files have not been written again",
+                        writeAvoidingFileSystem.getWrites(), writeAvoidingFileSystem.getAvoidedWrites());
+            if (incrementalExport == null) {
+                manifest = ExportManifest.of(manifestSelection, syncDir, writeAvoidingFileSystem.getFiles(), result);
+            }
+        }
+        if (manifest != null && !isDeleteObsoleteFiles()) {
+            manifest = manifest.withKeptFiles(previousManifest);
+        }
+        if (manifest != null) {
+            if (sweepObsoleteFiles) {
+                new ObsoleteFileSweeper(syncDir, SWEEP_WORKERS).sweep(previousManifest, manifest);
+            }
+            manifest.write(syncDir);
+        } else {
+            // the export didn't write all files of its selection or kept unknown obsolete files,
+            // so the next one can't compute its obsolete files from it
+            ExportManifest.delete(syncDir);
+        }
+        if (mediaMetadataOnlyFileSystem != null) {
+            LOGGER.info("{} media binaries with {} bytes have been replaced by placeholders",
+                        mediaMetadataOnlyFileSystem.getReplacedFiles(), mediaMetadataOnlyFileSystem.getSkippedBytes());
+        }
+        if (mediaMetadataOnlyFileSystem != null && mediaMetadataOnlyFileSystem.getReplacedFiles() > 0) {
+            MediaMetadataOnlyFileSystem.writeMarker(syncDir);
+        } else if (!MediaMetadataOnlyFileSystem.removeMarker(syncDir)) {
+            LOGGER.warn("'{}' still contains placeholders of media binaries, so it can't be imported until all media have been exported again",
+                        syncDirStr);
+        }
+        if (isIncrementalExport()) {
+            final Project project = getContext().getProject();
+            if (incrementalExport != null) {
+                IncrementalExport.writeState(project, isExportReleaseState(), incrementalExport.getLastRevision(), incrementalExport.getQueryTime(), Paths.get(syncDirStr));
+            } else {
+                IncrementalExport.writeState(project, isExportReleaseState(), null, exportTime, Paths.get(syncDirStr));
+            }
+        }
+        return new ExportResult(storeAgent, result);
+    }
+
+    /**
+     * Get the selection of this export that is stored in its {@link ExportManifest}. Obsolete files are only computed
+     * from the manifest of an export with the same selection.
+     *
+     * @return the hash of the server, project, identifiers, exclusions and options that determine the exported files
+     */
+    protected String getManifestSelection() {
+        final List<String> sortedIdentifiers = new ArrayList<>(identifiers);
+        Collections.sort(sortedIdentifiers);
+        final List<String> sortedExcludes = new ArrayList<>(excludes);
+        Collections.sort(sortedExcludes);
+        final StringBuilder description = new StringBuilder()
+            .append("server=").append(getHost()).append(':').append(getPort()).append('\n')
+            .append("project=").append(getContext().getProject().getName()).append('\n')
+            .append("release=").append(isExportReleaseState()).append('\n')
+            .append("childElements=").append(isExportChildElements()).append('\n')
+            .append("parentElements=").append(isExportParentElements()).append('\n')
+            .append("mediaMetadataOnly=").append(isMediaMetadataOnly()).append('\n');
+        for (String identifier : sortedIdentifiers) {
+            description.append("identifier=").append(identifier).append('\n');
+        }
+        for (String exclude : sortedExcludes) {
+            description.append("exclude=").append(exclude).append('\n');
+        }
+        return ExportManifest.selectionOf(description.toString());
+    }
+
+    /**
+     * Creates the {@link ParallelExport} requested by the options of this command.
+     *
+     * @return the parallel export, or null if the export isn't split
+     */
+    protected ParallelExport createParallelExport() {
+        return parallel > 1 ? new ParallelExport(parallel) : null;
+    }
+
+    private static <F extends FileHandle> FileSystem<F> decorateMediaMetadataOnly(final FileSystem<F> fileSystem,
+                                                                                 final MediaMetadataOnlyFileSystem mediaMetadataOnlyFileSystem) {
+        return mediaMetadataOnlyFileSystem != null ? mediaMetadataOnlyFileSystem.decorate(fileSystem) : fileSystem;
+    }
+
+    /**
+     * Exports the store elements of a shard of a {@link ParallelExport} with a connection of its own.
+     *
+     * @param elements                    the store elements of the shard
+     * @param stagingDir                  the directory to export to
+     * @param mediaMetadataOnlyFileSystem the decorator replacing media binaries, or null to export them
+     * @return the result of the export
+     * @throws Exception if the connection or the export failed
+     */
+    protected ExportOperation.Result exportShard(final List<IDProvider> elements, final Path stagingDir,
+                                                 final MediaMetadataOnlyFileSystem mediaMetadataOnlyFileSystem) throws Exception {
+        try (CliContextImpl shardContext = new CliContextImpl(this)) {
+            final ExportOperation exportOperation = shardContext.requireSpecialist(OperationAgent.TYPE).getOperation(ExportOperation.TYPE);
+            exportOperation.setDeleteObsoleteFiles(false);
             exportOperation.setExportChildElements(isExportChildElements());
             exportOperation.setExportParentElements(isExportParentElements());
             exportOperation.setExportRelease(isExportReleaseState());
-            addExportElements(this.getContext().requireSpecialist(StoreAgent.TYPE), identifierList, exportOperation);
+            final StoreAgent storeAgent = shardContext.requireSpecialist(StoreAgent.TYPE);
+            for (IDProvider element : elements) {
+                exportOperation.addElement(ParallelExport.resolve(storeAgent, element, isExportReleaseState()));
+            }
+            final FileSystemsAgent fileSystemsAgent = shardContext.requireSpecialist(FileSystemsAgent.TYPE);
+            return exportOperation.perform(decorateMediaMetadataOnly(fileSystemsAgent.getOSFileSystem(stagingDir.toString()), mediaMetadataOnlyFileSystem));
+        }
+    }
 
-            // export
-            final String syncDirStr = getSynchronizationDirectoryString();
-            LOGGER.info("exporting to directory '{}'", syncDirStr);
-            return new ExportResult(getContext().requireSpecialist(StoreAgent.TYPE), exportOperation.perform(getSynchronizationDirectory(syncDirStr)));
-        } catch (final Exception e) {
-            return new ExportResult(e);
+    /**
+     * Creates the {@link IncrementalExport} requested by the options of this command.
+     *
+     * @param storeAgent the StoreAgent to retrieve changed elements with
+     * @param syncDir    the synchronization directory
+     * @return the incremental export, or null if everything should be exported
+     * @throws IOException if the state of the last export can't be read
+     */
+    protected IncrementalExport createIncrementalExport(final StoreAgent storeAgent, final Path syncDir) throws IOException {
+        final Project project = getContext().getProject();
+        if (sinceRevision != null) {
+            return IncrementalExport.sinceRevision(project, storeAgent, isExportReleaseState(), sinceRevision);
+        }
+        if (since != null) {
+            return IncrementalExport.since(project, storeAgent, isExportReleaseState(), parseSince(since));
+        }
+        if (incremental) {
+            return IncrementalExport.sinceLastExport(project, storeAgent, isExportReleaseState(), syncDir);
+        }
+        return null;
+    }
+
+    /**
+     * Parses a point in time given as ISO-8601 instant like '2016-11-24T18:00:00Z', or as local date and time in the default time zone.
+     */
+    static Date parseSince(final String since) {
+        try {
+            return Date.from(Instant.parse(since));
+        } catch (DateTimeParseException e) {
+            try {
+                return Date.from(LocalDateTime.parse(since).atZone(ZoneId.systemDefault()).toInstant());
+            } catch (DateTimeParseException ignored) {
+                throw new IllegalArgumentException("Invalid point in time '" + since + "', expected for example '2016-11-24T18:00:00Z' or '2016-11-24T18:00'", e);
+            }
         }
     }
 
     /**
-     * Adds the given string based UidIdentifier to this command's argument list. This method doesn't validate the input at all.
+     * Adds the given string based UidIdentifier to this command's argument list. This method doesn't validate the input at all,
+     * and arguments that refer to a file of identifiers are only expanded when the command line is set.
      *
      * @param identifier the string based UidIdentifier that should be added to this command's argument list
      */
@@ -282,4 +749,40 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
         identifiers.add(identifier);
     }
 
+    @Override
+    public String getProjectSelection() {
+        return getProject();
+    }
+
+    /**
+     * Sets the single project this command instance is executed for. The export of every project goes into a
+     * directory of its own below the synchronization directory, see {@link #getProjectSynchronizationDirectory},
+     * so the exports of a project fan-out neither overwrite nor sweep the files of each other.
+     *
+     * @param projectName the name of the project
+     */
+    @Override
+    public void selectProject(String projectName) {
+        setProject(projectName);
+        setSynchronizationDirectory(getProjectSynchronizationDirectory(getSynchronizationDirectoryString(), projectName));
+    }
+
+    /**
+     * Get the synchronization directory of a single project of a project fan-out. This is the directory named like
+     * the project below the given synchronization directory. For an archive, the archive file is placed in that
+     * directory, like "zip:myProject/export.zip" for "zip:export.zip".
+     *
+     * @param syncDirStr  the synchronization directory given for all projects
+     * @param projectName the name of the project
+     * @return the synchronization directory of the project
+     */
+    static String getProjectSynchronizationDirectory(String syncDirStr, String projectName) {
+        final String directoryName = projectName.replaceAll("[\\\\/:*?\"<>|]", "_");
+        if (SyncArchive.isArchive(syncDirStr)) {
+            final SyncArchive archive = SyncArchive.parse(syncDirStr);
+            final Path file = archive.getFile().resolveSibling(Paths.get(directoryName).resolve(archive.getFile().getFileName()));
+            return archive.getFormat().getPrefix() + file;
+        }
+        return Paths.get(syncDirStr, directoryName).toString();
+    }
 }
@@ -47,10 +47,15 @@ import static com.espirit.moddev.cli.api.parsing.parser.RootNodeIdentifierParser
                 "export -- templatestore page:homepage",
                 "export -- path:/templatestore/pagetemplates/folderName/folderToExport",
                 "export -- path:/PageStore/pageFolderUid/pageUid",
+                "export -- page:news_* pagetemplate:teaser_?",
+                "export -- path:/PageStore/pageFolderUid/**",
                 "export -- entities:products",
                 "export -- page:homepage entities:news",
+                "export -- entities:products?where=category=shoes,online=1",
                 "export -- projectproperty:LANGUAGES projectproperty:RESOLUTIONS",
-                "export -- projectproperty:ALL"
+                "export -- projectproperty:ALL",
+                "export -- @identifiers.txt",
+                "export --exclude path:/MediaStore/archive/** -- root:mediastore"
             },
             descriptions = {
                 "Exports a pagetemplate and a page",
@@ -58,12 +63,17 @@ import static com.espirit.moddev.cli.api.parsing.parser.RootNodeIdentifierParser
                 "Exports the templatestore and a page",
                 "Exports the first occurrence of the folder named 'folderToExport' beneath folder 'folderName'",
                 "Exports the page identified by the path",
+                "Exports all pages whose uid starts with 'news_' and all pagetemplates named 'teaser_' and one more character",
+                "Exports all elements beneath the page folder identified by the path",
                 "Exports all entities of the content2 node 'products' according to the configured filter",
                 "Exports a page and news entities according to the configured filter",
+                "Exports the entities of the content2 node 'products' whose attributes 'category' and 'online' have the given values",
                 "Exports the project properties languages and resolutions",
-                "Exports all project properties"
+                "Exports all project properties",
+                "Exports the identifiers listed line by line in the file 'identifiers.txt'; use '@-' to read them from the standard input",
+                "Exports the mediastore without the elements beneath the folder 'archive'"
             })
-public class ExportCommand extends AbstractExportCommand {
+public class ExportCommand extends AbstractExportCommand<ExportResult> {
 
     private static final String TAB_SEQUENCE = "\t\t\t\t";
     private static final int PREFIX_COUNT_PER_LINE = 5;
@@ -77,13 +87,19 @@ public class ExportCommand extends AbstractExportCommand {
     public static String getDescription() {
         return "Exports elements, entities, project properties. Use one or more of following identifiers to specify export objects.\n\r\n" + TAB_SEQUENCE
                 + "1. Export elements based on uid with identifiers like 'pageref:pageRefUid'.\n" + TAB_SEQUENCE
+                + "Uids may contain the wildcards '*' and '?', like 'page:news_*'.\n" + TAB_SEQUENCE
                 + "Known prefixes for uid-based export:\n" + TAB_SEQUENCE + getUidPrefixesWithNewlineEvery5thElement() + "\n\r\n" + TAB_SEQUENCE
-                + "2. Export elements based on path 'path:/<STORE>/<UID>|<NAME>'.\n\r\n" + TAB_SEQUENCE
-                + "3. Export entities with identifiers like 'entities:<CONTENT2_UID>'.\n\r\n" + TAB_SEQUENCE
+                + "2. Export elements based on path 'path:/<STORE>/<UID>|<NAME>'.\n" + TAB_SEQUENCE
+                + "Path segments may contain the wildcards '*' and '?', the segment '**' matches any number of segments.\n\r\n" + TAB_SEQUENCE
+                + "3. Export entities with identifiers like 'entities:<CONTENT2_UID>'.\n" + TAB_SEQUENCE
+                + "Append conditions like '?where=<ATTRIBUTE>=<VALUE>,<ATTRIBUTE>=<VALUE>' to export a subset of the entities the datasource shows.\n" + TAB_SEQUENCE
+                + "Values are converted to the attribute type, dates are given like '2017-03-31', booleans like 'true' or '1'.\n\r\n" + TAB_SEQUENCE
                 + "4. Export projectproperties with identifiers like 'projectproperty:RESOLUTIONS'\n" + TAB_SEQUENCE
                 + "Known project properties:\n" + TAB_SEQUENCE + ProjectPropertiesParser.getAllPossibleValues().stream().collect(Collectors.joining(", ")) + "\n\r\n" + TAB_SEQUENCE
                 + "5. Export store root nodes with identifiers like 'templatestore' or 'root:templatestore'\n\r" + TAB_SEQUENCE
-                + "Known root node identifiers: " + getAllStorePostfixes().keySet().stream().collect(Collectors.joining(", "));
+                + "Known root node identifiers: " + getAllStorePostfixes().keySet().stream().collect(Collectors.joining(", ")) + "\n\r\n" + TAB_SEQUENCE
+                + "Long lists of identifiers can be read line by line from a file with '@<FILE>', or from the standard input with '@-'.\n" + TAB_SEQUENCE
+                + "Subtrees can be left out with '--exclude path:<PATH_PATTERN>', '--exclude uid:<UID_PATTERN>' or '--exclude type:<PREFIX>'.";
     }
 
     private static String getUidPrefixesWithNewlineEvery5thElement() {
@@ -0,0 +1,163 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.api.parsing.identifier.ExclusionIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.StoreIndex;
+import com.espirit.moddev.cli.api.parsing.identifier.StoreIndexes;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.StoreElement;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the store elements matching any {@link ExclusionIdentifier} and everything beneath them out of an export.
+ * Excluded elements are never added to the export operation. An element that is not excluded itself but contains
+ * excluded elements is replaced by its children, recursively, so only the subtrees that are not excluded are
+ * exported. With exported parent elements, such an element is still exported itself as parent of its children.
+ * <p>
+ * The excluded elements of a store are determined from its {@link StoreIndex} when the first element of the store
+ * is added.
+ *
+ * @author e-Spirit AG
+ */
+public class ExportExclusions {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportExclusions.class);
+
+    private final List<ExclusionIdentifier> exclusions;
+    private final StoreIndexes storeIndexes;
+    private final boolean exportChildElements;
+    private final Map<Store.Type, Set<Long>> excludedIds = new EnumMap<>(Store.Type.class);
+    private final Map<Store.Type, Set<Long>> containingIds = new EnumMap<>(Store.Type.class);
+
+    /**
+     * Creates the exclusions of an export.
+     *
+     * @param exclusions          the exclusions
+     * @param storeIndexes        the indexes of the exported stores
+     * @param exportChildElements true if the children of added elements are exported too
+     */
+    public ExportExclusions(List<ExclusionIdentifier> exclusions, StoreIndexes storeIndexes, boolean exportChildElements) {
+        this.exclusions = new ArrayList<>(exclusions);
+        this.storeIndexes = storeIndexes;
+        this.exportChildElements = exportChildElements;
+    }
+
+    /**
+     * Wraps an export operation, so that excluded store elements are not added to it and elements containing excluded
+     * elements are replaced by their children. All other calls are passed to the given operation.
+     *
+     * @param exportOperation the export operation
+     * @return the filtering export operation
+     */
+    public ExportOperation filter(ExportOperation exportOperation) {
+        return ExportOperationProxies.interceptAddElement(exportOperation, element -> add(exportOperation, element));
+    }
+
+    private void add(ExportOperation exportOperation, IDProvider element) {
+        final Store.Type storeType = storeTypeOf(element);
+        final Set<Long> excluded = getExcludedIds(storeType);
+        if (isExcluded(element, excluded)) {
+            LOGGER.debug("Excluding store element: {}", element);
+            return;
+        }
+        if (exportChildElements && containingIds.get(storeType).contains(element.getId())) {
+            LOGGER.debug("Adding children of store element {} that contains excluded elements", element);
+            addChildren(exportOperation, element, excluded, containingIds.get(storeType));
+            return;
+        }
+        exportOperation.addElement(element);
+    }
+
+    private static void addChildren(ExportOperation exportOperation, IDProvider element, Set<Long> excluded, Set<Long> containing) {
+        for (IDProvider child : element.getChildren(IDProvider.class)) {
+            if (excluded.contains(child.getId())) {
+                LOGGER.debug("Excluding store element: {}", child);
+            } else if (containing.contains(child.getId())) {
+                addChildren(exportOperation, child, excluded, containing);
+            } else {
+                exportOperation.addElement(child);
+            }
+        }
+    }
+
+    private synchronized Set<Long> getExcludedIds(Store.Type storeType) {
+        Set<Long> excluded = excludedIds.get(storeType);
+        if (excluded == null) {
+            excluded = new HashSet<>();
+            final Set<Long> containing = new HashSet<>();
+            final StoreIndex storeIndex = storeIndexes.get(storeType);
+            for (StoreIndex.Entry entry : storeIndex.getEntries()) {
+                if (isExcluded(storeType, entry)) {
+                    excluded.add(entry.getElement().getId());
+                    for (StoreIndex.Entry ancestor = entry.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+                        containing.add(ancestor.getElement().getId());
+                    }
+                    containing.add(storeIndex.getStore().getId());
+                }
+            }
+            if (!excluded.isEmpty()) {
+                LOGGER.info("{} elements of {} and everything beneath them are excluded", excluded.size(), storeType);
+            }
+            excludedIds.put(storeType, excluded);
+            containingIds.put(storeType, containing);
+        }
+        return excluded;
+    }
+
+    private boolean isExcluded(Store.Type storeType, StoreIndex.Entry entry) {
+        for (ExclusionIdentifier exclusion : exclusions) {
+            if (exclusion.excludes(storeType, entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isExcluded(IDProvider element, Set<Long> excluded) {
+        for (StoreElement current = element; current != null; current = current.getParent()) {
+            if (current instanceof IDProvider && excluded.contains(((IDProvider) current).getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Store.Type storeTypeOf(IDProvider element) {
+        return element instanceof Store ? ((Store) element).getType() : element.getStore().getType();
+    }
+
+
+}
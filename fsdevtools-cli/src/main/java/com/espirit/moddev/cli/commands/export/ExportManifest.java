@@ -0,0 +1,282 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import de.espirit.common.util.Pair;
+import de.espirit.firstspirit.store.access.nexport.ExportInfo;
+import de.espirit.firstspirit.store.access.nexport.io.ExportInfoFileHandle;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * List of the files an export has written to a synchronization directory, with the SHA-256 hash of each file.
+ * It is stored in the file {@link #MANIFEST_FILE} in the synchronization directory. Its lines have the format of
+ * <code>sha256sum</code>, so a synchronization directory can be verified with <code>sha256sum -c</code>. The first
+ * line is a comment with the selection of the export, a hash of the server, project, identifiers and options it
+ * has been created with, see {@link #selectionOf(String)}.
+ * <p>
+ * The next export with the same selection computes the obsolete files from the difference between the manifests
+ * instead of letting the export operation scan the synchronization directory, see {@link ObsoleteFileSweeper}.
+ * An export that keeps obsolete files adds them to its manifest, see {@link #withKeptFiles(ExportManifest)}.
+ *
+ * @author e-Spirit AG
+ */
+public class ExportManifest {
+
+    /**
+     * Name of the manifest file in the synchronization directory.
+     */
+    public static final String MANIFEST_FILE = ".fs-cli-export-manifest";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportManifest.class);
+    private static final String COMMENT_PREFIX = "# ";
+    private static final String SEPARATOR = "  ";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final String selection;
+    private final Map<String, String> files;
+
+    /**
+     * Creates a manifest.
+     *
+     * @param selection the selection of the export
+     * @param files     the hex encoded SHA-256 hash per path relative to the synchronization directory, with '/' as separator
+     */
+    public ExportManifest(String selection, Map<String, String> files) {
+        this.selection = selection;
+        this.files = Collections.unmodifiableMap(new TreeMap<>(files));
+    }
+
+    /**
+     * Creates the manifest of an export from the files saved through a {@link WriteAvoidingFileSystem} and the
+     * created, updated and moved files of the export result. Files of the result that haven't been saved through
+     * the file system are hashed from the synchronization directory.
+     *
+     * @param selection  the selection of the export
+     * @param syncDir    the synchronization directory
+     * @param savedFiles the hash per relative path of the saved files, see {@link WriteAvoidingFileSystem#getFiles()}
+     * @param result     the result of the export
+     * @return the manifest
+     * @throws IOException if a file can't be hashed
+     */
+    public static ExportManifest of(String selection, Path syncDir, Map<String, byte[]> savedFiles, ExportOperation.Result result) throws IOException {
+        final Map<String, String> files = new TreeMap<>();
+        for (Map.Entry<String, byte[]> entry : savedFiles.entrySet()) {
+            files.put(entry.getKey(), toHex(entry.getValue()));
+        }
+        final List<String> reportedFiles = new ArrayList<>();
+        collectPaths(result.getCreatedElements(), reportedFiles);
+        collectPaths(result.getUpdatedElements(), reportedFiles);
+        collectPaths(result.getMovedElements(), reportedFiles);
+        for (String path : reportedFiles) {
+            final Path file = syncDir.resolve(path);
+            if (!files.containsKey(path) && Files.isRegularFile(file)) {
+                files.put(path, toHex(WriteAvoidingFileSystem.digest(file)));
+            }
+        }
+        return new ExportManifest(selection, files);
+    }
+
+    private static void collectPaths(Collection<ExportInfo> exportInfos, List<String> paths) {
+        for (ExportInfo exportInfo : exportInfos) {
+            for (ExportInfoFileHandle fileHandle : exportInfo.getCreatedFileHandles()) {
+                paths.add(normalize(fileHandle.getPath()));
+            }
+            for (ExportInfoFileHandle fileHandle : exportInfo.getUpdatedFileHandles()) {
+                paths.add(normalize(fileHandle.getPath()));
+            }
+            for (Pair<ExportInfoFileHandle, ExportInfoFileHandle> move : exportInfo.getMovedFileHandles()) {
+                paths.add(normalize(move.getValue().getPath()));
+            }
+        }
+    }
+
+    private static String normalize(String path) {
+        String normalized = path.replace('\\', '/');
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        return normalized;
+    }
+
+    /**
+     * Reads the manifest of the last export to a synchronization directory.
+     *
+     * @param syncDir the synchronization directory
+     * @return the manifest, or null if there is none or it can't be read
+     */
+    public static ExportManifest read(Path syncDir) {
+        final Path file = syncDir.resolve(MANIFEST_FILE);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            final String header = reader.readLine();
+            if (header == null || !header.startsWith(COMMENT_PREFIX)) {
+                LOGGER.warn("Export manifest {} has no selection, so it is ignored", file);
+                return null;
+            }
+            final Map<String, String> files = new TreeMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int separator = line.indexOf(SEPARATOR);
+                if (separator > 0) {
+                    files.put(line.substring(separator + SEPARATOR.length()), line.substring(0, separator));
+                }
+            }
+            return new ExportManifest(header.substring(COMMENT_PREFIX.length()), files);
+        } catch (IOException e) {
+            LOGGER.warn("Export manifest {} can't be read, so it is ignored", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the manifest of a synchronization directory, for example after an export that didn't write all files
+     * of its selection.
+     *
+     * @param syncDir the synchronization directory
+     * @throws IOException if the manifest can't be deleted
+     */
+    public static void delete(Path syncDir) throws IOException {
+        Files.deleteIfExists(syncDir.resolve(MANIFEST_FILE));
+    }
+
+    /**
+     * Creates the selection of an export from the canonical description of what it exports. Only the
+     * {@value #DIGEST_ALGORITHM} hash of the description is stored, so the manifest's first line stays short
+     * even for exports of many identifiers.
+     *
+     * @param description the server, project, identifiers and options of the export in a canonical form
+     * @return the selection
+     */
+    public static String selectionOf(String description) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            return "sha256=" + toHex(digest.digest(description.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Converts a hash to its lower case hex representation.
+     *
+     * @param hash the hash
+     * @return the hex string
+     */
+    public static String toHex(byte[] hash) {
+        final StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Writes this manifest to a synchronization directory.
+     *
+     * @param syncDir the synchronization directory
+     * @throws IOException if the manifest can't be written
+     */
+    public void write(Path syncDir) throws IOException {
+        Files.createDirectories(syncDir);
+        try (BufferedWriter writer = Files.newBufferedWriter(syncDir.resolve(MANIFEST_FILE), StandardCharsets.UTF_8)) {
+            writer.write(COMMENT_PREFIX + selection);
+            writer.write('\n');
+            for (Map.Entry<String, String> entry : files.entrySet()) {
+                writer.write(entry.getValue() + SEPARATOR + entry.getKey());
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Get the selection of the export.
+     *
+     * @return the selection
+     */
+    public String getSelection() {
+        return selection;
+    }
+
+    /**
+     * Get the files of the export.
+     *
+     * @return the hex encoded hash per relative path, sorted by path
+     */
+    public Map<String, String> getFiles() {
+        return files;
+    }
+
+    /**
+     * Get the files of this manifest that are not part of a later one.
+     *
+     * @param later the manifest of a later export with the same selection
+     * @return the relative paths of the obsolete files, sorted
+     */
+    public List<String> getObsoleteFiles(ExportManifest later) {
+        final List<String> obsoleteFiles = new ArrayList<>();
+        for (String path : files.keySet()) {
+            if (!later.files.containsKey(path)) {
+                obsoleteFiles.add(path);
+            }
+        }
+        return obsoleteFiles;
+    }
+
+    /**
+     * Get this manifest together with the files of a previous export that have been kept as obsolete files. They
+     * are still in the synchronization directory, so they must stay in the manifest to be deleted by the next export
+     * that deletes obsolete files.
+     *
+     * @param previous the manifest of the previous export, or null if there is none
+     * @return the manifest with the files of the previous one, or null if the previous manifest is missing or has
+     * another selection, since the kept files are unknown then
+     */
+    public ExportManifest withKeptFiles(ExportManifest previous) {
+        if (previous == null || !previous.selection.equals(selection)) {
+            return null;
+        }
+        final Map<String, String> keptFiles = new TreeMap<>(previous.files);
+        keptFiles.putAll(files);
+        return new ExportManifest(selection, keptFiles);
+    }
+}
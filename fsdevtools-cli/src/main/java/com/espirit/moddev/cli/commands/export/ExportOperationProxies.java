@@ -0,0 +1,84 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.function.Consumer;
+
+/**
+ * Creates proxies of export operations that handle the store elements added to them, like the recording of a
+ * {@link ParallelExport} or {@link IncrementalExport}, or the filter of {@link ExportExclusions}.
+ *
+ * @author e-Spirit AG
+ */
+final class ExportOperationProxies {
+
+    private ExportOperationProxies() {
+        // Not used
+    }
+
+    /**
+     * Wraps an export operation, so that the store elements added to it are passed to the given handler instead.
+     * All other calls are passed to the given operation.
+     *
+     * @param exportOperation the export operation
+     * @param addElement      the handler of the added store elements, which may add them to the operation itself
+     * @return the intercepting export operation
+     */
+    static ExportOperation interceptAddElement(ExportOperation exportOperation, Consumer<IDProvider> addElement) {
+        return (ExportOperation) Proxy.newProxyInstance(ExportOperation.class.getClassLoader(), new Class<?>[]{ExportOperation.class},
+                                                        (proxy, method, args) -> {
+                                                            if (isAddElement(method, args)) {
+                                                                addElement.accept((IDProvider) args[0]);
+                                                                return null;
+                                                            }
+                                                            return invoke(exportOperation, method, args);
+                                                        });
+    }
+
+    /**
+     * Invokes a method of a proxied object, and throws what the method throws.
+     *
+     * @param target the proxied object
+     * @param method the method
+     * @param args   the arguments
+     * @return the result of the method
+     * @throws Throwable the exception thrown by the method
+     */
+    static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isAddElement(Method method, Object[] args) {
+        return "addElement".equals(method.getName()) && args != null && args.length == 1 && args[0] instanceof IDProvider;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.api.parsing.identifier.Identifier;
+import com.espirit.moddev.cli.api.parsing.identifier.PathIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.PathPatternIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.ProjectPropertiesIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.RootNodeIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.UidIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.UidPatternIdentifier;
+
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.transport.PropertiesTransportOptions;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes identifiers of an export that don't add any element, before they are resolved:
+ * <ul>
+ * <li>identifiers that are given more than once,</li>
+ * <li>identifiers of a store whose root is exported as well,</li>
+ * <li>paths beneath another exported path,</li>
+ * </ul>
+ * where the last two only apply if child elements are exported. All project property identifiers are merged into one,
+ * since the export operation only takes a single set of project property types.
+ * <p>
+ * Identifiers that are removed are not resolved anymore, so an unknown uid or path beneath an exported store root
+ * or path is not reported.
+ *
+ * @author e-Spirit AG
+ */
+public final class IdentifierOptimizer {
+
+
+    private IdentifierOptimizer() {
+        // Not used
+    }
+
+    /**
+     * Removes the redundant identifiers from the given list.
+     *
+     * @param identifiers          the identifiers of the export
+     * @param exportChildElements  true if child elements are exported, so a store root or path covers the elements beneath
+     * @return the remaining identifiers, in the order of their first occurrence
+     */
+    public static List<Identifier> optimize(List<Identifier> identifiers, boolean exportChildElements) {
+        final Set<Identifier> distinct = new LinkedHashSet<>(mergeProjectProperties(identifiers));
+        if (!exportChildElements) {
+            return new ArrayList<>(distinct);
+        }
+        final Set<Store.Type> exportedStores = EnumSet.noneOf(Store.Type.class);
+        final List<List<String>> exportedPaths = new ArrayList<>();
+        for (Identifier identifier : distinct) {
+            if (identifier instanceof RootNodeIdentifier) {
+                exportedStores.add(((RootNodeIdentifier) identifier).getUidType().getStoreType());
+            } else if (identifier instanceof PathIdentifier) {
+                exportedPaths.add(StorePaths.segments(((PathIdentifier) identifier).getPath()));
+            }
+        }
+        final List<Identifier> result = new ArrayList<>(distinct.size());
+        for (Identifier identifier : distinct) {
+            if (!isCovered(identifier, exportedStores, exportedPaths)) {
+                result.add(identifier);
+            }
+        }
+        return result;
+    }
+
+    private static List<Identifier> mergeProjectProperties(List<Identifier> identifiers) {
+        final List<Identifier> result = new ArrayList<>(identifiers.size());
+        EnumSet<PropertiesTransportOptions.ProjectPropertyType> projectPropertyTypes = null;
+        int projectPropertiesIndex = -1;
+        for (Identifier identifier : identifiers) {
+            if (identifier instanceof ProjectPropertiesIdentifier) {
+                final EnumSet<PropertiesTransportOptions.ProjectPropertyType> types = ((ProjectPropertiesIdentifier) identifier).getProjectPropertyTypes();
+                if (projectPropertyTypes == null) {
+                    projectPropertyTypes = types;
+                    projectPropertiesIndex = result.size();
+                    result.add(identifier);
+                } else {
+                    projectPropertyTypes.addAll(types);
+                }
+            } else {
+                result.add(identifier);
+            }
+        }
+        if (projectPropertyTypes != null) {
+            result.set(projectPropertiesIndex, new ProjectPropertiesIdentifier(projectPropertyTypes));
+        }
+        return result;
+    }
+
+    private static boolean isCovered(Identifier identifier, Set<Store.Type> exportedStores, List<List<String>> exportedPaths) {
+        if (identifier instanceof UidIdentifier) {
+            return exportedStores.contains(((UidIdentifier) identifier).getUidMapping().getStoreType());
+        }
+        if (identifier instanceof UidPatternIdentifier) {
+            return exportedStores.contains(((UidPatternIdentifier) identifier).getUidMapping().getStoreType());
+        }
+        if (identifier instanceof PathIdentifier) {
+            final List<String> path = StorePaths.segments(((PathIdentifier) identifier).getPath());
+            return exportedStores.contains(StorePaths.storeOf(path)) || isBeneath(path, exportedPaths);
+        }
+        if (identifier instanceof PathPatternIdentifier) {
+            final PathPatternIdentifier pathPattern = (PathPatternIdentifier) identifier;
+            return exportedStores.containsAll(pathPattern.getStoreTypes()) || isBeneath(StorePaths.segments(pathPattern.getPath()), exportedPaths);
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the given path lies strictly beneath one of the exported paths. The store segment is compared
+     * case-insensitively, all further segments literally.
+     */
+    private static boolean isBeneath(List<String> path, List<List<String>> exportedPaths) {
+        for (List<String> exportedPath : exportedPaths) {
+            if (exportedPath.isEmpty() || path.size() <= exportedPath.size()) {
+                continue;
+            }
+            boolean beneath = exportedPath.get(0).equalsIgnoreCase(path.get(0));
+            for (int i = 1; beneath && i < exportedPath.size(); i++) {
+                beneath = exportedPath.get(i).equals(path.get(i));
+            }
+            if (beneath) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+}
@@ -0,0 +1,285 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import de.espirit.firstspirit.access.project.Project;
+import de.espirit.firstspirit.access.store.BasicElementInfo;
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.StoreElement;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.storage.Revision;
+import de.espirit.firstspirit.storage.RevisionMetaData;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Restricts an export to the store elements that changed after a given revision or point in time. The elements
+ * selected by the identifiers of the export are recorded instead of being added to the export operation. Afterwards,
+ * only the elements that were created or changed in a later revision and that are one of the recorded elements or,
+ * if child elements are exported, lie beneath one of them are added.
+ * <p>
+ * The last revision an export has seen is stored in the file {@link #STATE_FILE} in the synchronization directory,
+ * so the next incremental export can continue from there.
+ *
+ * @author e-Spirit AG
+ */
+public class IncrementalExport {
+
+    /**
+     * Name of the file in the synchronization directory that stores the state of the last incremental export.
+     */
+    public static final String STATE_FILE = ".fs-cli-export-state";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalExport.class);
+
+    private static final String PROJECT_KEY = "project";
+    private static final String RELEASE_KEY = "release";
+    private static final String REVISION_KEY = "revision";
+    private static final String TIMESTAMP_KEY = "timestamp";
+
+    private final Project project;
+    private final StoreAgent storeAgent;
+    private final boolean useReleaseState;
+    private final long afterRevision;
+    private final long queryTime;
+    private final List<Revision> revisions;
+    private final Set<Long> selectedIds = new HashSet<>();
+
+    private IncrementalExport(Project project, StoreAgent storeAgent, boolean useReleaseState, Date since, long afterRevision) {
+        this.project = project;
+        this.storeAgent = storeAgent;
+        this.useReleaseState = useReleaseState;
+        this.afterRevision = afterRevision;
+        queryTime = System.currentTimeMillis();
+        revisions = new ArrayList<>();
+        for (Revision revision : project.getRevisions(since, new Date(queryTime))) {
+            if (revision.getId() > afterRevision) {
+                revisions.add(revision);
+            }
+        }
+        LOGGER.info("Found {} revisions since {}", revisions.size(), afterRevision >= 0 ? "revision " + afterRevision : since);
+    }
+
+    /**
+     * Creates an incremental export of the changes after the given revision.
+     *
+     * @param project         the project
+     * @param storeAgent      the StoreAgent to retrieve the changed elements with
+     * @param useReleaseState indicates whether the release or the current state is exported
+     * @param revisionId      the id of the last revision that should not be exported
+     * @return the incremental export
+     * @throws IllegalArgumentException if the project has no revision with the given id
+     */
+    public static IncrementalExport sinceRevision(Project project, StoreAgent storeAgent, boolean useReleaseState, long revisionId) {
+        final Revision revision = project.getRevision(revisionId);
+        if (revision == null) {
+            throw new IllegalArgumentException("Project " + project.getName() + " has no revision " + revisionId);
+        }
+        return new IncrementalExport(project, storeAgent, useReleaseState, new Date(revision.getCreationTime()), revisionId);
+    }
+
+    /**
+     * Creates an incremental export of the changes after the given point in time.
+     *
+     * @param project         the project
+     * @param storeAgent      the StoreAgent to retrieve the changed elements with
+     * @param useReleaseState indicates whether the release or the current state is exported
+     * @param since           the point in time
+     * @return the incremental export
+     */
+    public static IncrementalExport since(Project project, StoreAgent storeAgent, boolean useReleaseState, Date since) {
+        return new IncrementalExport(project, storeAgent, useReleaseState, since, -1);
+    }
+
+    /**
+     * Creates an incremental export of the changes after the export whose state is stored in the given
+     * synchronization directory.
+     *
+     * @param project         the project
+     * @param storeAgent      the StoreAgent to retrieve the changed elements with
+     * @param useReleaseState indicates whether the release or the current state is exported
+     * @param syncDir         the synchronization directory
+     * @return the incremental export, or null if there is no state of a previous export of the same project and state
+     * @throws IOException if the state file can't be read
+     */
+    public static IncrementalExport sinceLastExport(Project project, StoreAgent storeAgent, boolean useReleaseState, Path syncDir) throws IOException {
+        final Path stateFile = syncDir.resolve(STATE_FILE);
+        if (!Files.isRegularFile(stateFile)) {
+            LOGGER.info("No previous export found in {}, exporting everything", syncDir);
+            return null;
+        }
+        final Properties state = new Properties();
+        try (InputStream inputStream = Files.newInputStream(stateFile)) {
+            state.load(inputStream);
+        }
+        if (!project.getName().equals(state.getProperty(PROJECT_KEY))
+            || useReleaseState != Boolean.parseBoolean(state.getProperty(RELEASE_KEY))) {
+            LOGGER.info("Previous export in {} is of another project or state, exporting everything", syncDir);
+            return null;
+        }
+        final String revision = state.getProperty(REVISION_KEY);
+        if (revision != null) {
+            return sinceRevision(project, storeAgent, useReleaseState, Long.parseLong(revision));
+        }
+        return since(project, storeAgent, useReleaseState, new Date(Long.parseLong(state.getProperty(TIMESTAMP_KEY))));
+    }
+
+    /**
+     * Stores the state of an export in the given synchronization directory, so a later incremental export can
+     * continue from there.
+     *
+     * @param project         the exported project
+     * @param useReleaseState indicates whether the release or the current state has been exported
+     * @param lastRevision    the last revision that has been exported, or null if it is unknown
+     * @param timestamp       the point in time up to which changes have been exported
+     * @param syncDir         the synchronization directory
+     * @throws IOException if the state file can't be written
+     */
+    public static void writeState(Project project, boolean useReleaseState, Long lastRevision, long timestamp, Path syncDir) throws IOException {
+        final Properties state = new Properties();
+        state.setProperty(PROJECT_KEY, project.getName());
+        state.setProperty(RELEASE_KEY, Boolean.toString(useReleaseState));
+        if (lastRevision != null) {
+            state.setProperty(REVISION_KEY, Long.toString(lastRevision));
+        }
+        state.setProperty(TIMESTAMP_KEY, Long.toString(timestamp));
+        Files.createDirectories(syncDir);
+        try (OutputStream outputStream = Files.newOutputStream(syncDir.resolve(STATE_FILE))) {
+            state.store(outputStream, "State of the last incremental export");
+        }
+    }
+
+    /**
+     * Get the id of the latest revision this export contains.
+     *
+     * @return the revision id, or null if there is no revision after the start point
+     */
+    public Long getLastRevision() {
+        Long result = afterRevision >= 0 ? afterRevision : null;
+        for (Revision revision : revisions) {
+            if (result == null || revision.getId() > result) {
+                result = revision.getId();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the point in time the revisions have been queried at.
+     *
+     * @return the time in milliseconds
+     */
+    public long getQueryTime() {
+        return queryTime;
+    }
+
+    /**
+     * Wraps an export operation, so that the store elements added to it are only recorded as selection of this export.
+     * All other calls are passed to the given operation.
+     *
+     * @param exportOperation the export operation
+     * @return the recording export operation
+     */
+    public ExportOperation record(ExportOperation exportOperation) {
+        return ExportOperationProxies.interceptAddElement(exportOperation, element -> selectedIds.add(element.getId()));
+    }
+
+    /**
+     * Adds the changed store elements that belong to the recorded selection to the given export operation.
+     * Elements beneath a recorded element only belong to the selection if child elements are exported.
+     *
+     * @param exportOperation     the export operation
+     * @param exportChildElements indicates whether the child elements of the recorded elements are exported
+     * @return the number of added elements
+     */
+    public int addChangedElements(ExportOperation exportOperation, boolean exportChildElements) {
+        int added = 0;
+        for (IDProvider element : getChangedElements()) {
+            if (isSelected(element, exportChildElements)) {
+                LOGGER.debug("Adding changed store element: {}", element);
+                exportOperation.addElement(element);
+                added++;
+            }
+        }
+        LOGGER.info("{} changed elements of project {} are exported", added, project.getName());
+        return added;
+    }
+
+    private Collection<IDProvider> getChangedElements() {
+        final Set<BasicElementInfo> infos = new LinkedHashSet<>();
+        for (Revision revision : revisions) {
+            final RevisionMetaData metaData = revision.getMetaData();
+            infos.addAll(metaData.getCreatedElements());
+            infos.addAll(metaData.getChangedElements());
+            if (useReleaseState) {
+                infos.addAll(metaData.getReleasedElements());
+            }
+        }
+        final Set<Long> nodeIds = new HashSet<>();
+        final List<IDProvider> elements = new ArrayList<>();
+        for (BasicElementInfo info : infos) {
+            if (nodeIds.add(info.getNodeId())) {
+                final Store store = storeAgent.getStore(info.getStoreType(), useReleaseState);
+                final IDProvider element = store != null ? store.getStoreElement(info.getNodeId()) : null;
+                if (element != null) {
+                    elements.add(element);
+                } else {
+                    // deleted since, or not released yet
+                    LOGGER.debug("Changed element {} of {} doesn't exist anymore", info.getNodeId(), info.getStoreType());
+                }
+            }
+        }
+        return elements;
+    }
+
+    private boolean isSelected(IDProvider element, boolean exportChildElements) {
+        if (!exportChildElements) {
+            return selectedIds.contains(element.getId());
+        }
+        for (StoreElement current = element; current != null; current = current.getParent()) {
+            if (current instanceof IDProvider && selectedIds.contains(((IDProvider) current).getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+}
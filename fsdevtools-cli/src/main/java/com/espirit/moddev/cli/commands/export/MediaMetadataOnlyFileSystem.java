@@ -0,0 +1,288 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.commands.FileSystemDecorator;
+
+import de.espirit.firstspirit.io.FileHandle;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorates the file system of a synchronization directory, so that media binaries are replaced by small placeholders.
+ * The XML files describing the media store are written as usual, while the content of every other file of the
+ * {@value #MEDIA_STORE_DIRECTORY} directory is only hashed and counted. Its file gets a placeholder with the
+ * {@value #DIGEST_ALGORITHM} hash and the size of the binary instead, so changed binaries still show up in a diff.
+ * <p>
+ * A synchronization directory with placeholders is meant for reviews and must not be imported, so an export with
+ * placeholders marks it with the file {@value #MARKER_FILE}. The mark is removed once no placeholder is left.
+ * Writes are recognized like in {@link WriteAvoidingFileSystem}.
+ *
+ * @author e-Spirit AG
+ */
+public class MediaMetadataOnlyFileSystem extends FileSystemDecorator {
+
+    /**
+     * Name of the file in the synchronization directory that marks it as containing placeholders.
+     */
+    public static final String MARKER_FILE = ".fs-cli-media-metadata-only";
+
+    static final String MEDIA_STORE_DIRECTORY = "MediaStore";
+    private static final String METADATA_SUFFIX = ".xml";
+    private static final String PLACEHOLDER_HEADER = "# media binary omitted by export --media-metadata-only\n";
+    /** Placeholders are smaller, so larger files are binaries without reading them. */
+    private static final long MAX_PLACEHOLDER_SIZE = 256;
+
+    private final AtomicInteger replacedFiles = new AtomicInteger();
+    private final AtomicLong skippedBytes = new AtomicLong();
+
+    /**
+     * Get the number of media binaries that have been replaced by placeholders.
+     *
+     * @return the number of replaced files
+     */
+    public int getReplacedFiles() {
+        return replacedFiles.get();
+    }
+
+    /**
+     * Get the number of bytes of media binaries that have not been written.
+     *
+     * @return the number of skipped bytes
+     */
+    public long getSkippedBytes() {
+        return skippedBytes.get();
+    }
+
+    /**
+     * Indicates whether the file with the given path is a media binary. All files beneath the media store directory
+     * are binaries, except the XML files and the files of hidden directories.
+     *
+     * @param path the path of the file relative to the synchronization directory
+     * @return true if the file is a media binary
+     */
+    static boolean isMediaBinary(String path) {
+        final String[] segments = path.replace('\\', '/').replaceFirst("^/+", "").split("/");
+        if (segments.length < 2 || !MEDIA_STORE_DIRECTORY.equalsIgnoreCase(segments[0])) {
+            return false;
+        }
+        for (String segment : segments) {
+            if (segment.startsWith(".")) {
+                return false;
+            }
+        }
+        return !segments[segments.length - 1].toLowerCase(Locale.UK).endsWith(METADATA_SUFFIX);
+    }
+
+    /**
+     * Creates the placeholder of a binary.
+     *
+     * @param digest the {@value #DIGEST_ALGORITHM} hash of the binary
+     * @param size   the size of the binary
+     * @return the content of the placeholder
+     */
+    static byte[] placeholder(byte[] digest, long size) {
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return (PLACEHOLDER_HEADER
+                + "sha256=" + hex + "\n"
+                + "size=" + size + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Marks the given synchronization directory as containing placeholders, so it isn't imported.
+     *
+     * @param syncDir the synchronization directory
+     * @throws IOException if the marker can't be written
+     */
+    public static void writeMarker(Path syncDir) throws IOException {
+        Files.createDirectories(syncDir);
+        Files.write(syncDir.resolve(MARKER_FILE),
+                    "# media binaries have been replaced by placeholders, so this directory must not be imported\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks whether the given synchronization directory is marked as containing placeholders.
+     *
+     * @param syncDir the synchronization directory
+     * @return true if the directory must not be imported
+     */
+    public static boolean isMarked(Path syncDir) {
+        return Files.isRegularFile(syncDir.resolve(MARKER_FILE));
+    }
+
+    /**
+     * Removes the marker of the given synchronization directory, unless it still contains placeholders, because
+     * the export that replaced them by binaries again didn't include every media.
+     *
+     * @param syncDir the synchronization directory
+     * @return false if the directory still contains placeholders and keeps its marker
+     * @throws IOException if the directory can't be read or the marker can't be deleted
+     */
+    public static boolean removeMarker(Path syncDir) throws IOException {
+        if (!isMarked(syncDir)) {
+            return true;
+        }
+        if (containsPlaceholders(syncDir)) {
+            return false;
+        }
+        Files.delete(syncDir.resolve(MARKER_FILE));
+        return true;
+    }
+
+    /**
+     * Checks whether the media store directory of the given synchronization directory contains placeholders.
+     *
+     * @param syncDir the synchronization directory
+     * @return true if a media binary has been replaced by its placeholder
+     * @throws IOException if the directory can't be read
+     */
+    static boolean containsPlaceholders(Path syncDir) throws IOException {
+        final Path mediaStore = syncDir.resolve(MEDIA_STORE_DIRECTORY);
+        if (!Files.isDirectory(mediaStore)) {
+            return false;
+        }
+        final AtomicBoolean found = new AtomicBoolean();
+        Files.walkFileTree(mediaStore, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (isPlaceholder(syncDir.relativize(file).toString(), file, attrs)) {
+                    found.set(true);
+                    return FileVisitResult.TERMINATE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return found.get();
+    }
+
+    private static boolean isPlaceholder(String path, Path file, BasicFileAttributes attrs) throws IOException {
+        if (!attrs.isRegularFile() || attrs.size() > MAX_PLACEHOLDER_SIZE || !isMediaBinary(path)) {
+            return false;
+        }
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).startsWith(PLACEHOLDER_HEADER);
+    }
+
+    private Object save(Object handle, Method method, Object[] args) throws Throwable {
+        final MessageDigest digest = createDigest();
+        final long size = consume((InputStream) args[0], digest);
+        final Object[] placeholderArgs = args.clone();
+        placeholderArgs[0] = new ByteArrayInputStream(placeholder(digest.digest(), size));
+        final Object result = invoke(handle, method, placeholderArgs);
+        count(size);
+        return result;
+    }
+
+    private void count(long size) {
+        replacedFiles.incrementAndGet();
+        skippedBytes.addAndGet(size);
+    }
+
+    private static long consume(InputStream inputStream, MessageDigest digest) throws IOException {
+        final byte[] buffer = new byte[8192];
+        long size = 0;
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            digest.update(buffer, 0, read);
+            size += read;
+        }
+        return size;
+    }
+
+    @Override
+    protected Object handle(Object target, Method method, Object[] args) throws Throwable {
+        if (target instanceof FileHandle && isMediaBinary(((FileHandle) target).getPath())) {
+            if (isSave(method, args)) {
+                return save(target, method, args);
+            }
+            if (OutputStream.class.isAssignableFrom(method.getReturnType())) {
+                return new PlaceholderOutputStream(target, method, args);
+            }
+        }
+        return super.handle(target, method, args);
+    }
+
+    /**
+     * Hashes written content and writes its placeholder to the decorated file handle on close.
+     */
+    private final class PlaceholderOutputStream extends OutputStream {
+
+        private final Object handle;
+        private final Method method;
+        private final Object[] args;
+        private final MessageDigest digest = createDigest();
+        private long size;
+        private boolean closed;
+
+        private PlaceholderOutputStream(Object handle, Method method, Object[] args) {
+            this.handle = handle;
+            this.method = method;
+            this.args = args;
+        }
+
+        @Override
+        public void write(int b) {
+            digest.update((byte) b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            digest.update(b, off, len);
+            size += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (OutputStream outputStream = (OutputStream) invoke(handle, method, args)) {
+                outputStream.write(placeholder(digest.digest(), size));
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IOException("Writing " + ((FileHandle) handle).getPath() + " failed", e);
+            }
+            count(size);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.fanout.FanOutExecutor;
+import com.espirit.moddev.cli.results.FanOutResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deletes the obsolete files of a synchronization directory with several worker threads, instead of letting the
+ * export operation scan the whole directory tree. The obsolete files are taken from the difference between the
+ * {@link ExportManifest}s of two exports. A file is only deleted while it still has the hash the earlier manifest
+ * recorded, so files changed outside of the export are kept. Files of hidden directories and hidden files are never
+ * deleted. Directories that became empty are deleted afterwards.
+ *
+ * @author e-Spirit AG
+ */
+public class ObsoleteFileSweeper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObsoleteFileSweeper.class);
+
+    private final Path root;
+    private final int workers;
+    private final AtomicInteger deletedFiles = new AtomicInteger();
+    private final AtomicInteger keptFiles = new AtomicInteger();
+
+    /**
+     * Creates a sweeper.
+     *
+     * @param root    the synchronization directory
+     * @param workers the maximum number of files that are deleted concurrently
+     * @throws IllegalArgumentException if workers is less than 1
+     */
+    public ObsoleteFileSweeper(Path root, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is needed, but was " + workers);
+        }
+        this.root = root;
+        this.workers = workers;
+    }
+
+    /**
+     * Deletes the files of the earlier manifest that are not part of the later one.
+     *
+     * @param earlier the manifest of the previous export
+     * @param later   the manifest of the current export with the same selection
+     * @throws IOException if a file or directory couldn't be deleted
+     */
+    public void sweep(ExportManifest earlier, ExportManifest later) throws IOException {
+        final Collection<String> obsoleteFiles = earlier.getObsoleteFiles(later);
+        final Set<Path> directories = new TreeSet<>(Comparator.comparingInt(Path::getNameCount).reversed().thenComparing(Comparator.naturalOrder()));
+        final FanOutResult result = new FanOutExecutor(workers).execute("sweep", new ArrayList<>(obsoleteFiles), path -> {
+            if (delete(path, earlier.getFiles().get(path))) {
+                synchronized (directories) {
+                    for (Path directory = root.resolve(path).getParent(); directory != null && !directory.equals(root); directory = directory.getParent()) {
+                        directories.add(directory);
+                    }
+                }
+            }
+        });
+        if (result.isError()) {
+            throw new IOException("Deleting obsolete files failed", result.getError());
+        }
+        for (Path directory : directories) {
+            deleteIfEmpty(directory);
+        }
+        LOGGER.info("{} obsolete files deleted, {} obsolete files changed since the last export have been kept", deletedFiles.get(), keptFiles.get());
+    }
+
+    /**
+     * Get the number of deleted files.
+     *
+     * @return the number of deleted files
+     */
+    public int getDeletedFiles() {
+        return deletedFiles.get();
+    }
+
+    /**
+     * Get the number of obsolete files that have been kept, because they changed since the last export.
+     *
+     * @return the number of kept files
+     */
+    public int getKeptFiles() {
+        return keptFiles.get();
+    }
+
+    private boolean delete(String path, String hash) throws IOException {
+        if (isHidden(path)) {
+            return false;
+        }
+        final Path file = root.resolve(path);
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        if (hash != null && !hash.equals(ExportManifest.toHex(WriteAvoidingFileSystem.digest(file)))) {
+            LOGGER.warn("Obsolete file {} changed since the last export and is kept", path);
+            keptFiles.incrementAndGet();
+            return false;
+        }
+        LOGGER.debug("Deleting obsolete file {}", path);
+        Files.delete(file);
+        deletedFiles.incrementAndGet();
+        return true;
+    }
+
+    private static boolean isHidden(String path) {
+        for (String segment : path.split("/")) {
+            if (segment.startsWith(".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void deleteIfEmpty(Path directory) throws IOException {
+        try {
+            Files.deleteIfExists(directory);
+        } catch (DirectoryNotEmptyException e) {
+            // still contains files that are not obsolete
+        }
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.fanout.FanOutExecutor;
+import com.espirit.moddev.cli.results.FanOutResult;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits an export into several shards that are exported concurrently. The store elements selected by the
+ * identifiers of the export are recorded instead of being added to the export operation, and are distributed
+ * to the shards afterwards. Every shard exports into its own staging directory; the staged files are merged
+ * into the synchronization directory once all shards succeeded. The merged files are recorded, see {@link #getFiles()},
+ * so the obsolete files can be determined from the {@link ExportManifest} of the export.
+ * <p>
+ * The first shard uses the original export operation, so everything else that has been configured for it,
+ * like entities or project properties, is exported by that shard. The other shards are exported by
+ * {@link Shard}s that usually open their own connection.
+ *
+ * @author e-Spirit AG
+ */
+public class ParallelExport {
+
+    /**
+     * Name of the directory that contains the FirstSpirit metadata files of an export, like the import lists.
+     * Metadata files exported by several shards are merged line by line instead of being replaced.
+     */
+    public static final String METADATA_DIRECTORY = ".FirstSpirit";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelExport.class);
+
+    private final int shardCount;
+    private final List<IDProvider> elements = new ArrayList<>();
+    private final Set<Long> elementIds = new HashSet<>();
+    private final Map<String, byte[]> mergedFiles = new HashMap<>();
+
+    /**
+     * Creates a parallel export.
+     *
+     * @param shardCount the maximum number of shards
+     * @throws IllegalArgumentException if shardCount is less than 1
+     */
+    public ParallelExport(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one shard is needed, but was " + shardCount);
+        }
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Wraps an export operation, so that the store elements added to it are only recorded to be distributed
+     * to the shards later. All other calls are passed to the given operation.
+     *
+     * @param exportOperation the export operation of the first shard
+     * @return the recording export operation
+     */
+    public ExportOperation record(ExportOperation exportOperation) {
+        return ExportOperationProxies.interceptAddElement(exportOperation, element -> {
+            if (elementIds.add(element.getId())) {
+                elements.add(element);
+            }
+        });
+    }
+
+    /**
+     * Get the recorded store elements.
+     *
+     * @return the store elements in the order they have been added
+     */
+    public List<IDProvider> getElements() {
+        return Collections.unmodifiableList(elements);
+    }
+
+    /**
+     * Exports the recorded store elements with up to the configured number of concurrent shards and merges the
+     * exported files into the synchronization directory.
+     *
+     * @param syncDir    the synchronization directory
+     * @param firstShard the shard that exports with the original export operation
+     * @param otherShard the shard that exports all other shards
+     * @return the combined result of all shards
+     * @throws IOException           if a staging directory can't be created or the files can't be merged
+     * @throws IllegalStateException if a shard failed; nothing has been written to the synchronization directory then
+     */
+    public ExportOperation.Result perform(Path syncDir, Shard firstShard, Shard otherShard) throws IOException {
+        final List<List<IDProvider>> shards = split(elements, shardCount);
+        final List<String> names = new ArrayList<>();
+        for (int i = 1; i <= shards.size(); i++) {
+            names.add(Integer.toString(i));
+        }
+        LOGGER.info("Exporting {} elements in {} shards", elements.size(), shards.size());
+        final ExportOperation.Result[] results = new ExportOperation.Result[shards.size()];
+        final Path stagingRoot = Files.createTempDirectory("fs-cli-export-");
+        try {
+            final FanOutResult fanOutResult = new FanOutExecutor(shards.size()).execute("shard", names, name -> {
+                final int index = Integer.parseInt(name) - 1;
+                final Path stagingDir = Files.createDirectory(stagingRoot.resolve(name));
+                results[index] = (index == 0 ? firstShard : otherShard).export(shards.get(index), stagingDir);
+            });
+            if (fanOutResult.isError()) {
+                throw new IllegalStateException("Exporting shards " + fanOutResult.getFailedTargets() + " failed", fanOutResult.getError());
+            }
+            final List<Path> stagingDirs = new ArrayList<>();
+            for (String name : names) {
+                stagingDirs.add(stagingRoot.resolve(name));
+            }
+            final int unchanged = merge(stagingDirs, syncDir, mergedFiles);
+            LOGGER.info("{} unchanged files have not been written again", unchanged);
+        } finally {
+            delete(stagingRoot);
+        }
+        final List<ExportOperation.Result> resultList = new ArrayList<>();
+        Collections.addAll(resultList, results);
+        return combine(resultList);
+    }
+
+    /**
+     * Get the files the shards exported, after they have been merged into the synchronization directory.
+     *
+     * @return the hash per path relative to the synchronization directory, with '/' as separator
+     */
+    public Map<String, byte[]> getFiles() {
+        return Collections.unmodifiableMap(mergedFiles);
+    }
+
+    /**
+     * Distributes store elements to at most the given number of shards. Store roots are the largest units,
+     * so they are distributed first; all other elements follow round robin. Elements are never split into their
+     * children, because the export operation of a shard exports a container together with its children or not at
+     * all; so a single store root is exported by a single shard.
+     *
+     * @param elements   the store elements
+     * @param shardCount the maximum number of shards
+     * @return the non-empty shards, or a single empty shard if there are no elements
+     */
+    static List<List<IDProvider>> split(List<IDProvider> elements, int shardCount) {
+        final List<IDProvider> ordered = new ArrayList<>(elements.size());
+        for (IDProvider element : elements) {
+            if (element instanceof Store) {
+                ordered.add(element);
+            }
+        }
+        for (IDProvider element : elements) {
+            if (!(element instanceof Store)) {
+                ordered.add(element);
+            }
+        }
+        final int count = Math.max(1, Math.min(shardCount, ordered.size()));
+        final List<List<IDProvider>> shards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (int i = 0; i < ordered.size(); i++) {
+            shards.get(i % count).add(ordered.get(i));
+        }
+        return shards;
+    }
+
+    /**
+     * Looks up a store element of another connection in the given StoreAgent.
+     *
+     * @param storeAgent      the StoreAgent of the connection the element should belong to
+     * @param element         the store element
+     * @param useReleaseState indicates whether the release or the current state is exported
+     * @return the store element of the given StoreAgent
+     * @throws IllegalStateException if the element doesn't exist in the given StoreAgent
+     */
+    public static IDProvider resolve(StoreAgent storeAgent, IDProvider element, boolean useReleaseState) {
+        if (element instanceof Store) {
+            return storeAgent.getStore(((Store) element).getType(), useReleaseState);
+        }
+        final Store store = storeAgent.getStore(element.getStore().getType(), useReleaseState);
+        final IDProvider result = store != null ? store.getStoreElement(element.getId()) : null;
+        if (result == null) {
+            throw new IllegalStateException("Store element " + element.getUid() + " (" + element.getId() + ") can't be found for the shard");
+        }
+        return result;
+    }
+
+    /**
+     * Copies the files of the staging directories into the synchronization directory. Files that already exist
+     * in the synchronization directory are replaced, unless their content didn't change. Metadata files that several
+     * shards exported are merged, by adding the lines of the later shards that are not contained yet.
+     *
+     * @param stagingDirs the staging directories in the order of their shards
+     * @param syncDir     the synchronization directory
+     * @param mergedFiles receives the hash of every merged file per path relative to the synchronization directory
+     * @return the number of files that have not been copied because their content didn't change
+     * @throws IOException if a file can't be copied
+     */
+    static int merge(List<Path> stagingDirs, Path syncDir, Map<String, byte[]> mergedFiles) throws IOException {
+        final Set<Path> written = new HashSet<>();
+        final AtomicInteger unchanged = new AtomicInteger();
+        for (Path stagingDir : stagingDirs) {
+            Files.walkFileTree(stagingDir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    Files.createDirectories(syncDir.resolve(stagingDir.relativize(dir).toString()));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    final Path relative = stagingDir.relativize(file);
+                    final Path target = syncDir.resolve(relative.toString());
+                    if (written.add(target) || !isMetadata(relative)) {
+                        if (WriteAvoidingFileSystem.hasSameContent(file, target)) {
+                            unchanged.incrementAndGet();
+                        } else {
+                            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+                        }
+                    } else {
+                        appendMissingLines(file, target);
+                    }
+                    mergedFiles.put(relative.toString().replace('\\', '/'), WriteAvoidingFileSystem.digest(target));
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        return unchanged.get();
+    }
+
+    /**
+     * Combines the results of several shards. Methods returning collections, like the created or updated
+     * elements, return the union of all results; all other methods are answered by the first result.
+     *
+     * @param results the results of the shards
+     * @return the combined result
+     */
+    static ExportOperation.Result combine(List<ExportOperation.Result> results) {
+        if (results.size() == 1) {
+            return results.get(0);
+        }
+        return (ExportOperation.Result) Proxy.newProxyInstance(ExportOperation.Result.class.getClassLoader(), new Class<?>[]{ExportOperation.Result.class},
+                                                               (proxy, method, args) -> {
+                                                                   if (method.getDeclaringClass() == Object.class) {
+                                                                       return invokeObjectMethod(proxy, method, args);
+                                                                   }
+                                                                   final Class<?> returnType = method.getReturnType();
+                                                                   if (!Collection.class.isAssignableFrom(returnType)) {
+                                                                       return ExportOperationProxies.invoke(results.get(0), method, args);
+                                                                   }
+                                                                   final Collection<Object> combined = Set.class.isAssignableFrom(returnType)
+                                                                                                       ? new LinkedHashSet<>() : new ArrayList<>();
+                                                                   for (ExportOperation.Result result : results) {
+                                                                       final Collection<?> part = (Collection<?>) ExportOperationProxies.invoke(result, method, args);
+                                                                       if (part != null) {
+                                                                           combined.addAll(part);
+                                                                       }
+                                                                   }
+                                                                   return combined;
+                                                               });
+    }
+
+    private static boolean isMetadata(Path relative) {
+        for (Path segment : relative) {
+            if (METADATA_DIRECTORY.equals(segment.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void appendMissingLines(Path source, Path target) throws IOException {
+        final Set<String> existing = new HashSet<>(Files.readAllLines(target, StandardCharsets.UTF_8));
+        final List<String> missing = new ArrayList<>();
+        for (String line : Files.readAllLines(source, StandardCharsets.UTF_8)) {
+            if (existing.add(line)) {
+                missing.add(line);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Files.write(target, missing, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+    }
+
+    private static void delete(Path root) {
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.warn("Staging directory {} can't be deleted", root, e);
+        }
+    }
+
+    private static Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return "Combined export result";
+        }
+    }
+
+    /**
+     * Exports the store elements of a shard.
+     */
+    @FunctionalInterface
+    public interface Shard {
+
+        /**
+         * Exports the given store elements into the given staging directory.
+         *
+         * @param elements   the store elements of the shard
+         * @param stagingDir the staging directory
+         * @return the result of the export
+         * @throws Exception if the export failed
+         */
+        ExportOperation.Result export(List<IDProvider> elements, Path stagingDir) throws Exception;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.api.parsing.exceptions.IDProviderNotFoundException;
+import com.espirit.moddev.cli.api.parsing.identifier.PathIdentifier;
+import com.espirit.moddev.cli.fanout.FanOutExecutor;
+import com.espirit.moddev.cli.results.FanOutResult;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.store.access.nexport.ExportUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves many {@link PathIdentifier}s at once. The paths are grouped by their store and merged into a trie of
+ * their segments, so paths with a shared prefix share its nodes. Each store is then walked once along the trie:
+ * the children of an element are only listed if a requested path continues beneath it, and every child is matched
+ * against all requested segments of its level by uid and name. Uid matches win over name matches across all children,
+ * and among them the first child in order wins. Stores are walked
+ * concurrently. Paths the trie can't answer are passed to {@link ExportUtil#getElementByPath(StoreAgent, boolean, String)}
+ * as before, and paths that can't be resolved at all are reported together.
+ *
+ * @author e-Spirit AG
+ */
+public class PathIdentifierResolver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PathIdentifierResolver.class);
+
+    private final StoreAgent storeAgent;
+    private final boolean useReleaseState;
+
+    /**
+     * Creates a resolver.
+     *
+     * @param storeAgent      the StoreAgent to retrieve the store roots from
+     * @param useReleaseState indicates whether to resolve the paths in the {@link Store#isRelease() release} or current stores
+     */
+    public PathIdentifierResolver(StoreAgent storeAgent, boolean useReleaseState) {
+        this.storeAgent = storeAgent;
+        this.useReleaseState = useReleaseState;
+    }
+
+    /**
+     * Resolves the given identifiers.
+     *
+     * @param identifiers the identifiers, duplicates are resolved once
+     * @return the store element per identifier, in order of the given identifiers
+     * @throws IDProviderNotFoundException if any identifier can't be resolved, with the failures of all identifiers
+     *                                     attached as suppressed exceptions
+     * @throws IllegalStateException       if a store couldn't be accessed
+     */
+    public Map<PathIdentifier, IDProvider> resolve(Collection<PathIdentifier> identifiers) {
+        final Map<Store.Type, Node> tries = new EnumMap<>(Store.Type.class);
+        final List<PathIdentifier> withoutStore = new ArrayList<>();
+        for (PathIdentifier identifier : new LinkedHashSet<>(identifiers)) {
+            final List<String> segments = StorePaths.segments(identifier.getPath());
+            final Store.Type storeType = StorePaths.storeOf(segments);
+            if (storeType == null) {
+                withoutStore.add(identifier);
+            } else {
+                tries.computeIfAbsent(storeType, type -> new Node()).add(segments.subList(1, segments.size()), identifier);
+            }
+        }
+        final Map<PathIdentifier, IDProvider> resolved = new ConcurrentHashMap<>();
+        final Map<PathIdentifier, IDProviderNotFoundException> missing = new ConcurrentHashMap<>();
+        if (tries.size() == 1) {
+            final Map.Entry<Store.Type, Node> trie = tries.entrySet().iterator().next();
+            resolveStore(trie.getKey(), trie.getValue(), resolved, missing);
+        } else if (!tries.isEmpty()) {
+            LOGGER.debug("Resolving {} paths of {} stores concurrently", identifiers.size(), tries.size());
+            final FanOutResult result = new FanOutExecutor(tries.size())
+                .execute("store", new ArrayList<>(tries.keySet()), storeType -> resolveStore(storeType, tries.get(storeType), resolved, missing));
+            if (result.isError()) {
+                throw new IllegalStateException("Resolving paths failed", result.getError());
+            }
+        }
+        for (PathIdentifier identifier : withoutStore) {
+            resolveIndividually(identifier, resolved, missing);
+        }
+        if (!missing.isEmpty()) {
+            throw IDProviderNotFoundException.combine(identifiers, missing);
+        }
+        final Map<PathIdentifier, IDProvider> ordered = new LinkedHashMap<>();
+        for (PathIdentifier identifier : identifiers) {
+            ordered.put(identifier, resolved.get(identifier));
+        }
+        return ordered;
+    }
+
+    private void resolveStore(Store.Type storeType, Node trie, Map<PathIdentifier, IDProvider> resolved,
+                              Map<PathIdentifier, IDProviderNotFoundException> missing) {
+        final Store store = storeAgent.getStore(storeType, useReleaseState);
+        if (store != null) {
+            walk(store, trie, resolved);
+        }
+        for (PathIdentifier identifier : trie.collectIdentifiers()) {
+            if (!resolved.containsKey(identifier)) {
+                resolveIndividually(identifier, resolved, missing);
+            }
+        }
+    }
+
+    private static void walk(IDProvider element, Node node, Map<PathIdentifier, IDProvider> resolved) {
+        for (PathIdentifier identifier : node.identifiers) {
+            resolved.put(identifier, element);
+        }
+        if (node.children.isEmpty()) {
+            return;
+        }
+        // like a lookup of a single path, a child with the segment as uid wins over one with the segment as name,
+        // and the first child in order wins among those
+        final Map<String, IDProvider> uidMatches = new HashMap<>();
+        final Map<String, IDProvider> nameMatches = new HashMap<>();
+        for (IDProvider child : element.getChildren(IDProvider.class)) {
+            match(child.getUid(), child, node, uidMatches);
+            match(child.getName(), child, node, nameMatches);
+            if (uidMatches.size() == node.children.size()) {
+                break;
+            }
+        }
+        for (Map.Entry<String, Node> child : node.children.entrySet()) {
+            final IDProvider match = uidMatches.getOrDefault(child.getKey(), nameMatches.get(child.getKey()));
+            if (match != null) {
+                walk(match, child.getValue(), resolved);
+            }
+        }
+    }
+
+    private static void match(String segment, IDProvider child, Node node, Map<String, IDProvider> matches) {
+        if (segment != null && node.children.containsKey(segment)) {
+            matches.putIfAbsent(segment, child);
+        }
+    }
+
+    private void resolveIndividually(PathIdentifier identifier, Map<PathIdentifier, IDProvider> resolved,
+                                     Map<PathIdentifier, IDProviderNotFoundException> missing) {
+        final IDProvider element = ExportUtil.getElementByPath(storeAgent, useReleaseState, identifier.getPath());
+        if (element != null) {
+            resolved.put(identifier, element);
+        } else {
+            missing.put(identifier, new IDProviderNotFoundException("IDProvider cannot be retrieved via path '" + identifier.getPath() + '\''));
+        }
+    }
+
+    /**
+     * A node of the path trie, holding the identifiers whose path ends here and the requested child segments.
+     */
+    private static final class Node {
+
+        private final Map<String, Node> children = new LinkedHashMap<>();
+        private final List<PathIdentifier> identifiers = new ArrayList<>();
+
+        private void add(List<String> segments, PathIdentifier identifier) {
+            Node node = this;
+            for (String segment : segments) {
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+            node.identifiers.add(identifier);
+        }
+
+        private List<PathIdentifier> collectIdentifiers() {
+            final List<PathIdentifier> result = new ArrayList<>(identifiers);
+            for (Node child : children.values()) {
+                result.addAll(child.collectIdentifiers());
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import de.espirit.firstspirit.access.store.Store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits the paths of path identifiers, like "/PageStore/folder/page", into their segments.
+ *
+ * @author e-Spirit AG
+ */
+final class StorePaths {
+
+    private static final String PATH_SEPARATOR = "/";
+
+    private StorePaths() {
+        // Not used
+    }
+
+    /**
+     * Splits a path into its non-empty segments.
+     *
+     * @param path the path
+     * @return the segments, the first one names the store
+     */
+    static List<String> segments(String path) {
+        final List<String> segments = new ArrayList<>();
+        for (String segment : path.split(PATH_SEPARATOR)) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Get the store named by the first segment of a path, compared case-insensitively.
+     *
+     * @param segments the segments of the path
+     * @return the store type, or null if the path is empty or doesn't start with a store name
+     */
+    static Store.Type storeOf(List<String> segments) {
+        if (segments.isEmpty()) {
+            return null;
+        }
+        for (Store.Type storeType : Store.Type.values()) {
+            if (storeType.name().equals(segments.get(0).toUpperCase(Locale.UK))) {
+                return storeType;
+            }
+        }
+        return null;
+    }
+}
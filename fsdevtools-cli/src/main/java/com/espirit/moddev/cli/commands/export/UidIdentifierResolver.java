@@ -0,0 +1,118 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.api.parsing.exceptions.IDProviderNotFoundException;
+import com.espirit.moddev.cli.api.parsing.identifier.UidIdentifier;
+import com.espirit.moddev.cli.fanout.FanOutExecutor;
+import com.espirit.moddev.cli.results.FanOutResult;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.agency.StoreAgent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves many {@link UidIdentifier}s at once. The identifiers are grouped by the store of their
+ * {@link com.espirit.moddev.cli.api.parsing.identifier.UidMapping}, each store root is fetched only once, and the
+ * groups of different stores are resolved concurrently. Identifiers that can't be resolved are reported together.
+ *
+ * @author e-Spirit AG
+ */
+public class UidIdentifierResolver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UidIdentifierResolver.class);
+
+    private final StoreAgent storeAgent;
+    private final boolean useReleaseState;
+
+    /**
+     * Creates a resolver.
+     *
+     * @param storeAgent      the StoreAgent to retrieve the store roots from
+     * @param useReleaseState indicates whether to resolve the identifiers in the {@link Store#isRelease() release} or current stores
+     */
+    public UidIdentifierResolver(StoreAgent storeAgent, boolean useReleaseState) {
+        this.storeAgent = storeAgent;
+        this.useReleaseState = useReleaseState;
+    }
+
+    /**
+     * Resolves the given identifiers.
+     *
+     * @param identifiers the identifiers, duplicates are resolved once
+     * @return the store element per identifier, in order of the given identifiers
+     * @throws IDProviderNotFoundException if any identifier can't be resolved, with the failures of all identifiers
+     *                                     attached as suppressed exceptions
+     * @throws IllegalStateException       if a store couldn't be accessed
+     */
+    public Map<UidIdentifier, IDProvider> resolve(Collection<UidIdentifier> identifiers) {
+        final Map<String, List<UidIdentifier>> groups = new LinkedHashMap<>();
+        for (UidIdentifier identifier : new LinkedHashSet<>(identifiers)) {
+            groups.computeIfAbsent(identifier.getUidMapping().getStoreType().name(), storeName -> new ArrayList<>()).add(identifier);
+        }
+        final Map<UidIdentifier, IDProvider> resolved = new ConcurrentHashMap<>();
+        final Map<UidIdentifier, IDProviderNotFoundException> missing = new ConcurrentHashMap<>();
+        if (groups.size() == 1) {
+            resolveGroup(groups.values().iterator().next(), resolved, missing);
+        } else if (!groups.isEmpty()) {
+            LOGGER.debug("Resolving {} uids of {} stores concurrently", identifiers.size(), groups.size());
+            final FanOutResult result = new FanOutExecutor(groups.size())
+                .execute("store", new ArrayList<>(groups.keySet()), storeName -> resolveGroup(groups.get(storeName), resolved, missing));
+            if (result.isError()) {
+                throw new IllegalStateException("Resolving uids failed", result.getError());
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw IDProviderNotFoundException.combine(identifiers, missing);
+        }
+        final Map<UidIdentifier, IDProvider> ordered = new LinkedHashMap<>();
+        for (UidIdentifier identifier : identifiers) {
+            ordered.put(identifier, resolved.get(identifier));
+        }
+        return ordered;
+    }
+
+    private void resolveGroup(List<UidIdentifier> group, Map<UidIdentifier, IDProvider> resolved,
+                              Map<UidIdentifier, IDProviderNotFoundException> missing) {
+        final Store store = storeAgent.getStore(group.get(0).getUidMapping().getStoreType(), useReleaseState);
+        for (UidIdentifier identifier : group) {
+            try {
+                resolved.put(identifier, identifier.resolve(store, useReleaseState));
+            } catch (IDProviderNotFoundException e) {
+                missing.put(identifier, e);
+            }
+        }
+    }
+
+}
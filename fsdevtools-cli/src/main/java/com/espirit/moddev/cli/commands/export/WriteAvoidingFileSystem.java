@@ -0,0 +1,405 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.commands.FileSystemDecorator;
+
+import de.espirit.firstspirit.io.FileHandle;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decorates the file system of a local synchronization directory, so that files whose new content equals their
+ * existing content are not written again. Their modification time stays untouched, so tools that compare
+ * timestamps don't see a change. New content is compared with the existing file while it is streamed, so an
+ * unchanged file is only read once. Once the content differs, the part that matched is copied from the existing
+ * file and the rest of the content is passed through to the decorated file handle without spooling it.
+ * <p>
+ * Writes are recognized as calls of a file handle method that receives the content as single {@link InputStream},
+ * or that returns an {@link OutputStream}. All other calls are passed through, while file handles they return are
+ * decorated as well.
+ *
+ * @author e-Spirit AG
+ */
+public class WriteAvoidingFileSystem extends FileSystemDecorator {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path root;
+    private final AtomicInteger writes = new AtomicInteger();
+    private final AtomicInteger avoidedWrites = new AtomicInteger();
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a decorator for the given local directory.
+     *
+     * @param root the local directory the decorated file system points to
+     */
+    public WriteAvoidingFileSystem(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Get the number of files that have been written because their content changed or they didn't exist yet.
+     *
+     * @return the number of writes
+     */
+    public int getWrites() {
+        return writes.get();
+    }
+
+    /**
+     * Get the number of files that have not been written because their content didn't change.
+     *
+     * @return the number of avoided writes
+     */
+    public int getAvoidedWrites() {
+        return avoidedWrites.get();
+    }
+
+    /**
+     * Get all files that have been saved through the decorated file system, whether they have been written or not.
+     *
+     * @return the {@value #DIGEST_ALGORITHM} hash of the content per path relative to the local directory, with '/' as separator
+     */
+    public Map<String, byte[]> getFiles() {
+        return Collections.unmodifiableMap(files);
+    }
+
+    /**
+     * Checks whether the given file exists and has the given content hash and size.
+     *
+     * @param file   the file
+     * @param digest the {@value #DIGEST_ALGORITHM} hash of the content
+     * @param size   the size of the content
+     * @return true if the file has the content
+     * @throws IOException if the file can't be read
+     */
+    static boolean hasContent(Path file, byte[] digest, long size) throws IOException {
+        return Files.isRegularFile(file) && Files.size(file) == size && Arrays.equals(digest(file), digest);
+    }
+
+    /**
+     * Checks whether two files have the same content.
+     *
+     * @param file  the first file
+     * @param other the second file
+     * @return true if both files exist and have the same content
+     * @throws IOException if a file can't be read
+     */
+    static boolean hasSameContent(Path file, Path other) throws IOException {
+        return Files.isRegularFile(file) && hasContent(other, digest(file), Files.size(file));
+    }
+
+    /**
+     * Computes the {@value #DIGEST_ALGORITHM} hash of the content of the given file.
+     *
+     * @param file the file
+     * @return the hash
+     * @throws IOException if the file can't be read
+     */
+    static byte[] digest(Path file) throws IOException {
+        final MessageDigest digest = createDigest();
+        try (InputStream inputStream = new DigestInputStream(Files.newInputStream(file), digest)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            while (inputStream.read(buffer) >= 0) {
+                // only digest the content
+            }
+        }
+        return digest.digest();
+    }
+
+    private Object save(Object handle, Method method, Object[] args) throws Throwable {
+        final Path file = resolve((FileHandle) handle);
+        final MessageDigest digest = createDigest();
+        final InputStream content = new DigestInputStream((InputStream) args[0], digest);
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read = -1;
+        final Path prefix;
+        try (ContentComparison comparison = new ContentComparison(file)) {
+            boolean unchanged = true;
+            while (unchanged && (read = content.read(buffer)) >= 0) {
+                unchanged = comparison.compare(buffer, 0, read);
+            }
+            if (unchanged && comparison.finish()) {
+                record(file, digest.digest());
+                avoidedWrites.incrementAndGet();
+                return skippedResult(method.getReturnType(), comparison.getMatched());
+            }
+            prefix = comparison.copyMatchedPrefix();
+        }
+        writes.incrementAndGet();
+        try (InputStream prefixStream = prefix != null ? Files.newInputStream(prefix) : null) {
+            // the content that has been compared already is followed by the rest of the stream, which is passed through
+            final InputStream rest = new SequenceInputStream(new ByteArrayInputStream(buffer, 0, Math.max(read, 0)), content);
+            final Object[] contentArgs = args.clone();
+            contentArgs[0] = prefixStream != null ? new SequenceInputStream(prefixStream, rest) : rest;
+            final Object result = invoke(handle, method, contentArgs);
+            record(file, digest.digest());
+            return result;
+        } finally {
+            if (prefix != null) {
+                Files.deleteIfExists(prefix);
+            }
+        }
+    }
+
+    private void record(Path file, byte[] hash) {
+        files.put(root.relativize(file).toString().replace('\\', '/'), hash);
+    }
+
+    private Path resolve(FileHandle handle) {
+        String path = handle.getPath().replace('\\', '/');
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        return path.isEmpty() ? root : root.resolve(path);
+    }
+
+    private static Object skippedResult(Class<?> returnType, long size) {
+        if (returnType == boolean.class) {
+            return true;
+        }
+        if (returnType == long.class) {
+            return size;
+        }
+        if (returnType == int.class) {
+            return (int) size;
+        }
+        return null;
+    }
+
+    @Override
+    protected Object handle(Object target, Method method, Object[] args) throws Throwable {
+        if (target instanceof FileHandle && isSave(method, args)) {
+            return save(target, method, args);
+        }
+        if (target instanceof FileHandle && OutputStream.class.isAssignableFrom(method.getReturnType())) {
+            return new ComparingOutputStream(target, method, args);
+        }
+        return super.handle(target, method, args);
+    }
+
+    /**
+     * Compares written content with the existing file and passes it to the decorated file handle once it differs.
+     * Content that is equal to the existing file so far is not written, so an unchanged file is never opened for
+     * writing.
+     */
+    private final class ComparingOutputStream extends OutputStream {
+
+        private final Object handle;
+        private final Method method;
+        private final Object[] args;
+        private final Path file;
+        private final MessageDigest digest = createDigest();
+        private final ContentComparison comparison;
+        private OutputStream target;
+        private boolean closed;
+
+        private ComparingOutputStream(Object handle, Method method, Object[] args) throws IOException {
+            this.handle = handle;
+            this.method = method;
+            this.args = args;
+            file = resolve((FileHandle) handle);
+            comparison = new ContentComparison(file);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            digest.update(b, off, len);
+            if (target == null && comparison.compare(b, off, len)) {
+                return;
+            }
+            if (target == null) {
+                open();
+            }
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (target == null && comparison.finish()) {
+                    avoidedWrites.incrementAndGet();
+                } else if (target == null) {
+                    open();
+                }
+            } finally {
+                comparison.close();
+                if (target != null) {
+                    target.close();
+                }
+            }
+            record(file, digest.digest());
+        }
+
+        /**
+         * Opens the decorated file handle for writing and writes the content that matched the existing file so far.
+         */
+        private void open() throws IOException {
+            final Path prefix = comparison.copyMatchedPrefix();
+            try {
+                writes.incrementAndGet();
+                target = (OutputStream) invoke(handle, method, args);
+                if (prefix != null) {
+                    Files.copy(prefix, target);
+                }
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IOException("Writing " + ((FileHandle) handle).getPath() + " failed", e);
+            } finally {
+                if (prefix != null) {
+                    Files.deleteIfExists(prefix);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compares content chunk by chunk with an existing file, until the first chunk differs. A missing file differs
+     * from any content.
+     */
+    private static final class ContentComparison implements Closeable {
+
+        private final Path file;
+        private final byte[] existingBuffer = new byte[BUFFER_SIZE];
+        private InputStream existing;
+        private long matched;
+        private boolean differs;
+
+        private ContentComparison(Path file) throws IOException {
+            this.file = file;
+            if (Files.isRegularFile(file)) {
+                existing = Files.newInputStream(file);
+            } else {
+                differs = true;
+            }
+        }
+
+        /**
+         * Compares the next chunk of the content.
+         *
+         * @return true if the content equals the existing file so far
+         */
+        private boolean compare(byte[] b, int off, int len) throws IOException {
+            int compared = 0;
+            while (!differs && compared < len) {
+                final int read = existing.read(existingBuffer, 0, Math.min(len - compared, existingBuffer.length));
+                if (read < 0) {
+                    differs = true;
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (existingBuffer[i] != b[off + compared + i]) {
+                        differs = true;
+                        break;
+                    }
+                }
+                compared += read;
+            }
+            if (!differs) {
+                matched += len;
+            }
+            return !differs;
+        }
+
+        /**
+         * Completes the comparison at the end of the content.
+         *
+         * @return true if the content equals the existing file
+         */
+        private boolean finish() throws IOException {
+            if (!differs && existing.read() >= 0) {
+                differs = true;
+            }
+            return !differs;
+        }
+
+        private long getMatched() {
+            return matched;
+        }
+
+        /**
+         * Copies the part of the existing file that equals the compared content, before the file is overwritten.
+         *
+         * @return the temporary copy, or null if nothing matched
+         */
+        private Path copyMatchedPrefix() throws IOException {
+            close();
+            if (matched == 0) {
+                return null;
+            }
+            final Path prefix = Files.createTempFile("fs-cli-", ".tmp");
+            try (InputStream inputStream = Files.newInputStream(file); OutputStream outputStream = Files.newOutputStream(prefix)) {
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                long remaining = matched;
+                while (remaining > 0) {
+                    final int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new EOFException(file + " changed while it was compared");
+                    }
+                    outputStream.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(prefix);
+                throw e;
+            }
+            return prefix;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (existing != null) {
+                existing.close();
+                existing = null;
+            }
+        }
+    }
+}
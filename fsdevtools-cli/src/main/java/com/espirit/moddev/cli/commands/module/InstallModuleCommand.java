@@ -24,6 +24,8 @@ package com.espirit.moddev.cli.commands.module;
 
 import com.espirit.moddev.cli.ConnectionBuilder;
 import com.espirit.moddev.cli.commands.SimpleCommand;
+import com.espirit.moddev.cli.fanout.HostFanOutCapable;
+import com.espirit.moddev.cli.fanout.ProjectFanOutCapable;
 import com.espirit.moddev.cli.results.InstallModuleResult;
 import com.espirit.moddev.moduleinstaller.ModuleInstallationParameters;
 import com.espirit.moddev.moduleinstaller.ModuleInstallationRawParameters;
@@ -53,7 +55,7 @@ import static com.espirit.moddev.shared.StringUtils.isNullOrEmpty;
 @Examples(examples = "module install -mpn \"Mithras Energy\" -fsm \"folder\\videomanagementpro.fsm\" -pacf \"resources\\projectApp.ini\" -scf\n" +
         "\"VideoManagementProService=folder\\videomanagementpro_service.ini\" -wacf \"preview=resources\\previewAppConfig.ini\"",
         descriptions = "Installs the videomanagementpro module with a given project app configuration and configures the VideoManagementProService with the given ini file.")
-public class InstallModuleCommand extends SimpleCommand<InstallModuleResult> {
+public class InstallModuleCommand extends SimpleCommand<InstallModuleResult> implements ProjectFanOutCapable, HostFanOutCapable {
 
     protected static final Logger LOGGER = LoggerFactory.getLogger(InstallModuleCommand.class);
 
@@ -61,7 +63,8 @@ public class InstallModuleCommand extends SimpleCommand<InstallModuleResult> {
     @Required
     private String fsm;
 
-    @Option(type = OptionType.COMMAND, name = {"-mpn", "--moduleProjectName"}, description = "Name of the FirstSpirit target project where the application's components should be installed to. Optional.")
+    @Option(type = OptionType.COMMAND, name = {"-mpn", "--moduleProjectName"}, description = "Name of the FirstSpirit target project where the application's components should be installed to."
+                                                                                            + " A comma-separated list of projects and glob patterns installs them into each project, one after the other. Optional.")
     private String projectName;
 
     @Option(type = OptionType.COMMAND, name = {"-scf", "--serviceConfigurationFiles"}, description = "Define a map-like configuration file for services of the given module - comma-separated value pairs with service name and configuration path file.")
@@ -82,11 +85,14 @@ public class InstallModuleCommand extends SimpleCommand<InstallModuleResult> {
 
     @Override
     public InstallModuleResult call() {
-        try(Connection connection = create()) {
-            connection.connect();
+        Connection connection = null;
+        try {
+            connection = getContextProvider().acquireConnection(this, this::create);
             return installModule(connection);
         } catch (IOException | AuthenticationException | MaximumNumberOfSessionsExceededException | IllegalArgumentException e) {
             return new InstallModuleResult(e);
+        } finally {
+            getContextProvider().releaseConnection(connection);
         }
     }
 
@@ -124,6 +130,26 @@ public class InstallModuleCommand extends SimpleCommand<InstallModuleResult> {
     }
 
 
+    @Override
+    public String getProjectSelection() {
+        return isNullOrEmpty(projectName) ? getProject() : projectName;
+    }
+
+    @Override
+    public void selectProject(String projectName) {
+        this.projectName = projectName;
+    }
+
+    /**
+     * Module installations change the server wide module, so they are never executed for several projects at the same time.
+     *
+     * @return false
+     */
+    @Override
+    public boolean isConcurrentFanOutSafe() {
+        return false;
+    }
+
     protected Connection create() {
         return ConnectionBuilder.with(this).build();
     }
@@ -2,6 +2,7 @@ package com.espirit.moddev.cli.commands.module;
 
 import com.espirit.moddev.cli.ConnectionBuilder;
 import com.espirit.moddev.cli.commands.SimpleCommand;
+import com.espirit.moddev.cli.fanout.HostFanOutCapable;
 import com.espirit.moddev.cli.results.SimpleResult;
 import com.espirit.moddev.moduleuninstaller.ModuleUninstaller;
 import com.github.rvesse.airline.annotations.Command;
@@ -23,7 +24,7 @@ import java.io.IOException;
 @Examples(
         examples = {"fs-cli module uninstall -h localhost -p 8000 --moduleName \"abtesting\" --projectName \"Mithras Energy\""},
         descriptions = {"Uninstalls the abtesting module and removes all components from the Mithras Energy project"})
-public class UninstallModuleCommand extends SimpleCommand<SimpleResult<Boolean>> {
+public class UninstallModuleCommand extends SimpleCommand<SimpleResult<Boolean>> implements HostFanOutCapable {
 
     @Option(type = OptionType.COMMAND, name = {"-m", "--moduleName"}, description = "Name of the module that should be deleted")
     @Required
@@ -31,12 +32,15 @@ public class UninstallModuleCommand extends SimpleCommand<SimpleResult<Boolean>>
 
     @Override
     public SimpleResult<Boolean> call() {
-        try(Connection connection = create()) {
-            connection.connect();
+        Connection connection = null;
+        try {
+            connection = getContextProvider().acquireConnection(this, this::create);
             new ModuleUninstaller().uninstall(connection, moduleName);
             return new SimpleResult<>(true);
         } catch (IOException | AuthenticationException | MaximumNumberOfSessionsExceededException e) {
             return new SimpleResult<>(e);
+        } finally {
+            getContextProvider().releaseConnection(connection);
         }
     }
 
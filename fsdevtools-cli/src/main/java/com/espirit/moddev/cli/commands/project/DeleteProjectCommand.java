@@ -43,12 +43,15 @@ public class DeleteProjectCommand extends SimpleCommand<SimpleResult> {
 
     @Override
     public SimpleResult call() {
-        try(final Connection connection = createConnection()) {
-            connection.connect();
+        Connection connection = null;
+        try {
+            connection = getContextProvider().acquireConnection(this, this::createConnection);
             boolean deleted = new ProjectDeleter().deleteProject(connection, projectName);
             return new SimpleResult(deleted ? deleted : new IllegalStateException("Deletion was not successful."));
         } catch (final Exception e) {
             return new SimpleResult<>(e);
+        } finally {
+            getContextProvider().releaseConnection(connection);
         }
     }
 
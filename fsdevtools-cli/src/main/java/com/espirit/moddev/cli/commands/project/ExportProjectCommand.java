@@ -61,8 +61,9 @@ public class ExportProjectCommand extends SimpleCommand<SimpleResult<Boolean>> {
 
     @Override
     public SimpleResult<Boolean> call() {
-        try(final Connection connection = createConnection()) {
-            connection.connect();
+        Connection connection = null;
+        try {
+            connection = getContextProvider().acquireConnection(this, this::createConnection);
 
             if(connection instanceof ServerConnection) {
                 ProjectExportParametersBuilder exportParametersBuilder = new ProjectExportParametersBuilder()
@@ -88,6 +89,8 @@ public class ExportProjectCommand extends SimpleCommand<SimpleResult<Boolean>> {
 
         } catch (final Exception e) {
             return new SimpleResult<>(e);
+        } finally {
+            getContextProvider().releaseConnection(connection);
         }
     }
 
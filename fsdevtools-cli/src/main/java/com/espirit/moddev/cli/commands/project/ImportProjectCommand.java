@@ -66,8 +66,9 @@ public class ImportProjectCommand extends SimpleCommand<SimpleResult<Boolean>>{
 
     @Override
     public SimpleResult<Boolean> call() {
-        try(final Connection connection = create()) {
-            connection.connect();
+        Connection connection = null;
+        try {
+            connection = getContextProvider().acquireConnection(this, this::create);
 
         if (projectFile == null) {
             return new SimpleResult<>(new IllegalArgumentException("Missing parameter for project file"));
@@ -87,6 +88,8 @@ public class ImportProjectCommand extends SimpleCommand<SimpleResult<Boolean>>{
 
         } catch (final Exception e) {
             return new SimpleResult<>(e);
+        } finally {
+            getContextProvider().releaseConnection(connection);
         }
     }
 
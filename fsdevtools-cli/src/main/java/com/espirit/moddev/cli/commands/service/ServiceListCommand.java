@@ -23,6 +23,7 @@
 package com.espirit.moddev.cli.commands.service;
 
 import com.espirit.moddev.cli.commands.SimpleCommand;
+import com.espirit.moddev.cli.fanout.HostFanOutCapable;
 import com.espirit.moddev.cli.results.SimpleResult;
 import com.espirit.moddev.services.ServiceUtils;
 import com.github.rvesse.airline.annotations.Command;
@@ -46,7 +47,7 @@ import java.util.List;
                 "Simply lists the all services that can be found on the FirstSpirit server."
         })
 
-public class ServiceListCommand extends SimpleCommand<SimpleResult<Boolean>> {
+public class ServiceListCommand extends SimpleCommand<SimpleResult<Boolean>> implements HostFanOutCapable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ServiceListCommand.class);
 
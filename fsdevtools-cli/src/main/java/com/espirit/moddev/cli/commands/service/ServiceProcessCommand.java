@@ -1,6 +1,7 @@
 package com.espirit.moddev.cli.commands.service;
 
 import com.espirit.moddev.cli.commands.SimpleCommand;
+import com.espirit.moddev.cli.fanout.HostFanOutCapable;
 import com.espirit.moddev.cli.results.ServiceProcessResult;
 import com.espirit.moddev.services.ServiceUtils;
 import com.github.rvesse.airline.annotations.Option;
@@ -21,7 +22,7 @@ import java.util.stream.Collectors;
 /**
  * Base class to process the FirstSpirit services. Can be used to implement restart, start and stop Commands.
  */
-public abstract class ServiceProcessCommand extends SimpleCommand<ServiceProcessResult> {
+public abstract class ServiceProcessCommand extends SimpleCommand<ServiceProcessResult> implements HostFanOutCapable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ServiceProcessCommand.class);
 
@@ -26,6 +26,7 @@ import com.espirit.moddev.cli.ConnectionBuilder;
 import com.espirit.moddev.cli.api.command.Command;
 import com.espirit.moddev.cli.api.result.Result;
 import com.espirit.moddev.cli.configuration.GlobalConfig;
+import com.espirit.moddev.cli.fanout.HostFanOutCapable;
 import com.espirit.moddev.cli.results.TestResult;
 
 import de.espirit.firstspirit.access.Connection;
@@ -37,7 +38,7 @@ import de.espirit.firstspirit.access.Connection;
  * @author e-Spirit AG
  */
 @com.github.rvesse.airline.annotations.Command(name = "connection", groupNames = {"test"}, description = "Testing a FirstSpirit connection")
-public class TestConnectionCommand extends GlobalConfig implements Command {
+public class TestConnectionCommand extends GlobalConfig implements Command, HostFanOutCapable {
 
     @Override
     @SuppressWarnings("squid:S2221")
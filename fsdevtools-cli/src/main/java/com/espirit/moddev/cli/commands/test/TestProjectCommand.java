@@ -22,10 +22,11 @@
 
 package com.espirit.moddev.cli.commands.test;
 
-import com.espirit.moddev.cli.CliContextImpl;
+import com.espirit.moddev.cli.api.CliContext;
 import com.espirit.moddev.cli.api.command.Command;
 import com.espirit.moddev.cli.api.result.Result;
 import com.espirit.moddev.cli.configuration.GlobalConfig;
+import com.espirit.moddev.cli.fanout.ProjectFanOutCapable;
 import com.espirit.moddev.cli.results.TestResult;
 
 
@@ -35,24 +36,40 @@ import com.espirit.moddev.cli.results.TestResult;
  * @author e-Spirit AG
  */
 @com.github.rvesse.airline.annotations.Command(name = "project", groupNames = {"test"}, description = "Testing if a FirstSpirit project can be queried successfully")
-public class TestProjectCommand extends GlobalConfig implements Command {
+public class TestProjectCommand extends GlobalConfig implements Command, ProjectFanOutCapable {
 
     @Override
     @SuppressWarnings("squid:S2221")
     public Result call() {
-        try(final CliContextImpl cliContext = create()) {
+        CliContext cliContext = null;
+        try {
+            cliContext = create();
             if(cliContext.getProject() == null || cliContext.getSpecialistsBroker() == null) {
                 return new TestResult(this, new IllegalStateException("Couldn't query project"));
             }
             return new TestResult(this);
         } catch (Exception e) {
             return new TestResult(this, e);
+        } finally {
+            if (cliContext != null) {
+                getContextProvider().release(cliContext);
+            }
         }
     }
 
-    protected CliContextImpl create() {
-        // Implicitly opens a FirstSpirit connection and loads the specified project
-        return new CliContextImpl(this);
+    protected CliContext create() {
+        // Opens the FirstSpirit connection and loads the specified project on the first call of getProject()
+        return getContextProvider().acquire(this);
+    }
+
+    @Override
+    public String getProjectSelection() {
+        return getProject();
+    }
+
+    @Override
+    public void selectProject(String projectName) {
+        setProject(projectName);
     }
 
     @Override
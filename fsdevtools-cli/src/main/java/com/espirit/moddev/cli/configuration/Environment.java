@@ -74,6 +74,25 @@ public class Environment {
         return environmentVariables.put(key, value);
     }
 
+    /**
+     * Replaces all environment variables of this instance with the ones of another instance.
+     *
+     * @param other the environment to copy
+     */
+    public void replaceWith(final Environment other) {
+        replaceWith(other.environmentVariables);
+    }
+
+    /**
+     * Replaces all environment variables of this instance with the given ones.
+     *
+     * @param variables the environment variables to copy
+     */
+    public void replaceWith(final Map<String, String> variables) {
+        environmentVariables.clear();
+        environmentVariables.putAll(variables);
+    }
+
     /**
      * Clears all environment variables of this instance.
      */
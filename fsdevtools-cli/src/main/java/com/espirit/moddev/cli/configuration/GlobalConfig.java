@@ -23,6 +23,7 @@
 package com.espirit.moddev.cli.configuration;
 
 import com.espirit.moddev.cli.CliConstants;
+import com.espirit.moddev.cli.CliContextProvider;
 import com.espirit.moddev.cli.SyncDirectoryFactory;
 import com.espirit.moddev.cli.api.FsConnectionMode;
 import com.espirit.moddev.cli.api.configuration.Config;
@@ -59,12 +60,22 @@ public class GlobalConfig implements Config {
 
     private final Environment environment = new Environment();
 
+    private CliContextProvider contextProvider = CliContextProvider.DEFAULT;
+
+    private String[] commandLine;
+
     @Option(type = OptionType.GLOBAL, name = "-e", description = "Error mode. Shows error stacktraces.")
     private boolean error;
 
-    @Option(type = OptionType.GLOBAL, name = {"-h", "--host"}, description = "FirstSpirit host. Default is localhost.")
+    @Option(type = OptionType.GLOBAL, name = {"-h", "--host"}, description = "FirstSpirit host. Default is localhost. Commands that support it also accept"
+                                                                         + " a comma-separated list of hosts with optional ports like 'fs1,fs2:8080', and are executed against each of them concurrently.")
     private String host;
 
+    @Option(type = OptionType.GLOBAL, name = {"--hosts-file"}, description = "File with the FirstSpirit hosts a command is executed against concurrently,"
+                                                                            + " one or more comma-separated 'host[:port]' entries per line. Lines starting with '#' are ignored."
+                                                                            + " Takes precedence over the host option.")
+    private String hostsFile;
+
     @Option(type = OptionType.GLOBAL, name = {"-c", "--conn-mode"}, description = "FirstSpirit connection mode. Default is HTTP.")
     @AllowedRawValues(allowedValues = {"HTTP", "HTTPS", "SOCKET"})
     private FsConnectionMode fsMode;
@@ -78,15 +89,29 @@ public class GlobalConfig implements Config {
     @Option(type = OptionType.GLOBAL, name = {"-pwd", "--password"}, description = "FirstSpirit user's password. Default is Admin.")
     private String password;
 
-    @Option(type = OptionType.GLOBAL, name = {"-p", "--project"}, description = "Name of FirstSpirit project")
+    @Option(type = OptionType.GLOBAL, name = {"-p", "--project"}, description = "Name of FirstSpirit project. Commands that support it also accept"
+                                                                            + " a comma-separated list of projects and glob patterns like 'sibling-*', and are executed for each of them concurrently.")
     private String project;
 
+    @Option(type = OptionType.GLOBAL, name = {"--fan-out-workers"}, description = "Maximum number of projects or hosts a command is executed for concurrently. Default is 4.")
+    private Integer fanOutWorkers;
+
     @Option(type = OptionType.GLOBAL, name = {"-a", "--activateProjectIfDeactivated"}, description = "Activates a project if deactivated for any reason")
     private boolean activateProjectIfDeactivated;
 
-    @Option(type = OptionType.GLOBAL, name = {"-sd", "--syncDir"}, description = "The synchronization directory that is used for im- and export. Default is current directory")
+    @Option(type = OptionType.GLOBAL, name = {"-sd", "--syncDir"}, description = "The synchronization directory that is used for im- and export. Default is current directory."
+                                                                                  + " Archives are given like 'zip:export.zip' or 'tar.gz:export.tar.gz'")
     private String synchronizationDirectory = ".";
 
+    @Option(type = OptionType.GLOBAL, name = {"--timings"}, description = "Logs the time spent in each phase of the execution, like connecting, loading the project and the command itself.")
+    private boolean timings;
+
+    @Option(type = OptionType.GLOBAL, name = {"--timings-file"}, description = "Writes the time spent in each phase of the execution as json to the given file.")
+    private String timingsFile;
+
+    @Option(type = OptionType.GLOBAL, name = {"--profile-remote"}, description = "Records all calls of the FirstSpirit api and logs their count and latency per api method.")
+    private boolean profileRemote;
+
     public GlobalConfig() {
     }
 
@@ -107,6 +132,79 @@ public class GlobalConfig implements Config {
         return context;
     }
 
+    /**
+     * Get the {@link CliContextProvider} the cli executes this configuration's command with. Commands that don't need
+     * a context obtain their connection from it, so that connections can be shared with other commands.
+     *
+     * @return the provider, {@link CliContextProvider#DEFAULT} if none has been set
+     */
+    public CliContextProvider getContextProvider() {
+        return contextProvider;
+    }
+
+    /**
+     * Set the {@link CliContextProvider} the cli executes this configuration's command with.
+     *
+     * @param contextProvider the provider
+     * @throws IllegalArgumentException if contextProvider is null
+     */
+    public void setContextProvider(CliContextProvider contextProvider) {
+        if (contextProvider == null) {
+            throw new IllegalArgumentException("Context provider should not be null");
+        }
+        this.contextProvider = contextProvider;
+    }
+
+    /**
+     * Get the command line arguments this configuration has been parsed from.
+     *
+     * @return a copy of the arguments, or null if the configuration hasn't been parsed from a command line
+     */
+    public String[] getCommandLine() {
+        return commandLine == null ? null : commandLine.clone();
+    }
+
+    /**
+     * Set the command line arguments this configuration has been parsed from. Used to create further instances
+     * of the same command, for example one per project.
+     *
+     * @param commandLine the arguments
+     */
+    public void setCommandLine(String[] commandLine) {
+        this.commandLine = commandLine == null ? null : commandLine.clone();
+    }
+
+    /**
+     * Get the path of the file listing the hosts a command is executed against, see
+     * {@link com.espirit.moddev.cli.fanout.HostSelection#read(java.nio.file.Path)}.
+     *
+     * @return the path, or null if none is given
+     */
+    public String getHostsFile() {
+        return hostsFile;
+    }
+
+    /**
+     * Set the path of the file listing the hosts a command is executed against.
+     *
+     * @param hostsFile the path, or null to use the host option only
+     */
+    public void setHostsFile(String hostsFile) {
+        this.hostsFile = hostsFile;
+    }
+
+    /**
+     * Get the maximum number of projects or hosts a command is executed for concurrently.
+     *
+     * @return the number of workers, at least 1
+     */
+    public int getFanOutWorkers() {
+        if (fanOutWorkers == null) {
+            return CliConstants.DEFAULT_FAN_OUT_WORKERS.valueAsInt();
+        }
+        return Math.max(1, fanOutWorkers);
+    }
+
     /**
      * Indicates if the error mode is enabled.
      * If in error mode, the cli application will log the full stack trace of an error.
@@ -117,6 +215,33 @@ public class GlobalConfig implements Config {
         return error;
     }
 
+    /**
+     * Indicates if the time spent in each execution phase should be logged.
+     *
+     * @return true if the timings should be logged, otherwise false
+     */
+    public boolean isTimings() {
+        return timings;
+    }
+
+    /**
+     * Get the file the time spent in each execution phase should be written to as json.
+     *
+     * @return the path of the file, or null if the timings shouldn't be written
+     */
+    public String getTimingsFile() {
+        return timingsFile;
+    }
+
+    /**
+     * Indicates if the calls of the FirstSpirit api should be recorded and reported.
+     *
+     * @return true if the api calls should be profiled, otherwise false
+     */
+    public boolean isProfileRemote() {
+        return profileRemote;
+    }
+
     /**
      * Get the {@link Environment} used by this instance.
      *
@@ -0,0 +1,170 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Thin client that forwards a command line to a running daemon and streams back the daemon's output.
+ * It only uses jdk classes, so forwarding a command doesn't load the cli, airline or FirstSpirit classes.
+ * <p>
+ * A command is executed locally if no daemon is running, the daemon can't be reached, the daemon runs in another
+ * working directory (relative paths would be resolved differently) or the environment variable
+ * {@link #DISABLE_DAEMON_VARIABLE} is set. Commands of the daemon group, command lines that read from standard input
+ * (an argument {@code -} or the identifier argument {@code @-}) and watching imports, which run until they are stopped with Ctrl+C and would block the
+ * daemon, are always executed locally.
+ *
+ * @author e-Spirit AG
+ */
+public final class DaemonClient {
+
+    /**
+     * Name of the environment variable that disables forwarding commands to a daemon.
+     */
+    public static final String DISABLE_DAEMON_VARIABLE = "FS_CLI_NO_DAEMON";
+
+    private static final String DAEMON_GROUP_NAME = "daemon";
+    private static final String STDIN_ARGUMENT = "-";
+    private static final String STDIN_IDENTIFIERS_ARGUMENT = "@-";
+    private static final String WATCH_ARGUMENT = "--watch";
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    private DaemonClient() {
+        // Not used
+    }
+
+    /**
+     * Executes the given command line in the daemon of the current user, if there is one.
+     *
+     * @param args the command line arguments
+     * @return the exit code of the command, or an empty optional if the command has to be executed locally
+     */
+    public static OptionalInt tryExecute(String[] args) {
+        if (System.getenv(DISABLE_DAEMON_VARIABLE) != null || (args.length > 0 && DAEMON_GROUP_NAME.equals(args[0])) || isLocalOnly(args)) {
+            return OptionalInt.empty();
+        }
+        final Optional<DaemonState> state = DaemonState.read();
+        if (!state.isPresent() || !state.get().getWorkingDirectory().equals(System.getProperty("user.dir"))) {
+            return OptionalInt.empty();
+        }
+        final Socket socket = connect(state.get());
+        if (socket == null) {
+            return OptionalInt.empty();
+        }
+        try {
+            return OptionalInt.of(execute(socket, state.get(), args));
+        } catch (IOException e) {
+            // the command may already have been executed partially, so it must not be repeated locally
+            System.err.println("ERROR Connection to fs-cli daemon lost: " + e.getMessage());
+            return OptionalInt.of(1);
+        } finally {
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Indicates if the command line has to be executed locally, because it reads the standard input of this process
+     * or runs until it is stopped with Ctrl+C.
+     *
+     * @param args the command line arguments
+     * @return true if the command line must not be forwarded to a daemon
+     */
+    static boolean isLocalOnly(String[] args) {
+        final List<String> arguments = Arrays.asList(args);
+        return arguments.contains(STDIN_ARGUMENT) || arguments.contains(STDIN_IDENTIFIERS_ARGUMENT) || arguments.contains(WATCH_ARGUMENT);
+    }
+
+    /**
+     * Asks the daemon of the current user to stop.
+     *
+     * @return true if a running daemon accepted the request
+     */
+    public static boolean requestShutdown() {
+        final Optional<DaemonState> state = DaemonState.read();
+        if (!state.isPresent()) {
+            return false;
+        }
+        final Socket socket = connect(state.get());
+        if (socket == null) {
+            return false;
+        }
+        try {
+            return execute(socket, state.get(), null) == 0;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            closeQuietly(socket);
+        }
+    }
+
+    private static Socket connect(DaemonState state) {
+        final Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), state.getPort()), CONNECT_TIMEOUT_MILLIS);
+            return socket;
+        } catch (IOException e) {
+            // stale state file of a daemon that has been killed
+            closeQuietly(socket);
+            return null;
+        }
+    }
+
+    private static int execute(Socket socket, DaemonState state, String[] args) throws IOException {
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DaemonProtocol.writeRequest(out, state.getToken(), System.getenv(), args);
+
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        while (true) {
+            final byte frameType = in.readByte();
+            if (frameType == DaemonProtocol.FRAME_EXIT) {
+                System.out.flush();
+                System.err.flush();
+                return in.readInt();
+            }
+            final byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            final PrintStream target = frameType == DaemonProtocol.FRAME_STDERR ? System.err : System.out;
+            target.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing to do
+        }
+    }
+}
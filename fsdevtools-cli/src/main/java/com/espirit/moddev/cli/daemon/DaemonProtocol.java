@@ -0,0 +1,159 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wire format between {@link DaemonClient} and {@link DaemonServer}.
+ * <p>
+ * A request consists of the token, the client's environment variables and the command line arguments.
+ * An argument count of {@link #SHUTDOWN_REQUEST} asks the daemon to stop. The daemon answers with a
+ * sequence of frames: output frames carry text for the client's standard output or error stream, the
+ * final exit frame carries the exit code of the command.
+ *
+ * @author e-Spirit AG
+ */
+final class DaemonProtocol {
+
+    static final int SHUTDOWN_REQUEST = -1;
+
+    static final byte FRAME_EXIT = 0;
+    static final byte FRAME_STDOUT = 1;
+    static final byte FRAME_STDERR = 2;
+
+    /**
+     * Upper bound for the number of arguments and environment variables, guards against garbage input.
+     */
+    private static final int MAX_ENTRIES = 65536;
+
+    private DaemonProtocol() {
+        // Not used
+    }
+
+    static void writeRequest(DataOutputStream out, String token, Map<String, String> environment, String[] args) throws IOException {
+        out.writeUTF(token);
+        out.writeInt(environment.size());
+        for (Map.Entry<String, String> entry : environment.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+        if (args == null) {
+            out.writeInt(SHUTDOWN_REQUEST);
+        } else {
+            out.writeInt(args.length);
+            for (String arg : args) {
+                out.writeUTF(arg);
+            }
+        }
+        out.flush();
+    }
+
+    static Map<String, String> readEnvironment(DataInputStream in) throws IOException {
+        final int size = readCount(in);
+        final Map<String, String> environment = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            environment.put(in.readUTF(), in.readUTF());
+        }
+        return environment;
+    }
+
+    /**
+     * Reads the arguments of a request.
+     *
+     * @return the arguments, or null for a shutdown request
+     */
+    static String[] readArguments(DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if (count == SHUTDOWN_REQUEST) {
+            return null;
+        }
+        if (count < 0 || count > MAX_ENTRIES) {
+            throw new IOException("Invalid argument count " + count);
+        }
+        final String[] args = new String[count];
+        for (int i = 0; i < count; i++) {
+            args[i] = in.readUTF();
+        }
+        return args;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if (count < 0 || count > MAX_ENTRIES) {
+            throw new IOException("Invalid entry count " + count);
+        }
+        return count;
+    }
+
+    static void writeExit(DataOutputStream out, int exitCode) throws IOException {
+        synchronized (out) {
+            out.writeByte(FRAME_EXIT);
+            out.writeInt(exitCode);
+            out.flush();
+        }
+    }
+
+    /**
+     * {@link OutputStream} that sends everything written to it as output frames of one type.
+     */
+    static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte frameType;
+
+        FrameOutputStream(DataOutputStream out, byte frameType) {
+            this.out = out;
+            this.frameType = frameType;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return;
+            }
+            synchronized (out) {
+                out.writeByte(frameType);
+                out.writeInt(length);
+                out.write(bytes, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+    }
+}
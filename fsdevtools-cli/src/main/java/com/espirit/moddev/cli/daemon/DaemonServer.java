@@ -0,0 +1,268 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.daemon;
+
+import com.espirit.moddev.cli.CachingCliContextProvider;
+import com.espirit.moddev.cli.Cli;
+import com.espirit.moddev.cli.PhaseTimings;
+import com.espirit.moddev.cli.api.command.Command;
+import com.espirit.moddev.cli.api.result.Result;
+import com.espirit.moddev.cli.configuration.GlobalConfig;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.WriterAppender;
+import org.apache.log4j.varia.LevelRangeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Map;
+
+/**
+ * Long running server that executes command lines forwarded by {@link DaemonClient}s in this jvm.
+ * Commands are executed one after another with a shared {@link CachingCliContextProvider}, so FirstSpirit
+ * connections and project lookups are reused by subsequent commands. The server only listens on the
+ * loopback interface and only accepts requests that carry the token of its {@link DaemonState}.
+ * <p>
+ * While a command is executed, its log output and everything written to {@link System#out} and
+ * {@link System#err} is streamed to the client.
+ *
+ * @author e-Spirit AG
+ */
+public class DaemonServer implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DaemonServer.class);
+
+    private static final int TOKEN_LENGTH = 32;
+    private static final int REQUEST_READ_TIMEOUT_MILLIS = 10000;
+    private static final String LOG_PATTERN = "%5p %m%n";
+
+    private final int port;
+    private final int idleTimeoutMillis;
+    private final CachingCliContextProvider contextProvider;
+    private ServerSocket serverSocket;
+    private DaemonState state;
+    private volatile boolean running;
+
+    /**
+     * Creates a new server.
+     *
+     * @param port              the loopback port to listen on, 0 chooses a free port
+     * @param idleTimeoutMillis time without requests after which the server stops, 0 disables the timeout
+     */
+    public DaemonServer(int port, int idleTimeoutMillis) {
+        this(port, idleTimeoutMillis, new CachingCliContextProvider());
+    }
+
+    DaemonServer(int port, int idleTimeoutMillis, CachingCliContextProvider contextProvider) {
+        if (port < 0 || idleTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Port and idle timeout must not be negative");
+        }
+        this.port = port;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.contextProvider = contextProvider;
+    }
+
+    /**
+     * Binds the server socket and publishes the {@link DaemonState}.
+     *
+     * @throws IOException if the socket can't be bound or the state can't be written
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        serverSocket.setSoTimeout(idleTimeoutMillis);
+        state = new DaemonState(serverSocket.getLocalPort(), createToken(), System.getProperty("user.dir"));
+        state.write();
+        running = true;
+        LOGGER.info("fs-cli daemon listening on port {} in working directory {}", state.getPort(), state.getWorkingDirectory());
+    }
+
+    /**
+     * Handles requests until a shutdown request is received or the idle timeout is reached.
+     * Calls {@link #start()} if the server hasn't been started yet.
+     *
+     * @throws IOException if the server socket fails
+     */
+    public void run() throws IOException {
+        if (serverSocket == null) {
+            start();
+        }
+        final Cli cli = new Cli(contextProvider);
+        while (running) {
+            try (Socket socket = serverSocket.accept()) {
+                handle(cli, socket);
+            } catch (SocketTimeoutException e) {
+                LOGGER.info("No request within {}ms, stopping fs-cli daemon", idleTimeoutMillis);
+                running = false;
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.warn("Request failed: {}", e.getMessage());
+                    LOGGER.debug("", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the port the server listens on.
+     *
+     * @return the port, or -1 if the server hasn't been started
+     */
+    public int getLocalPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
+    /**
+     * Get the state of this server.
+     *
+     * @return the state, or null if the server hasn't been started
+     */
+    public DaemonState getState() {
+        return state;
+    }
+
+    private void handle(Cli cli, Socket socket) throws IOException {
+        socket.setSoTimeout(REQUEST_READ_TIMEOUT_MILLIS);
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        final String token = in.readUTF();
+        if (!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), state.getToken().getBytes(StandardCharsets.UTF_8))) {
+            LOGGER.warn("Rejected request with invalid token from {}", socket.getRemoteSocketAddress());
+            return;
+        }
+        final Map<String, String> environment = DaemonProtocol.readEnvironment(in);
+        final String[] args = DaemonProtocol.readArguments(in);
+        socket.setSoTimeout(0);
+
+        if (args == null) {
+            LOGGER.info("Received shutdown request, stopping fs-cli daemon");
+            running = false;
+            DaemonProtocol.writeExit(out, 0);
+            return;
+        }
+        DaemonProtocol.writeExit(out, execute(cli, args, environment, out));
+    }
+
+    private static int execute(Cli cli, String[] args, Map<String, String> environment, DataOutputStream out) throws UnsupportedEncodingException {
+        final OutputStream stdout = new BufferedOutputStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.FRAME_STDOUT));
+        final OutputStream stderr = new BufferedOutputStream(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.FRAME_STDERR));
+        final PrintStream requestOut = new PrintStream(stdout, true, StandardCharsets.UTF_8.name());
+        final PrintStream requestErr = new PrintStream(stderr, true, StandardCharsets.UTF_8.name());
+        final WriterAppender outAppender = createAppender(requestOut, Level.TRACE, Level.WARN);
+        final WriterAppender errAppender = createAppender(requestErr, Level.ERROR, Level.FATAL);
+
+        final PrintStream previousOut = System.out;
+        final PrintStream previousErr = System.err;
+        final org.apache.log4j.Logger rootLogger = org.apache.log4j.Logger.getRootLogger();
+        System.setOut(requestOut);
+        System.setErr(requestErr);
+        rootLogger.addAppender(outAppender);
+        rootLogger.addAppender(errAppender);
+        // installed before parsing, so that the parse phases are part of the request's timings
+        PhaseTimings.setCurrent(new PhaseTimings());
+        try {
+            LOGGER.debug("Executing forwarded command line {}", String.join(" ", args));
+            final Command<Result> command = Cli.parseCommandLine(args);
+            applyEnvironment(command, environment);
+            cli.executeCommand(command);
+            return 0;
+        } catch (Exception e) {
+            LOGGER.error("", e);
+            return 1;
+        } finally {
+            PhaseTimings.setCurrent(null);
+            rootLogger.removeAppender(outAppender);
+            rootLogger.removeAppender(errAppender);
+            System.setOut(previousOut);
+            System.setErr(previousErr);
+            requestOut.flush();
+            requestErr.flush();
+        }
+    }
+
+    /**
+     * Replaces the daemon's environment variables with the client's ones, since the configuration falls back to them.
+     */
+    private static void applyEnvironment(Command<Result> command, Map<String, String> environment) {
+        if (command instanceof GlobalConfig) {
+            ((GlobalConfig) command).getEnvironment().replaceWith(environment);
+        }
+    }
+
+    private static WriterAppender createAppender(PrintStream stream, Level levelMin, Level levelMax) {
+        final WriterAppender appender = new WriterAppender(new PatternLayout(LOG_PATTERN), stream);
+        appender.setThreshold(Level.INFO);
+        final LevelRangeFilter filter = new LevelRangeFilter();
+        filter.setLevelMin(levelMin);
+        filter.setLevelMax(levelMax);
+        filter.setAcceptOnMatch(true);
+        appender.addFilter(filter);
+        return appender;
+    }
+
+    private static String createToken() {
+        final byte[] bytes = new byte[TOKEN_LENGTH];
+        new SecureRandom().nextBytes(bytes);
+        final StringBuilder token = new StringBuilder(TOKEN_LENGTH * 2);
+        for (byte b : bytes) {
+            token.append(String.format("%02x", b));
+        }
+        return token.toString();
+    }
+
+    /**
+     * Stops the server, closes all cached contexts and removes the {@link DaemonState}.
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (state != null) {
+            state.delete();
+        }
+        contextProvider.close();
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                LOGGER.debug("Closing server socket failed", e);
+            }
+        }
+    }
+}
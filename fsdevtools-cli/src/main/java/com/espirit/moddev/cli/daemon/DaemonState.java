@@ -0,0 +1,180 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.daemon;
+
+import com.espirit.moddev.cli.CliConstants;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Describes a running daemon. The state is written to a file in the user's fs-cli directory, so that
+ * clients are able to find the daemon. The file contains a random token that clients have to send with
+ * every request, which keeps other users of the machine from executing commands in the daemon.
+ *
+ * @author e-Spirit AG
+ */
+public final class DaemonState {
+
+    static final String STATE_FILE_NAME = "daemon.properties";
+
+    private static final String KEY_PORT = "port";
+    private static final String KEY_TOKEN = "token";
+    private static final String KEY_WORKING_DIRECTORY = "workingDirectory";
+
+    private final int port;
+    private final String token;
+    private final String workingDirectory;
+
+    /**
+     * Creates a new state.
+     *
+     * @param port             the loopback port the daemon listens on
+     * @param token            the token clients have to send
+     * @param workingDirectory the working directory of the daemon, relative paths of commands are resolved against it
+     */
+    public DaemonState(int port, String token, String workingDirectory) {
+        this.port = port;
+        this.token = token;
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * Get the file the state of the current user's daemon is stored in.
+     *
+     * @return the state file
+     */
+    public static File getStateFile() {
+        return new File(System.getProperty(CliConstants.USER_HOME.value()) + CliConstants.FS_CLI_DIR.value(), STATE_FILE_NAME);
+    }
+
+    /**
+     * Reads the state of the current user's daemon.
+     *
+     * @return the state, or an empty optional if no daemon has been started or the state file is not readable
+     */
+    public static Optional<DaemonState> read() {
+        return read(getStateFile());
+    }
+
+    static Optional<DaemonState> read(File stateFile) {
+        if (!stateFile.isFile()) {
+            return Optional.empty();
+        }
+        final Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(stateFile)) {
+            properties.load(inputStream);
+            final int port = Integer.parseInt(properties.getProperty(KEY_PORT, ""));
+            final String token = properties.getProperty(KEY_TOKEN);
+            final String workingDirectory = properties.getProperty(KEY_WORKING_DIRECTORY);
+            if (token == null || workingDirectory == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new DaemonState(port, token, workingDirectory));
+        } catch (IOException | NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes this state to the state file, which is only readable by the current user.
+     *
+     * @throws IOException if the file can't be written
+     */
+    public void write() throws IOException {
+        write(getStateFile());
+    }
+
+    void write(File stateFile) throws IOException {
+        final File directory = stateFile.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create directory " + directory);
+        }
+        final Properties properties = new Properties();
+        properties.setProperty(KEY_PORT, Integer.toString(port));
+        properties.setProperty(KEY_TOKEN, token);
+        properties.setProperty(KEY_WORKING_DIRECTORY, workingDirectory);
+
+        if (stateFile.exists() && !stateFile.delete()) {
+            throw new IOException("Can't replace " + stateFile);
+        }
+        if (!stateFile.createNewFile()) {
+            throw new IOException("Can't create " + stateFile);
+        }
+        // restrict access before the token is written
+        stateFile.setReadable(false, false);
+        stateFile.setWritable(false, false);
+        stateFile.setReadable(true, true);
+        stateFile.setWritable(true, true);
+        try (OutputStream outputStream = new FileOutputStream(stateFile)) {
+            properties.store(outputStream, "fs-cli daemon");
+        }
+    }
+
+    /**
+     * Deletes the state file, if it still describes this daemon.
+     */
+    public void delete() {
+        delete(getStateFile());
+    }
+
+    void delete(File stateFile) {
+        final Optional<DaemonState> current = read(stateFile);
+        if (current.isPresent() && current.get().token.equals(token)) {
+            stateFile.delete();
+        }
+    }
+
+    /**
+     * Get the loopback port the daemon listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Get the token clients have to send.
+     *
+     * @return the token
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Get the working directory of the daemon.
+     *
+     * @return the working directory
+     */
+    public String getWorkingDirectory() {
+        return workingDirectory;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.fanout;
+
+import com.espirit.moddev.cli.PhaseTimings;
+import com.espirit.moddev.cli.RemoteProfiler;
+import com.espirit.moddev.cli.results.FanOutResult;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes a task for several targets with a bounded number of worker threads. The {@link PhaseTimings} and the
+ * {@link RemoteProfiler} of the calling thread are installed for the workers, so their phases and remote calls
+ * are part of the caller's report.
+ *
+ * @author e-Spirit AG
+ */
+public class FanOutExecutor {
+
+    private final int workers;
+
+    /**
+     * Creates an executor.
+     *
+     * @param workers the maximum number of targets that are processed concurrently
+     * @throws IllegalArgumentException if workers is less than 1
+     */
+    public FanOutExecutor(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is needed, but was " + workers);
+        }
+        this.workers = workers;
+    }
+
+    /**
+     * Executes the task for all targets and waits until all are done. A failing target doesn't stop the others.
+     *
+     * @param targetKind the kind of the targets for log messages, like "project"
+     * @param targets    the targets
+     * @param task       the task that is executed per target
+     * @return the aggregated result
+     */
+    public FanOutResult execute(String targetKind, List<String> targets, Task task) {
+        final PhaseTimings timings = PhaseTimings.getCurrent();
+        final RemoteProfiler profiler = RemoteProfiler.getCurrent();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(workers, targets.size())),
+                                                                      new WorkerThreadFactory(targetKind));
+        final Map<String, Future<Void>> futures = new LinkedHashMap<>();
+        try {
+            for (String target : targets) {
+                futures.put(target, executor.submit(() -> {
+                    PhaseTimings.setCurrent(timings);
+                    RemoteProfiler.setCurrent(profiler);
+                    try {
+                        task.execute(target);
+                        return null;
+                    } finally {
+                        PhaseTimings.setCurrent(null);
+                        RemoteProfiler.setCurrent(null);
+                    }
+                }));
+            }
+            final Map<String, Exception> outcomes = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<Void>> entry : futures.entrySet()) {
+                outcomes.put(entry.getKey(), await(entry.getValue()));
+            }
+            return new FanOutResult(targetKind, outcomes);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Exception await(Future<Void> future) {
+        try {
+            future.get();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return e;
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                return (Exception) cause;
+            }
+            return e;
+        }
+    }
+
+    /**
+     * The work that is done per target.
+     */
+    @FunctionalInterface
+    public interface Task {
+
+        /**
+         * Executes the work for a target.
+         *
+         * @param target the target
+         * @throws Exception if the work failed for the target
+         */
+        void execute(String target) throws Exception;
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private WorkerThreadFactory(String targetKind) {
+            prefix = "fs-cli-" + targetKind + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
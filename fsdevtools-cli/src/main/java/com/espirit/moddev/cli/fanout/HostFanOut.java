@@ -0,0 +1,127 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.fanout;
+
+import com.espirit.moddev.cli.Cli;
+import com.espirit.moddev.cli.CliContextProvider;
+import com.espirit.moddev.cli.api.command.Command;
+import com.espirit.moddev.cli.api.result.Result;
+import com.espirit.moddev.cli.configuration.GlobalConfig;
+import com.espirit.moddev.cli.results.FanOutResult;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Executes a {@link HostFanOutCapable} command against every host of its host selection. Every execution uses a new
+ * instance of the command, parsed from the same command line, and obtains its own connection to its host from the
+ * cli's {@link CliContextProvider}. A project selection of the command still applies per host, see {@link ProjectFanOut}.
+ *
+ * @author e-Spirit AG
+ */
+public class HostFanOut {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HostFanOut.class);
+
+    private final CliContextProvider contextProvider;
+
+    /**
+     * Creates a fan-out whose executions obtain their connections from the given provider.
+     *
+     * @param contextProvider the provider of the cli that executes the command
+     */
+    public HostFanOut(CliContextProvider contextProvider) {
+        this.contextProvider = contextProvider;
+    }
+
+    /**
+     * Indicates if a command has to be executed against several hosts.
+     *
+     * @param command the command
+     * @return true if the command supports the fan-out and names a hosts file or several hosts
+     */
+    public static boolean isRequested(Command<?> command) {
+        if (!(command instanceof HostFanOutCapable) || !(command instanceof GlobalConfig)) {
+            return false;
+        }
+        final GlobalConfig config = (GlobalConfig) command;
+        final String hostsFile = config.getHostsFile();
+        return (hostsFile != null && !hostsFile.isEmpty()) || HostSelection.isMultiple(config.getHost());
+    }
+
+    /**
+     * Executes the command against every selected host and waits for all of them.
+     *
+     * @param command the command, which has to be {@link HostFanOutCapable} and a {@link GlobalConfig}
+     * @return the aggregated result with one outcome per host
+     */
+    public FanOutResult execute(Command<?> command) {
+        final GlobalConfig config = (GlobalConfig) command;
+        try {
+            final List<String> hosts = getHosts(config);
+            if (hosts.isEmpty()) {
+                return new FanOutResult(new IllegalArgumentException("No host selected"));
+            }
+            final int workers = config.getFanOutWorkers();
+            LOGGER.info("Executing {} against {} hosts with {} workers: {}", command.getClass().getSimpleName(), hosts.size(), workers, hosts);
+            final Cli cli = new Cli(contextProvider);
+            return new FanOutExecutor(workers).execute("host", hosts, host -> cli.executeCommand(copyForHost(config, host)));
+        } catch (IOException | RuntimeException e) {
+            return new FanOutResult(e);
+        }
+    }
+
+    private static List<String> getHosts(GlobalConfig config) throws IOException {
+        final String hostsFile = config.getHostsFile();
+        if (hostsFile != null && !hostsFile.isEmpty()) {
+            return HostSelection.read(Paths.get(hostsFile));
+        }
+        return HostSelection.resolve(config.getHost());
+    }
+
+    /**
+     * Creates a new instance of a command from the command line it was parsed from, with the same environment,
+     * for a single host. The port of the host entry overrides the configured port.
+     */
+    @SuppressWarnings("unchecked")
+    static Command<Result> copyForHost(GlobalConfig config, String host) {
+        final String[] commandLine = config.getCommandLine();
+        if (commandLine == null) {
+            throw new IllegalStateException("Command " + config.getClass().getSimpleName() + " wasn't parsed from a command line, so it can't be executed per host");
+        }
+        final HostSelection.Target target = HostSelection.parse(host);
+        final Command<Result> copy = Cli.parseCommandLine(commandLine);
+        final GlobalConfig copyConfig = (GlobalConfig) copy;
+        copyConfig.getEnvironment().replaceWith(config.getEnvironment());
+        copyConfig.setHostsFile(null);
+        copyConfig.setHost(target.getHost());
+        if (target.getPort() != null) {
+            copyConfig.setPort(target.getPort());
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.fanout;
+
+/**
+ * Implemented by commands that can be executed against several FirstSpirit servers at once. If the command selects
+ * more than one host, either by a comma-separated host option or by a hosts file, the cli creates one instance of the
+ * command per host and executes them concurrently, each with its own connection. See {@link HostFanOut}.
+ *
+ * @author e-Spirit AG
+ */
+public interface HostFanOutCapable {
+}
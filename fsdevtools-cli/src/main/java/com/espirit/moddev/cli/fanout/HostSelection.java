@@ -0,0 +1,199 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.fanout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses host selections like <code>fs1.example.com,fs2.example.com:8080</code>. Entries are separated by
+ * {@link #SEPARATOR} and consist of a host name and an optional port. Hosts files contain one or more entries per line,
+ * lines starting with {@link #COMMENT_PREFIX} are ignored.
+ *
+ * @author e-Spirit AG
+ */
+public final class HostSelection {
+
+    /**
+     * Separator of the entries of a host selection.
+     */
+    public static final String SEPARATOR = ",";
+
+    /**
+     * Prefix of comment lines in a hosts file.
+     */
+    public static final String COMMENT_PREFIX = "#";
+
+    private HostSelection() {
+        // Not used
+    }
+
+    /**
+     * Indicates if a host selection names more than one host.
+     *
+     * @param selection the host selection
+     * @return true if the selection is a list, false for a single host or null
+     */
+    public static boolean isMultiple(String selection) {
+        return selection != null && selection.contains(SEPARATOR);
+    }
+
+    /**
+     * Determines the distinct entries of a host selection.
+     *
+     * @param selection the host selection
+     * @return the entries in order of the selection
+     * @throws IllegalArgumentException if an entry has an invalid port
+     */
+    public static List<String> resolve(String selection) {
+        final Set<String> result = new LinkedHashSet<>();
+        addEntries(selection, result);
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Reads the distinct entries of a hosts file.
+     *
+     * @param hostsFile the path of the hosts file
+     * @return the entries in order of the file
+     * @throws IOException              if the file can't be read
+     * @throws IllegalArgumentException if an entry has an invalid port
+     */
+    public static List<String> read(Path hostsFile) throws IOException {
+        final Set<String> result = new LinkedHashSet<>();
+        for (String line : Files.readAllLines(hostsFile, StandardCharsets.UTF_8)) {
+            final String trimmed = line.trim();
+            if (!trimmed.startsWith(COMMENT_PREFIX)) {
+                addEntries(trimmed, result);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Parses a single entry of a host selection. IPv6 addresses with a port have to be enclosed in brackets,
+     * like <code>[::1]:8000</code>.
+     *
+     * @param entry the entry
+     * @return the parsed entry
+     * @throws IllegalArgumentException if the entry is empty or has an invalid port
+     */
+    public static Target parse(String entry) {
+        final String trimmed = entry == null ? "" : entry.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Host must not be empty");
+        }
+        if (trimmed.startsWith("[")) {
+            final int end = trimmed.indexOf(']');
+            if (end < 0) {
+                throw new IllegalArgumentException("Missing ']' in host '" + trimmed + "'");
+            }
+            final String host = trimmed.substring(1, end);
+            final String rest = trimmed.substring(end + 1);
+            if (rest.isEmpty()) {
+                return new Target(host, null);
+            }
+            if (!rest.startsWith(":")) {
+                throw new IllegalArgumentException("Unexpected characters after ']' in host '" + trimmed + "'");
+            }
+            return new Target(host, parsePort(trimmed, rest.substring(1)));
+        }
+        final int colon = trimmed.indexOf(':');
+        if (colon < 0 || colon != trimmed.lastIndexOf(':')) {
+            // no port or an IPv6 address without port
+            return new Target(trimmed, null);
+        }
+        return new Target(trimmed.substring(0, colon), parsePort(trimmed, trimmed.substring(colon + 1)));
+    }
+
+    private static void addEntries(String selection, Collection<String> target) {
+        if (selection == null) {
+            return;
+        }
+        for (String entry : selection.split(SEPARATOR)) {
+            final String trimmed = entry.trim();
+            if (!trimmed.isEmpty()) {
+                target.add(parse(trimmed).toString());
+            }
+        }
+    }
+
+    private static Integer parsePort(String entry, String port) {
+        try {
+            final int value = Integer.parseInt(port);
+            if (value > 0 && value <= 0xFFFF) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        throw new IllegalArgumentException("Invalid port '" + port + "' in host '" + entry + "'");
+    }
+
+    /**
+     * A single host of a selection.
+     */
+    public static final class Target {
+
+        private final String host;
+        private final Integer port;
+
+        Target(String host, Integer port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        /**
+         * Get the host name or address.
+         *
+         * @return the host
+         */
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * Get the port given for this host.
+         *
+         * @return the port, or null if none is given and the configured port applies
+         */
+        public Integer getPort() {
+            return port;
+        }
+
+        @Override
+        public String toString() {
+            if (port == null) {
+                return host;
+            }
+            return (host.indexOf(':') >= 0 ? "[" + host + "]" : host) + ":" + port;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.fanout;
+
+import com.espirit.moddev.cli.Cli;
+import com.espirit.moddev.cli.CliContextProvider;
+import com.espirit.moddev.cli.ConnectionBuilder;
+import com.espirit.moddev.cli.SharedConnectionContextProvider;
+import com.espirit.moddev.cli.api.command.Command;
+import com.espirit.moddev.cli.api.result.Result;
+import com.espirit.moddev.cli.configuration.GlobalConfig;
+import com.espirit.moddev.cli.results.FanOutResult;
+
+import de.espirit.firstspirit.access.Connection;
+import de.espirit.firstspirit.common.MaximumNumberOfSessionsExceededException;
+import de.espirit.firstspirit.server.authentication.AuthenticationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Executes a {@link ProjectFanOutCapable} command for every project of its project selection. One connection is
+ * obtained from the cli's {@link CliContextProvider} and shared by all executions, each of which gets its own context
+ * with the project specific broker of its project. Every execution uses a new instance of the command, parsed from
+ * the same command line.
+ *
+ * @author e-Spirit AG
+ */
+public class ProjectFanOut {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectFanOut.class);
+
+    private final CliContextProvider contextProvider;
+
+    /**
+     * Creates a fan-out that obtains its connection from the given provider.
+     *
+     * @param contextProvider the provider of the cli that executes the command
+     */
+    public ProjectFanOut(CliContextProvider contextProvider) {
+        this.contextProvider = contextProvider;
+    }
+
+    /**
+     * Indicates if a command has to be executed for several projects.
+     *
+     * @param command the command
+     * @return true if the command supports the fan-out and its project selection names several projects
+     */
+    public static boolean isRequested(Command<?> command) {
+        return command instanceof ProjectFanOutCapable && command instanceof GlobalConfig
+               && ProjectSelection.isMultiple(((ProjectFanOutCapable) command).getProjectSelection());
+    }
+
+    /**
+     * Executes the command for every selected project and waits for all of them.
+     *
+     * @param command the command, which has to be {@link ProjectFanOutCapable} and a {@link GlobalConfig}
+     * @return the aggregated result with one outcome per project
+     */
+    public FanOutResult execute(Command<?> command) {
+        final GlobalConfig config = (GlobalConfig) command;
+        final ProjectFanOutCapable fanOutCapable = (ProjectFanOutCapable) command;
+        final String selection = fanOutCapable.getProjectSelection();
+        Connection connection = null;
+        try {
+            fanOutCapable.checkFanOut();
+            connection = contextProvider.acquireConnection(config, () -> ConnectionBuilder.with(config).build());
+            final List<String> projects = ProjectSelection.resolve(selection, connection);
+            if (projects.isEmpty()) {
+                return new FanOutResult(new IllegalArgumentException("No project matches the selection '" + selection + "'"));
+            }
+            final int workers = fanOutCapable.isConcurrentFanOutSafe() ? config.getFanOutWorkers() : 1;
+            LOGGER.info("Executing {} for {} projects with {} workers: {}", command.getClass().getSimpleName(), projects.size(), workers, projects);
+            final Cli cli = new Cli(new SharedConnectionContextProvider(connection));
+            return new FanOutExecutor(workers).execute("project", projects, project -> cli.executeCommand(copyForProject(config, project)));
+        } catch (IOException | AuthenticationException | MaximumNumberOfSessionsExceededException | RuntimeException e) {
+            return new FanOutResult(e);
+        } finally {
+            contextProvider.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Creates a new instance of a command from the command line it was parsed from, with the same environment,
+     * for a single project.
+     */
+    @SuppressWarnings("unchecked")
+    static Command<Result> copyForProject(GlobalConfig config, String project) {
+        final String[] commandLine = config.getCommandLine();
+        if (commandLine == null) {
+            throw new IllegalStateException("Command " + config.getClass().getSimpleName() + " wasn't parsed from a command line, so it can't be executed per project");
+        }
+        final Command<Result> copy = Cli.parseCommandLine(commandLine);
+        ((GlobalConfig) copy).getEnvironment().replaceWith(config.getEnvironment());
+        ((ProjectFanOutCapable) copy).selectProject(project);
+        return copy;
+    }
+}
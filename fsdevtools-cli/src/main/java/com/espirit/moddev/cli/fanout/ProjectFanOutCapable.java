@@ -0,0 +1,67 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.fanout;
+
+/**
+ * Implemented by commands that can be executed for several projects at once. If the project selection names more
+ * than one project, see {@link ProjectSelection#isMultiple(String)}, the cli creates one instance of the command per
+ * selected project and executes them concurrently on one shared connection.
+ *
+ * @author e-Spirit AG
+ */
+public interface ProjectFanOutCapable {
+
+    /**
+     * Get the project selection of this command as given on the command line or in the environment. This may be
+     * a single project name or a comma-separated list of project names and glob patterns.
+     *
+     * @return the project selection, or null if none is given
+     */
+    String getProjectSelection();
+
+    /**
+     * Sets the single project this command instance is executed for.
+     *
+     * @param projectName the name of the project
+     */
+    void selectProject(String projectName);
+
+    /**
+     * Indicates if instances of this command may be executed for several projects at the same time. Commands that
+     * change server wide state should return false, they are then executed for one project after the other.
+     *
+     * @return true if the instances may run concurrently, otherwise false
+     */
+    default boolean isConcurrentFanOutSafe() {
+        return true;
+    }
+
+    /**
+     * Checks whether this command may be executed for several projects at all, before any project is resolved.
+     *
+     * @throws IllegalArgumentException if the options of the command don't allow several projects
+     */
+    default void checkFanOut() {
+        // most commands can be executed for several projects
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.fanout;
+
+import com.espirit.moddev.shared.StringUtils;
+
+import de.espirit.firstspirit.access.Connection;
+import de.espirit.firstspirit.access.project.Project;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Parses project selections like <code>projectA,projectB,sibling-*</code>. Entries are separated by
+ * {@link #SEPARATOR}. Entries containing <code>*</code> or <code>?</code> are glob patterns that are matched
+ * against the names of all projects on the server.
+ *
+ * @author e-Spirit AG
+ */
+public final class ProjectSelection {
+
+    /**
+     * Separator of the entries of a project selection.
+     */
+    public static final String SEPARATOR = ",";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectSelection.class);
+
+    private ProjectSelection() {
+        // Not used
+    }
+
+    /**
+     * Indicates if a project selection may name more than one project, because it is a list or a glob pattern.
+     *
+     * @param selection the project selection
+     * @return true if the selection is a list or contains a pattern, false for a single project name or null
+     */
+    public static boolean isMultiple(String selection) {
+        return selection != null && (selection.contains(SEPARATOR) || StringUtils.isGlob(selection));
+    }
+
+    /**
+     * Determines the names of the projects a selection names. Patterns are matched against the projects
+     * of the given connection, which is only asked if the selection contains a pattern.
+     *
+     * @param selection  the project selection
+     * @param connection the connection to the server
+     * @return the distinct project names in order of the selection, pattern matches sorted by name
+     */
+    public static List<String> resolve(String selection, Connection connection) {
+        final Set<String> result = new LinkedHashSet<>();
+        List<String> availableProjects = null;
+        for (String entry : selection.split(SEPARATOR)) {
+            final String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (StringUtils.isGlob(trimmed)) {
+                if (availableProjects == null) {
+                    availableProjects = getProjectNames(connection);
+                }
+                final Pattern pattern = StringUtils.globToPattern(trimmed);
+                final int sizeBefore = result.size();
+                availableProjects.stream().filter(name -> pattern.matcher(name).matches()).forEach(result::add);
+                if (result.size() == sizeBefore) {
+                    LOGGER.warn("No project matches '{}'", trimmed);
+                }
+            } else {
+                result.add(trimmed);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static List<String> getProjectNames(Connection connection) {
+        final List<String> names = new ArrayList<>();
+        for (Project project : connection.getProjects()) {
+            names.add(project.getName());
+        }
+        names.sort(String::compareTo);
+        return names;
+    }
+}
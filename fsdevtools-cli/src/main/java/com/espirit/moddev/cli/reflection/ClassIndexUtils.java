@@ -0,0 +1,194 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.reflection;
+
+import com.espirit.moddev.cli.api.index.ClassIndex;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Utility class that reads the compile time class indexes written by {@link com.espirit.moddev.cli.api.index.ClassIndexProcessor}.
+ * Classpath elements that don't provide an index are reported, so that callers can fall back to a classpath scan
+ * for these elements only.
+ *
+ * @author e-Spirit AG
+ */
+public final class ClassIndexUtils {
+
+    private static final Logger LOGGER = Logger.getLogger(ClassIndexUtils.class);
+
+    /**
+     * Manifest attribute of FirstSpirit api jars. Jars declaring it never contain cli commands or groups,
+     * so they are never scanned.
+     */
+    private static final String FIRSTSPIRIT_VERSION_ATTRIBUTE = "FirstSpirit-Version";
+
+    private ClassIndexUtils() {
+        // Not used
+    }
+
+    /**
+     * Reads all index files with the given resource name that are visible to the context class loader
+     * and determines which classpath elements don't provide such an index.
+     *
+     * @param resourceName the resource name of the index, for example {@link ClassIndex#COMMANDS_RESOURCE}
+     * @return the lookup result
+     */
+    public static IndexLookup lookup(String resourceName) {
+        final Set<String> classNames = readIndexes(resourceName);
+        final List<String> unindexedElements = new ArrayList<>();
+        for (String element : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (!element.isEmpty() && !hasIndex(new File(element), resourceName)) {
+                unindexedElements.add(element);
+            }
+        }
+        LOGGER.debug("Found " + classNames.size() + " indexed classes for " + resourceName + ", "
+                     + unindexedElements.size() + " classpath elements without index: " + unindexedElements);
+        return new IndexLookup(classNames, unindexedElements);
+    }
+
+    /**
+     * Loads a class that is listed in an index without initializing it.
+     *
+     * @param className the binary name of the class
+     * @return the class, or null if it can't be loaded
+     */
+    public static Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className, false, getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            LOGGER.warn("Indexed class " + className + " can't be loaded, so it is ignored.");
+            LOGGER.debug(e);
+            return null;
+        }
+    }
+
+    private static Set<String> readIndexes(String resourceName) {
+        final Set<String> result = new LinkedHashSet<>();
+        try {
+            final Enumeration<URL> resources = getClassLoader().getResources(resourceName);
+            while (resources.hasMoreElements()) {
+                final URL url = resources.nextElement();
+                try (InputStream inputStream = url.openStream()) {
+                    readIndex(inputStream, result);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Reading class index " + resourceName + " failed", e);
+        }
+        return result;
+    }
+
+    private static void readIndex(InputStream inputStream, Set<String> target) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String className = line.trim();
+                if (!className.isEmpty() && !className.startsWith(ClassIndex.COMMENT_PREFIX)) {
+                    target.add(className);
+                }
+            }
+        }
+    }
+
+    private static boolean hasIndex(File element, String resourceName) {
+        if (element.isDirectory()) {
+            return new File(element, resourceName).isFile();
+        }
+        if (!element.isFile()) {
+            // nothing on the disk that could be scanned
+            return true;
+        }
+        try (JarFile jarFile = new JarFile(element)) {
+            if (jarFile.getJarEntry(resourceName) != null) {
+                return true;
+            }
+            final Manifest manifest = jarFile.getManifest();
+            return manifest != null && manifest.getMainAttributes().getValue(FIRSTSPIRIT_VERSION_ATTRIBUTE) != null;
+        } catch (IOException e) {
+            LOGGER.debug("Classpath element " + element + " is no readable jar file", e);
+            return false;
+        }
+    }
+
+    private static ClassLoader getClassLoader() {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return contextClassLoader != null ? contextClassLoader : ClassIndexUtils.class.getClassLoader();
+    }
+
+    /**
+     * Result of an index lookup.
+     */
+    public static final class IndexLookup {
+
+        private final Set<String> classNames;
+        private final List<String> unindexedElements;
+
+        IndexLookup(Set<String> classNames, List<String> unindexedElements) {
+            this.classNames = Collections.unmodifiableSet(classNames);
+            this.unindexedElements = Collections.unmodifiableList(unindexedElements);
+        }
+
+        /**
+         * Get the binary names of all classes listed in the found indexes.
+         *
+         * @return the class names
+         */
+        public Set<String> getClassNames() {
+            return classNames;
+        }
+
+        /**
+         * Get the classpath elements that don't provide an index and have to be scanned.
+         *
+         * @return the paths of the unindexed classpath elements
+         */
+        public List<String> getUnindexedElements() {
+            return unindexedElements;
+        }
+
+        /**
+         * Get the unindexed classpath elements as classpath string.
+         *
+         * @return the unindexed classpath elements joined by the platform's path separator
+         */
+        public String getUnindexedClasspath() {
+            return String.join(File.pathSeparator, unindexedElements);
+        }
+    }
+}
@@ -23,6 +23,7 @@
 package com.espirit.moddev.cli.reflection;
 
 import com.espirit.moddev.cli.api.command.Command;
+import com.espirit.moddev.cli.api.index.ClassIndex;
 import io.github.lukehutch.fastclasspathscanner.FastClasspathScanner;
 import org.apache.log4j.Logger;
 
@@ -45,6 +46,30 @@ public final class CommandUtils {
     private CommandUtils() {
     }
 
+    /**
+     * Loads all classes that implement the {@link Command} interface from the compile time command indexes
+     * ({@link ClassIndex#COMMANDS_RESOURCE}). Classpath elements without an index, for example custom command jars
+     * that were compiled without the cli api's annotation processor, are scanned. Ignores abstract classes.
+     *
+     * @return a set of matching classes
+     */
+    public static Set<Class<? extends Command>> loadCommandClasses() {
+        final ClassIndexUtils.IndexLookup lookup = ClassIndexUtils.lookup(ClassIndex.COMMANDS_RESOURCE);
+        final Set<Class<? extends Command>> matchingClasses = new HashSet<>();
+        for (String className : lookup.getClassNames()) {
+            final Class<?> indexedClass = ClassIndexUtils.loadClass(className);
+            if (indexedClass != null && Command.class.isAssignableFrom(indexedClass) && !Modifier.isAbstract(indexedClass.getModifiers())) {
+                matchingClasses.add(indexedClass.asSubclass(Command.class));
+            }
+        }
+        if (!lookup.getUnindexedElements().isEmpty()) {
+            LOGGER.debug("Scanning classpath elements without command index: " + lookup.getUnindexedElements());
+            matchingClasses.addAll(scanForCommandClasses(new FastClasspathScanner("").overrideClasspath(lookup.getUnindexedClasspath())));
+        }
+        LOGGER.debug("Loaded " + matchingClasses.size() + " commands. " + matchingClasses.stream().map(it -> it.getSimpleName()).collect(Collectors.joining(",")));
+        return matchingClasses;
+    }
+
     /**
      * Scans the whole classpath for classes that implement the {@link Command} interface. Ignores abstract classes.
      *
@@ -67,9 +92,15 @@ public final class CommandUtils {
      * @throws IllegalArgumentException if null or empty package string is passed
      */
     public static Set<Class<? extends Command>> scanForCommandClasses(String packagesToScanForCommands) {
+        Set<Class<? extends Command>> matchingClasses = scanForCommandClasses(new FastClasspathScanner(packagesToScanForCommands));
+        LOGGER.debug("Found " + matchingClasses.size() + " commands. " + matchingClasses.stream().map(it -> it.getSimpleName()).collect(Collectors.joining(",")));
+        return matchingClasses;
+    }
+
+    private static Set<Class<? extends Command>> scanForCommandClasses(FastClasspathScanner fastClasspathScanner) {
         Set<Class<? extends Command>> matchingClasses = new HashSet<>();
 
-        FastClasspathScanner scanner = new FastClasspathScanner(packagesToScanForCommands).matchClassesImplementing(Command.class, (implementingClass) -> {
+        FastClasspathScanner scanner = fastClasspathScanner.matchClassesImplementing(Command.class, (implementingClass) -> {
             if(!Modifier.isAbstract( implementingClass.getModifiers() )) {
                 matchingClasses.add(implementingClass);
             } else {
@@ -77,7 +108,6 @@ public final class CommandUtils {
             }
         });
         scanner.scan();
-        LOGGER.debug("Found " + matchingClasses.size() + " commands. " + matchingClasses.stream().map(it -> it.getSimpleName()).collect(Collectors.joining(",")));
         return matchingClasses;
     }
 }
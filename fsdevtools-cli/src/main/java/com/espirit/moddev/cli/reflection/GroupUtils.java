@@ -22,6 +22,7 @@
 
 package com.espirit.moddev.cli.reflection;
 
+import com.espirit.moddev.cli.api.index.ClassIndex;
 import com.github.rvesse.airline.annotations.Group;
 import io.github.lukehutch.fastclasspathscanner.FastClasspathScanner;
 import org.apache.log4j.Logger;
@@ -44,6 +45,29 @@ public final class GroupUtils {
         // Not used
     }
 
+    /**
+     * Loads all classes that are annotated with airline's {@link Group} annotation from the compile time group indexes
+     * ({@link ClassIndex#GROUPS_RESOURCE}). Classpath elements without an index are scanned.
+     *
+     * @return a set of matching classes
+     */
+    public static Set<Class<?>> loadGroupClasses() {
+        final ClassIndexUtils.IndexLookup lookup = ClassIndexUtils.lookup(ClassIndex.GROUPS_RESOURCE);
+        final Set<Class<?>> result = new HashSet<>();
+        for (String className : lookup.getClassNames()) {
+            final Class<?> indexedClass = ClassIndexUtils.loadClass(className);
+            if (indexedClass != null && indexedClass.isAnnotationPresent(Group.class)) {
+                result.add(indexedClass);
+            }
+        }
+        if (!lookup.getUnindexedElements().isEmpty()) {
+            LOGGER.debug("Scanning classpath elements without group index: " + lookup.getUnindexedElements());
+            new FastClasspathScanner("").overrideClasspath(lookup.getUnindexedClasspath()).matchClassesWithAnnotation(Group.class, result::add).scan();
+        }
+        LOGGER.debug("Loaded " + result.size() + " groups. " + result.stream().map(it -> it.getSimpleName()).collect(Collectors.joining(",")));
+        return result;
+    }
+
     /**
      * Scans the classpath for classes that are annotated with airline's {@link Group} annotation.
      * Ignores abstract classes.
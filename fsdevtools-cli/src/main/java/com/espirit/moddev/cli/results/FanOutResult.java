@@ -0,0 +1,114 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated result of a command that has been executed for several targets, like projects. The result maps
+ * every target to the exception its execution failed with, or to null if it succeeded.
+ *
+ * @author e-Spirit AG
+ */
+public class FanOutResult extends SimpleResult<Map<String, Exception>> {
+
+    private final String targetKind;
+
+    /**
+     * Creates a new instance with the outcomes of all targets.
+     *
+     * @param targetKind the kind of the targets for log messages, like "project"
+     * @param outcomes   the exception per target, null for successful targets
+     */
+    public FanOutResult(String targetKind, Map<String, Exception> outcomes) {
+        super(Collections.unmodifiableMap(new LinkedHashMap<>(outcomes)));
+        this.targetKind = targetKind;
+    }
+
+    /**
+     * Creates a new error result for a fan-out that couldn't be started at all.
+     *
+     * @param exception the reason
+     */
+    public FanOutResult(Exception exception) {
+        super(exception);
+        this.targetKind = "target";
+    }
+
+    /**
+     * Get the targets whose execution failed.
+     *
+     * @return the failed targets in execution order
+     */
+    public List<String> getFailedTargets() {
+        final List<String> failed = new ArrayList<>();
+        if (result != null) {
+            result.forEach((target, outcome) -> {
+                if (outcome != null) {
+                    failed.add(target);
+                }
+            });
+        }
+        return failed;
+    }
+
+    @Override
+    public boolean isError() {
+        return super.isError() || !getFailedTargets().isEmpty();
+    }
+
+    @Override
+    public Exception getError() {
+        if (exception != null) {
+            return exception;
+        }
+        final List<String> failedTargets = getFailedTargets();
+        if (failedTargets.isEmpty()) {
+            return null;
+        }
+        final IllegalStateException error = new IllegalStateException("Execution failed for " + failedTargets.size() + " of "
+                                                                      + result.size() + " " + targetKind + "s: " + failedTargets);
+        failedTargets.forEach(target -> error.addSuppressed(result.get(target)));
+        return error;
+    }
+
+    @Override
+    public void log() {
+        if (exception != null) {
+            LOGGER.error("Exception occurred before the command could be executed for each " + targetKind, exception);
+            return;
+        }
+        result.forEach((target, outcome) -> {
+            if (outcome == null) {
+                LOGGER.info("{} '{}': succeeded", targetKind, target);
+            } else {
+                LOGGER.error("{} '{}': failed - {}", targetKind, target, outcome.getMessage());
+            }
+        });
+        LOGGER.info("Executed for {} {}s, {} failed", result.size(), targetKind, getFailedTargets().size());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results;
+
+/**
+ * Specialization of {@link com.espirit.moddev.cli.results.SimpleResult} that can be used in conjunction with the transfer command.
+ * It holds the results of both the export from the source project and the import into the target project.
+ *
+ * @author e-Spirit AG
+ */
+public class TransferResult extends SimpleResult<ImportResult> {
+
+    private final ExportResult exportResult;
+
+    /**
+     * Creates a new instance using the results of the export and of the import.
+     *
+     * @param exportResult the result of the export from the source project
+     * @param importResult the result of the import into the target project, or null if the export failed
+     */
+    public TransferResult(final ExportResult exportResult, final ImportResult importResult) {
+        super(importResult);
+        this.exportResult = exportResult;
+    }
+
+    /**
+     * Creates a new error result using the given exception.
+     *
+     * @param exception Exception produced by the command
+     */
+    public TransferResult(Exception exception) {
+        super(exception);
+        exportResult = null;
+    }
+
+    /**
+     * Get the result of the export from the source project.
+     *
+     * @return the export result, or null if the transfer failed before the export
+     */
+    public ExportResult getExportResult() {
+        return exportResult;
+    }
+
+    @Override
+    public boolean isError() {
+        return getError() != null;
+    }
+
+    @Override
+    public Exception getError() {
+        if (exception != null) {
+            return exception;
+        }
+        if (exportResult != null && exportResult.isError()) {
+            return exportResult.getError();
+        }
+        if (result != null && result.isError()) {
+            return result.getError();
+        }
+        return null;
+    }
+
+    /**
+     * Logs the outcome of the transfer. The element based results of the export and the import are logged by the
+     * transfer command itself, while the connections to the projects are still open.
+     */
+    @Override
+    public void log() {
+        if (isError()) {
+            LOGGER.error("Transfer not successful", getError());
+        } else {
+            LOGGER.info("Transfer successful");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli;
+
+import com.espirit.moddev.cli.api.CliContext;
+import com.espirit.moddev.cli.api.FsConnectionMode;
+import com.espirit.moddev.cli.api.configuration.Config;
+
+import de.espirit.firstspirit.access.Connection;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingCliContextProviderTest {
+
+    private List<CliContext> createdContexts;
+    private CachingCliContextProvider testling;
+
+    @Before
+    public void setUp() {
+        createdContexts = new ArrayList<>();
+        testling = new CachingCliContextProvider() {
+            @Override
+            protected CliContext createContext(Config config) {
+                final Connection connection = mock(Connection.class);
+                when(connection.isConnected()).thenReturn(true);
+                final CliContext context = mock(CliContext.class);
+                when(context.getConnection()).thenReturn(connection);
+                createdContexts.add(context);
+                return context;
+            }
+        };
+    }
+
+    @Test
+    public void contextIsReusedForSameConfiguration() {
+        final CliContext first = testling.acquire(config("myProject"));
+        testling.release(first);
+        final CliContext second = testling.acquire(config("myProject"));
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(createdContexts.size(), is(1));
+    }
+
+    @Test
+    public void contextIsNotSharedBetweenProjects() {
+        final CliContext first = testling.acquire(config("myProject"));
+        final CliContext second = testling.acquire(config("otherProject"));
+
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(testling.size(), is(2));
+    }
+
+    @Test
+    public void disconnectedContextIsReplaced() throws Exception {
+        final CliContext first = testling.acquire(config("myProject"));
+        when(first.getConnection().isConnected()).thenReturn(false);
+
+        final CliContext second = testling.acquire(config("myProject"));
+
+        assertThat(second, is(not(sameInstance(first))));
+        verify(first).close();
+    }
+
+    @Test
+    public void leastRecentlyUsedContextIsClosedIfCacheIsFull() throws Exception {
+        final CliContext first = testling.acquire(config("project0"));
+        for (int i = 1; i <= CachingCliContextProvider.MAX_CONTEXTS; i++) {
+            testling.acquire(config("project" + i));
+        }
+
+        assertThat(testling.size(), is(CachingCliContextProvider.MAX_CONTEXTS));
+        verify(first).close();
+    }
+
+    @Test
+    public void closeClosesAllContexts() throws Exception {
+        final CliContext first = testling.acquire(config("myProject"));
+        final CliContext second = testling.acquire(config("otherProject"));
+
+        testling.close();
+
+        verify(first).close();
+        verify(second).close();
+        assertThat(testling.size(), is(0));
+    }
+
+    @Test
+    public void connectionIsSharedBetweenProjects() throws Exception {
+        final List<Connection> createdConnections = new ArrayList<>();
+        final Supplier<Connection> connectionFactory = () -> {
+            final Connection connection = mock(Connection.class);
+            when(connection.isConnected()).thenReturn(true);
+            createdConnections.add(connection);
+            return connection;
+        };
+
+        final Connection first = testling.acquireConnection(config("myProject"), connectionFactory);
+        testling.releaseConnection(first);
+        final Connection second = testling.acquireConnection(config("otherProject"), connectionFactory);
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(createdConnections.size(), is(1));
+        verify(first).connect();
+        verify(first, never()).close();
+
+        testling.close();
+        verify(first).close();
+    }
+
+    @Test
+    public void disconnectedConnectionIsReplaced() throws Exception {
+        final Connection lost = mock(Connection.class);
+        final Connection replacement = mock(Connection.class);
+
+        testling.acquireConnection(config("myProject"), () -> lost);
+        final Connection second = testling.acquireConnection(config("myProject"), () -> replacement);
+
+        assertThat(second, is(sameInstance(replacement)));
+        verify(lost).close();
+    }
+
+    private static Config config(String project) {
+        final Config config = mock(Config.class);
+        when(config.getHost()).thenReturn("localhost");
+        when(config.getPort()).thenReturn(8000);
+        when(config.getConnectionMode()).thenReturn(FsConnectionMode.HTTP);
+        when(config.getUser()).thenReturn("Admin");
+        when(config.getPassword()).thenReturn("Admin");
+        when(config.getProject()).thenReturn(project);
+        return config;
+    }
+}
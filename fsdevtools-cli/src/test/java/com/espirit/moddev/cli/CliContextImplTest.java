@@ -147,10 +147,36 @@ public class CliContextImplTest {
             firstSpiritConnection = context.getConnection();
         }
         assertThat("Expect a non-null value", firstSpiritConnection, is(notNullValue()));
-        verify(firstSpiritConnection, times(2)).connect();
+        verify(firstSpiritConnection, times(1)).connect();
         verify(firstSpiritConnection, times(1)).close();
     }
 
+    @Test
+    public void testNoConnectionBeforeFirstUse() throws Exception {
+        try (TestContext context = new TestContext(clientConfig)) {
+            context.logInfo("not connected");
+        }
+        verify(connection, never()).connect();
+        verify(connection, never()).close();
+    }
+
+    @Test
+    public void testConnectsOnlyOnce() throws Exception {
+        final TestContext context = new TestContext(clientConfig);
+        context.getConnection();
+        context.getProject();
+        context.requireSpecialist(LanguageAgent.TYPE);
+        verify(connection, times(1)).connect();
+        verify(connection, times(1)).getProjectByName("myProject");
+    }
+
+    @Test
+    public void testGetConnectionDoesNotLoadProject() throws Exception {
+        final TestContext context = new TestContext(clientConfig);
+        assertThat(context.getConnection(), is(connection));
+        verify(connection, never()).getProjectByName(any());
+    }
+
     @Theory
     public void testIsRest(final BaseContext.Env environment) throws Exception {
         assertThat("Expected false", testling.is(environment), is(Boolean.FALSE));
@@ -30,8 +30,14 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.contrib.java.lang.system.ExpectedSystemExit;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
@@ -96,4 +102,47 @@ public class CliTest {
         assertTrue(hasTestConnectionCommand);
     }
 
+    @Test
+    public void targetedCliHasOnlyRequestedGroup() {
+        com.github.rvesse.airline.Cli<Command> cli = Cli.getCliBuilder(new String[]{"-h", "localhost", "test", "connection"}).build();
+        List<String> groupNames = cli.getMetadata().getCommandGroups().stream().map(CommandGroupMetadata::getName).collect(Collectors.toList());
+
+        assertTrue(groupNames.contains("test"));
+        assertFalse(groupNames.contains("module"));
+        assertEquals(DefaultCommand.class, cli.getMetadata().getDefaultCommand().getType());
+    }
+
+    @Test
+    public void targetedCliFallsBackToAllGroupsForUnknownCommand() {
+        com.github.rvesse.airline.Cli<Command> cli = Cli.getCliBuilder(new String[]{"non-existing-command"}).build();
+        List<String> groupNames = cli.getMetadata().getCommandGroups().stream().map(CommandGroupMetadata::getName).collect(Collectors.toList());
+
+        assertTrue(groupNames.contains("test"));
+        assertTrue(groupNames.contains("module"));
+    }
+
+    @Test
+    public void sharedCliExecutesCommandsConcurrently() throws Exception {
+        final int threads = 16;
+        final Cli testling = new Cli();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads * 4; i++) {
+                final String[] args = i % 2 == 0 ? new String[]{"command_with_description_annotation"} : new String[]{"help"};
+                tasks.add(() -> {
+                    testling.executeCommand(Cli.parseCommandLine(args));
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                // rethrows any exception of a concurrent execution
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
 }
@@ -33,6 +33,16 @@ import org.junit.experimental.theories.Theories;
 import org.junit.experimental.theories.Theory;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
@@ -66,6 +76,94 @@ public class ConnectionBuilderTest {
 
         assertThat(connection.getHost(), is("localhost"));
         assertThat(connection.getPort(), is(mode.getDefaultPort()));
+        assertThat(connection.getMode(), is(mode.getCode()));
+    }
+
+    @Test
+    public void testConcurrentBuildsWithDifferentServers() throws Exception {
+        final int threads = 16;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Callable<Connection>> tasks = new ArrayList<>();
+            final List<Config> configs = new ArrayList<>();
+            for (int i = 0; i < threads * 8; i++) {
+                final FsConnectionMode mode = testCases[i % testCases.length];
+                final Config serverConfig = mock(Config.class);
+                when(serverConfig.getHost()).thenReturn("server" + i);
+                when(serverConfig.getPort()).thenReturn(mode.getDefaultPort() + i);
+                when(serverConfig.getConnectionMode()).thenReturn(mode);
+                when(serverConfig.getUser()).thenReturn("Admin");
+                when(serverConfig.getPassword()).thenReturn("Admin");
+                configs.add(serverConfig);
+                tasks.add(() -> ConnectionBuilder.with(serverConfig).build());
+            }
+
+            final List<Future<Connection>> futures = executor.invokeAll(tasks);
+
+            for (int i = 0; i < futures.size(); i++) {
+                final Connection connection = futures.get(i).get();
+                assertThat(connection.getHost(), is(configs.get(i).getHost()));
+                assertThat(connection.getPort(), is(configs.get(i).getPort()));
+                assertThat(connection.getMode(), is(configs.get(i).getConnectionMode().getCode()));
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testConcurrentBuildsUseTheHttpsSwitchOfTheirOwnMode() throws Exception {
+        final Map<String, Boolean> httpsByHost = new ConcurrentHashMap<>();
+        final ConnectionBuilder.ConnectionManagerAccess connectionManager = new ConnectionBuilder.ConnectionManagerAccess() {
+            private volatile boolean useHttps;
+
+            @Override
+            public void setUseHttps(final boolean useHttps) {
+                this.useHttps = useHttps;
+            }
+
+            @Override
+            public Connection getConnection(final String host, final int port, final int mode, final String user, final String password) {
+                // give concurrent builders the chance to flip the global switch in between
+                Thread.yield();
+                httpsByHost.put(host, useHttps);
+                final Connection connection = mock(Connection.class);
+                when(connection.getHost()).thenReturn(host);
+                when(connection.getMode()).thenReturn(mode);
+                return connection;
+            }
+        };
+        final int threads = 16;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Callable<Connection>> tasks = new ArrayList<>();
+            final List<Config> configs = new ArrayList<>();
+            for (int i = 0; i < threads * 64; i++) {
+                final FsConnectionMode mode = testCases[i % testCases.length];
+                final Config serverConfig = mock(Config.class);
+                when(serverConfig.getHost()).thenReturn("server" + i);
+                when(serverConfig.getPort()).thenReturn(mode.getDefaultPort());
+                when(serverConfig.getConnectionMode()).thenReturn(mode);
+                when(serverConfig.getUser()).thenReturn("Admin");
+                when(serverConfig.getPassword()).thenReturn("Admin");
+                configs.add(serverConfig);
+                tasks.add(() -> ConnectionBuilder.with(serverConfig, connectionManager).build());
+            }
+
+            final List<Future<Connection>> futures = executor.invokeAll(tasks);
+
+            for (int i = 0; i < futures.size(); i++) {
+                final Connection connection = futures.get(i).get();
+                final FsConnectionMode mode = configs.get(i).getConnectionMode();
+                assertThat(connection.getHost(), is(configs.get(i).getHost()));
+                assertThat(connection.getMode(), is(mode.getCode()));
+                assertThat(connection.getHost(), httpsByHost.get(connection.getHost()), is(FsConnectionMode.HTTPS == mode));
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
     }
 
     @Test(expected = NullPointerException.class)
@@ -0,0 +1,121 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli;
+
+import com.espirit.moddev.cli.PhaseTimings.Measurement;
+import com.espirit.moddev.cli.PhaseTimings.Phase;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class PhaseTimingsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        PhaseTimings.setCurrent(null);
+    }
+
+    @Test
+    public void recordsAreAccumulatedPerPhase() {
+        final PhaseTimings testling = new PhaseTimings();
+
+        testling.record(Phase.CONNECT, TimeUnit.MILLISECONDS.toNanos(2));
+        testling.record(Phase.CONNECT, TimeUnit.MILLISECONDS.toNanos(3));
+
+        assertThat(testling.getMillis(Phase.CONNECT), is(5.0));
+        assertThat(testling.getCount(Phase.CONNECT), is(2));
+        assertThat(testling.getCount(Phase.COMMAND), is(0));
+    }
+
+    @Test
+    public void measureRecordsToTimingsOfCurrentThread() throws Exception {
+        final PhaseTimings testling = new PhaseTimings();
+        PhaseTimings.setCurrent(testling);
+
+        try (Measurement ignored = PhaseTimings.measure(Phase.COMMAND)) {
+            Thread.sleep(5);
+        }
+
+        assertThat(testling.getCount(Phase.COMMAND), is(1));
+        assertThat(testling.getMillis(Phase.COMMAND), greaterThan(0.0));
+    }
+
+    @Test
+    public void measureWithoutTimingsRecordsNothing() {
+        try (Measurement ignored = PhaseTimings.measure(Phase.COMMAND)) {
+            assertThat(PhaseTimings.getCurrent() == null, is(true));
+        }
+    }
+
+    @Test
+    public void nestedCommandsEndWithOutermost() {
+        final PhaseTimings testling = new PhaseTimings();
+
+        testling.enterCommand();
+        testling.enterCommand();
+
+        assertThat(testling.exitCommand(), is(false));
+        assertThat(testling.exitCommand(), is(true));
+    }
+
+    @Test
+    public void formatListsRecordedPhasesOnly() {
+        final PhaseTimings testling = new PhaseTimings();
+        testling.record(Phase.PROJECT_LOAD, TimeUnit.MILLISECONDS.toNanos(7));
+
+        final String formatted = testling.format();
+
+        assertThat(formatted, containsString("project load"));
+        assertThat(formatted, containsString("7.0 ms"));
+        assertThat(formatted, not(containsString("connect")));
+    }
+
+    @Test
+    public void writeJson() throws Exception {
+        final PhaseTimings testling = new PhaseTimings();
+        testling.record(Phase.CONNECT, TimeUnit.MICROSECONDS.toNanos(1500));
+        testling.record(Phase.COMMAND, TimeUnit.MILLISECONDS.toNanos(10));
+        final Path file = temporaryFolder.getRoot().toPath().resolve("timings").resolve("timings.json");
+
+        testling.writeJson(file);
+
+        assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim(),
+                   is("{\"phases\":[{\"phase\":\"connect\",\"millis\":1.500,\"count\":1},"
+                      + "{\"phase\":\"command\",\"millis\":10.000,\"count\":1}]}"));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli;
+
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.agency.SpecialistsBroker;
+import de.espirit.firstspirit.agency.StoreAgent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RemoteProfilerTest {
+
+    private RemoteProfiler testling;
+    private SpecialistsBroker broker;
+    private StoreAgent storeAgent;
+    private Store store;
+
+    @Before
+    public void setUp() {
+        testling = new RemoteProfiler();
+        broker = mock(SpecialistsBroker.class);
+        storeAgent = mock(StoreAgent.class);
+        store = mock(Store.class);
+        when(broker.requireSpecialist(StoreAgent.TYPE)).thenReturn(storeAgent);
+        when(storeAgent.getStore(Store.Type.PAGESTORE)).thenReturn(store);
+    }
+
+    @After
+    public void tearDown() {
+        RemoteProfiler.setCurrent(null);
+    }
+
+    @Test
+    public void wrapWithoutProfilerReturnsObject() {
+        assertThat(RemoteProfiler.wrap(broker, SpecialistsBroker.class), is(sameInstance(broker)));
+    }
+
+    @Test
+    public void wrapDoesNotWrapTwice() {
+        RemoteProfiler.setCurrent(testling);
+        final SpecialistsBroker wrapped = RemoteProfiler.wrap(broker, SpecialistsBroker.class);
+
+        assertThat(wrapped, is(not(sameInstance(broker))));
+        assertThat(RemoteProfiler.wrap(wrapped, SpecialistsBroker.class), is(sameInstance(wrapped)));
+        assertThat(RemoteProfiler.unwrap(wrapped), is(sameInstance(broker)));
+    }
+
+    @Test
+    public void callsOnReturnedApiObjectsAreRecorded() {
+        RemoteProfiler.setCurrent(testling);
+        final SpecialistsBroker wrapped = RemoteProfiler.wrap(broker, SpecialistsBroker.class);
+
+        final StoreAgent wrappedAgent = wrapped.requireSpecialist(StoreAgent.TYPE);
+        for (int i = 0; i < 3; i++) {
+            final Store wrappedStore = wrappedAgent.getStore(Store.Type.PAGESTORE);
+            assertThat(RemoteProfiler.unwrap(wrappedStore), is(sameInstance(store)));
+        }
+
+        verify(storeAgent, times(3)).getStore(Store.Type.PAGESTORE);
+        assertThat(testling.getCallCount("StoreAgent.getStore"), is(3));
+        assertThat(testling.getCallCount(), is(4));
+        final String report = testling.format();
+        assertThat(report, containsString("StoreAgent.getStore"));
+        assertThat(report, containsString(RemoteProfilerTest.class.getName() + ".callsOnReturnedApiObjectsAreRecorded"));
+    }
+
+    @Test
+    public void objectMethodsAreNotRecorded() {
+        RemoteProfiler.setCurrent(testling);
+        final SpecialistsBroker wrapped = RemoteProfiler.wrap(broker, SpecialistsBroker.class);
+
+        wrapped.toString();
+        wrapped.hashCode();
+
+        assertThat(testling.getCallCount(), is(0));
+    }
+
+    @Test
+    public void wrappedObjectsRecordFromOtherThreads() throws Exception {
+        RemoteProfiler.setCurrent(testling);
+        final StoreAgent wrapped = RemoteProfiler.wrap(storeAgent, StoreAgent.class);
+
+        final Thread thread = new Thread(() -> wrapped.getStore(Store.Type.PAGESTORE));
+        thread.start();
+        thread.join();
+
+        assertThat(testling.getCallCount("StoreAgent.getStore"), is(1));
+    }
+
+    @Test
+    public void percentile() {
+        assertThat(RemoteProfiler.percentile(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), 50), is(5L));
+        assertThat(RemoteProfiler.percentile(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), 90), is(9L));
+        assertThat(RemoteProfiler.percentile(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), 99), is(10L));
+        assertThat(RemoteProfiler.percentile(Arrays.asList(7L), 50), is(7L));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SyncArchiveTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void archivesAreRecognizedByPrefix() {
+        assertThat(SyncArchive.isArchive("zip:export.zip"), is(true));
+        assertThat(SyncArchive.isArchive("TAR.GZ:export.tar.gz"), is(true));
+        assertThat(SyncArchive.isArchive("export"), is(false));
+        assertThat(SyncArchive.isArchive("C:\\export"), is(false));
+        assertThat(SyncArchive.isArchive(null), is(false));
+    }
+
+    @Test
+    public void parse() {
+        final SyncArchive archive = SyncArchive.parse("tar.gz: target/export.tar.gz");
+
+        assertThat(archive.getFormat(), is(SyncArchive.Format.TAR_GZ));
+        assertThat(archive.getFile(), is(Paths.get("target", "export.tar.gz")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseWithoutFileName() {
+        SyncArchive.parse("zip:");
+    }
+
+    @Test
+    public void zipRoundTrip() throws IOException {
+        assertRoundTrip("zip:");
+    }
+
+    @Test
+    public void tarGzRoundTrip() throws IOException {
+        assertRoundTrip("tar.gz:");
+    }
+
+    @Test
+    public void zipKeepsModificationTimes() throws IOException {
+        assertModificationTimesAreKept("zip:");
+    }
+
+    @Test
+    public void tarGzKeepsModificationTimes() throws IOException {
+        assertModificationTimesAreKept("tar.gz:");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingArchiveFailsIfRequired() throws IOException {
+        SyncArchive.parse("zip:" + temporaryFolder.getRoot().toPath().resolve("missing.zip")).extractToTemporaryDirectory(true);
+    }
+
+    @Test
+    public void missingArchiveResultsInEmptyDirectory() throws IOException {
+        final Path directory = SyncArchive.parse("zip:" + temporaryFolder.getRoot().toPath().resolve("missing.zip")).extractToTemporaryDirectory(false);
+        try {
+            assertThat(Files.list(directory).count(), is(0L));
+        } finally {
+            SyncArchive.deleteDirectory(directory);
+        }
+        assertThat(Files.exists(directory), is(false));
+    }
+
+    @Test(expected = IOException.class)
+    public void entriesOutsideOfTheTargetAreRejected() throws IOException {
+        final Path file = temporaryFolder.getRoot().toPath().resolve("evil.zip");
+        try (OutputStream outputStream = Files.newOutputStream(file); ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            zipOutputStream.putNextEntry(new ZipEntry("../evil.txt"));
+            zipOutputStream.write(1);
+            zipOutputStream.closeEntry();
+        }
+        SyncArchive.parse("zip:" + file).extract(temporaryFolder.newFolder("target").toPath());
+    }
+
+    private void assertRoundTrip(String prefix) throws IOException {
+        final Path source = temporaryFolder.newFolder("source").toPath();
+        final String longName = String.join("/", Collections.nCopies(12, "PageFolderWithLongUid")) + "/page.xml";
+        write(source.resolve(".FirstSpirit/Import.txt"), "line");
+        write(source.resolve(longName), "<page/>");
+        Files.createDirectories(source.resolve("MediaStore/empty"));
+        final SyncArchive archive = SyncArchive.parse(prefix + temporaryFolder.getRoot().toPath().resolve("export.archive"));
+
+        archive.write(source);
+        final Path target = archive.extractToTemporaryDirectory(true);
+
+        try {
+            assertThat(read(target.resolve(".FirstSpirit/Import.txt")), contains("line"));
+            assertThat(read(target.resolve(longName)), contains("<page/>"));
+            assertThat(Files.isDirectory(target.resolve("MediaStore/empty")), is(true));
+        } finally {
+            SyncArchive.deleteDirectory(target);
+        }
+    }
+
+    private void assertModificationTimesAreKept(String prefix) throws IOException {
+        final Path source = temporaryFolder.newFolder("source").toPath();
+        final FileTime modified = FileTime.from(Instant.parse("2016-11-24T18:00:00Z"));
+        write(source.resolve("PageStore/page/StoreElement.xml"), "<page/>");
+        Files.setLastModifiedTime(source.resolve("PageStore/page/StoreElement.xml"), modified);
+        Files.setLastModifiedTime(source.resolve("PageStore/page"), modified);
+        Files.setLastModifiedTime(source.resolve("PageStore"), modified);
+        final Path file = temporaryFolder.getRoot().toPath().resolve("export.archive");
+        final SyncArchive archive = SyncArchive.parse(prefix + file);
+        archive.write(source);
+        final byte[] packed = Files.readAllBytes(file);
+
+        final Path target = archive.extractToTemporaryDirectory(true);
+        try {
+            assertThat(Files.getLastModifiedTime(target.resolve("PageStore/page/StoreElement.xml")), is(modified));
+            assertThat(Files.getLastModifiedTime(target.resolve("PageStore/page")), is(modified));
+            // unchanged content is packed into the same archive again
+            archive.write(target);
+            assertThat(Files.readAllBytes(file), is(packed));
+        } finally {
+            SyncArchive.deleteDirectory(target);
+        }
+    }
+
+    private static void write(Path file, String... lines) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> read(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+}
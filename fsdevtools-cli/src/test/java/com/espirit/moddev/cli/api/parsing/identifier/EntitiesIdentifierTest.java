@@ -22,13 +22,30 @@
 
 package com.espirit.moddev.cli.api.parsing.identifier;
 
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import de.espirit.or.schema.Attribute;
+import de.espirit.or.schema.Entity;
+import de.espirit.or.schema.EntityType;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class EntitiesIdentifierTest {
 
@@ -52,4 +69,81 @@ public class EntitiesIdentifierTest {
         assertThat("Expected two equal entities identifiers for equal uidType", identifier, equalTo(equalIdentifier));
         assertThat("Expected two different entities identifiers to not be equal", identifier, not(equalTo(anUnequalIdentifier)));
     }
+
+    @Test
+    public void testConditionsAreCompared() {
+        EntitiesIdentifier identifier = new EntitiesIdentifier("products", Collections.singletonMap("category", "shoes"));
+        EntitiesIdentifier equalIdentifier = new EntitiesIdentifier("products", Collections.singletonMap("category", "shoes"));
+
+        assertThat(identifier, equalTo(equalIdentifier));
+        assertThat(identifier, not(equalTo(new EntitiesIdentifier("products"))));
+    }
+
+    @Test
+    public void testEmptyConditionAttribute() {
+        expectedException.expect(IllegalArgumentException.class);
+        new EntitiesIdentifier("products", Collections.singletonMap("", "shoes"));
+    }
+
+    @Test
+    public void testEntitiesAreAddedPageByPage() {
+        final List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entities.add(mock(Entity.class));
+        }
+        final List<Integer> requestedIndexes = new ArrayList<>();
+        final ExportOperation.SchemaOptions schemaOptions = mock(ExportOperation.SchemaOptions.class);
+
+        final int added = EntitiesIdentifier.addEntities((firstIndex, maxCount) -> {
+            requestedIndexes.add(firstIndex);
+            return entities.subList(Math.min(firstIndex, entities.size()), Math.min(firstIndex + maxCount, entities.size()));
+        }, 2, schemaOptions);
+
+        assertThat(added, is(5));
+        assertThat(requestedIndexes, contains(0, 2, 4));
+        for (Entity entity : entities) {
+            verify(schemaOptions, times(1)).addEntity(entity);
+        }
+    }
+
+    @Test
+    public void testFullLastPageIsFollowedByEmptyPage() {
+        final List<Integer> requestedIndexes = new ArrayList<>();
+
+        final int added = EntitiesIdentifier.addEntities((firstIndex, maxCount) -> {
+            requestedIndexes.add(firstIndex);
+            return firstIndex == 0 ? Collections.nCopies(maxCount, mock(Entity.class)) : Collections.emptyList();
+        }, 2, mock(ExportOperation.SchemaOptions.class));
+
+        assertThat(added, is(2));
+        assertThat(requestedIndexes, contains(0, 2));
+    }
+
+    @Test
+    public void testConditionsAreConvertedToTheAttributeTypes() {
+        final EntityType entityType = mock(EntityType.class);
+        final Attribute price = mock(Attribute.class);
+        doReturn(Integer.class).when(price).getType();
+        when(entityType.getAttribute("price")).thenReturn(price);
+        final Attribute category = mock(Attribute.class);
+        doReturn(String.class).when(category).getType();
+        when(entityType.getAttribute("category")).thenReturn(category);
+        final Map<String, String> conditions = new LinkedHashMap<>();
+        conditions.put("price", "42");
+        conditions.put("category", "shoes");
+
+        final Map<String, Object> converted = new EntitiesIdentifier("products", conditions).convertConditions(entityType);
+
+        assertThat(converted.get("price"), is((Object) 42));
+        assertThat(converted.get("category"), is((Object) "shoes"));
+    }
+
+    @Test
+    public void testConditionOnUnknownAttribute() {
+        final EntityType entityType = mock(EntityType.class);
+        when(entityType.getName()).thenReturn("products");
+
+        expectedException.expect(IllegalArgumentException.class);
+        new EntitiesIdentifier("products", Collections.singletonMap("colour", "red")).convertConditions(entityType);
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import de.espirit.or.Session;
+import de.espirit.or.query.And;
+import de.espirit.or.query.Constraint;
+import de.espirit.or.query.Equal;
+import de.espirit.or.query.Select;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EntityQueryTest {
+
+    private Session session;
+    private Select select;
+
+    @Before
+    public void setUp() {
+        session = mock(Session.class);
+        select = mock(Select.class);
+        when(session.createSelect("products")).thenReturn(select);
+    }
+
+    @Test
+    public void filterOfTheContent2IsKeptWithoutConditions() {
+        final Constraint filter = mock(Constraint.class);
+
+        new EntityQuery(session, "products", filter, Collections.emptyMap(), Collections.singletonList("fs_id")).fetch(0, 10);
+
+        verify(select).setConstraint(filter);
+    }
+
+    @Test
+    public void filterOfTheContent2IsCombinedWithConditions() {
+        final Constraint filter = mock(Constraint.class);
+
+        new EntityQuery(session, "products", filter, Collections.singletonMap("category", "shoes"), Collections.singletonList("fs_id"))
+            .fetch(0, 10);
+
+        verify(select).setConstraint(isA(And.class));
+    }
+
+    @Test
+    public void singleConditionWithoutFilterIsAnEqual() {
+        new EntityQuery(session, "products", null, Collections.singletonMap("online", Boolean.TRUE), Collections.singletonList("fs_id"))
+            .fetch(0, 10);
+
+        verify(select).setConstraint(isA(Equal.class));
+    }
+
+    @Test
+    public void allEntitiesAreQueriedWithoutFilterAndConditions() {
+        new EntityQuery(session, "products", null, Collections.emptyMap(), Collections.singletonList("fs_id")).fetch(0, 10);
+
+        verify(select, never()).setConstraint(any(Constraint.class));
+    }
+
+    @Test
+    public void pagesAreOrderedByThePrimaryKey() {
+        new EntityQuery(session, "products", null, Collections.emptyMap(), Arrays.asList("fs_id", "fs_valid_from")).fetch(500, 500);
+
+        final InOrder order = inOrder(select);
+        order.verify(select).addOrderCriteria("fs_id", true);
+        order.verify(select).addOrderCriteria("fs_valid_from", true);
+        verify(select).setFirstResultIndex(500);
+        verify(select).setMaxResultCount(500);
+    }
+
+    @Test
+    public void valuesAreConvertedToTheAttributeType() {
+        assertThat(EntityQuery.convert("shoes", String.class), is("shoes"));
+        assertThat(EntityQuery.convert(" 42 ", Integer.class), is(42));
+        assertThat(EntityQuery.convert("42", long.class), is(42L));
+        assertThat(EntityQuery.convert("1.5", Double.class), is(1.5d));
+        assertThat(EntityQuery.convert("1.50", BigDecimal.class), is(new BigDecimal("1.50")));
+        assertThat(EntityQuery.convert("1", Boolean.class), is(Boolean.TRUE));
+        assertThat(EntityQuery.convert("false", boolean.class), is(Boolean.FALSE));
+        assertThat(EntityQuery.convert("2017-03-31", Date.class),
+                   is(Date.from(LocalDate.of(2017, 3, 31).atStartOfDay(ZoneId.systemDefault()).toInstant())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidNumbersAreRejected() {
+        EntityQuery.convert("many", Integer.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBooleansAreRejected() {
+        EntityQuery.convert("yes", Boolean.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedTypesAreRejected() {
+        EntityQuery.convert("value", byte[].class);
+    }
+}
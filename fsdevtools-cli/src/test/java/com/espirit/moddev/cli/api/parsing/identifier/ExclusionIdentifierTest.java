@@ -0,0 +1,81 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.mediastore.Media;
+import de.espirit.firstspirit.access.store.mediastore.MediaFolder;
+import org.junit.Test;
+
+import static com.espirit.moddev.cli.util.StoreTestUtil.mockElement;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ExclusionIdentifierTest {
+
+    private final Store mediaStore = mock(Store.class);
+    private final StoreIndex.Entry archive = new StoreIndex.Entry(mockElement(MediaFolder.class, 1, "archive", mediaStore), null);
+    private final StoreIndex.Entry image = new StoreIndex.Entry(mockElement(Media.class, 2, "old_image", archive.getElement()), archive);
+
+    @Test
+    public void pathExclusion() {
+        final ExclusionIdentifier exclusion = ExclusionIdentifier.parse("path:/MediaStore/archive/**");
+
+        assertThat(exclusion.excludes(Store.Type.MEDIASTORE, archive), is(false));
+        assertThat(exclusion.excludes(Store.Type.MEDIASTORE, image), is(true));
+        assertThat(exclusion.excludes(Store.Type.PAGESTORE, image), is(false));
+    }
+
+    @Test
+    public void uidExclusion() {
+        final ExclusionIdentifier exclusion = ExclusionIdentifier.parse("uid:old_*");
+
+        assertThat(exclusion.excludes(Store.Type.MEDIASTORE, archive), is(false));
+        assertThat(exclusion.excludes(Store.Type.MEDIASTORE, image), is(true));
+    }
+
+    @Test
+    public void typeExclusion() {
+        final ExclusionIdentifier exclusion = ExclusionIdentifier.parse("TYPE:Media");
+
+        assertThat(exclusion.excludes(Store.Type.MEDIASTORE, archive), is(false));
+        assertThat(exclusion.excludes(Store.Type.MEDIASTORE, image), is(true));
+        assertThat(exclusion.excludes(Store.Type.PAGESTORE, image), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownPrefixIsRejected() {
+        ExclusionIdentifier.parse("name:archive");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownTypeIsRejected() {
+        ExclusionIdentifier.parse("type:nothing");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingValueIsRejected() {
+        ExclusionIdentifier.parse("uid:");
+    }
+}
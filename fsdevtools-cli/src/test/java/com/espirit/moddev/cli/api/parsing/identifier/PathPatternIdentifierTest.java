@@ -0,0 +1,113 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import com.espirit.moddev.cli.util.StoreTestUtil.SimpleListable;
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.pagestore.Page;
+import de.espirit.firstspirit.access.store.pagestore.PageFolder;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.espirit.moddev.cli.util.StoreTestUtil.mockElement;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PathPatternIdentifierTest {
+
+    private StoreAgent storeAgent;
+    private Store pageStore;
+    private PageFolder folder;
+    private PageFolder subFolder;
+    private Page page;
+    private Page nestedPage;
+
+    @Before
+    public void setUp() {
+        storeAgent = mock(StoreAgent.class);
+        pageStore = mock(Store.class);
+        when(storeAgent.getStore(Store.Type.PAGESTORE, false)).thenReturn(pageStore);
+        folder = mockElement(PageFolder.class, 1, "folder", pageStore);
+        page = mockElement(Page.class, 2, "page", folder);
+        subFolder = mockElement(PageFolder.class, 3, "sub", folder);
+        nestedPage = mockElement(Page.class, 4, "nested", subFolder);
+        when(pageStore.getChildren(IDProvider.class, true)).thenReturn(new SimpleListable(Arrays.asList(folder, page, subFolder, nestedPage)));
+    }
+
+    @Test
+    public void anyDepthMatchesAllDescendants() {
+        final ExportOperation exportOperation = mock(ExportOperation.class);
+
+        new PathPatternIdentifier("/PageStore/folder/**").addToExportOperation(storeAgent, false, exportOperation);
+
+        verify(exportOperation, never()).addElement(folder);
+        verify(exportOperation).addElement(page);
+        verify(exportOperation).addElement(subFolder);
+        verify(exportOperation).addElement(nestedPage);
+    }
+
+    @Test
+    public void wildcardMatchesWithinOneSegment() {
+        final ExportOperation exportOperation = mock(ExportOperation.class);
+
+        new PathPatternIdentifier("/pagestore/fold*/*").addToExportOperation(storeAgent, false, exportOperation);
+
+        verify(exportOperation).addElement(page);
+        verify(exportOperation).addElement(subFolder);
+        verify(exportOperation, never()).addElement(nestedPage);
+    }
+
+    @Test
+    public void anyDepthInTheMiddle() {
+        final ExportOperation exportOperation = mock(ExportOperation.class);
+
+        new PathPatternIdentifier("/PageStore/**/nest?d").addToExportOperation(storeAgent, false, exportOperation);
+
+        verify(exportOperation).addElement(nestedPage);
+        verify(exportOperation, never()).addElement(page);
+    }
+
+    @Test
+    public void storePatternMatchesStoreTypes() {
+        assertThat(new PathPatternIdentifier("/page*/**").getStoreTypes(), contains(Store.Type.PAGESTORE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownStoreIsRejected() {
+        new PathPatternIdentifier("/NoStore/**");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void relativePathIsRejected() {
+        new PathPatternIdentifier("PageStore/**");
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import com.espirit.moddev.cli.util.StoreTestUtil.SimpleListable;
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.pagestore.Page;
+import de.espirit.firstspirit.access.store.pagestore.PageFolder;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.espirit.moddev.cli.util.StoreTestUtil.mockElement;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UidPatternIdentifierTest {
+
+    private StoreAgent storeAgent;
+    private Store pageStore;
+    private PageFolder folder;
+    private Page newsA;
+    private Page newsB;
+    private Page other;
+
+    @Before
+    public void setUp() {
+        storeAgent = mock(StoreAgent.class);
+        pageStore = mock(Store.class);
+        when(storeAgent.getStore(Store.Type.PAGESTORE, false)).thenReturn(pageStore);
+        folder = mockElement(PageFolder.class, 1, "news_folder", pageStore);
+        newsA = mockElement(Page.class, 2, "news_a", folder);
+        newsB = mockElement(Page.class, 3, "news_b", folder);
+        other = mockElement(Page.class, 4, "other", folder);
+        when(pageStore.getChildren(IDProvider.class, true)).thenReturn(new SimpleListable(Arrays.asList(folder, newsA, newsB, other)));
+    }
+
+    @Test
+    public void matchingElementsOfTheMappedClassAreAdded() {
+        final ExportOperation exportOperation = mock(ExportOperation.class);
+
+        new UidPatternIdentifier(UidMapping.PAGE, "news_*").addToExportOperation(storeAgent, false, exportOperation);
+
+        verify(exportOperation).addElement(newsA);
+        verify(exportOperation).addElement(newsB);
+        verify(exportOperation, never()).addElement(other);
+        verify(exportOperation, never()).addElement(folder);
+    }
+
+    @Test
+    public void singleCharacterWildcard() {
+        final ExportOperation exportOperation = mock(ExportOperation.class);
+
+        new UidPatternIdentifier(UidMapping.PAGE, "news_?").addToExportOperation(storeAgent, false, exportOperation);
+
+        verify(exportOperation).addElement(newsA);
+        verify(exportOperation).addElement(newsB);
+    }
+
+    @Test
+    public void storeIsTraversedOnceForAllPatterns() {
+        final ExportOperation exportOperation = mock(ExportOperation.class);
+        final StoreIndexes storeIndexes = new StoreIndexes(storeAgent, false);
+
+        new UidPatternIdentifier(UidMapping.PAGE, "news_a").addToExportOperation(storeIndexes, exportOperation);
+        new UidPatternIdentifier(UidMapping.PAGE, "oth*").addToExportOperation(storeIndexes, exportOperation);
+        new UidPatternIdentifier(UidMapping.PAGEFOLDER, "*").addToExportOperation(storeIndexes, exportOperation);
+
+        verify(storeAgent, times(1)).getStore(Store.Type.PAGESTORE, false);
+        verify(pageStore, times(1)).getChildren(IDProvider.class, true);
+        verify(exportOperation).addElement(newsA);
+        verify(exportOperation).addElement(other);
+        verify(exportOperation).addElement(folder);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyPatternIsRejected() {
+        new UidPatternIdentifier(UidMapping.PAGE, " ");
+    }
+}
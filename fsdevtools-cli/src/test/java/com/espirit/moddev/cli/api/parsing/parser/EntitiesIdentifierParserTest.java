@@ -32,7 +32,9 @@ import org.junit.experimental.theories.Theory;
 import org.junit.runner.RunWith;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.espirit.moddev.cli.api.parsing.parser.EntitiesIdentifierParser.ENTITIES_IDENTIFIER;
 import static org.junit.Assert.*;
@@ -70,6 +72,27 @@ public class EntitiesIdentifierParserTest {
         Assert.assertEquals(new EntitiesIdentifier("xyz"), result.get(0));
     }
 
+    @Test
+    public void parseWithConditions() throws Exception {
+        List<EntitiesIdentifier> result = testling.parse(Arrays.asList("entities:products?where=category=shoes, published = 2016-11-24T18:00"));
+        final Map<String, String> conditions = new LinkedHashMap<>();
+        conditions.put("category", "shoes");
+        conditions.put("published", "2016-11-24T18:00");
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(new EntitiesIdentifier("products", conditions), result.get(0));
+        Assert.assertTrue(testling.appliesTo("entities:products?where=published=2016-11-24T18:00"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseUnknownParameter() throws Exception {
+        testling.parse(Arrays.asList("entities:products?order=name"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseConditionWithoutAttribute() throws Exception {
+        testling.parse(Arrays.asList("entities:products?where==shoes"));
+    }
+
     @Test
     public void testAppliesTo() throws Exception {
         Assert.assertTrue(testling.appliesTo("entities:products"));
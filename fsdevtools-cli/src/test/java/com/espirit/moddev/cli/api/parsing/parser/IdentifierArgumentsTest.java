@@ -0,0 +1,80 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.parser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class IdentifierArgumentsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void argumentsWithoutFilesAreReturnedUnchanged() {
+        final List<String> arguments = Arrays.asList("page:homepage", "templatestore");
+
+        assertThat(IdentifierArguments.expand(arguments, stdin("")), is(sameInstance(arguments)));
+    }
+
+    @Test
+    public void fileIsReplacedByItsLines() throws IOException {
+        final File file = temporaryFolder.newFile("identifiers.txt");
+        Files.write(file.toPath(), " page:homepage \n\n# comment\npagetemplate:default\n".getBytes(StandardCharsets.UTF_8));
+
+        final List<String> identifiers = IdentifierArguments.expand(Arrays.asList("templatestore", "@" + file.getPath()), stdin(""));
+
+        assertThat(identifiers, contains("templatestore", "page:homepage", "pagetemplate:default"));
+    }
+
+    @Test
+    public void standardInputIsReadForDash() {
+        final List<String> identifiers = IdentifierArguments.expand(Arrays.asList("@-", "templatestore"), stdin("page:homepage\r\nentities:news\r\n"));
+
+        assertThat(identifiers, contains("page:homepage", "entities:news", "templatestore"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingFileIsAnError() {
+        IdentifierArguments.expand(Arrays.asList("@" + new File(temporaryFolder.getRoot(), "missing.txt").getPath()), stdin(""));
+    }
+
+    private static InputStream stdin(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
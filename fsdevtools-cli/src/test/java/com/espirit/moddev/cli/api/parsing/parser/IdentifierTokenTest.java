@@ -0,0 +1,66 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.parser;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class IdentifierTokenTest {
+
+    @Test
+    public void prefixAndValueAreSplitAtTheFirstDelimiter() {
+        final IdentifierToken token = IdentifierToken.of("PageTemplate : homepage");
+
+        assertThat(token.getInput(), is("PageTemplate : homepage"));
+        assertThat(token.getPrefix(), is("pagetemplate"));
+        assertThat(token.getValue(), is("homepage"));
+        assertThat(token.isPair(), is(true));
+    }
+
+    @Test
+    public void identifierWithoutDelimiterIsItsOwnPrefix() {
+        final IdentifierToken token = IdentifierToken.of("templatestore");
+
+        assertThat(token.getPrefix(), is("templatestore"));
+        assertThat(token.getValue(), is(nullValue()));
+        assertThat(token.isPair(), is(false));
+    }
+
+    @Test
+    public void valueKeepsFurtherDelimiters() {
+        final IdentifierToken token = IdentifierToken.of("entities:products?where=published=2016-11-24T18:00");
+
+        assertThat(token.getValue(), is("products?where=published=2016-11-24T18:00"));
+        assertThat(token.isPair(), is(false));
+    }
+
+    @Test
+    public void trailingDelimitersAreIgnored() {
+        assertThat(IdentifierToken.of("page:homepage:").getValue(), is("homepage"));
+        assertThat(IdentifierToken.of("page: ").getValue(), is(""));
+        assertThat(IdentifierToken.of("page:").isPair(), is(false));
+    }
+}
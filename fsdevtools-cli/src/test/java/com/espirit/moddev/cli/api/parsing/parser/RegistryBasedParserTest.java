@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 
 public class RegistryBasedParserTest {
@@ -146,4 +147,64 @@ public class RegistryBasedParserTest {
         List<Identifier> result = testling.parse(Lists.newArrayList("path:/TemplateStore/Pagetemplates/<FOLDER_NAME>/UID", "entities:Produkte", "projectprops:RESOLUTION", "pagetemplate:homepage", "projectprops:COMMON"));
         Assert.assertEquals(4, result.size());
     }
+
+    @Test
+    public void patternsAreParsedByPatternParsersOnly() {
+        testling.registerParser(new UidPatternIdentifierParser());
+        testling.registerParser(new UidIdentifierParser());
+        testling.registerParser(new PathPatternIdentifierParser());
+        testling.registerParser(new PathIdentifierParser());
+
+        final List<Identifier> list = testling.parse(Arrays.asList("page:news_*", "page:homepage", "path:/PageStore/folder/**", "path:/PageStore/folder"));
+
+        Assert.assertThat(list, contains(new UidPatternIdentifier(UidMapping.PAGE, "news_*"), new UidIdentifier(UidMapping.PAGE, "homepage"),
+                                         new PathPatternIdentifier("/PageStore/folder/**"), new PathIdentifier("/PageStore/folder")));
+    }
+
+    @Test
+    public void earlierRegisteredUnprefixedParserIsPreferred() {
+        final Identifier custom = (storeAgent, useReleaseState, exportOperation) -> {};
+        testling.registerParser(new Parser<Identifier>() {
+            @Override
+            public List<Identifier> parse(List<String> input) {
+                return Lists.newArrayList(custom);
+            }
+
+            @Override
+            public boolean appliesTo(String input) {
+                return input.equals("page:custom");
+            }
+        });
+        testling.registerParser(new UidIdentifierParser());
+
+        final List<Identifier> list = testling.parse(Arrays.asList("page:custom", "page:homepage"));
+
+        Assert.assertThat(list, contains(custom, new UidIdentifier(UidMapping.PAGE, "homepage")));
+    }
+
+    @Test
+    public void parsersAreDispatchedByPrefix() {
+        testling.registerParser(new RootNodeIdentifierParser());
+        testling.registerParser(new EntitiesIdentifierParser());
+        testling.registerParser(new UidIdentifierParser());
+        testling.registerParser(new PathIdentifierParser());
+
+        final List<Identifier> list = testling.parse(Arrays.asList("PAGE : homepage", "templatestore", "path:/PageStore/folder", "entities:news"));
+
+        Assert.assertThat(list, contains(new UidIdentifier(UidMapping.PAGE, "homepage"), new RootNodeIdentifier(IDProvider.UidType.TEMPLATESTORE),
+                                         new PathIdentifier("/PageStore/folder"), new EntitiesIdentifier("news")));
+        Assert.assertFalse(testling.appliesTo("unknown:homepage"));
+        Assert.assertFalse(testling.appliesTo("page:"));
+    }
+
+    @Test
+    public void unregisteredParserIsNotUsedAnymore() {
+        final UidIdentifierParser uidIdentifierParser = new UidIdentifierParser();
+        testling.registerParser(uidIdentifierParser);
+        Assert.assertTrue(testling.appliesTo("page:homepage"));
+
+        testling.unregisterParser(uidIdentifierParser);
+
+        Assert.assertFalse(testling.appliesTo("page:homepage"));
+    }
 }
@@ -0,0 +1,116 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ChangedSubtreeFileSystemTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = temporaryFolder.newFolder("sync").toPath();
+        Files.createDirectories(root.resolve(ChangedSubtreeFileSystem.METADATA_DIRECTORY));
+        Files.createDirectories(root.resolve("Templates/PageTemplates/a"));
+        Files.createDirectories(root.resolve("Templates/PageTemplates/b"));
+        Files.createDirectories(root.resolve("PageStore/x"));
+        Files.write(root.resolve("Templates/PageTemplates/a/StoreElement.xml"), new byte[0]);
+    }
+
+    @Test
+    public void changedFileSelectsItsDirectory() {
+        final ChangedSubtreeFileSystem changes = ChangedSubtreeFileSystem.of(root, Collections.singleton(root.resolve("Templates/PageTemplates/a/StoreElement.xml")));
+
+        assertThat(changes.isFullImport(), is(false));
+        assertThat(changes.getSubtrees(), contains("Templates/PageTemplates/a"));
+    }
+
+    @Test
+    public void deletedDirectorySelectsItsParent() {
+        final ChangedSubtreeFileSystem changes = ChangedSubtreeFileSystem.of(root, Collections.singleton(root.resolve("Templates/PageTemplates/deleted")));
+
+        assertThat(changes.getSubtrees(), contains("Templates/PageTemplates"));
+    }
+
+    @Test
+    public void nestedSubtreesAreCollapsed() {
+        final ChangedSubtreeFileSystem changes = ChangedSubtreeFileSystem.of(root, Arrays.asList(root.resolve("Templates/PageTemplates/a/StoreElement.xml"),
+                                                                                                 root.resolve("Templates/PageTemplates/b"),
+                                                                                                 root.resolve("Templates/PageTemplates")));
+
+        assertThat(changes.getSubtrees(), contains("Templates/PageTemplates"));
+    }
+
+    @Test
+    public void metadataChangeRequiresFullImport() {
+        final ChangedSubtreeFileSystem changes = ChangedSubtreeFileSystem.of(root, Collections.singleton(root.resolve(".FirstSpirit/Info.xml")));
+
+        assertThat(changes.isFullImport(), is(true));
+    }
+
+    @Test
+    public void changeOfTheRootRequiresFullImport() {
+        assertThat(ChangedSubtreeFileSystem.of(root, Collections.singleton(root)).isFullImport(), is(true));
+        assertThat(ChangedSubtreeFileSystem.of(root, Collections.singleton(root.resolve("file.txt"))).isFullImport(), is(true));
+    }
+
+    @Test
+    public void viewShowsSubtreesTheirAncestorsAndTheMetadata() {
+        final ChangedSubtreeFileSystem changes = ChangedSubtreeFileSystem.of(root, Collections.singleton(root.resolve("Templates/PageTemplates/a/StoreElement.xml")));
+
+        assertThat(changes.isVisible("/", true), is(true));
+        assertThat(changes.isVisible("/.FirstSpirit/Info.xml", false), is(true));
+        assertThat(changes.isVisible("/Templates", true), is(true));
+        assertThat(changes.isVisible("/Templates/StoreElement.xml", false), is(true));
+        assertThat(changes.isVisible("/Templates/PageTemplates/StoreElement.xml", false), is(true));
+        assertThat(changes.isVisible("/Templates/PageTemplates/a", true), is(true));
+        assertThat(changes.isVisible("/Templates/PageTemplates/a/StoreElement.xml", false), is(true));
+    }
+
+    @Test
+    public void viewHidesUnchangedSubtrees() {
+        final ChangedSubtreeFileSystem changes = ChangedSubtreeFileSystem.of(root, Collections.singleton(root.resolve("Templates/PageTemplates/a/StoreElement.xml")));
+
+        assertThat(changes.isVisible("/Templates/PageTemplates/b", true), is(false));
+        assertThat(changes.isVisible("/Templates/PageTemplates/ab", true), is(false));
+        assertThat(changes.isVisible("/Templates/PageTemplates/b/StoreElement.xml", false), is(false));
+        assertThat(changes.isVisible("/PageStore", true), is(false));
+    }
+}
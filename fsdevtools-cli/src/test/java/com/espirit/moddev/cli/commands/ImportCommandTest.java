@@ -23,18 +23,37 @@
 package com.espirit.moddev.cli.commands;
 
 import com.espirit.moddev.cli.CliConstants;
+import com.espirit.moddev.cli.commands.export.MediaMetadataOnlyFileSystem;
+import com.espirit.moddev.cli.results.ImportResult;
+
+import de.espirit.firstspirit.access.project.ProjectScriptContext;
+import de.espirit.firstspirit.agency.OperationAgent;
+import de.espirit.firstspirit.store.access.nexport.operations.ImportOperation;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * The Class ImportCommandTest tests the default settings.
  */
 public class ImportCommandTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private ImportCommand testling;
 
     @Before
@@ -61,4 +80,34 @@ public class ImportCommandTest {
     public void testGetImportComment() throws Exception {
         assertThat("Expect null value", testling.getImportComment(), is("Imported by " + CliConstants.FS_CLI));
     }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWatchingCantBeExecutedForSeveralProjects() throws Exception {
+        testling.setWatch(true);
+        testling.checkFanOut();
+    }
+
+    @Test
+    public void testImportCanBeExecutedForSeveralProjects() throws Exception {
+        testling.checkFanOut();
+    }
+
+    @Test
+    public void testSyncDirWithMediaPlaceholdersIsNotImported() throws Exception {
+        final ImportOperation importOperation = mock(ImportOperation.class);
+        final OperationAgent operationAgent = mock(OperationAgent.class);
+        when(operationAgent.getOperation(ImportOperation.TYPE)).thenReturn(importOperation);
+        final ProjectScriptContext context = mock(ProjectScriptContext.class);
+        when(context.requireSpecialist(OperationAgent.TYPE)).thenReturn(operationAgent);
+        final Path syncDir = temporaryFolder.getRoot().toPath();
+        MediaMetadataOnlyFileSystem.writeMarker(syncDir);
+        testling.setContext(context);
+        testling.setSynchronizationDirectory(syncDir.toString());
+
+        final ImportResult result = testling.call();
+
+        assertThat(result.isError(), is(true));
+        assertThat(result.getError().getMessage(), containsString("--media-metadata-only"));
+        verify(importOperation, never()).perform(any());
+    }
 }
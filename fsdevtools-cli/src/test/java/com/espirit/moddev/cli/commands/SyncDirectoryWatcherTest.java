@@ -0,0 +1,81 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SyncDirectoryWatcherTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test(timeout = 10000)
+    public void closingTheWatcherEndsWaitingForChanges() throws Exception {
+        final Path root = temporaryFolder.getRoot().toPath();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (SyncDirectoryWatcher watcher = new SyncDirectoryWatcher(root, 50)) {
+            final Future<Set<Path>> changes = executor.submit(watcher::awaitChanges);
+            // give the watcher the chance to block
+            Thread.sleep(200);
+
+            watcher.close();
+
+            assertThat(changes.get(5, TimeUnit.SECONDS), is(empty()));
+            assertThat(watcher.isClosed(), is(true));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void changesBeforeWaitingAreReported() throws Exception {
+        final Path root = temporaryFolder.getRoot().toPath();
+        try (SyncDirectoryWatcher watcher = new SyncDirectoryWatcher(root, 50)) {
+            final Path changed = Files.write(root.resolve("changed.txt"), new byte[]{1});
+
+            assertThat(watcher.awaitChanges(), hasItem(changed));
+        }
+    }
+
+    @Test
+    public void watcherIsOpenAfterCreation() throws Exception {
+        try (SyncDirectoryWatcher watcher = new SyncDirectoryWatcher(temporaryFolder.getRoot().toPath(), 50)) {
+            assertThat(watcher.isClosed(), is(false));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import com.espirit.moddev.cli.results.ExportResult;
+import com.espirit.moddev.cli.results.ImportResult;
+import com.espirit.moddev.cli.results.TransferResult;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the validation of the transfer command and the error handling of its result.
+ */
+public class TransferCommandTest {
+
+    private TransferCommand testling;
+
+    @Before
+    public void setUp() {
+        testling = new TransferCommand();
+        testling.setProject("source");
+    }
+
+    @Test
+    public void missingTargetProjectIsAnError() {
+        final TransferResult result = testling.call();
+
+        assertThat(result.isError(), is(true));
+        assertThat(result.getError().getMessage(), containsString("target project"));
+    }
+
+    @Test
+    public void targetProjectMustDifferFromSourceProject() {
+        testling.setTargetProject("source");
+
+        final TransferResult result = testling.call();
+
+        assertThat(result.isError(), is(true));
+        assertThat(result.getError().getMessage(), containsString("must differ"));
+    }
+
+    @Test
+    public void failedExportIsTheErrorOfTheTransfer() {
+        final Exception exportError = new IllegalStateException("export failed");
+        final ExportResult exportResult = mock(ExportResult.class);
+        when(exportResult.isError()).thenReturn(true);
+        when(exportResult.getError()).thenReturn(exportError);
+
+        final TransferResult result = new TransferResult(exportResult, null);
+
+        assertThat(result.isError(), is(true));
+        assertThat(result.getError(), is(sameInstance(exportError)));
+        assertThat(result.get(), is(nullValue()));
+    }
+
+    @Test
+    public void failedImportIsTheErrorOfTheTransfer() {
+        final Exception importError = new IllegalStateException("import failed");
+        final ImportResult importResult = mock(ImportResult.class);
+        when(importResult.isError()).thenReturn(true);
+        when(importResult.getError()).thenReturn(importError);
+
+        final TransferResult result = new TransferResult(mock(ExportResult.class), importResult);
+
+        assertThat(result.isError(), is(true));
+        assertThat(result.getError(), is(sameInstance(importError)));
+    }
+
+    @Test
+    public void successfulExportAndImportIsNoError() {
+        final TransferResult result = new TransferResult(mock(ExportResult.class), mock(ImportResult.class));
+
+        assertThat(result.isError(), is(false));
+        assertThat(result.getError(), is(nullValue()));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.batch;
+
+import com.espirit.moddev.cli.Cli;
+import com.espirit.moddev.cli.results.SimpleResult;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class BatchCommandTest {
+
+    private static final String SUCCEEDING_COMMAND = "command_with_description_annotation";
+    private static final String FAILING_COMMAND = "throwexception";
+
+    private BatchCommand testling;
+
+    @Before
+    public void setUp() {
+        testling = new BatchCommand();
+    }
+
+    @Test
+    public void executesAllLinesAndIgnoresCommentsAndBlankLines() throws Exception {
+        final SimpleResult<Integer> result = execute("# comment\n" + SUCCEEDING_COMMAND + "\n\n  " + SUCCEEDING_COMMAND + "  \n");
+
+        assertThat(result.getError(), is(nullValue()));
+        assertThat(result.get(), is(2));
+    }
+
+    @Test
+    public void stopsAtFirstFailingLine() throws Exception {
+        final SimpleResult<Integer> result = execute(FAILING_COMMAND + "\n" + FAILING_COMMAND + "\n");
+
+        assertThat(result.isError(), is(true));
+        assertThat(result.getError().getMessage(), is("Batch line(s) [1] failed"));
+    }
+
+    @Test
+    public void continuesOnErrorIfRequested() throws Exception {
+        testling.setContinueOnError(true);
+
+        final SimpleResult<Integer> result = execute(FAILING_COMMAND + "\n" + SUCCEEDING_COMMAND + "\n# comment\n" + FAILING_COMMAND + "\n");
+
+        assertThat(result.isError(), is(true));
+        assertThat(result.getError().getMessage(), is("Batch line(s) [1, 4] failed"));
+    }
+
+    @Test
+    public void unknownFileIsAnError() {
+        testling.setFile("non-existing-batch-file.txt");
+
+        assertThat(testling.call().isError(), is(true));
+    }
+
+    private SimpleResult<Integer> execute(String lines) throws Exception {
+        return testling.execute(new BufferedReader(new StringReader(lines)), new Cli());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.batch;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CommandLineTokenizerTest {
+
+    @Test
+    public void splitsAtWhitespace() {
+        assertThat(CommandLineTokenizer.tokenize("  -h localhost\texport   page:index "), is(Arrays.asList("-h", "localhost", "export", "page:index")));
+    }
+
+    @Test
+    public void quotesGroupArguments() {
+        assertThat(CommandLineTokenizer.tokenize("-p \"Mithras Energy\" export 'page:my page'"),
+                   is(Arrays.asList("-p", "Mithras Energy", "export", "page:my page")));
+    }
+
+    @Test
+    public void backslashesAreKept() {
+        assertThat(CommandLineTokenizer.tokenize("module install -fsm \"folder\\my module.fsm\""),
+                   is(Arrays.asList("module", "install", "-fsm", "folder\\my module.fsm")));
+    }
+
+    @Test
+    public void emptyQuotesAreAnEmptyArgument() {
+        assertThat(CommandLineTokenizer.tokenize("-pwd \"\""), is(Arrays.asList("-pwd", "")));
+    }
+
+    @Test
+    public void blankLineHasNoArguments() {
+        assertThat(CommandLineTokenizer.tokenize("   "), is(Collections.<String>emptyList()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unclosedQuoteIsRejected() {
+        CommandLineTokenizer.tokenize("-p \"Mithras Energy");
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.api.parsing.identifier.ExclusionIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.StoreIndexes;
+import com.espirit.moddev.cli.util.StoreTestUtil.SimpleListable;
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.pagestore.Page;
+import de.espirit.firstspirit.access.store.pagestore.PageFolder;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.espirit.moddev.cli.util.StoreTestUtil.mockElement;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ExportExclusionsTest {
+
+    private StoreAgent storeAgent;
+    private Store pageStore;
+    private PageFolder folder;
+    private Page page;
+    private PageFolder archive;
+    private Page oldPage;
+    private Page otherPage;
+    private ExportOperation exportOperation;
+
+    @Before
+    public void setUp() {
+        storeAgent = mock(StoreAgent.class);
+        pageStore = mock(Store.class);
+        when(pageStore.getId()).thenReturn(0L);
+        when(pageStore.getType()).thenReturn(Store.Type.PAGESTORE);
+        when(storeAgent.getStore(Store.Type.PAGESTORE, false)).thenReturn(pageStore);
+        folder = mockElement(PageFolder.class, 1, "folder", pageStore);
+        page = mockElement(Page.class, 2, "page", folder);
+        archive = mockElement(PageFolder.class, 3, "archive", folder);
+        oldPage = mockElement(Page.class, 4, "old", archive);
+        otherPage = mockElement(Page.class, 5, "other", pageStore);
+        when(pageStore.getChildren(IDProvider.class)).thenReturn(new SimpleListable(Arrays.asList(folder, otherPage)));
+        when(folder.getChildren(IDProvider.class)).thenReturn(new SimpleListable(Arrays.asList(page, archive)));
+        when(archive.getChildren(IDProvider.class)).thenReturn(new SimpleListable(Collections.singletonList(oldPage)));
+        when(pageStore.getChildren(IDProvider.class, true)).thenReturn(new SimpleListable(Arrays.asList(folder, page, archive, oldPage, otherPage)));
+        exportOperation = mock(ExportOperation.class);
+    }
+
+    @Test
+    public void storeRootIsReplacedByTheSubtreesThatAreNotExcluded() {
+        final ExportOperation filtered = createExclusions(true, "path:/PageStore/folder/archive").filter(exportOperation);
+
+        filtered.addElement(pageStore);
+
+        verify(exportOperation, never()).addElement(pageStore);
+        verify(exportOperation, never()).addElement(folder);
+        verify(exportOperation).addElement(page);
+        verify(exportOperation).addElement(otherPage);
+        verify(exportOperation, never()).addElement(archive);
+        verify(exportOperation, never()).addElement(oldPage);
+    }
+
+    @Test
+    public void elementsBeneathAnExcludedElementAreExcluded() {
+        final ExportOperation filtered = createExclusions(true, "uid:arch*").filter(exportOperation);
+
+        filtered.addElement(oldPage);
+        filtered.addElement(page);
+
+        verify(exportOperation, never()).addElement(oldPage);
+        verify(exportOperation).addElement(page);
+    }
+
+    @Test
+    public void elementsWithoutExcludedChildrenArePassed() {
+        final ExportOperation filtered = createExclusions(true, "path:/PageStore/folder/archive/**").filter(exportOperation);
+
+        filtered.addElement(otherPage);
+        filtered.addElement(archive);
+
+        verify(exportOperation).addElement(otherPage);
+        verify(exportOperation, never()).addElement(archive);
+        verify(archive, never()).getChildren(IDProvider.class);
+    }
+
+    @Test
+    public void elementsAreNotSplitWithoutChildElements() {
+        final ExportOperation filtered = createExclusions(false, "type:page").filter(exportOperation);
+
+        filtered.addElement(pageStore);
+        filtered.addElement(page);
+
+        verify(exportOperation).addElement(pageStore);
+        verify(exportOperation, never()).addElement(page);
+    }
+
+    @Test
+    public void otherCallsArePassed() {
+        final ExportOperation filtered = createExclusions(true, "type:page").filter(exportOperation);
+
+        filtered.setExportChildElements(true);
+
+        verify(exportOperation).setExportChildElements(true);
+    }
+
+    private ExportExclusions createExclusions(boolean exportChildElements, String... exclusions) {
+        final ArrayList<ExclusionIdentifier> parsed = new ArrayList<>();
+        for (String exclusion : exclusions) {
+            parsed.add(ExclusionIdentifier.parse(exclusion));
+        }
+        return new ExportExclusions(parsed, new StoreIndexes(storeAgent, false), exportChildElements);
+    }
+}
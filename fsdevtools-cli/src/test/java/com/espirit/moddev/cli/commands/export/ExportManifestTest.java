@@ -0,0 +1,151 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ExportManifestTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void manifestIsWrittenAndRead() throws IOException {
+        final Path syncDir = temporaryFolder.newFolder("sync").toPath();
+        final Map<String, String> files = new HashMap<>();
+        files.put("PageStore/page/StoreElement.xml", "abc");
+        files.put("MediaStore/image/image.png", "def");
+
+        new ExportManifest("project=test identifiers=[root:pagestore]", files).write(syncDir);
+        final ExportManifest manifest = ExportManifest.read(syncDir);
+
+        assertThat(manifest.getSelection(), is("project=test identifiers=[root:pagestore]"));
+        assertThat(manifest.getFiles(), is(files));
+        assertThat(Files.readAllLines(syncDir.resolve(ExportManifest.MANIFEST_FILE), StandardCharsets.UTF_8).get(1),
+                   is("def  MediaStore/image/image.png"));
+    }
+
+    @Test
+    public void selectionIsHashOfDescription() {
+        final String selection = ExportManifest.selectionOf("server=localhost:8000\nproject=test\nidentifier=root:pagestore\n");
+
+        assertThat(selection, is(ExportManifest.selectionOf("server=localhost:8000\nproject=test\nidentifier=root:pagestore\n")));
+        assertThat(selection, is(not(ExportManifest.selectionOf("server=otherhost:8000\nproject=test\nidentifier=root:pagestore\n"))));
+        assertThat(selection.length(), is("sha256=".length() + 64));
+    }
+
+    @Test
+    public void missingManifest() throws IOException {
+        final Path syncDir = temporaryFolder.newFolder("sync").toPath();
+
+        assertThat(ExportManifest.read(syncDir), is(nullValue()));
+    }
+
+    @Test
+    public void deletedManifestIsNotRead() throws IOException {
+        final Path syncDir = temporaryFolder.newFolder("sync").toPath();
+        new ExportManifest("selection", new HashMap<>()).write(syncDir);
+
+        ExportManifest.delete(syncDir);
+
+        assertThat(ExportManifest.read(syncDir), is(nullValue()));
+    }
+
+    @Test
+    public void obsoleteFilesAreTheFilesMissingInTheLaterManifest() {
+        final Map<String, String> earlierFiles = new HashMap<>();
+        earlierFiles.put("PageStore/kept.xml", "a");
+        earlierFiles.put("PageStore/removed.xml", "b");
+        final Map<String, String> laterFiles = new HashMap<>();
+        laterFiles.put("PageStore/kept.xml", "c");
+        laterFiles.put("PageStore/new.xml", "d");
+
+        final ExportManifest earlier = new ExportManifest("selection", earlierFiles);
+
+        assertThat(earlier.getObsoleteFiles(new ExportManifest("selection", laterFiles)), contains("PageStore/removed.xml"));
+    }
+
+    @Test
+    public void filesKeptByAnExportAreDeletedByTheNextExportThatDeletesObsoleteFiles() throws IOException {
+        final Path syncDir = temporaryFolder.newFolder("sync").toPath();
+        final Map<String, String> files = new HashMap<>();
+        files.put("PageStore/kept.xml", write(syncDir, "PageStore/kept.xml"));
+        files.put("PageStore/first.xml", write(syncDir, "PageStore/first.xml"));
+        files.put("PageStore/second.xml", write(syncDir, "PageStore/second.xml"));
+        // an export deleting obsolete files
+        new ExportManifest("selection", files).write(syncDir);
+
+        // an export keeping obsolete files after first.xml has been deleted in the project
+        files.remove("PageStore/first.xml");
+        final ExportManifest keeping = new ExportManifest("selection", files).withKeptFiles(ExportManifest.read(syncDir));
+        keeping.write(syncDir);
+
+        // an export deleting obsolete files after second.xml has been deleted in the project
+        files.remove("PageStore/second.xml");
+        final ExportManifest deleting = new ExportManifest("selection", files);
+        new ObsoleteFileSweeper(syncDir, 2).sweep(ExportManifest.read(syncDir), deleting);
+
+        assertThat(keeping.getFiles().keySet(), contains("PageStore/first.xml", "PageStore/kept.xml", "PageStore/second.xml"));
+        assertThat(Files.exists(syncDir.resolve("PageStore/first.xml")), is(false));
+        assertThat(Files.exists(syncDir.resolve("PageStore/second.xml")), is(false));
+        assertThat(Files.exists(syncDir.resolve("PageStore/kept.xml")), is(true));
+    }
+
+    @Test
+    public void keptFilesOfAnotherSelectionAreUnknown() {
+        final Map<String, String> files = new HashMap<>();
+        files.put("PageStore/page.xml", "a");
+
+        final ExportManifest manifest = new ExportManifest("selection", files);
+
+        assertThat(manifest.withKeptFiles(new ExportManifest("other selection", files)), is(nullValue()));
+        assertThat(manifest.withKeptFiles(null), is(nullValue()));
+    }
+
+    @Test
+    public void hashesAreHexEncoded() {
+        assertThat(ExportManifest.toHex(new byte[]{0, 15, (byte) 0xab}), is("000fab"));
+    }
+
+    private static String write(Path syncDir, String path) throws IOException {
+        final Path file = syncDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, path.getBytes(StandardCharsets.UTF_8));
+        return ExportManifest.toHex(WriteAvoidingFileSystem.digest(file));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.api.parsing.identifier.EntitiesIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.Identifier;
+import com.espirit.moddev.cli.api.parsing.identifier.PathIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.PathPatternIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.ProjectPropertiesIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.RootNodeIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.UidIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+import com.espirit.moddev.cli.api.parsing.identifier.UidPatternIdentifier;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.transport.PropertiesTransportOptions.ProjectPropertyType;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+public class IdentifierOptimizerTest {
+
+    private static final RootNodeIdentifier TEMPLATE_STORE = new RootNodeIdentifier(IDProvider.UidType.TEMPLATESTORE);
+
+    @Test
+    public void duplicatesAreRemoved() {
+        final List<Identifier> optimized = IdentifierOptimizer.optimize(Arrays.asList(new UidIdentifier(UidMapping.PAGE, "homepage"),
+                                                                                      new EntitiesIdentifier("news"),
+                                                                                      new UidIdentifier(UidMapping.PAGE, "homepage")), true);
+
+        assertThat(optimized, contains(new UidIdentifier(UidMapping.PAGE, "homepage"), new EntitiesIdentifier("news")));
+    }
+
+    @Test
+    public void elementsOfAnExportedStoreAreRemoved() {
+        final List<Identifier> optimized = IdentifierOptimizer.optimize(Arrays.asList(new UidIdentifier(UidMapping.PAGETEMPLATE, "default"),
+                                                                                      TEMPLATE_STORE,
+                                                                                      new UidPatternIdentifier(UidMapping.SECTIONTEMPLATE, "teaser_*"),
+                                                                                      new PathIdentifier("/TemplateStore/PageTemplates/folder"),
+                                                                                      new PathPatternIdentifier("/templatestore/**"),
+                                                                                      new UidIdentifier(UidMapping.PAGE, "homepage")), true);
+
+        assertThat(optimized, contains(TEMPLATE_STORE, new UidIdentifier(UidMapping.PAGE, "homepage")));
+    }
+
+    @Test
+    public void pathsBeneathAnExportedPathAreRemoved() {
+        final List<Identifier> optimized = IdentifierOptimizer.optimize(Arrays.asList(new PathIdentifier("/PageStore/folder/page"),
+                                                                                      new PathIdentifier("/pagestore/folder"),
+                                                                                      new PathPatternIdentifier("/PageStore/folder/news_*"),
+                                                                                      new PathIdentifier("/PageStore/folder2"),
+                                                                                      new PathIdentifier("/PageStore/Folder/page")), true);
+
+        assertThat(optimized, contains(new PathIdentifier("/pagestore/folder"), new PathIdentifier("/PageStore/folder2"),
+                                       new PathIdentifier("/PageStore/Folder/page")));
+    }
+
+    @Test
+    public void nothingIsCoveredWithoutChildElements() {
+        final List<Identifier> optimized = IdentifierOptimizer.optimize(Arrays.asList(TEMPLATE_STORE,
+                                                                                      new UidIdentifier(UidMapping.PAGETEMPLATE, "default"),
+                                                                                      TEMPLATE_STORE), false);
+
+        assertThat(optimized, contains(TEMPLATE_STORE, new UidIdentifier(UidMapping.PAGETEMPLATE, "default")));
+    }
+
+    @Test
+    public void projectPropertiesAreMerged() {
+        final List<Identifier> optimized = IdentifierOptimizer.optimize(Arrays.asList(new ProjectPropertiesIdentifier(EnumSet.of(ProjectPropertyType.LANGUAGES)),
+                                                                                      TEMPLATE_STORE,
+                                                                                      new ProjectPropertiesIdentifier(EnumSet.of(ProjectPropertyType.RESOLUTIONS))), true);
+
+        assertThat(optimized, contains(new ProjectPropertiesIdentifier(EnumSet.of(ProjectPropertyType.LANGUAGES, ProjectPropertyType.RESOLUTIONS)),
+                                       TEMPLATE_STORE));
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import de.espirit.firstspirit.access.project.Project;
+import de.espirit.firstspirit.access.store.BasicElementInfo;
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.StoreElement;
+import de.espirit.firstspirit.access.store.pagestore.Page;
+import de.espirit.firstspirit.access.store.pagestore.PageFolder;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.storage.Revision;
+import de.espirit.firstspirit.storage.RevisionMetaData;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IncrementalExportTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Project project;
+    private StoreAgent storeAgent;
+    private Store pageStore;
+    private PageFolder selectedFolder;
+    private Page changedInSelection;
+    private Page changedElsewhere;
+
+    @Before
+    public void setUp() {
+        project = mock(Project.class);
+        when(project.getName()).thenReturn("project");
+        storeAgent = mock(StoreAgent.class);
+        pageStore = mock(Store.class);
+        when(storeAgent.getStore(Store.Type.PAGESTORE, false)).thenReturn(pageStore);
+        final PageFolder otherFolder = mockElement(PageFolder.class, 2, pageStore);
+        selectedFolder = mockElement(PageFolder.class, 3, pageStore);
+        changedInSelection = mockElement(Page.class, 10, selectedFolder);
+        changedElsewhere = mockElement(Page.class, 11, otherFolder);
+
+        final Revision oldRevision = mockRevision(100, 1000L, 11);
+        final Revision newRevision = mockRevision(101, 2000L, 10);
+        when(project.getRevision(100)).thenReturn(oldRevision);
+        when(project.getRevisions(any(Date.class), any(Date.class))).thenReturn(Arrays.asList(oldRevision, newRevision));
+    }
+
+    @Test
+    public void onlyChangedElementsBeneathTheSelectionAreAdded() {
+        final ExportOperation exportOperation = mock(ExportOperation.class);
+        final IncrementalExport incrementalExport = IncrementalExport.sinceRevision(project, storeAgent, false, 100);
+
+        incrementalExport.record(exportOperation).addElement(selectedFolder);
+        verify(exportOperation, never()).addElement(any(IDProvider.class));
+
+        assertThat(incrementalExport.addChangedElements(exportOperation, true), is(1));
+        verify(exportOperation).addElement(changedInSelection);
+        verify(exportOperation, never()).addElement(changedElsewhere);
+        assertThat(incrementalExport.getLastRevision(), is(101L));
+    }
+
+    @Test
+    public void revisionsUpToTheStartRevisionAreIgnored() {
+        final ExportOperation exportOperation = mock(ExportOperation.class);
+        final IncrementalExport incrementalExport = IncrementalExport.sinceRevision(project, storeAgent, false, 100);
+
+        incrementalExport.record(exportOperation).addElement(pageStore);
+
+        assertThat(incrementalExport.addChangedElements(exportOperation, true), is(1));
+        verify(exportOperation).addElement(changedInSelection);
+    }
+
+    @Test
+    public void withoutChildElementsOnlyChangedSelectedElementsAreAdded() {
+        final ExportOperation exportOperation = mock(ExportOperation.class);
+        final IncrementalExport incrementalExport = IncrementalExport.sinceRevision(project, storeAgent, false, 100);
+
+        incrementalExport.record(exportOperation).addElement(selectedFolder);
+
+        assertThat(incrementalExport.addChangedElements(exportOperation, false), is(0));
+        verify(exportOperation, never()).addElement(any(IDProvider.class));
+    }
+
+    @Test
+    public void withoutChildElementsChangedElementsThatAreSelectedThemselvesAreAdded() {
+        final ExportOperation exportOperation = mock(ExportOperation.class);
+        final IncrementalExport incrementalExport = IncrementalExport.sinceRevision(project, storeAgent, false, 100);
+
+        incrementalExport.record(exportOperation).addElement(changedInSelection);
+
+        assertThat(incrementalExport.addChangedElements(exportOperation, false), is(1));
+        verify(exportOperation).addElement(changedInSelection);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownRevisionIsRejected() {
+        IncrementalExport.sinceRevision(project, storeAgent, false, 42);
+    }
+
+    @Test
+    public void stateOfTheLastExportIsUsed() throws IOException {
+        final Path syncDir = temporaryFolder.getRoot().toPath();
+        assertThat(IncrementalExport.sinceLastExport(project, storeAgent, false, syncDir), is(nullValue()));
+
+        IncrementalExport.writeState(project, false, 100L, 3000L, syncDir);
+
+        final IncrementalExport incrementalExport = IncrementalExport.sinceLastExport(project, storeAgent, false, syncDir);
+        assertThat(incrementalExport, is(notNullValue()));
+        assertThat(incrementalExport.getLastRevision(), is(101L));
+        assertThat("State of the current state must not be used for the release state",
+                   IncrementalExport.sinceLastExport(project, storeAgent, true, syncDir), is(nullValue()));
+    }
+
+    @Test
+    public void parseSince() {
+        assertThat(AbstractExportCommand.parseSince("2016-11-24T18:00:00Z").getTime(), is(1480010400000L));
+        assertThat(AbstractExportCommand.parseSince("2016-11-24T18:00"), is(notNullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseInvalidSince() {
+        AbstractExportCommand.parseSince("yesterday");
+    }
+
+    private Revision mockRevision(long id, long creationTime, long changedNodeId) {
+        final Revision revision = mock(Revision.class);
+        when(revision.getId()).thenReturn(id);
+        when(revision.getCreationTime()).thenReturn(creationTime);
+        final BasicElementInfo info = mock(BasicElementInfo.class);
+        when(info.getNodeId()).thenReturn(changedNodeId);
+        when(info.getStoreType()).thenReturn(Store.Type.PAGESTORE);
+        final RevisionMetaData metaData = mock(RevisionMetaData.class);
+        doReturn(Collections.singleton(info)).when(metaData).getChangedElements();
+        doReturn(Collections.emptySet()).when(metaData).getCreatedElements();
+        when(revision.getMetaData()).thenReturn(metaData);
+        return revision;
+    }
+
+    private <T extends IDProvider> T mockElement(Class<T> type, long id, StoreElement parent) {
+        final T element = mock(type);
+        when(element.getId()).thenReturn(id);
+        doReturn(parent).when(element).getParent();
+        doReturn(element).when(pageStore).getStoreElement(id);
+        return element;
+    }
+}
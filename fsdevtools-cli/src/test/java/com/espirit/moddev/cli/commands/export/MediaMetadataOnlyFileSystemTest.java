@@ -0,0 +1,161 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import de.espirit.firstspirit.io.FileHandle;
+import de.espirit.firstspirit.io.FileSystem;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MediaMetadataOnlyFileSystemTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FileHandle binary;
+    private FileHandle metadata;
+    private FileSystem<FileHandle> decorated;
+    private MediaMetadataOnlyFileSystem mediaMetadataOnlyFileSystem;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        binary = mock(FileHandle.class);
+        when(binary.getPath()).thenReturn("/MediaStore/folder/image/image.png");
+        metadata = mock(FileHandle.class);
+        when(metadata.getPath()).thenReturn("/MediaStore/folder/image/StoreElement.xml");
+        final FileSystem<FileHandle> fileSystem = mock(FileSystem.class);
+        doReturn(binary).when(fileSystem).obtain("/MediaStore/folder/image/image.png");
+        doReturn(metadata).when(fileSystem).obtain("/MediaStore/folder/image/StoreElement.xml");
+        mediaMetadataOnlyFileSystem = new MediaMetadataOnlyFileSystem();
+        decorated = mediaMetadataOnlyFileSystem.decorate(fileSystem);
+    }
+
+    @Test
+    public void binaryIsReplacedByPlaceholder() throws IOException {
+        final AtomicReference<String> written = capture(binary);
+
+        decorated.obtain("/MediaStore/folder/image/image.png").save(new ByteArrayInputStream(bytes("binary content")));
+
+        assertThat(written.get(), containsString("size=14\n"));
+        assertThat(written.get(), containsString("sha256="));
+        assertThat(mediaMetadataOnlyFileSystem.getReplacedFiles(), is(1));
+        assertThat(mediaMetadataOnlyFileSystem.getSkippedBytes(), is(14L));
+    }
+
+    @Test
+    public void metadataIsWritten() throws IOException {
+        final AtomicReference<String> written = capture(metadata);
+
+        decorated.obtain("/MediaStore/folder/image/StoreElement.xml").save(new ByteArrayInputStream(bytes("<media/>")));
+
+        assertThat(written.get(), is("<media/>"));
+        assertThat(mediaMetadataOnlyFileSystem.getReplacedFiles(), is(0));
+    }
+
+    @Test
+    public void binaryWrittenToStreamIsReplacedByPlaceholder() throws IOException {
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        when(binary.getOutputStream()).thenReturn(target);
+
+        try (OutputStream outputStream = decorated.obtain("/MediaStore/folder/image/image.png").getOutputStream()) {
+            outputStream.write(bytes("binary content"));
+        }
+
+        assertThat(new String(target.toByteArray(), StandardCharsets.UTF_8), containsString("size=14\n"));
+        assertThat(mediaMetadataOnlyFileSystem.getSkippedBytes(), is(14L));
+    }
+
+    @Test
+    public void mediaBinariesAreRecognized() {
+        assertThat(MediaMetadataOnlyFileSystem.isMediaBinary("/MediaStore/folder/image/image.png"), is(true));
+        assertThat(MediaMetadataOnlyFileSystem.isMediaBinary("MediaStore\\image\\image_EN.jpg"), is(true));
+        assertThat(MediaMetadataOnlyFileSystem.isMediaBinary("/MediaStore/folder/image/StoreElement.xml"), is(false));
+        assertThat(MediaMetadataOnlyFileSystem.isMediaBinary("/MediaStore/.FirstSpirit/info.txt"), is(false));
+        assertThat(MediaMetadataOnlyFileSystem.isMediaBinary("/PageStore/page/content.txt"), is(false));
+        assertThat(MediaMetadataOnlyFileSystem.isMediaBinary("/MediaStore"), is(false));
+    }
+
+    @Test
+    public void markerIsKeptWhilePlaceholdersAreLeft() throws IOException {
+        final Path syncDir = temporaryFolder.getRoot().toPath();
+        final Path image = syncDir.resolve("MediaStore/folder/image/image.png");
+        Files.createDirectories(image.getParent());
+        Files.write(image, MediaMetadataOnlyFileSystem.placeholder(new byte[32], 14));
+        Files.write(image.resolveSibling("StoreElement.xml"), bytes("<media/>"));
+        MediaMetadataOnlyFileSystem.writeMarker(syncDir);
+
+        assertThat(MediaMetadataOnlyFileSystem.removeMarker(syncDir), is(false));
+        assertThat(MediaMetadataOnlyFileSystem.isMarked(syncDir), is(true));
+
+        Files.write(image, bytes("binary content"));
+
+        assertThat(MediaMetadataOnlyFileSystem.removeMarker(syncDir), is(true));
+        assertThat(MediaMetadataOnlyFileSystem.isMarked(syncDir), is(false));
+    }
+
+    @Test
+    public void unmarkedDirectoryHasNoMarkerToRemove() throws IOException {
+        final Path syncDir = temporaryFolder.getRoot().toPath();
+
+        assertThat(MediaMetadataOnlyFileSystem.isMarked(syncDir), is(false));
+        assertThat(MediaMetadataOnlyFileSystem.removeMarker(syncDir), is(true));
+    }
+
+    private static AtomicReference<String> capture(FileHandle handle) throws IOException {
+        final AtomicReference<String> written = new AtomicReference<>();
+        doAnswer(invocation -> {
+            final InputStream inputStream = invocation.getArgument(0);
+            final byte[] content = new byte[256];
+            final int length = inputStream.read(content);
+            written.set(new String(content, 0, length, StandardCharsets.UTF_8));
+            return null;
+        }).when(handle).save(any(InputStream.class));
+        return written;
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ObsoleteFileSweeperTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path syncDir;
+    private final Map<String, String> earlierFiles = new HashMap<>();
+    private final Map<String, String> laterFiles = new HashMap<>();
+
+    @Before
+    public void setUp() throws IOException {
+        syncDir = temporaryFolder.newFolder("sync").toPath();
+    }
+
+    @Test
+    public void obsoleteFilesAndEmptyDirectoriesAreDeleted() throws IOException {
+        write("PageStore/folder/removed/StoreElement.xml", "removed", earlierFiles);
+        write("PageStore/folder/kept/StoreElement.xml", "kept", earlierFiles);
+        laterFiles.put("PageStore/folder/kept/StoreElement.xml", earlierFiles.get("PageStore/folder/kept/StoreElement.xml"));
+
+        final ObsoleteFileSweeper sweeper = sweep();
+
+        assertThat(Files.exists(syncDir.resolve("PageStore/folder/removed")), is(false));
+        assertThat(Files.exists(syncDir.resolve("PageStore/folder/kept/StoreElement.xml")), is(true));
+        assertThat(sweeper.getDeletedFiles(), is(1));
+    }
+
+    @Test
+    public void changedFilesAreKept() throws IOException {
+        write("PageStore/changed.xml", "exported", earlierFiles);
+        Files.write(syncDir.resolve("PageStore/changed.xml"), "changed by hand".getBytes(StandardCharsets.UTF_8));
+
+        final ObsoleteFileSweeper sweeper = sweep();
+
+        assertThat(Files.exists(syncDir.resolve("PageStore/changed.xml")), is(true));
+        assertThat(sweeper.getKeptFiles(), is(1));
+        assertThat(sweeper.getDeletedFiles(), is(0));
+    }
+
+    @Test
+    public void hiddenFilesAreKept() throws IOException {
+        write(".FirstSpirit/Import.txt", "meta", earlierFiles);
+
+        sweep();
+
+        assertThat(Files.exists(syncDir.resolve(".FirstSpirit/Import.txt")), is(true));
+    }
+
+    @Test
+    public void missingFilesAreIgnored() throws IOException {
+        earlierFiles.put("PageStore/missing.xml", "abc");
+
+        assertThat(sweep().getDeletedFiles(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOneWorkerIsNeeded() {
+        new ObsoleteFileSweeper(syncDir, 0);
+    }
+
+    private ObsoleteFileSweeper sweep() throws IOException {
+        final ObsoleteFileSweeper sweeper = new ObsoleteFileSweeper(syncDir, 2);
+        sweeper.sweep(new ExportManifest("selection", earlierFiles), new ExportManifest("selection", laterFiles));
+        return sweeper;
+    }
+
+    private void write(String path, String content, Map<String, String> manifestFiles) throws IOException {
+        final Path file = syncDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        manifestFiles.put(path, ExportManifest.toHex(WriteAvoidingFileSystem.digest(file)));
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.pagestore.Page;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.store.access.nexport.ExportInfo;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ParallelExportTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOneShardIsNeeded() {
+        new ParallelExport(0);
+    }
+
+    @Test
+    public void recordedElementsAreNotAddedToTheOperation() {
+        final ExportOperation exportOperation = mock(ExportOperation.class);
+        final ParallelExport parallelExport = new ParallelExport(2);
+        final Page page = mockPage(10);
+
+        final ExportOperation recording = parallelExport.record(exportOperation);
+        recording.addElement(page);
+        recording.addElement(mockPage(10));
+        recording.setExportRelease(true);
+
+        verify(exportOperation, never()).addElement(page);
+        verify(exportOperation).setExportRelease(true);
+        assertThat(parallelExport.getElements(), contains(page));
+    }
+
+    @Test
+    public void storeRootsAreDistributedFirst() {
+        final Page first = mockPage(10);
+        final Page second = mockPage(11);
+        final Page third = mockPage(12);
+        final Store store = mock(Store.class);
+
+        final List<List<IDProvider>> shards = ParallelExport.split(Arrays.asList(first, second, store, third), 2);
+
+        assertThat(shards, hasSize(2));
+        assertThat(shards.get(0), contains(store, second));
+        assertThat(shards.get(1), contains(first, third));
+    }
+
+    @Test
+    public void noMoreShardsThanElements() {
+        final Page page = mockPage(10);
+
+        assertThat(ParallelExport.split(Collections.singletonList(page), 4), contains(contains(page)));
+        assertThat(ParallelExport.split(Collections.emptyList(), 4), contains(hasSize(0)));
+    }
+
+    @Test
+    public void elementsAreResolvedInTheStoreOfTheShard() {
+        final Store store = mock(Store.class);
+        when(store.getType()).thenReturn(Store.Type.PAGESTORE);
+        final Page page = mockPage(10);
+        doReturn(store).when(page).getStore();
+        final StoreAgent storeAgent = mock(StoreAgent.class);
+        final Store shardStore = mock(Store.class);
+        final Page shardPage = mockPage(10);
+        when(storeAgent.getStore(Store.Type.PAGESTORE, true)).thenReturn(shardStore);
+        doReturn(shardPage).when(shardStore).getStoreElement(10L);
+
+        assertThat(ParallelExport.resolve(storeAgent, page, true), is(sameInstance(shardPage)));
+        assertThat(ParallelExport.resolve(storeAgent, store, true), is(sameInstance(shardStore)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void missingElementOfShardFails() {
+        final Store store = mock(Store.class);
+        when(store.getType()).thenReturn(Store.Type.PAGESTORE);
+        final Page page = mockPage(10);
+        doReturn(store).when(page).getStore();
+        final StoreAgent storeAgent = mock(StoreAgent.class);
+        when(storeAgent.getStore(Store.Type.PAGESTORE, false)).thenReturn(mock(Store.class));
+
+        ParallelExport.resolve(storeAgent, page, false);
+    }
+
+    @Test
+    public void stagedFilesAreMergedIntoTheSyncDir() throws IOException {
+        final Path syncDir = temporaryFolder.newFolder("sync").toPath();
+        write(syncDir.resolve("PageStore/stale.txt"), "old");
+        write(syncDir.resolve(".FirstSpirit/Import.txt"), "from a previous export");
+        final Path first = temporaryFolder.newFolder("first").toPath();
+        write(first.resolve("PageStore/stale.txt"), "new");
+        write(first.resolve(".FirstSpirit/Import.txt"), "a", "b");
+        final Path second = temporaryFolder.newFolder("second").toPath();
+        write(second.resolve("MediaStore/image.txt"), "image");
+        write(second.resolve(".FirstSpirit/Import.txt"), "b", "c");
+
+        final Map<String, byte[]> mergedFiles = new HashMap<>();
+        ParallelExport.merge(Arrays.asList(first, second), syncDir, mergedFiles);
+
+        assertThat(read(syncDir.resolve("PageStore/stale.txt")), contains("new"));
+        assertThat(read(syncDir.resolve("MediaStore/image.txt")), contains("image"));
+        assertThat(read(syncDir.resolve(".FirstSpirit/Import.txt")), contains("a", "b", "c"));
+        assertThat(mergedFiles.keySet(), containsInAnyOrder("PageStore/stale.txt", "MediaStore/image.txt", ".FirstSpirit/Import.txt"));
+        assertThat(mergedFiles.get(".FirstSpirit/Import.txt"), is(WriteAvoidingFileSystem.digest(syncDir.resolve(".FirstSpirit/Import.txt"))));
+    }
+
+    @Test
+    public void unchangedFilesAreNotCopied() throws IOException {
+        final Path syncDir = temporaryFolder.newFolder("sync").toPath();
+        write(syncDir.resolve("PageStore/page.xml"), "<page/>");
+        final FileTime lastModified = FileTime.fromMillis(1000L);
+        Files.setLastModifiedTime(syncDir.resolve("PageStore/page.xml"), lastModified);
+        final Path staging = temporaryFolder.newFolder("staging").toPath();
+        write(staging.resolve("PageStore/page.xml"), "<page/>");
+
+        final Map<String, byte[]> mergedFiles = new HashMap<>();
+        assertThat(ParallelExport.merge(Collections.singletonList(staging), syncDir, mergedFiles), is(1));
+        assertThat(mergedFiles.keySet(), contains("PageStore/page.xml"));
+        assertThat(Files.getLastModifiedTime(syncDir.resolve("PageStore/page.xml")), is(lastModified));
+    }
+
+    @Test
+    public void performExportsAllShardsAndCombinesTheResults() throws IOException {
+        final Path syncDir = temporaryFolder.newFolder("sync").toPath();
+        final ParallelExport parallelExport = new ParallelExport(3);
+        final ExportOperation recording = parallelExport.record(mock(ExportOperation.class));
+        final Page first = mockPage(10);
+        final Page second = mockPage(11);
+        recording.addElement(first);
+        recording.addElement(second);
+        final ExportInfo firstInfo = mock(ExportInfo.class);
+        final ExportInfo secondInfo = mock(ExportInfo.class);
+        final List<IDProvider> exported = Collections.synchronizedList(new ArrayList<>());
+
+        final ExportOperation.Result result = parallelExport.perform(syncDir, (elements, stagingDir) -> {
+            exported.addAll(elements);
+            write(stagingDir.resolve("first.txt"), "first");
+            return mockResult(firstInfo);
+        }, (elements, stagingDir) -> {
+            exported.addAll(elements);
+            write(stagingDir.resolve("second.txt"), "second");
+            return mockResult(secondInfo);
+        });
+
+        assertThat(exported, containsInAnyOrder(first, second));
+        assertThat(result.getCreatedElements(), containsInAnyOrder(firstInfo, secondInfo));
+        assertThat(Files.isRegularFile(syncDir.resolve("first.txt")), is(true));
+        assertThat(Files.isRegularFile(syncDir.resolve("second.txt")), is(true));
+    }
+
+    @Test
+    public void failingShardLeavesTheSyncDirUntouched() throws IOException {
+        final Path syncDir = temporaryFolder.newFolder("sync").toPath();
+        final ParallelExport parallelExport = new ParallelExport(2);
+        final ExportOperation recording = parallelExport.record(mock(ExportOperation.class));
+        recording.addElement(mockPage(10));
+        recording.addElement(mockPage(11));
+
+        try {
+            parallelExport.perform(syncDir, (elements, stagingDir) -> {
+                write(stagingDir.resolve("first.txt"), "first");
+                return mockResult();
+            }, (elements, stagingDir) -> {
+                throw new IOException("connection lost");
+            });
+        } catch (IllegalStateException e) {
+            assertThat(Files.exists(syncDir.resolve("first.txt")), is(false));
+            return;
+        }
+        throw new AssertionError("IllegalStateException expected");
+    }
+
+    private static Page mockPage(long id) {
+        final Page page = mock(Page.class);
+        when(page.getId()).thenReturn(id);
+        return page;
+    }
+
+    private static ExportOperation.Result mockResult(ExportInfo... created) {
+        final ExportOperation.Result result = mock(ExportOperation.Result.class);
+        doReturn(Arrays.asList(created)).when(result).getCreatedElements();
+        return result;
+    }
+
+    private static void write(Path file, String... lines) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> read(Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.api.parsing.identifier.PathIdentifier;
+import com.espirit.moddev.cli.util.StoreTestUtil.SimpleListable;
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.agency.StoreAgent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PathIdentifierResolverTest {
+
+    private StoreAgent storeAgent;
+    private Store pageStore;
+    private Store mediaStore;
+    private final Map<IDProvider, SimpleListable> children = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        storeAgent = mock(StoreAgent.class);
+        pageStore = mockElement(Store.class, null, null);
+        mediaStore = mockElement(Store.class, null, null);
+        when(storeAgent.getStore(Store.Type.PAGESTORE, false)).thenReturn(pageStore);
+        when(storeAgent.getStore(Store.Type.MEDIASTORE, false)).thenReturn(mediaStore);
+    }
+
+    @Test
+    public void pathsWithSharedPrefixAreResolvedInOneWalk() {
+        final IDProvider folder = addChild(pageStore, "folder", "Folder");
+        final IDProvider first = addChild(folder, "first", "First page");
+        final IDProvider second = addChild(folder, "second", "Second page");
+        final IDProvider image = addChild(mediaStore, "image", "Image");
+        final PathIdentifier firstPath = new PathIdentifier("/PageStore/folder/first");
+        final PathIdentifier secondPath = new PathIdentifier("/pagestore/folder/Second page");
+        final PathIdentifier folderPath = new PathIdentifier("/PageStore/folder");
+        final PathIdentifier imagePath = new PathIdentifier("/MediaStore/image");
+
+        final Map<PathIdentifier, IDProvider> resolved = new PathIdentifierResolver(storeAgent, false)
+            .resolve(Arrays.asList(firstPath, secondPath, folderPath, imagePath, firstPath));
+
+        assertThat(resolved.keySet(), contains(firstPath, secondPath, folderPath, imagePath));
+        assertThat(resolved.get(firstPath), is(first));
+        assertThat(resolved.get(secondPath), is(second));
+        assertThat(resolved.get(folderPath), is(folder));
+        assertThat(resolved.get(imagePath), is(image));
+        verify(storeAgent, times(1)).getStore(Store.Type.PAGESTORE, false);
+        verify(pageStore, times(1)).getChildren(IDProvider.class);
+        verify(folder, times(1)).getChildren(IDProvider.class);
+    }
+
+    @Test
+    public void onlyRequestedSubtreesAreWalked() {
+        final IDProvider unrelated = addChild(pageStore, "unrelated", "Unrelated");
+        final IDProvider folder = addChild(pageStore, "folder", "Folder");
+        final IDProvider page = addChild(folder, "page", "Page");
+
+        final PathIdentifier path = new PathIdentifier("/PageStore/folder/page");
+        final Map<PathIdentifier, IDProvider> resolved = new PathIdentifierResolver(storeAgent, false).resolve(Arrays.asList(path));
+
+        assertThat(resolved.get(path), is(page));
+        verify(unrelated, never()).getChildren(IDProvider.class);
+        verify(page, never()).getChildren(IDProvider.class);
+    }
+
+    @Test
+    public void uidMatchWinsOverEarlierNameMatch() {
+        addChild(pageStore, "other", "page");
+        final IDProvider byUid = addChild(pageStore, "page", "Page");
+
+        final PathIdentifier path = new PathIdentifier("/PageStore/page");
+        final Map<PathIdentifier, IDProvider> resolved = new PathIdentifierResolver(storeAgent, false).resolve(Arrays.asList(path));
+
+        assertThat(resolved.get(path), is(byUid));
+    }
+
+    @Test
+    public void firstNameMatchWinsWithoutUidMatch() {
+        final IDProvider first = addChild(pageStore, "first", "page");
+        addChild(pageStore, "second", "page");
+
+        final PathIdentifier path = new PathIdentifier("/PageStore/page");
+        final Map<PathIdentifier, IDProvider> resolved = new PathIdentifierResolver(storeAgent, false).resolve(Arrays.asList(path));
+
+        assertThat(resolved.get(path), is(first));
+    }
+
+    private IDProvider addChild(IDProvider parent, String uid, String name) {
+        final IDProvider child = mockElement(IDProvider.class, uid, name);
+        children.get(parent).addChild(child);
+        return child;
+    }
+
+    private <T extends IDProvider> T mockElement(Class<T> type, String uid, String name) {
+        final T element = mock(type);
+        final SimpleListable elementChildren = new SimpleListable(new ArrayList());
+        when(element.getUid()).thenReturn(uid);
+        when(element.getName()).thenReturn(name);
+        when(element.getChildren(IDProvider.class)).thenReturn(elementChildren);
+        children.put(element, elementChildren);
+        return element;
+    }
+}
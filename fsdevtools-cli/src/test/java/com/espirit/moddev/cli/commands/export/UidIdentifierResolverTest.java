@@ -0,0 +1,113 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.api.parsing.exceptions.IDProviderNotFoundException;
+import com.espirit.moddev.cli.api.parsing.identifier.UidIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.mediastore.Media;
+import de.espirit.firstspirit.access.store.pagestore.Page;
+import de.espirit.firstspirit.agency.StoreAgent;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UidIdentifierResolverTest {
+
+    private StoreAgent storeAgent;
+    private Store pageStore;
+    private Store mediaStore;
+
+    @Before
+    public void setUp() {
+        storeAgent = mock(StoreAgent.class);
+        pageStore = mock(Store.class);
+        mediaStore = mock(Store.class);
+        when(storeAgent.getStore(Store.Type.PAGESTORE, false)).thenReturn(pageStore);
+        when(storeAgent.getStore(Store.Type.MEDIASTORE, false)).thenReturn(mediaStore);
+    }
+
+    @Test
+    public void storeRootsAreFetchedOncePerStore() {
+        final Page firstPage = addElement(pageStore, UidMapping.PAGE, "first", Page.class);
+        final Page secondPage = addElement(pageStore, UidMapping.PAGE, "second", Page.class);
+        final Media media = addElement(mediaStore, UidMapping.MEDIA, "image", Media.class);
+        final UidIdentifier first = new UidIdentifier(UidMapping.PAGE, "first");
+        final UidIdentifier image = new UidIdentifier(UidMapping.MEDIA, "image");
+        final UidIdentifier second = new UidIdentifier(UidMapping.PAGE, "second");
+
+        final Map<UidIdentifier, IDProvider> resolved = new UidIdentifierResolver(storeAgent, false).resolve(Arrays.asList(first, image, second, first));
+
+        assertThat(resolved.keySet(), contains(first, image, second));
+        assertThat(resolved.get(first), is(firstPage));
+        assertThat(resolved.get(second), is(secondPage));
+        assertThat(resolved.get(image), is(media));
+        verify(storeAgent, times(1)).getStore(Store.Type.PAGESTORE, false);
+        verify(storeAgent, times(1)).getStore(Store.Type.MEDIASTORE, false);
+        verify(pageStore, times(1)).getStoreElement("first", UidMapping.PAGE.getUidType());
+    }
+
+    @Test
+    public void allMissingIdentifiersAreReportedTogether() {
+        addElement(pageStore, UidMapping.PAGE, "existing", Page.class);
+        addElement(mediaStore, UidMapping.MEDIA, "page_in_media_store", Page.class);
+        final UidIdentifier missingPage = new UidIdentifier(UidMapping.PAGE, "missing");
+        final UidIdentifier wrongClass = new UidIdentifier(UidMapping.MEDIA, "page_in_media_store");
+
+        try {
+            new UidIdentifierResolver(storeAgent, false).resolve(Arrays.asList(new UidIdentifier(UidMapping.PAGE, "existing"), missingPage, wrongClass));
+            fail("Expected an IDProviderNotFoundException");
+        } catch (IDProviderNotFoundException e) {
+            assertThat(e.getMessage(), containsString("2 identifiers"));
+            assertThat(e.getMessage(), containsString(missingPage.toString()));
+            assertThat(e.getMessage(), containsString(wrongClass.toString()));
+            assertThat(e.getSuppressed(), arrayWithSize(2));
+        }
+    }
+
+    @Test(expected = IDProviderNotFoundException.class)
+    public void singleMissingIdentifier() {
+        new UidIdentifierResolver(storeAgent, false).resolve(Arrays.asList(new UidIdentifier(UidMapping.PAGE, "missing")));
+    }
+
+    private static <T extends IDProvider> T addElement(Store store, UidMapping uidMapping, String uid, Class<T> type) {
+        final T element = mock(type);
+        when(store.getStoreElement(uid, uidMapping.getUidType())).thenReturn(element);
+        return element;
+    }
+}
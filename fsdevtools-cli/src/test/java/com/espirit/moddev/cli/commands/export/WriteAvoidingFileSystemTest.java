@@ -0,0 +1,178 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import de.espirit.firstspirit.io.FileHandle;
+import de.espirit.firstspirit.io.FileSystem;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WriteAvoidingFileSystemTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path root;
+    private FileHandle handle;
+    private FileSystem<FileHandle> decorated;
+    private WriteAvoidingFileSystem writeAvoidingFileSystem;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        root = temporaryFolder.newFolder("sync").toPath();
+        Files.createDirectories(root.resolve("PageStore"));
+        Files.write(root.resolve("PageStore/page.xml"), bytes("<page/>"));
+        handle = mock(FileHandle.class);
+        when(handle.getPath()).thenReturn("/PageStore/page.xml");
+        final FileSystem<FileHandle> fileSystem = mock(FileSystem.class);
+        doReturn(handle).when(fileSystem).obtain("/PageStore/page.xml");
+        writeAvoidingFileSystem = new WriteAvoidingFileSystem(root);
+        decorated = writeAvoidingFileSystem.decorate(fileSystem);
+    }
+
+    @Test
+    public void unchangedContentIsNotWritten() throws IOException {
+        decorated.obtain("/PageStore/page.xml").save(new ByteArrayInputStream(bytes("<page/>")));
+
+        verify(handle, never()).save(any(InputStream.class));
+        assertThat(writeAvoidingFileSystem.getAvoidedWrites(), is(1));
+        assertThat(writeAvoidingFileSystem.getWrites(), is(0));
+    }
+
+    @Test
+    public void changedContentIsWritten() throws IOException {
+        final AtomicReference<String> written = new AtomicReference<>();
+        doAnswer(invocation -> {
+            final InputStream inputStream = invocation.getArgument(0);
+            final byte[] content = new byte[64];
+            final int length = inputStream.read(content);
+            written.set(new String(content, 0, length, StandardCharsets.UTF_8));
+            return null;
+        }).when(handle).save(any(InputStream.class));
+
+        decorated.obtain("/PageStore/page.xml").save(new ByteArrayInputStream(bytes("<page changed='true'/>")));
+
+        assertThat(written.get(), is("<page changed='true'/>"));
+        assertThat(writeAvoidingFileSystem.getAvoidedWrites(), is(0));
+        assertThat(writeAvoidingFileSystem.getWrites(), is(1));
+    }
+
+    @Test
+    public void newFileIsWritten() throws IOException {
+        when(handle.getPath()).thenReturn("/PageStore/new.xml");
+
+        decorated.obtain("/PageStore/page.xml").save(new ByteArrayInputStream(bytes("<page/>")));
+
+        verify(handle).save(any(InputStream.class));
+        assertThat(writeAvoidingFileSystem.getWrites(), is(1));
+    }
+
+    @Test
+    public void contentChangedAfterLongEqualPartIsWrittenCompletely() throws IOException {
+        final byte[] existing = new byte[100000];
+        Arrays.fill(existing, (byte) 'a');
+        Files.write(root.resolve("PageStore/page.xml"), existing);
+        final byte[] changed = existing.clone();
+        changed[90000] = 'b';
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        doAnswer(invocation -> {
+            final InputStream inputStream = invocation.getArgument(0);
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                written.write(buffer, 0, read);
+            }
+            return null;
+        }).when(handle).save(any(InputStream.class));
+
+        decorated.obtain("/PageStore/page.xml").save(new ByteArrayInputStream(changed));
+
+        assertThat(written.toByteArray(), is(changed));
+        assertThat(writeAvoidingFileSystem.getWrites(), is(1));
+    }
+
+    @Test
+    public void unchangedContentWrittenToStreamDoesntOpenTheFile() throws IOException {
+        try (OutputStream outputStream = decorated.obtain("/PageStore/page.xml").getOutputStream()) {
+            outputStream.write(bytes("<page/>"));
+        }
+
+        verify(handle, never()).getOutputStream();
+        assertThat(writeAvoidingFileSystem.getAvoidedWrites(), is(1));
+        assertThat(writeAvoidingFileSystem.getFiles().keySet(), contains("PageStore/page.xml"));
+    }
+
+    @Test
+    public void shorterContentWrittenToStreamIsWritten() throws IOException {
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        when(handle.getOutputStream()).thenReturn(written);
+
+        try (OutputStream outputStream = decorated.obtain("/PageStore/page.xml").getOutputStream()) {
+            outputStream.write(bytes("<page"));
+        }
+
+        assertThat(new String(written.toByteArray(), StandardCharsets.UTF_8), is("<page"));
+        assertThat(writeAvoidingFileSystem.getWrites(), is(1));
+    }
+
+    @Test
+    public void filesWithSameContentAreRecognized() throws IOException {
+        final Path same = temporaryFolder.newFile("same.xml").toPath();
+        Files.write(same, bytes("<page/>"));
+        final Path other = temporaryFolder.newFile("other.xml").toPath();
+        Files.write(other, bytes("<page />"));
+
+        assertThat(WriteAvoidingFileSystem.hasSameContent(same, root.resolve("PageStore/page.xml")), is(true));
+        assertThat(WriteAvoidingFileSystem.hasSameContent(other, root.resolve("PageStore/page.xml")), is(false));
+        assertThat(WriteAvoidingFileSystem.hasSameContent(same, root.resolve("PageStore/missing.xml")), is(false));
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.daemon;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DaemonClientTest {
+
+    @Test
+    public void commandLinesReadingTheStandardInputAreExecutedLocally() {
+        assertThat(DaemonClient.isLocalOnly(new String[]{"batch", "-"}), is(true));
+        assertThat(DaemonClient.isLocalOnly(new String[]{"export", "--", "@-"}), is(true));
+    }
+
+    @Test
+    public void watchingImportsAreExecutedLocally() {
+        assertThat(DaemonClient.isLocalOnly(new String[]{"import", "--watch"}), is(true));
+    }
+
+    @Test
+    public void otherCommandLinesMayBeForwarded() {
+        assertThat(DaemonClient.isLocalOnly(new String[]{"export", "--", "@identifiers.txt", "page:homepage"}), is(false));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.daemon;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DaemonStateTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writtenStateCanBeRead() throws Exception {
+        final File stateFile = new File(temporaryFolder.getRoot(), "sub/" + DaemonState.STATE_FILE_NAME);
+        new DaemonState(1234, "abc", "/work").write(stateFile);
+
+        final Optional<DaemonState> state = DaemonState.read(stateFile);
+
+        assertThat(state.isPresent(), is(true));
+        assertThat(state.get().getPort(), is(1234));
+        assertThat(state.get().getToken(), is("abc"));
+        assertThat(state.get().getWorkingDirectory(), is("/work"));
+    }
+
+    @Test
+    public void missingStateIsEmpty() {
+        assertThat(DaemonState.read(new File(temporaryFolder.getRoot(), "missing")).isPresent(), is(false));
+    }
+
+    @Test
+    public void deleteKeepsStateOfOtherDaemon() throws Exception {
+        final File stateFile = new File(temporaryFolder.getRoot(), DaemonState.STATE_FILE_NAME);
+        new DaemonState(1234, "newDaemon", "/work").write(stateFile);
+
+        new DaemonState(4321, "oldDaemon", "/work").delete(stateFile);
+        assertThat(stateFile.exists(), is(true));
+
+        new DaemonState(1234, "newDaemon", "/work").delete(stateFile);
+        assertThat(stateFile.exists(), is(false));
+    }
+}
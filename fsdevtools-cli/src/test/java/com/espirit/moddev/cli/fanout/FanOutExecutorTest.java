@@ -0,0 +1,110 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.fanout;
+
+import com.espirit.moddev.cli.PhaseTimings;
+import com.espirit.moddev.cli.results.FanOutResult;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class FanOutExecutorTest {
+
+    @After
+    public void tearDown() {
+        PhaseTimings.setCurrent(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOneWorker() {
+        new FanOutExecutor(0);
+    }
+
+    @Test
+    public void allTargetsAreExecutedDespiteFailures() {
+        final List<String> targets = Arrays.asList("a", "b", "c");
+
+        final FanOutResult result = new FanOutExecutor(2).execute("project", targets, target -> {
+            if ("b".equals(target)) {
+                throw new IllegalStateException("b failed");
+            }
+        });
+
+        assertThat(result.isError(), is(true));
+        assertThat(result.getFailedTargets(), contains("b"));
+        assertThat(result.get().keySet(), contains("a", "b", "c"));
+        assertThat(result.get().get("a"), is(nullValue()));
+        assertThat(result.getError().getMessage(), containsString("1 of 3 projects"));
+        assertThat(result.getError().getSuppressed()[0].getMessage(), is("b failed"));
+    }
+
+    @Test
+    public void successfulResult() {
+        final FanOutResult result = new FanOutExecutor(4).execute("project", Arrays.asList("a", "b"), target -> {});
+
+        assertThat(result.isError(), is(false));
+        assertThat(result.getError(), is(nullValue()));
+    }
+
+    @Test
+    public void workersAreBounded() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(2);
+
+        new FanOutExecutor(2).execute("project", Arrays.asList("a", "b", "c", "d", "e"), target -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            started.await(1, TimeUnit.SECONDS);
+            Thread.sleep(10);
+            running.decrementAndGet();
+        });
+
+        assertThat(maxRunning.get(), lessThanOrEqualTo(2));
+        assertThat(maxRunning.get(), is(2));
+    }
+
+    @Test
+    public void timingsOfCallerAreUsedByWorkers() {
+        final PhaseTimings timings = new PhaseTimings();
+        PhaseTimings.setCurrent(timings);
+        final PhaseTimings[] workerTimings = new PhaseTimings[1];
+
+        new FanOutExecutor(1).execute("project", Arrays.asList("a"), target -> workerTimings[0] = PhaseTimings.getCurrent());
+
+        assertThat(workerTimings[0], is(sameInstance(timings)));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.fanout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class HostSelectionTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void singleHostIsNoMultipleSelection() {
+        assertThat(HostSelection.isMultiple("localhost"), is(false));
+        assertThat(HostSelection.isMultiple("localhost:8000"), is(false));
+        assertThat(HostSelection.isMultiple(null), is(false));
+        assertThat(HostSelection.isMultiple("fs1,fs2"), is(true));
+    }
+
+    @Test
+    public void listIsResolvedInOrderWithoutDuplicates() {
+        assertThat(HostSelection.resolve(" fs1 , fs2:8080,,fs1 "), contains("fs1", "fs2:8080"));
+    }
+
+    @Test
+    public void hostWithoutPort() {
+        final HostSelection.Target target = HostSelection.parse("fs1.example.com");
+
+        assertThat(target.getHost(), is("fs1.example.com"));
+        assertThat(target.getPort(), is(nullValue()));
+    }
+
+    @Test
+    public void hostWithPort() {
+        final HostSelection.Target target = HostSelection.parse("fs1.example.com:8080");
+
+        assertThat(target.getHost(), is("fs1.example.com"));
+        assertThat(target.getPort(), is(8080));
+    }
+
+    @Test
+    public void ipv6Addresses() {
+        assertThat(HostSelection.parse("::1").getHost(), is("::1"));
+        assertThat(HostSelection.parse("::1").getPort(), is(nullValue()));
+        assertThat(HostSelection.parse("[::1]:8000").getHost(), is("::1"));
+        assertThat(HostSelection.parse("[::1]:8000").getPort(), is(8000));
+        assertThat(HostSelection.parse("[::1]:8000").toString(), is("[::1]:8000"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPortIsRejected() {
+        HostSelection.parse("fs1:http");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void portOutOfRangeIsRejected() {
+        HostSelection.parse("fs1:70000");
+    }
+
+    @Test
+    public void hostsFileSkipsCommentsAndEmptyLines() throws IOException {
+        final File hostsFile = temporaryFolder.newFile("hosts");
+        Files.write(hostsFile.toPath(), Arrays.asList("# cluster nodes", "fs1", "", "  fs2:8080  ", "fs3,fs4", "fs1"), StandardCharsets.UTF_8);
+
+        assertThat(HostSelection.read(hostsFile.toPath()), contains("fs1", "fs2:8080", "fs3", "fs4"));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.fanout;
+
+import com.espirit.moddev.cli.Cli;
+import com.espirit.moddev.cli.CliContextProvider;
+import com.espirit.moddev.cli.api.command.Command;
+import com.espirit.moddev.cli.api.result.Result;
+import com.espirit.moddev.cli.configuration.GlobalConfig;
+import com.espirit.moddev.cli.results.FanOutResult;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class ProjectFanOutTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void exportCopiesUseOneSynchronizationDirectoryPerProject() {
+        final GlobalConfig config = (GlobalConfig) Cli.parseCommandLine(new String[]{"-p", "first,second", "-sd", "out", "export"});
+
+        final GlobalConfig first = (GlobalConfig) ProjectFanOut.copyForProject(config, "first");
+        final GlobalConfig second = (GlobalConfig) ProjectFanOut.copyForProject(config, "second");
+
+        assertThat(first.getProject(), is("first"));
+        assertThat(first.getSynchronizationDirectoryString(), is(Paths.get("out", "first").toString()));
+        assertThat(second.getSynchronizationDirectoryString(), is(Paths.get("out", "second").toString()));
+        assertThat(first.getSynchronizationDirectoryString(), is(not(second.getSynchronizationDirectoryString())));
+    }
+
+    @Test
+    public void exportCopiesPlaceArchivesInOneDirectoryPerProject() {
+        final GlobalConfig config = (GlobalConfig) Cli.parseCommandLine(new String[]{"-p", "first,second", "-sd", "zip:out/export.zip", "export"});
+
+        final GlobalConfig first = (GlobalConfig) ProjectFanOut.copyForProject(config, "first");
+
+        assertThat(first.getSynchronizationDirectoryString(), is("zip:" + Paths.get("out", "first", "export.zip")));
+    }
+
+    @Test
+    public void projectNamesAreUsableAsDirectoryNames() {
+        final GlobalConfig config = (GlobalConfig) Cli.parseCommandLine(new String[]{"-p", "a/b,c", "-sd", "out", "export"});
+
+        final GlobalConfig copy = (GlobalConfig) ProjectFanOut.copyForProject(config, "a/b");
+
+        assertThat(copy.getSynchronizationDirectoryString(), is(Paths.get("out", "a_b").toString()));
+    }
+
+    @Test
+    public void importCopiesReadTheSameSynchronizationDirectory() {
+        final GlobalConfig config = (GlobalConfig) Cli.parseCommandLine(new String[]{"-p", "first,second", "-sd", "in", "import"});
+
+        final Command<Result> copy = ProjectFanOut.copyForProject(config, "first");
+
+        assertThat(((GlobalConfig) copy).getSynchronizationDirectoryString(), is("in"));
+    }
+
+    @Test
+    public void watchingImportIsRejectedBeforeConnecting() {
+        final CliContextProvider contextProvider = mock(CliContextProvider.class);
+        final Command<Result> command = Cli.parseCommandLine(new String[]{"-p", "first,second", "import", "--watch"});
+
+        final FanOutResult result = new ProjectFanOut(contextProvider).execute(command);
+
+        assertThat(result.isError(), is(true));
+        assertThat(result.getError(), instanceOf(IllegalArgumentException.class));
+        verifyZeroInteractions(contextProvider);
+    }
+
+    @Test
+    public void identifierFilesAreReadOnceForAllCopies() throws Exception {
+        final File file = temporaryFolder.newFile("identifiers.txt");
+        Files.write(file.toPath(), Arrays.asList("page:homepage", "# comment", "root:templatestore"), StandardCharsets.UTF_8);
+        final GlobalConfig config = (GlobalConfig) Cli.parseCommandLine(new String[]{"-p", "first,second", "export", "--", "@" + file.getPath()});
+        Files.delete(file.toPath());
+
+        final GlobalConfig copy = (GlobalConfig) ProjectFanOut.copyForProject(config, "first");
+
+        assertThat(Arrays.asList(config.getCommandLine()), contains("-p", "first,second", "export", "--", "page:homepage", "root:templatestore"));
+        assertThat(Arrays.asList(copy.getCommandLine()), contains("-p", "first,second", "export", "--", "page:homepage", "root:templatestore"));
+    }
+}
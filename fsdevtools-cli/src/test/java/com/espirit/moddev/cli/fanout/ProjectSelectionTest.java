@@ -0,0 +1,77 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.fanout;
+
+import de.espirit.firstspirit.access.Connection;
+import de.espirit.firstspirit.access.project.Project;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ProjectSelectionTest {
+
+    @Test
+    public void singleProjectIsNoMultipleSelection() {
+        assertThat(ProjectSelection.isMultiple("Mithras Energy"), is(false));
+        assertThat(ProjectSelection.isMultiple(null), is(false));
+    }
+
+    @Test
+    public void listsAndPatternsAreMultipleSelections() {
+        assertThat(ProjectSelection.isMultiple("a,b"), is(true));
+        assertThat(ProjectSelection.isMultiple("sibling-*"), is(true));
+        assertThat(ProjectSelection.isMultiple("sibling-?"), is(true));
+    }
+
+    @Test
+    public void listIsResolvedWithoutServer() {
+        final Connection connection = mock(Connection.class);
+
+        assertThat(ProjectSelection.resolve(" a , b,,a ", connection), contains("a", "b"));
+        verify(connection, never()).getProjects();
+    }
+
+    @Test
+    public void patternsAreMatchedAgainstServerProjects() {
+        final Connection connection = mock(Connection.class);
+        final Project[] projects = Arrays.asList("sibling-b", "other", "sibling-a", "sibling.x").stream().map(name -> {
+            final Project project = mock(Project.class);
+            when(project.getName()).thenReturn(name);
+            return project;
+        }).toArray(Project[]::new);
+        when(connection.getProjects()).thenReturn(projects);
+
+        assertThat(ProjectSelection.resolve("other,sibling-*", connection), contains("other", "sibling-a", "sibling-b"));
+        assertThat(ProjectSelection.resolve("sibling?x", connection), contains("sibling.x"));
+        assertThat(ProjectSelection.resolve("missing-*", connection), is(empty()));
+    }
+}
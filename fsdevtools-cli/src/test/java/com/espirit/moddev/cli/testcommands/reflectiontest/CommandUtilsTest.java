@@ -60,6 +60,17 @@ public class CommandUtilsTest {
         Assert.assertTrue("Classpath scan should retrieve custom command class", commandClassesInClasspath.contains(ExampleCustomCommand.class));
     }
 
+    /**
+     * Indexed and unindexed classpath elements together have to provide the same commands as a full classpath scan.
+     */
+    @Test
+    public void indexLookupRetrievesSameCommandClassesAsClasspathScan() {
+        Set<Class<? extends Command>> indexedCommandClasses = CommandUtils.loadCommandClasses();
+        Assert.assertTrue("Index lookup should retrieve custom command class", indexedCommandClasses.contains(ExampleCustomCommand.class));
+        Assert.assertTrue("Index lookup should retrieve export command class", indexedCommandClasses.contains(ExportCommand.class));
+        Assert.assertEquals(CommandUtils.scanForCommandClasses(), indexedCommandClasses);
+    }
+
     public static class ReflectionTest {
         @Test
         public void readsCommandDescriptionFromAnnotatedMethodTest() {
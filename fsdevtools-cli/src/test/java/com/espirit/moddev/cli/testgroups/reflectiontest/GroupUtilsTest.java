@@ -48,4 +48,11 @@ public class GroupUtilsTest {
         Assert.assertTrue("Expected example group class to be found", groupClassesInPackage.contains(ExampleCustomGroup.class));
     }
 
+    @Test
+    public void indexLookupRetrievesTestAndExampleGroups() {
+        final Set<Class<?>> groupClasses = GroupUtils.loadGroupClasses();
+        Assert.assertTrue("Expected example group class to be found", groupClasses.contains(ExampleCustomGroup.class));
+        Assert.assertTrue("Expected test group class to be found", groupClasses.contains(GroupWithDescriptionAnnotation.class));
+    }
+
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ package com.espirit.moddev.cli.util;
 
 import de.espirit.common.util.Listable;
 import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
 import de.espirit.firstspirit.access.store.StoreElement;
 import de.espirit.firstspirit.access.store.templatestore.*;
 
@@ -31,6 +32,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -99,6 +101,26 @@ public class StoreTestUtil {
         SimpleListable.addToSimpleListable(storeElement.getChildren(IDProvider.class), idProvider);
     }
 
+    /**
+     * Creates a mock for an IDProvider with the given id and uid, which is also used as its name. The parent and the
+     * store of the mock are taken from the given parent element.
+     * @param type the class of the IDProvider to mock, for example {@link de.espirit.firstspirit.access.store.pagestore.Page}.
+     * @param id the id of the element.
+     * @param uid the uid and name of the element.
+     * @param parent the parent of the element, either a store or another mocked element.
+     * @param <T> the type of the class to mock.
+     * @return the mock of the given type.
+     */
+    public static <T extends IDProvider> T mockElement(Class<T> type, long id, String uid, StoreElement parent) {
+        final T element = mock(type);
+        when(element.getId()).thenReturn(id);
+        when(element.getUid()).thenReturn(uid);
+        when(element.getName()).thenReturn(uid);
+        doReturn(parent).when(element).getParent();
+        doReturn(parent instanceof Store ? parent : parent.getStore()).when(element).getStore();
+        return element;
+    }
+
     /**
      * Creates a mock for a given templates type and initializes its children to an empty list.
      * @param templatesClass the class of the template store element that should be mocked. For example
@@ -1,5 +1,7 @@
 package com.espirit.moddev.shared;
 
+import java.util.regex.Pattern;
+
 public class StringUtils {
 
     /**
@@ -23,4 +25,39 @@ public class StringUtils {
     public static boolean isEmpty(final String string) {
         return string.trim().isEmpty();
     }
+
+    /**
+     * @param string String to check (may not be null!)
+     * @return true if the String is a glob pattern, that is if it contains <code>*</code> or <code>?</code>
+     */
+    public static boolean isGlob(final String string) {
+        return string.indexOf('*') >= 0 || string.indexOf('?') >= 0;
+    }
+
+    /**
+     * Converts a glob pattern with <code>*</code> for any characters and <code>?</code> for one character
+     * into a regular expression. All other characters match literally.
+     *
+     * @param glob the glob pattern (may not be null!)
+     * @return the pattern
+     */
+    public static Pattern globToPattern(final String glob) {
+        final StringBuilder regex = new StringBuilder();
+        final StringBuilder literal = new StringBuilder();
+        for (char character : glob.toCharArray()) {
+            if (character == '*' || character == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(character == '*' ? ".*" : ".");
+            } else {
+                literal.append(character);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
 }
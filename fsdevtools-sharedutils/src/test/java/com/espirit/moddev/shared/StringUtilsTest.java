@@ -25,4 +25,19 @@ public class StringUtilsTest {
     public void whenExceptionThrown_thenExpectationSatisfied() {
         StringUtils.isEmpty(null);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void isGlob() {
+        assertTrue(StringUtils.isGlob("news_*"));
+        assertTrue(StringUtils.isGlob("teaser_?"));
+        assertFalse(StringUtils.isGlob("news"));
+    }
+
+    @Test
+    public void globToPattern() {
+        assertTrue(StringUtils.globToPattern("a.b*").matcher("a.bc").matches());
+        assertFalse(StringUtils.globToPattern("a.b*").matcher("axbc").matches());
+        assertTrue(StringUtils.globToPattern("teaser_?").matcher("teaser_1").matches());
+        assertFalse(StringUtils.globToPattern("teaser_?").matcher("teaser_12").matches());
+    }
+}